@@ -0,0 +1,529 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Replays a command file against the services without the interactive
+ * menus, e.g. a day's operations or a migration script. One command per
+ * line, fields separated by '|':
+ *
+ * <pre>
+ * register|name|contact|vehicle number|vehicle model
+ * walkin|name|contact|vehicle number|vehicle model
+ * upgrade|customer ID
+ * mechanic|name
+ * supplier|manufacturer|supplier
+ * task|customer ID or vehicle number|priority|job code or description
+ * take|mechanic ID
+ * complete|mechanic ID
+ * part|manufacturer|supplier|description
+ * </pre>
+ *
+ * A task's last field is taken as a job code if a service catalog is set
+ * and has that code, and as a free-text description otherwise.
+ *
+ * Blank lines and lines starting with '#' are skipped. Each command writes
+ * one line of output; a command that fails writes its line number and the
+ * reason, and the replay goes on.
+ *
+ * The replay is pipelined: a reader thread splits lines with a
+ * {@link CommandReader} and hands parsed commands over in chunks, while the
+ * calling thread runs them and writes the results to a buffered writer, so
+ * reading, parsing and running overlap and nothing is flushed per line.
+ */
+public class BatchRunner {
+
+    // Commands handed from the reader thread to the runner at a time
+    private static final int CHUNK_SIZE = 1024;
+
+    // Chunks parsed ahead of the runner before the reader waits
+    private static final int CHUNKS_AHEAD = 16;
+
+    // Marks the end of the commands
+    private static final Command[] END = new Command[0];
+
+    /**
+     * The commands a batch file can contain.
+     */
+    public enum Operation {
+        REGISTER("register", 5),
+        WALKIN("walkin", 5),
+        UPGRADE("upgrade", 2),
+        MECHANIC("mechanic", 2),
+        SUPPLIER("supplier", 3),
+        TASK("task", 4),
+        TAKE("take", 2),
+        COMPLETE("complete", 2),
+        PART("part", 4);
+
+        private final String keyword; // First field of the command
+        private final int fields; // Number of fields, keyword included
+
+        Operation(String keyword, int fields) {
+            this.keyword = keyword;
+            this.fields = fields;
+        }
+    }
+
+    private final CustomerService customerService; // Customer operations
+    private final MechanicService mechanicService; // Mechanic operations
+    private final List<Manufacturer> manufacturers; // Manufacturers and their suppliers
+    private final TaskQueue taskQueue; // Queue of pending tasks
+    private TaskEvents taskEvents = new TaskEvents(); // Where task events are reported
+    private TaskDependencyGraph dependencyGraph; // Tasks waiting for prerequisites, or null
+    private ManufacturerRepository manufacturerRepository; // Persistent copy of the manufacturers, or null
+    private ServiceCatalog serviceCatalog; // Standard jobs tasks can name by code, or null
+    private boolean pruneCompleted; // Whether completed tasks leave the mechanic's list
+    private volatile Throwable readFailure; // Why the reader thread stopped early, or null
+
+    /**
+     * Constructs a runner over the shop's services.
+     *
+     * @param customerService The customer service.
+     * @param mechanicService The mechanic service.
+     * @param manufacturers   The manufacturers and their suppliers.
+     * @param taskQueue       The queue of pending tasks.
+     */
+    public BatchRunner(CustomerService customerService, MechanicService mechanicService,
+            List<Manufacturer> manufacturers, TaskQueue taskQueue) {
+        this.customerService = customerService;
+        this.mechanicService = mechanicService;
+        this.manufacturers = manufacturers;
+        this.taskQueue = taskQueue;
+    }
+
+    /**
+     * Sets where task creations, assignments and completions are reported.
+     *
+     * @param taskEvents The task event dispatcher.
+     */
+    public void setTaskEvents(TaskEvents taskEvents) {
+        this.taskEvents = taskEvents;
+    }
+
+    /**
+     * Sets the dependency graph new tasks are added through, so that they
+     * reach the queue the same way as tasks created from the menu.
+     *
+     * @param dependencyGraph The dependency graph.
+     */
+    public void setDependencyGraph(TaskDependencyGraph dependencyGraph) {
+        this.dependencyGraph = dependencyGraph;
+    }
+
+    /**
+     * Sets the repository new manufacturers and suppliers are saved to.
+     *
+     * @param manufacturerRepository The manufacturer repository.
+     */
+    public void setManufacturerRepository(ManufacturerRepository manufacturerRepository) {
+        this.manufacturerRepository = manufacturerRepository;
+    }
+
+    /**
+     * Sets the catalog whose job codes task commands may use.
+     *
+     * @param serviceCatalog The service catalog.
+     */
+    public void setServiceCatalog(ServiceCatalog serviceCatalog) {
+        this.serviceCatalog = serviceCatalog;
+    }
+
+    /**
+     * Sets whether a completed task is dropped from the mechanic's list, so
+     * that lists stay short over long replays. By default it stays there, as
+     * it does when a task is completed from the menu.
+     *
+     * @param pruneCompleted True to drop completed tasks.
+     */
+    public void setPruneCompleted(boolean pruneCompleted) {
+        this.pruneCompleted = pruneCompleted;
+    }
+
+    /**
+     * Runs every command of a command stream and writes one result line per
+     * command. The output is flushed once at the end, not closed.
+     *
+     * @param in  The command stream; closed when the replay ends.
+     * @param out Where the results are written.
+     * @return Counts of the commands run.
+     * @throws IOException If the commands cannot be read or the results
+     *                     cannot be written, including when reading them
+     *                     failed unexpectedly.
+     */
+    public Summary run(InputStream in, Writer out) throws IOException {
+        BlockingQueue<Command[]> chunks = new ArrayBlockingQueue<>(CHUNKS_AHEAD);
+        readFailure = null;
+        Thread reader = new Thread(() -> read(in, chunks), "batch-reader");
+        reader.setDaemon(true);
+        reader.start();
+        long started = System.nanoTime();
+        long commands = 0;
+        long failed = 0;
+        try {
+            StringBuilder line = new StringBuilder(128);
+            while (true) {
+                Command[] chunk = chunks.take();
+                if (chunk == END) {
+                    break;
+                }
+                for (Command command : chunk) {
+                    line.setLength(0);
+                    if (!execute(command, line)) {
+                        failed++;
+                    }
+                    commands++;
+                    out.append(line).append('\n');
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while replaying commands.", e);
+        } finally {
+            reader.interrupt();
+        }
+        out.flush();
+        Throwable failure = readFailure;
+        if (failure instanceof IOException e) {
+            throw e;
+        }
+        if (failure instanceof Error e) {
+            throw e;
+        }
+        if (failure != null) {
+            throw new IOException("Reading the commands failed: " + failure, failure);
+        }
+        return new Summary(commands, failed, System.nanoTime() - started);
+    }
+
+    // Reader thread: parses lines into chunks of commands until the end of the input, then always queues END
+    private void read(InputStream in, BlockingQueue<Command[]> chunks) {
+        boolean abandoned = false;
+        try (CommandReader reader = new CommandReader(in)) {
+            Command[] chunk = new Command[CHUNK_SIZE];
+            int size = 0;
+            while (reader.next()) {
+                chunk[size++] = parse(reader);
+                if (size == CHUNK_SIZE) {
+                    chunks.put(chunk);
+                    chunk = new Command[CHUNK_SIZE];
+                    size = 0;
+                }
+            }
+            if (size > 0) {
+                Command[] last = new Command[size];
+                System.arraycopy(chunk, 0, last, 0, size);
+                chunks.put(last);
+            }
+        } catch (InterruptedException e) {
+            abandoned = true; // The runner gave up; nobody waits for the end marker
+        } catch (Throwable e) {
+            readFailure = e; // Rethrown by the runner once it reaches END
+        } finally {
+            if (!abandoned) {
+                try {
+                    chunks.put(END);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+
+    /**
+     * Turns the current line of a reader into a command. Lines that cannot be
+     * parsed become commands that report the problem when they are run, so
+     * that errors appear in order with the other results.
+     *
+     * @param reader The reader, positioned on a command line.
+     * @return The command.
+     */
+    private static Command parse(CommandReader reader) {
+        long line = reader.lineNumber();
+        Operation operation = null;
+        for (Operation candidate : Operation.values()) {
+            if (reader.fieldEquals(0, candidate.keyword)) {
+                operation = candidate;
+                break;
+            }
+        }
+        if (operation == null) {
+            return Command.invalid(line, "Unknown command '" + reader.field(0) + "'.");
+        }
+        if (reader.fieldCount() < operation.fields) {
+            return Command.invalid(line, "'" + operation.keyword + "' needs " + (operation.fields - 1)
+                    + " field(s).");
+        }
+        try {
+            switch (operation) {
+                case REGISTER, WALKIN:
+                    return new Command(operation, line, 0, 0, reader.field(1), reader.field(2), reader.field(3),
+                            reader.field(4));
+                case UPGRADE, TAKE, COMPLETE:
+                    return new Command(operation, line, reader.intField(1), 0);
+                case MECHANIC:
+                    return new Command(operation, line, 0, 0, reader.rest(1));
+                case SUPPLIER:
+                    return new Command(operation, line, 0, 0, reader.field(1), reader.field(2));
+                case TASK:
+                    // A numeric key is a customer ID, anything else a vehicle number
+                    if (reader.isIntField(1)) {
+                        return new Command(operation, line, reader.intField(1), reader.intField(2), null,
+                                reader.rest(3));
+                    }
+                    return new Command(operation, line, 0, reader.intField(2), reader.field(1), reader.rest(3));
+                default:
+                    return new Command(operation, line, 0, 0, reader.field(1), reader.field(2), reader.rest(3));
+            }
+        } catch (NumberFormatException e) {
+            return Command.invalid(line, e.getMessage());
+        }
+    }
+
+    /**
+     * Runs one command and describes the outcome.
+     *
+     * @param command The command.
+     * @param result  Where the outcome is written, without line terminator.
+     * @return True if the command succeeded.
+     */
+    private boolean execute(Command command, StringBuilder result) {
+        if (command.operation == null) {
+            return fail(command, command.text[0], result);
+        }
+        try {
+            switch (command.operation) {
+                case REGISTER, WALKIN: {
+                    boolean registered = command.operation == Operation.REGISTER;
+                    Customer customer = registered
+                            ? customerService.register(command.text[0], command.text[1], command.text[2],
+                                    command.text[3])
+                            : customerService.addUnregistered(command.text[0], command.text[1], command.text[2],
+                                    command.text[3]);
+                    result.append(registered ? "Registered" : "Added walk-in").append(" customer ")
+                            .append(customer.getId()).append(" (").append(customer.getName()).append(").");
+                    return true;
+                }
+                case UPGRADE: {
+                    Customer customer = customerService.findById(command.id);
+                    if (customer == null) {
+                        return fail(command, "Customer " + command.id + " not found.", result);
+                    }
+                    if (!customerService.upgrade(customer)) {
+                        return fail(command, "Customer " + command.id + " is already registered.", result);
+                    }
+                    result.append("Customer ").append(customer.getId()).append(" upgraded to registered.");
+                    return true;
+                }
+                case MECHANIC: {
+                    Mechanic mechanic = mechanicService.addMechanic(command.text[0]);
+                    result.append("Added mechanic ").append(mechanic.getId()).append(" (")
+                            .append(mechanic.getName()).append(").");
+                    return true;
+                }
+                case SUPPLIER:
+                    return addSupplier(command, result);
+                case TASK:
+                    return createTask(command, result);
+                case TAKE:
+                    return takeTask(command, result);
+                case COMPLETE:
+                    return completeTask(command, result);
+                default:
+                    return requestPart(command, result);
+            }
+        } catch (RuntimeException e) {
+            return fail(command, "Error: " + e.getMessage(), result);
+        }
+    }
+
+    private boolean addSupplier(Command command, StringBuilder result) {
+        String manufacturerName = command.text[0];
+        Manufacturer manufacturer;
+        synchronized (manufacturers) {
+            manufacturer = findManufacturer(manufacturerName);
+            if (manufacturer == null) {
+                manufacturer = new Manufacturer(manufacturerName);
+                manufacturers.add(manufacturer);
+            }
+        }
+        manufacturer.addPartsSupplier(new PartsSupplier(command.text[1]));
+        if (manufacturerRepository != null) {
+            manufacturerRepository.save(manufacturer);
+        }
+        result.append("Parts supplier ").append(command.text[1]).append(" added to ")
+                .append(manufacturer.getName()).append('.');
+        return true;
+    }
+
+    private boolean createTask(Command command, StringBuilder result) {
+        String vehicleNumber = command.text[0];
+        Customer customer = vehicleNumber == null ? customerService.findById(command.id)
+                : customerService.findByVehicleNumber(vehicleNumber);
+        if (customer == null) {
+            return fail(command, "Customer " + (vehicleNumber == null ? command.id : vehicleNumber) + " not found.",
+                    result);
+        }
+        ServiceType type = serviceCatalog == null ? null : serviceCatalog.lookup(command.text[1]);
+        Task task = type != null ? new Task(type, customer.getVehicleNumber(), command.number)
+                : new Task(command.text[1], customer.getVehicleNumber(), command.number);
+        if (dependencyGraph != null) {
+            dependencyGraph.addTask(task, List.of());
+        } else {
+            taskQueue.addTask(task);
+        }
+        taskEvents.taskCreated(task);
+        result.append("Task '").append(task.getDescription()).append("' created for ").append(customer.getName())
+                .append('.');
+        return true;
+    }
+
+    private boolean takeTask(Command command, StringBuilder result) {
+        Mechanic mechanic = mechanicService.findById(command.id);
+        if (mechanic == null) {
+            return fail(command, "Mechanic " + command.id + " not found.", result);
+        }
+        Task task = taskQueue.nextTaskFor(mechanic);
+        if (task == null) {
+            return fail(command, "No pending tasks.", result);
+        }
+        mechanic.assignTask(task);
+        taskEvents.taskAssigned(task, mechanic);
+        result.append(mechanic.getName()).append(" took task '").append(task.getDescription())
+                .append("' for vehicle ").append(task.getVehicleDetails()).append('.');
+        return true;
+    }
+
+    // Completes the mechanic's oldest open task; it stays in their list, as from the menu, unless pruning is on
+    private boolean completeTask(Command command, StringBuilder result) {
+        Mechanic mechanic = mechanicService.findById(command.id);
+        if (mechanic == null) {
+            return fail(command, "Mechanic " + command.id + " not found.", result);
+        }
+        for (Task task : mechanic.getAssignedTasks()) {
+            if (task.markAsCompleted()) {
+                taskEvents.taskCompleted(task, mechanic);
+                if (pruneCompleted) {
+                    mechanic.completeTask(task);
+                }
+                customerService.getSegmentIndex().recordService(task.getVehicleDetails(), LocalDate.now());
+                result.append(mechanic.getName()).append(" completed task '").append(task.getDescription())
+                        .append("'.");
+                return true;
+            }
+        }
+        return fail(command, "Mechanic " + command.id + " has no open tasks.", result);
+    }
+
+    private boolean requestPart(Command command, StringBuilder result) {
+        Manufacturer manufacturer;
+        synchronized (manufacturers) {
+            manufacturer = findManufacturer(command.text[0]);
+        }
+        if (manufacturer == null) {
+            return fail(command, "Manufacturer " + command.text[0] + " not found.", result);
+        }
+        for (PartsSupplier supplier : manufacturer.getPartsSuppliers()) {
+            if (supplier.getName().equalsIgnoreCase(command.text[1])) {
+                result.append("Part request sent for '").append(command.text[2]).append("' to ")
+                        .append(supplier.getName()).append('.');
+                return true;
+            }
+        }
+        return fail(command, "Supplier " + command.text[1] + " not found for " + manufacturer.getName() + ".",
+                result);
+    }
+
+    private static boolean fail(Command command, String reason, StringBuilder result) {
+        result.append("Line ").append(command.line).append(": ").append(reason);
+        return false;
+    }
+
+    private Manufacturer findManufacturer(String name) {
+        for (Manufacturer manufacturer : manufacturers) {
+            if (manufacturer.getName().equalsIgnoreCase(name)) {
+                return manufacturer;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * A parsed command line. Which arguments are set depends on the operation;
+     * an invalid line has no operation and its reason as the only text.
+     */
+    private static final class Command {
+        private final Operation operation; // What to do, or null if the line is invalid
+        private final long line; // Line number in the command file
+        private final int id; // Customer or mechanic ID argument
+        private final int number; // Priority argument
+        private final String[] text; // Text arguments
+
+        private Command(Operation operation, long line, int id, int number, String... text) {
+            this.operation = operation;
+            this.line = line;
+            this.id = id;
+            this.number = number;
+            this.text = text;
+        }
+
+        private static Command invalid(long line, String reason) {
+            return new Command(null, line, 0, 0, reason);
+        }
+    }
+
+    /**
+     * Counts of the commands of a replay.
+     */
+    public static class Summary {
+        private final long commands; // Commands run
+        private final long failed; // Commands that failed
+        private final long nanos; // Time taken
+
+        private Summary(long commands, long failed, long nanos) {
+            this.commands = commands;
+            this.failed = failed;
+            this.nanos = nanos;
+        }
+
+        /**
+         * Gets the number of commands run.
+         *
+         * @return The command count, failed ones included.
+         */
+        public long getCommands() {
+            return commands;
+        }
+
+        /**
+         * Gets the number of commands that failed.
+         *
+         * @return The failed command count.
+         */
+        public long getFailed() {
+            return failed;
+        }
+
+        /**
+         * Gets the commands run per second of wall-clock time.
+         *
+         * @return The command rate.
+         */
+        public double getCommandsPerSecond() {
+            return nanos == 0 ? 0 : commands * 1e9 / nanos;
+        }
+
+        /**
+         * Gets the wall-clock time the replay took.
+         *
+         * @return The time in milliseconds.
+         */
+        public long getMillis() {
+            return nanos / 1_000_000;
+        }
+    }
+}
@@ -0,0 +1,296 @@
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * The booking calendar of a single service bay, stored as an interval tree.
+ * A bay can only host one job at a time, so the bookings never overlap.
+ *
+ * The tree is a treap ordered by booking start. Every node also tracks, for
+ * its subtree, the earliest start, the latest end and the widest gap
+ * between two consecutive bookings. With those values conflict checks,
+ * bookings and cancellations take O(log n), and the next free slot of a
+ * given length is found without visiting subtrees that cannot hold it.
+ */
+public class BayCalendar {
+    private final int bayNumber; // Number of the bay this calendar belongs to
+    private Node root; // Root of the interval tree
+    private int size; // Number of bookings in the calendar
+
+    /**
+     * Constructs an empty calendar for the given bay.
+     *
+     * @param bayNumber The number of the service bay.
+     */
+    public BayCalendar(int bayNumber) {
+        this.bayNumber = bayNumber;
+    }
+
+    /**
+     * Gets the number of the bay this calendar belongs to.
+     *
+     * @return The bay number.
+     */
+    public int getBayNumber() {
+        return bayNumber;
+    }
+
+    /**
+     * Gets the number of bookings in the calendar.
+     *
+     * @return The number of bookings.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Checks if the bay is free for the whole interval [start, end).
+     *
+     * @param start The start of the interval (inclusive).
+     * @param end   The end of the interval (exclusive).
+     * @return True if no booking overlaps the interval, false otherwise.
+     */
+    public boolean isFree(LocalDateTime start, LocalDateTime end) {
+        return findOverlap(seconds(start), seconds(end)) == null;
+    }
+
+    /**
+     * Finds a booking that overlaps the interval [start, end).
+     *
+     * @param start The start of the interval (inclusive).
+     * @param end   The end of the interval (exclusive).
+     * @return An overlapping booking, or null if the interval is free.
+     */
+    public Booking findConflict(LocalDateTime start, LocalDateTime end) {
+        Node node = findOverlap(seconds(start), seconds(end));
+        return node == null ? null : node.booking;
+    }
+
+    /**
+     * Adds a booking to the calendar unless it overlaps an existing one.
+     *
+     * @param booking The booking to add; it must belong to this bay.
+     * @return True if the booking was added, false if it conflicts.
+     */
+    public boolean book(Booking booking) {
+        if (booking.getBayNumber() != bayNumber) {
+            throw new IllegalArgumentException("Booking is for bay " + booking.getBayNumber()
+                    + ", not bay " + bayNumber + ".");
+        }
+        long start = seconds(booking.getStart());
+        long end = seconds(booking.getEnd());
+        if (findOverlap(start, end) != null) {
+            return false;
+        }
+        root = insert(root, new Node(booking, start, end));
+        size++;
+        return true;
+    }
+
+    /**
+     * Removes a booking from the calendar.
+     *
+     * @param booking The booking to remove.
+     * @return True if the booking was removed, false if it was not found.
+     */
+    public boolean cancel(Booking booking) {
+        int before = size;
+        root = delete(root, seconds(booking.getStart()), booking);
+        return size < before;
+    }
+
+    /**
+     * Finds the earliest start time at or after {@code from} at which the bay
+     * stays free for the given duration.
+     *
+     * @param from     The earliest acceptable start time.
+     * @param duration The length of the job.
+     * @return The earliest free start time.
+     */
+    public LocalDateTime nextAvailable(LocalDateTime from, Duration duration) {
+        long earliest = seconds(from);
+        long length = duration.getSeconds();
+        if (length <= 0) {
+            throw new IllegalArgumentException("Duration must be positive.");
+        }
+        long start = findSlot(root, earliest, length, Long.MIN_VALUE);
+        if (start == Long.MIN_VALUE) {
+            start = root == null ? earliest : Math.max(earliest, root.maxEnd);
+        }
+        return LocalDateTime.ofEpochSecond(start, 0, ZoneOffset.UTC);
+    }
+
+    /**
+     * Lists the bookings in chronological order.
+     *
+     * @return A list of all bookings.
+     */
+    public List<Booking> getBookings() {
+        List<Booking> bookings = new ArrayList<>(size);
+        collect(root, bookings);
+        return bookings;
+    }
+
+    // Returns the earliest feasible start in the gaps before or inside the
+    // subtree, or Long.MIN_VALUE if none of them fits
+    private static long findSlot(Node node, long from, long length, long previousEnd) {
+        if (node == null || node.maxEnd <= from) {
+            return Long.MIN_VALUE;
+        }
+        long leading = Math.max(from, previousEnd);
+        if (node.minStart >= from) {
+            if (leading + length <= node.minStart) {
+                return leading;
+            }
+            if (node.maxGap < length) {
+                return Long.MIN_VALUE;
+            }
+        }
+        long found = findSlot(node.left, from, length, previousEnd);
+        if (found != Long.MIN_VALUE) {
+            return found;
+        }
+        long candidate = Math.max(from, node.left == null ? previousEnd : node.left.maxEnd);
+        if (candidate + length <= node.start) {
+            return candidate;
+        }
+        return findSlot(node.right, from, length, node.end);
+    }
+
+    private Node findOverlap(long start, long end) {
+        Node node = root;
+        while (node != null) {
+            if (node.start < end && start < node.end) {
+                return node;
+            }
+            if (node.left != null && node.left.maxEnd > start) {
+                node = node.left;
+            } else {
+                node = node.right;
+            }
+        }
+        return null;
+    }
+
+    private static Node insert(Node node, Node added) {
+        if (node == null) {
+            return added;
+        }
+        if (added.start < node.start) {
+            node.left = insert(node.left, added);
+            if (node.left.priority > node.priority) {
+                node = rotateRight(node);
+            }
+        } else {
+            node.right = insert(node.right, added);
+            if (node.right.priority > node.priority) {
+                node = rotateLeft(node);
+            }
+        }
+        node.update();
+        return node;
+    }
+
+    private Node delete(Node node, long start, Booking booking) {
+        if (node == null) {
+            return null;
+        }
+        if (node.booking == booking) {
+            size--;
+            return merge(node.left, node.right);
+        }
+        if (start < node.start) {
+            node.left = delete(node.left, start, booking);
+        } else {
+            node.right = delete(node.right, start, booking);
+        }
+        node.update();
+        return node;
+    }
+
+    // Joins two treaps where every start in a precedes every start in b
+    private static Node merge(Node a, Node b) {
+        if (a == null) {
+            return b;
+        }
+        if (b == null) {
+            return a;
+        }
+        if (a.priority > b.priority) {
+            a.right = merge(a.right, b);
+            a.update();
+            return a;
+        }
+        b.left = merge(a, b.left);
+        b.update();
+        return b;
+    }
+
+    private static Node rotateRight(Node node) {
+        Node pivot = node.left;
+        node.left = pivot.right;
+        pivot.right = node;
+        node.update();
+        pivot.update();
+        return pivot;
+    }
+
+    private static Node rotateLeft(Node node) {
+        Node pivot = node.right;
+        node.right = pivot.left;
+        pivot.left = node;
+        node.update();
+        pivot.update();
+        return pivot;
+    }
+
+    private static void collect(Node node, List<Booking> bookings) {
+        if (node != null) {
+            collect(node.left, bookings);
+            bookings.add(node.booking);
+            collect(node.right, bookings);
+        }
+    }
+
+    private static long seconds(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    /**
+     * A booking in the tree together with the summary of its subtree.
+     */
+    private static final class Node {
+        private final Booking booking;
+        private final long start;
+        private final long end;
+        private final int priority = ThreadLocalRandom.current().nextInt();
+        private Node left;
+        private Node right;
+        private long minStart; // Earliest start in the subtree
+        private long maxEnd; // Latest end in the subtree
+        private long maxGap; // Widest gap between consecutive bookings in the subtree
+
+        private Node(Booking booking, long start, long end) {
+            this.booking = booking;
+            this.start = start;
+            this.end = end;
+            update();
+        }
+
+        private void update() {
+            minStart = left == null ? start : left.minStart;
+            maxEnd = right == null ? end : right.maxEnd;
+            maxGap = 0;
+            if (left != null) {
+                maxGap = Math.max(left.maxGap, start - left.maxEnd);
+            }
+            if (right != null) {
+                maxGap = Math.max(maxGap, Math.max(right.maxGap, right.minStart - end));
+            }
+        }
+    }
+}
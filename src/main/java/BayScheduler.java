@@ -0,0 +1,123 @@
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Schedules jobs onto the garage's service bays.
+ * Each bay keeps its bookings in its own BayCalendar, so double-booking a
+ * lift is rejected and free slots are found in logarithmic time per bay.
+ */
+public class BayScheduler {
+    private final List<BayCalendar> bays; // Calendars of all bays, indexed by bay number - 1
+
+    /**
+     * Constructs a scheduler for the given number of bays, numbered from 1.
+     *
+     * @param bayCount The number of service bays.
+     */
+    public BayScheduler(int bayCount) {
+        this.bays = new ArrayList<>();
+        for (int i = 0; i < bayCount; i++) {
+            addBay();
+        }
+    }
+
+    /**
+     * Adds a new service bay with the next free number.
+     *
+     * @return The calendar of the new bay.
+     */
+    public BayCalendar addBay() {
+        BayCalendar bay = new BayCalendar(bays.size() + 1);
+        bays.add(bay);
+        return bay;
+    }
+
+    /**
+     * Gets the calendars of all bays.
+     *
+     * @return An unmodifiable list of bay calendars.
+     */
+    public List<BayCalendar> getBays() {
+        return Collections.unmodifiableList(bays);
+    }
+
+    /**
+     * Gets the calendar of a bay.
+     *
+     * @param bayNumber The bay number, starting at 1.
+     * @return The calendar of the bay, or null if there is no such bay.
+     */
+    public BayCalendar getBay(int bayNumber) {
+        if (bayNumber < 1 || bayNumber > bays.size()) {
+            return null;
+        }
+        return bays.get(bayNumber - 1);
+    }
+
+    /**
+     * Books a specific slot on a specific bay.
+     *
+     * @param bayNumber The bay number.
+     * @param start     The start of the slot.
+     * @param duration  The length of the slot.
+     * @param task      The task worked on during the slot, or null.
+     * @return The booking, or null if the bay does not exist or is taken.
+     */
+    public Booking book(int bayNumber, LocalDateTime start, Duration duration, Task task) {
+        BayCalendar bay = getBay(bayNumber);
+        if (bay == null) {
+            return null;
+        }
+        Booking booking = new Booking(bayNumber, start, start.plus(duration), task);
+        return bay.book(booking) ? booking : null;
+    }
+
+    /**
+     * Finds the earliest slot of the given length on any bay without booking
+     * it. Ties go to the lowest bay number.
+     *
+     * @param from     The earliest acceptable start time.
+     * @param duration The length of the job.
+     * @return A proposed booking without a task, or null if there are no bays.
+     */
+    public Booking findNextAvailable(LocalDateTime from, Duration duration) {
+        Booking best = null;
+        for (BayCalendar bay : bays) {
+            LocalDateTime start = bay.nextAvailable(from, duration);
+            if (best == null || start.isBefore(best.getStart())) {
+                best = new Booking(bay.getBayNumber(), start, start.plus(duration), null);
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Books the earliest slot of the given length on any bay.
+     *
+     * @param from     The earliest acceptable start time.
+     * @param duration The length of the job.
+     * @param task     The task worked on during the slot, or null.
+     * @return The booking, or null if there are no bays.
+     */
+    public Booking bookNextAvailable(LocalDateTime from, Duration duration, Task task) {
+        Booking slot = findNextAvailable(from, duration);
+        if (slot == null) {
+            return null;
+        }
+        return book(slot.getBayNumber(), slot.getStart(), duration, task);
+    }
+
+    /**
+     * Cancels a booking.
+     *
+     * @param booking The booking to cancel.
+     * @return True if the booking was cancelled, false if it was not found.
+     */
+    public boolean cancel(Booking booking) {
+        BayCalendar bay = getBay(booking.getBayNumber());
+        return bay != null && bay.cancel(booking);
+    }
+}
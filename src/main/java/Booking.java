@@ -0,0 +1,82 @@
+import java.time.LocalDateTime;
+
+/**
+ * Represents a booked time slot on a service bay.
+ * A booking covers the half-open interval [start, end) and may carry the
+ * task that will be worked on during the slot.
+ */
+public class Booking {
+    private final int bayNumber; // Number of the booked service bay
+    private final LocalDateTime start; // Start of the slot (inclusive)
+    private final LocalDateTime end; // End of the slot (exclusive)
+    private final Task task; // Task worked on during the slot, may be null
+
+    /**
+     * Constructs a Booking for the given bay and time slot.
+     *
+     * @param bayNumber The number of the booked service bay.
+     * @param start     The start of the slot (inclusive).
+     * @param end       The end of the slot (exclusive).
+     * @param task      The task worked on during the slot, or null.
+     */
+    public Booking(int bayNumber, LocalDateTime start, LocalDateTime end, Task task) {
+        if (!end.isAfter(start)) {
+            throw new IllegalArgumentException("Booking must end after it starts.");
+        }
+        this.bayNumber = bayNumber;
+        this.start = start;
+        this.end = end;
+        this.task = task;
+    }
+
+    /**
+     * Gets the number of the booked service bay.
+     *
+     * @return The bay number.
+     */
+    public int getBayNumber() {
+        return bayNumber;
+    }
+
+    /**
+     * Gets the start of the slot.
+     *
+     * @return The inclusive start time.
+     */
+    public LocalDateTime getStart() {
+        return start;
+    }
+
+    /**
+     * Gets the end of the slot.
+     *
+     * @return The exclusive end time.
+     */
+    public LocalDateTime getEnd() {
+        return end;
+    }
+
+    /**
+     * Gets the task worked on during the slot.
+     *
+     * @return The task, or null if the slot is not tied to a task.
+     */
+    public Task getTask() {
+        return task;
+    }
+
+    /**
+     * Returns a string representation of the booking.
+     *
+     * @return A string representation of the booking.
+     */
+    @Override
+    public String toString() {
+        return "Booking{" +
+                "bay=" + bayNumber +
+                ", start=" + start +
+                ", end=" + end +
+                ", task=" + (task == null ? "none" : task.getDescription()) +
+                '}';
+    }
+}
@@ -0,0 +1,203 @@
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A TaskQueue for a bounded range of integer priorities, keeping one FIFO
+ * bucket per priority instead of a heap.
+ *
+ * Adding a task appends it to its priority's bucket and taking one polls
+ * the head of the highest non-empty bucket, found through a bitmap of
+ * non-empty buckets, so both are O(1) for ranges up to 64 priorities and
+ * grow only with the range, never with the number of tasks. Tasks of equal
+ * priority come out strictly in the order they were added, which the heap
+ * does not guarantee.
+ *
+ * Priorities outside the range are served with the nearest end of it: a
+ * task above the top priority waits behind earlier top-priority tasks. The
+ * task itself keeps its priority.
+ *
+ * Snapshots are not free in this mode: they collect every pending task into
+ * a new heap, once per change. getTasksAsList lists the buckets directly, so
+ * it shows the FIFO order within each priority.
+ */
+public class BucketTaskQueue extends TaskQueue {
+
+    // Lowest priority with its own bucket when none is given
+    public static final int DEFAULT_MIN_PRIORITY = 0;
+
+    // Highest priority with its own bucket when none is given
+    public static final int DEFAULT_MAX_PRIORITY = 10;
+
+    private final int minPriority; // Priority of the first bucket
+    private final ArrayDeque<Task>[] buckets; // Pending tasks of each priority, oldest first
+    private final long[] nonEmpty; // Bit i set while bucket i holds tasks
+    private volatile int size; // Number of pending tasks
+    private long version; // Number of changes made to the queue
+    private TaskQueueSnapshot snapshot; // Snapshot of the current version, or null until asked for
+    private List<Task> listed; // Tasks of the current version in order, or null until asked for
+
+    /**
+     * Constructs an empty queue for priorities DEFAULT_MIN_PRIORITY to
+     * DEFAULT_MAX_PRIORITY.
+     */
+    public BucketTaskQueue() {
+        this(DEFAULT_MIN_PRIORITY, DEFAULT_MAX_PRIORITY);
+    }
+
+    /**
+     * Constructs an empty queue for a range of priorities.
+     *
+     * @param minPriority The lowest priority with its own bucket.
+     * @param maxPriority The highest priority with its own bucket.
+     * @throws IllegalArgumentException If the range is empty.
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    public BucketTaskQueue(int minPriority, int maxPriority) {
+        if (maxPriority < minPriority) {
+            throw new IllegalArgumentException("The highest priority cannot be below the lowest.");
+        }
+        long range = (long) maxPriority - minPriority + 1;
+        if (range > Integer.MAX_VALUE / 2) {
+            throw new IllegalArgumentException("Priority range too large for a bucket queue: " + range + ".");
+        }
+        this.minPriority = minPriority;
+        this.buckets = new ArrayDeque[(int) range];
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new ArrayDeque<>();
+        }
+        this.nonEmpty = new long[(buckets.length + 63) >>> 6];
+    }
+
+    // Add a new task to the tail of its priority's bucket
+    @Override
+    public synchronized void addTask(Task task) {
+        TaskQueueEvent event = new TaskQueueEvent("addTask");
+        append(task);
+        changed();
+        event.finish(this, 1);
+    }
+
+    // Add several tasks at once, in the given order within each priority
+    @Override
+    public synchronized void addTasks(Collection<Task> tasks) {
+        TaskQueueEvent event = new TaskQueueEvent("addTasks");
+        for (Task task : tasks) {
+            append(task);
+        }
+        changed();
+        event.finish(this, tasks.size());
+    }
+
+    // Retrieve and remove the oldest task of the highest priority
+    @Override
+    public synchronized Task getNextTask() {
+        TaskQueueEvent event = new TaskQueueEvent("getNextTask");
+        int bucket = highestNonEmpty();
+        if (bucket < 0) {
+            event.finish(this, 0);
+            return null;
+        }
+        Task task = buckets[bucket].pollFirst();
+        if (buckets[bucket].isEmpty()) {
+            nonEmpty[bucket >>> 6] &= ~(1L << bucket);
+        }
+        size--;
+        changed();
+        event.finish(this, 1);
+        return task;
+    }
+
+    // Check if the queue is empty
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    // Get the number of pending tasks
+    @Override
+    public int size() {
+        return size;
+    }
+
+    // Remove a specific task from its bucket, O(bucket size); returns false if it was not queued
+    @Override
+    public synchronized boolean removeTask(Task task) {
+        TaskQueueEvent event = new TaskQueueEvent("removeTask");
+        int bucket = bucketOf(task.getPriority());
+        if (!buckets[bucket].removeFirstOccurrence(task)) {
+            event.finish(this, 0);
+            return false;
+        }
+        if (buckets[bucket].isEmpty()) {
+            nonEmpty[bucket >>> 6] &= ~(1L << bucket);
+        }
+        size--;
+        changed();
+        event.finish(this, 1);
+        return true;
+    }
+
+    // Retrieve all tasks as a list, highest priority first and oldest first within a priority
+    @Override
+    public synchronized List<Task> getTasksAsList() {
+        if (listed == null) {
+            List<Task> tasks = new ArrayList<>(size);
+            for (int bucket = buckets.length - 1; bucket >= 0; bucket--) {
+                tasks.addAll(buckets[bucket]);
+            }
+            listed = Collections.unmodifiableList(tasks);
+        }
+        return listed;
+    }
+
+    // Collect all pending tasks into an immutable snapshot, O(n log n) once per change in this mode
+    @Override
+    public synchronized TaskQueueSnapshot snapshot() {
+        if (snapshot == null) {
+            PersistentTaskHeap tasks = PersistentTaskHeap.EMPTY;
+            for (ArrayDeque<Task> bucket : buckets) {
+                for (Task task : bucket) {
+                    tasks = tasks.insert(task);
+                }
+            }
+            snapshot = new TaskQueueSnapshot(version, tasks);
+        }
+        return snapshot;
+    }
+
+    private void append(Task task) {
+        int bucket = bucketOf(task.getPriority());
+        buckets[bucket].addLast(task);
+        nonEmpty[bucket >>> 6] |= 1L << bucket;
+        size++;
+    }
+
+    // Bucket index of a priority, clamped to the range
+    private int bucketOf(int priority) {
+        if (priority <= minPriority) {
+            return 0;
+        }
+        long index = (long) priority - minPriority;
+        return index >= buckets.length ? buckets.length - 1 : (int) index;
+    }
+
+    // Highest bucket holding tasks, or -1 if all are empty
+    private int highestNonEmpty() {
+        for (int word = nonEmpty.length - 1; word >= 0; word--) {
+            if (nonEmpty[word] != 0) {
+                return (word << 6) + 63 - Long.numberOfLeadingZeros(nonEmpty[word]);
+            }
+        }
+        return -1;
+    }
+
+    // Drops the cached views; callers hold the lock
+    private void changed() {
+        version++;
+        snapshot = null;
+        listed = null;
+    }
+}
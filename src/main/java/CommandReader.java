@@ -0,0 +1,288 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Splits a command file into lines and fields without regular expressions.
+ * The input is read in large chunks into one byte buffer; a line is found
+ * by scanning for the newline and its fields by scanning for the separator
+ * character, so each line costs one pass over its bytes. Fields are only
+ * turned into Strings when asked for, and numbers are parsed straight from
+ * the bytes.
+ *
+ * Fields are separated by '|'. Blank lines and lines starting with '#' are
+ * skipped. A trailing '\r' is ignored, so files with Windows line endings
+ * work. Text is UTF-8.
+ */
+public class CommandReader implements Closeable {
+
+    // Field separator
+    private static final byte SEPARATOR = '|';
+
+    // Bytes read from the input at a time
+    private static final int CHUNK_SIZE = 1 << 16;
+
+    // Fields a line can have before the field arrays grow
+    private static final int INITIAL_FIELDS = 8;
+
+    private final InputStream in; // Command file
+    private byte[] buffer; // Bytes read and not yet consumed, from position to limit
+    private int position; // Start of the next line in the buffer
+    private int limit; // End of the valid bytes in the buffer
+    private boolean endOfInput; // Whether the input has no more bytes
+    private int[] starts; // Start offset of each field of the current line
+    private int[] ends; // End offset (exclusive) of each field of the current line
+    private int fields; // Number of fields of the current line
+    private int lineEnd; // End offset of the current line, without line terminator
+    private long lineNumber; // Number of the current line, counting from 1
+
+    /**
+     * Constructs a reader over a command stream.
+     *
+     * @param in The command stream; closed with the reader.
+     */
+    public CommandReader(InputStream in) {
+        this.in = in;
+        this.buffer = new byte[CHUNK_SIZE];
+        this.starts = new int[INITIAL_FIELDS];
+        this.ends = new int[INITIAL_FIELDS];
+    }
+
+    /**
+     * Moves to the next command line.
+     *
+     * @return True if there is one, false at the end of the input.
+     * @throws IOException If the input cannot be read.
+     */
+    public boolean next() throws IOException {
+        while (true) {
+            int newline = indexOfNewline();
+            while (newline < 0 && !endOfInput) {
+                fill();
+                newline = indexOfNewline();
+            }
+            if (newline < 0 && position == limit) {
+                return false;
+            }
+            int end = newline < 0 ? limit : newline;
+            int start = position;
+            position = newline < 0 ? limit : newline + 1;
+            lineNumber++;
+            if (end > start && buffer[end - 1] == '\r') {
+                end--;
+            }
+            if (end == start || buffer[start] == '#') {
+                continue;
+            }
+            split(start, end);
+            return true;
+        }
+    }
+
+    /**
+     * Gets the number of the current line in the input, counting skipped
+     * lines.
+     *
+     * @return The line number, from 1.
+     */
+    public long lineNumber() {
+        return lineNumber;
+    }
+
+    /**
+     * Gets the number of fields of the current line.
+     *
+     * @return The field count, at least 1.
+     */
+    public int fieldCount() {
+        return fields;
+    }
+
+    /**
+     * Gets a field of the current line.
+     *
+     * @param index The field index, from 0.
+     * @return The field text, trimmed of surrounding spaces.
+     * @throws IllegalArgumentException If the line has no such field.
+     */
+    public String field(int index) {
+        checkField(index);
+        return text(starts[index], ends[index]);
+    }
+
+    /**
+     * Gets the current line from a field to the end, separators included,
+     * e.g. for a free-text description that may contain '|'.
+     *
+     * @param index The first field index, from 0.
+     * @return The text, trimmed of surrounding spaces.
+     * @throws IllegalArgumentException If the line has no such field.
+     */
+    public String rest(int index) {
+        checkField(index);
+        return text(starts[index], lineEnd);
+    }
+
+    /**
+     * Checks whether a field of the current line equals the given ASCII
+     * text, without creating a String.
+     *
+     * @param index The field index, from 0.
+     * @param text  The ASCII text.
+     * @return True if the trimmed field is exactly the text.
+     */
+    public boolean fieldEquals(int index, String text) {
+        if (index >= fields) {
+            return false;
+        }
+        int start = skipSpaces(starts[index], ends[index]);
+        int end = trimSpaces(start, ends[index]);
+        if (end - start != text.length()) {
+            return false;
+        }
+        for (int i = 0; i < text.length(); i++) {
+            if (buffer[start + i] != text.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Parses a field of the current line as a decimal int, straight from its
+     * bytes.
+     *
+     * @param index The field index, from 0.
+     * @return The number.
+     * @throws NumberFormatException    If the field is not a valid int.
+     * @throws IllegalArgumentException If the line has no such field.
+     */
+    public int intField(int index) {
+        checkField(index);
+        int start = skipSpaces(starts[index], ends[index]);
+        int end = trimSpaces(start, ends[index]);
+        boolean negative = start < end && buffer[start] == '-';
+        int i = negative ? start + 1 : start;
+        if (i == end) {
+            throw new NumberFormatException("Expected a number but found '" + text(starts[index], ends[index])
+                    + "'.");
+        }
+        long value = 0;
+        for (; i < end; i++) {
+            int digit = buffer[i] - '0';
+            if (digit < 0 || digit > 9 || value > Integer.MAX_VALUE) {
+                throw new NumberFormatException("Expected a number but found '" + text(starts[index], ends[index])
+                        + "'.");
+            }
+            value = value * 10 + digit;
+        }
+        value = negative ? -value : value;
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            throw new NumberFormatException("Number out of range: " + text(starts[index], ends[index]) + ".");
+        }
+        return (int) value;
+    }
+
+    /**
+     * Checks whether a field of the current line is a decimal int.
+     *
+     * @param index The field index, from 0.
+     * @return True if intField would succeed.
+     */
+    public boolean isIntField(int index) {
+        if (index >= fields) {
+            return false;
+        }
+        int start = skipSpaces(starts[index], ends[index]);
+        int end = trimSpaces(start, ends[index]);
+        if (start < end && buffer[start] == '-') {
+            start++;
+        }
+        if (start == end || end - start > 10) {
+            return false;
+        }
+        for (int i = start; i < end; i++) {
+            if (buffer[i] < '0' || buffer[i] > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private int indexOfNewline() {
+        for (int i = position; i < limit; i++) {
+            if (buffer[i] == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // Moves the unconsumed bytes to the front, growing the buffer for long lines, and reads more
+    private void fill() throws IOException {
+        int remaining = limit - position;
+        if (remaining > buffer.length - CHUNK_SIZE) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, remaining + CHUNK_SIZE));
+        }
+        System.arraycopy(buffer, position, buffer, 0, remaining);
+        position = 0;
+        limit = remaining;
+        int read = in.read(buffer, limit, buffer.length - limit);
+        if (read < 0) {
+            endOfInput = true;
+        } else {
+            limit += read;
+        }
+    }
+
+    private void split(int start, int end) {
+        fields = 0;
+        lineEnd = end;
+        int fieldStart = start;
+        for (int i = start; i <= end; i++) {
+            if (i == end || buffer[i] == SEPARATOR) {
+                if (fields == starts.length) {
+                    starts = Arrays.copyOf(starts, fields * 2);
+                    ends = Arrays.copyOf(ends, fields * 2);
+                }
+                starts[fields] = fieldStart;
+                ends[fields] = i;
+                fields++;
+                fieldStart = i + 1;
+            }
+        }
+    }
+
+    private void checkField(int index) {
+        if (index < 0 || index >= fields) {
+            throw new IllegalArgumentException("Line " + lineNumber + " has no field " + (index + 1) + ".");
+        }
+    }
+
+    private String text(int start, int end) {
+        start = skipSpaces(start, end);
+        end = trimSpaces(start, end);
+        return new String(buffer, start, end - start, StandardCharsets.UTF_8);
+    }
+
+    private int skipSpaces(int start, int end) {
+        while (start < end && buffer[start] == ' ') {
+            start++;
+        }
+        return start;
+    }
+
+    private int trimSpaces(int start, int end) {
+        while (end > start && buffer[end - 1] == ' ') {
+            end--;
+        }
+        return end;
+    }
+}
@@ -0,0 +1,457 @@
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * A compressed set of non-negative int values, laid out like a Roaring
+ * bitmap. Values are grouped into chunks of 65536 by their upper 16 bits;
+ * a sparse chunk keeps its low bits in a sorted array and a dense chunk
+ * switches to a plain 8 KB bit array. AND, OR and AND NOT work chunk by
+ * chunk and never touch chunks that cannot contribute to the result.
+ */
+public final class CompressedBitmap {
+
+    // A chunk holding more values than this is stored as a bit array
+    private static final int ARRAY_LIMIT = 4096;
+
+    // Number of 64-bit words in a bit-array chunk
+    private static final int CHUNK_WORDS = 1024;
+
+    private int[] keys; // Upper 16 bits of each chunk, sorted ascending
+    private Chunk[] chunks; // Chunk contents, parallel to keys
+    private int chunkCount; // Number of chunks in use
+
+    /**
+     * Constructs an empty bitmap.
+     */
+    public CompressedBitmap() {
+        this.keys = new int[4];
+        this.chunks = new Chunk[4];
+    }
+
+    /**
+     * Adds a value to the bitmap.
+     *
+     * @param value The non-negative value to add.
+     */
+    public void add(int value) {
+        checkValue(value);
+        int key = value >>> 16;
+        int i = Arrays.binarySearch(keys, 0, chunkCount, key);
+        if (i < 0) {
+            i = -i - 1;
+            insertChunk(i, key, new Chunk());
+        }
+        chunks[i].add((char) value);
+    }
+
+    /**
+     * Removes a value from the bitmap.
+     *
+     * @param value The value to remove.
+     */
+    public void remove(int value) {
+        if (value < 0) {
+            return;
+        }
+        int i = Arrays.binarySearch(keys, 0, chunkCount, value >>> 16);
+        if (i >= 0) {
+            chunks[i].remove((char) value);
+            if (chunks[i].cardinality == 0) {
+                removeChunk(i);
+            }
+        }
+    }
+
+    /**
+     * Checks if the bitmap contains a value.
+     *
+     * @param value The value to look for.
+     * @return True if the value is present, false otherwise.
+     */
+    public boolean contains(int value) {
+        if (value < 0) {
+            return false;
+        }
+        int i = Arrays.binarySearch(keys, 0, chunkCount, value >>> 16);
+        return i >= 0 && chunks[i].contains((char) value);
+    }
+
+    /**
+     * Gets the number of values in the bitmap.
+     *
+     * @return The number of values.
+     */
+    public int cardinality() {
+        int total = 0;
+        for (int i = 0; i < chunkCount; i++) {
+            total += chunks[i].cardinality;
+        }
+        return total;
+    }
+
+    /**
+     * Checks if the bitmap holds no values.
+     *
+     * @return True if the bitmap is empty, false otherwise.
+     */
+    public boolean isEmpty() {
+        return chunkCount == 0;
+    }
+
+    /**
+     * Returns a new bitmap with the values present in both bitmaps.
+     *
+     * @param other The bitmap to intersect with.
+     * @return The intersection.
+     */
+    public CompressedBitmap and(CompressedBitmap other) {
+        CompressedBitmap result = new CompressedBitmap();
+        int i = 0;
+        int j = 0;
+        while (i < chunkCount && j < other.chunkCount) {
+            if (keys[i] < other.keys[j]) {
+                i++;
+            } else if (keys[i] > other.keys[j]) {
+                j++;
+            } else {
+                Chunk chunk = Chunk.and(chunks[i], other.chunks[j]);
+                if (chunk.cardinality > 0) {
+                    result.appendChunk(keys[i], chunk);
+                }
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns a new bitmap with the values present in either bitmap.
+     *
+     * @param other The bitmap to unite with.
+     * @return The union.
+     */
+    public CompressedBitmap or(CompressedBitmap other) {
+        CompressedBitmap result = new CompressedBitmap();
+        int i = 0;
+        int j = 0;
+        while (i < chunkCount || j < other.chunkCount) {
+            if (j >= other.chunkCount || (i < chunkCount && keys[i] < other.keys[j])) {
+                result.appendChunk(keys[i], chunks[i].copy());
+                i++;
+            } else if (i >= chunkCount || keys[i] > other.keys[j]) {
+                result.appendChunk(other.keys[j], other.chunks[j].copy());
+                j++;
+            } else {
+                result.appendChunk(keys[i], Chunk.or(chunks[i], other.chunks[j]));
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns a new bitmap with the values of this bitmap that are not in the
+     * other one.
+     *
+     * @param other The bitmap whose values are excluded.
+     * @return The difference.
+     */
+    public CompressedBitmap andNot(CompressedBitmap other) {
+        CompressedBitmap result = new CompressedBitmap();
+        int j = 0;
+        for (int i = 0; i < chunkCount; i++) {
+            while (j < other.chunkCount && other.keys[j] < keys[i]) {
+                j++;
+            }
+            Chunk chunk = j < other.chunkCount && other.keys[j] == keys[i]
+                    ? Chunk.andNot(chunks[i], other.chunks[j])
+                    : chunks[i].copy();
+            if (chunk.cardinality > 0) {
+                result.appendChunk(keys[i], chunk);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns an independent copy of the bitmap.
+     *
+     * @return The copy.
+     */
+    public CompressedBitmap copy() {
+        CompressedBitmap result = new CompressedBitmap();
+        for (int i = 0; i < chunkCount; i++) {
+            result.appendChunk(keys[i], chunks[i].copy());
+        }
+        return result;
+    }
+
+    /**
+     * Visits every value in ascending order.
+     *
+     * @param action The action to run for each value.
+     */
+    public void forEach(IntConsumer action) {
+        for (int i = 0; i < chunkCount; i++) {
+            chunks[i].forEach(keys[i] << 16, action);
+        }
+    }
+
+    /**
+     * Lists the values in ascending order.
+     *
+     * @return An array of all values.
+     */
+    public int[] toArray() {
+        int[] values = new int[cardinality()];
+        int[] position = { 0 };
+        forEach(value -> values[position[0]++] = value);
+        return values;
+    }
+
+    private static void checkValue(int value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Bitmap values must be non-negative: " + value);
+        }
+    }
+
+    private void insertChunk(int index, int key, Chunk chunk) {
+        ensureCapacity();
+        System.arraycopy(keys, index, keys, index + 1, chunkCount - index);
+        System.arraycopy(chunks, index, chunks, index + 1, chunkCount - index);
+        keys[index] = key;
+        chunks[index] = chunk;
+        chunkCount++;
+    }
+
+    private void appendChunk(int key, Chunk chunk) {
+        ensureCapacity();
+        keys[chunkCount] = key;
+        chunks[chunkCount] = chunk;
+        chunkCount++;
+    }
+
+    private void removeChunk(int index) {
+        System.arraycopy(keys, index + 1, keys, index, chunkCount - index - 1);
+        System.arraycopy(chunks, index + 1, chunks, index, chunkCount - index - 1);
+        chunkCount--;
+        chunks[chunkCount] = null;
+    }
+
+    private void ensureCapacity() {
+        if (chunkCount == keys.length) {
+            keys = Arrays.copyOf(keys, chunkCount * 2);
+            chunks = Arrays.copyOf(chunks, chunkCount * 2);
+        }
+    }
+
+    /**
+     * The low 16 bits of the values in one chunk, stored either as a sorted
+     * array (sparse) or as a bit array (dense).
+     */
+    private static final class Chunk {
+        private char[] values = new char[4]; // Sorted values while sparse
+        private long[] words; // Bit array once dense, null while sparse
+        private int cardinality; // Number of values in the chunk
+
+        void add(char value) {
+            if (words != null) {
+                long bit = 1L << value;
+                if ((words[value >>> 6] & bit) == 0) {
+                    words[value >>> 6] |= bit;
+                    cardinality++;
+                }
+                return;
+            }
+            int i = Arrays.binarySearch(values, 0, cardinality, value);
+            if (i >= 0) {
+                return;
+            }
+            if (cardinality == ARRAY_LIMIT) {
+                toWords();
+                add(value);
+                return;
+            }
+            i = -i - 1;
+            if (cardinality == values.length) {
+                values = Arrays.copyOf(values, Math.min(ARRAY_LIMIT, cardinality * 2));
+            }
+            System.arraycopy(values, i, values, i + 1, cardinality - i);
+            values[i] = value;
+            cardinality++;
+        }
+
+        void remove(char value) {
+            if (words != null) {
+                long bit = 1L << value;
+                if ((words[value >>> 6] & bit) != 0) {
+                    words[value >>> 6] &= ~bit;
+                    cardinality--;
+                    if (cardinality <= ARRAY_LIMIT) {
+                        toValues();
+                    }
+                }
+                return;
+            }
+            int i = Arrays.binarySearch(values, 0, cardinality, value);
+            if (i >= 0) {
+                System.arraycopy(values, i + 1, values, i, cardinality - i - 1);
+                cardinality--;
+            }
+        }
+
+        boolean contains(char value) {
+            if (words != null) {
+                return (words[value >>> 6] & (1L << value)) != 0;
+            }
+            return Arrays.binarySearch(values, 0, cardinality, value) >= 0;
+        }
+
+        void forEach(int base, IntConsumer action) {
+            if (words == null) {
+                for (int i = 0; i < cardinality; i++) {
+                    action.accept(base | values[i]);
+                }
+                return;
+            }
+            for (int w = 0; w < CHUNK_WORDS; w++) {
+                long word = words[w];
+                while (word != 0) {
+                    action.accept(base | (w << 6) | Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+        }
+
+        Chunk copy() {
+            Chunk chunk = new Chunk();
+            chunk.cardinality = cardinality;
+            if (words != null) {
+                chunk.words = words.clone();
+            } else {
+                chunk.values = Arrays.copyOf(values, Math.max(4, cardinality));
+            }
+            return chunk;
+        }
+
+        static Chunk and(Chunk a, Chunk b) {
+            if (a.words == null || b.words == null) {
+                // At least one side is sparse: probe its values in the other
+                Chunk sparse = a.words == null ? a : b;
+                Chunk other = sparse == a ? b : a;
+                Chunk result = new Chunk();
+                result.values = new char[Math.max(4, sparse.cardinality)];
+                for (int i = 0; i < sparse.cardinality; i++) {
+                    if (other.contains(sparse.values[i])) {
+                        result.values[result.cardinality++] = sparse.values[i];
+                    }
+                }
+                return result;
+            }
+            long[] words = new long[CHUNK_WORDS];
+            for (int w = 0; w < CHUNK_WORDS; w++) {
+                words[w] = a.words[w] & b.words[w];
+            }
+            return fromWords(words);
+        }
+
+        static Chunk or(Chunk a, Chunk b) {
+            if (a.words == null && b.words == null && a.cardinality + b.cardinality <= ARRAY_LIMIT) {
+                Chunk result = new Chunk();
+                result.values = new char[Math.max(4, a.cardinality + b.cardinality)];
+                int i = 0;
+                int j = 0;
+                while (i < a.cardinality || j < b.cardinality) {
+                    char next;
+                    if (j >= b.cardinality || (i < a.cardinality && a.values[i] < b.values[j])) {
+                        next = a.values[i++];
+                    } else if (i >= a.cardinality || a.values[i] > b.values[j]) {
+                        next = b.values[j++];
+                    } else {
+                        next = a.values[i++];
+                        j++;
+                    }
+                    result.values[result.cardinality++] = next;
+                }
+                return result;
+            }
+            long[] words = a.asWords();
+            long[] other = b.words != null ? b.words : b.asWords();
+            for (int w = 0; w < CHUNK_WORDS; w++) {
+                words[w] |= other[w];
+            }
+            return fromWords(words);
+        }
+
+        static Chunk andNot(Chunk a, Chunk b) {
+            if (a.words == null) {
+                Chunk result = new Chunk();
+                result.values = new char[Math.max(4, a.cardinality)];
+                for (int i = 0; i < a.cardinality; i++) {
+                    if (!b.contains(a.values[i])) {
+                        result.values[result.cardinality++] = a.values[i];
+                    }
+                }
+                return result;
+            }
+            long[] words = a.words.clone();
+            if (b.words == null) {
+                for (int i = 0; i < b.cardinality; i++) {
+                    words[b.values[i] >>> 6] &= ~(1L << b.values[i]);
+                }
+            } else {
+                for (int w = 0; w < CHUNK_WORDS; w++) {
+                    words[w] &= ~b.words[w];
+                }
+            }
+            return fromWords(words);
+        }
+
+        // Returns a fresh bit-array copy of this chunk
+        private long[] asWords() {
+            if (words != null) {
+                return words.clone();
+            }
+            long[] result = new long[CHUNK_WORDS];
+            for (int i = 0; i < cardinality; i++) {
+                result[values[i] >>> 6] |= 1L << values[i];
+            }
+            return result;
+        }
+
+        private void toWords() {
+            words = asWords();
+            values = null;
+        }
+
+        private void toValues() {
+            char[] sparse = new char[Math.max(4, cardinality)];
+            int n = 0;
+            for (int w = 0; w < CHUNK_WORDS; w++) {
+                long word = words[w];
+                while (word != 0) {
+                    sparse[n++] = (char) ((w << 6) | Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+            values = sparse;
+            words = null;
+        }
+
+        private static Chunk fromWords(long[] words) {
+            Chunk chunk = new Chunk();
+            chunk.words = words;
+            int count = 0;
+            for (long word : words) {
+                count += Long.bitCount(word);
+            }
+            chunk.cardinality = count;
+            if (count <= ARRAY_LIMIT) {
+                chunk.toValues();
+            }
+            return chunk;
+        }
+    }
+}
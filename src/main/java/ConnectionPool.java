@@ -0,0 +1,226 @@
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A fixed-size pool of JDBC connections, opened on first use. Each pooled
+ * connection keeps its prepared statements, so a statement is parsed once
+ * per connection instead of once per use.
+ *
+ * Connections are handed out with auto-commit off. Closing a borrowed
+ * connection rolls back anything not committed and returns it to the pool.
+ */
+public class ConnectionPool implements AutoCloseable {
+
+    // Prepared statements kept per connection
+    private static final int STATEMENT_CACHE_SIZE = 32;
+
+    // How long to wait for a free connection before giving up
+    private static final long BORROW_TIMEOUT_SECONDS = 30;
+
+    private final String url; // JDBC URL of the database
+    private final int maxSize; // Maximum number of connections
+    private final BlockingQueue<PooledConnection> idle; // Connections not borrowed
+    private final List<PooledConnection> all; // Every connection opened
+    private long prepared; // Statements parsed, cache misses
+    private long reused; // Statements taken from a cache
+    private boolean closed; // Whether close() was called
+
+    /**
+     * Constructs a pool. No connection is opened yet.
+     *
+     * @param url     The JDBC URL of the database.
+     * @param maxSize The maximum number of open connections.
+     */
+    public ConnectionPool(String url, int maxSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("Pool size must be at least 1.");
+        }
+        this.url = url;
+        this.maxSize = maxSize;
+        this.idle = new ArrayBlockingQueue<>(maxSize);
+        this.all = new ArrayList<>();
+    }
+
+    /**
+     * Borrows a connection, opening a new one if none is idle and the pool
+     * is not full, and waiting for one otherwise.
+     *
+     * @return The connection; close it to give it back.
+     * @throws SQLException If a connection cannot be opened or none becomes
+     *                      free in time.
+     */
+    public PooledConnection borrow() throws SQLException {
+        PooledConnection connection = idle.poll();
+        if (connection == null) {
+            connection = openIfRoom();
+        }
+        if (connection == null) {
+            try {
+                connection = idle.poll(BORROW_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SQLException("Interrupted while waiting for a database connection.", e);
+            }
+            if (connection == null) {
+                throw new SQLException("No database connection became free in time.");
+            }
+        }
+        return connection;
+    }
+
+    /**
+     * Gets the number of statements parsed because no connection had them
+     * cached.
+     *
+     * @return The number of prepared statements created.
+     */
+    public synchronized long getPreparedCount() {
+        return prepared;
+    }
+
+    /**
+     * Gets the number of statements served from a connection's cache.
+     *
+     * @return The number of reused statements.
+     */
+    public synchronized long getReusedCount() {
+        return reused;
+    }
+
+    /**
+     * Closes every connection. Borrowed connections are closed as well, so
+     * call this only once the pool is no longer used.
+     */
+    @Override
+    public synchronized void close() {
+        closed = true;
+        for (PooledConnection connection : all) {
+            connection.closeQuietly();
+        }
+        all.clear();
+        idle.clear();
+    }
+
+    private synchronized PooledConnection openIfRoom() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed.");
+        }
+        if (all.size() >= maxSize) {
+            return null;
+        }
+        Connection connection = DriverManager.getConnection(url);
+        connection.setAutoCommit(false);
+        PooledConnection pooled = new PooledConnection(connection);
+        all.add(pooled);
+        return pooled;
+    }
+
+    private synchronized void counted(boolean hit) {
+        if (hit) {
+            reused++;
+        } else {
+            prepared++;
+        }
+    }
+
+    /**
+     * A borrowed connection with its own cache of prepared statements.
+     */
+    public final class PooledConnection implements AutoCloseable {
+        private final Connection connection;
+        private final Map<String, PreparedStatement> statements;
+
+        private PooledConnection(Connection connection) {
+            this.connection = connection;
+            // Least recently used statements are closed when the cache is full
+            this.statements = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+                    if (size() <= STATEMENT_CACHE_SIZE) {
+                        return false;
+                    }
+                    try {
+                        eldest.getValue().close();
+                    } catch (SQLException e) {
+                        // The statement is dropped either way
+                    }
+                    return true;
+                }
+            };
+        }
+
+        /**
+         * Gets a prepared statement for the given SQL, parsing it only the
+         * first time this connection sees it. Parameters left from an
+         * earlier use are cleared.
+         *
+         * @param sql The SQL text.
+         * @return The prepared statement; do not close it.
+         * @throws SQLException If the SQL cannot be prepared.
+         */
+        public PreparedStatement prepare(String sql) throws SQLException {
+            PreparedStatement statement = statements.get(sql);
+            counted(statement != null);
+            if (statement == null) {
+                statement = connection.prepareStatement(sql);
+                statements.put(sql, statement);
+            } else {
+                statement.clearParameters();
+            }
+            return statement;
+        }
+
+        /**
+         * Gets the underlying connection, e.g. for one-off statements.
+         *
+         * @return The JDBC connection.
+         */
+        public Connection connection() {
+            return connection;
+        }
+
+        /**
+         * Commits the current transaction.
+         *
+         * @throws SQLException If the commit fails.
+         */
+        public void commit() throws SQLException {
+            connection.commit();
+        }
+
+        /**
+         * Rolls back anything not committed and returns the connection to the
+         * pool.
+         */
+        @Override
+        public void close() {
+            try {
+                connection.rollback();
+                idle.offer(this);
+            } catch (SQLException e) {
+                // A broken connection is dropped and replaced on demand
+                synchronized (ConnectionPool.this) {
+                    all.remove(this);
+                }
+                closeQuietly();
+            }
+        }
+
+        private void closeQuietly() {
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                // Closing anyway
+            }
+        }
+    }
+}
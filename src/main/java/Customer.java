@@ -1,3 +1,5 @@
+import java.time.LocalDate;
+
 /**
  * Represents a customer in the system.
  * Each customer has an ID, personal details, vehicle information, and a
@@ -23,6 +25,9 @@ public class Customer {
     // Registration status of the customer
     private boolean isRegistered;
 
+    // Date of the customer's last completed service, null if never serviced
+    private LocalDate lastServiceDate;
+
     /**
      * Constructs a new Customer with the specified details.
      *
@@ -107,6 +112,24 @@ public class Customer {
         isRegistered = registered;
     }
 
+    /**
+     * Retrieves the date of the customer's last completed service.
+     *
+     * @return The last service date, or null if the customer was never serviced.
+     */
+    public LocalDate getLastServiceDate() {
+        return lastServiceDate;
+    }
+
+    /**
+     * Updates the date of the customer's last completed service.
+     *
+     * @param lastServiceDate The new last service date.
+     */
+    public void setLastServiceDate(LocalDate lastServiceDate) {
+        this.lastServiceDate = lastServiceDate;
+    }
+
     /**
      * Returns a string representation of the customer's details.
      *
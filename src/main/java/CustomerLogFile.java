@@ -0,0 +1,385 @@
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * An append-only file of customer records. Every write appends a new
+ * version of the record; the in-memory index points at the latest one and
+ * compact() rewrites the file without the superseded versions.
+ *
+ * Each record is a length-prefixed customer in the GarageStateFile
+ * encoding. The index is kept in primitive arrays, a file offset and
+ * record length per customer ID and a hash table from vehicle number hashes
+ * to IDs, so it costs about 40 bytes per customer no matter how large the
+ * records are.
+ *
+ * Opening an existing file rebuilds the index with one sequential read and
+ * drops a record left half-written by a crash.
+ *
+ * Reads may run in parallel with each other; writes and compaction are
+ * exclusive.
+ */
+public class CustomerLogFile implements Closeable {
+
+    // Bytes of the length prefix of each record
+    private static final int HEADER_BYTES = 4;
+
+    private final Path file; // Location of the log
+    private final ReentrantReadWriteLock lock; // Reads shared, writes and compaction exclusive
+    private FileChannel channel; // Open log file
+    private long end; // Offset just past the last complete record
+    private long[] offsets; // File offset + 1 of each customer ID's latest record, 0 if none
+    private int[] lengths; // Length of each customer ID's latest record
+    private long[] plateHashes; // Open-addressing table of vehicle number hashes, 0 if empty
+    private int[] plateIds; // Customer ID of each vehicle number hash slot
+    private int plates; // Used slots in the vehicle number table
+    private int count; // Number of distinct customers stored
+    private int maxId = -1; // Highest customer ID stored, -1 if none
+    private long liveBytes; // Bytes of the latest records only
+
+    /**
+     * Opens a log, creating it if it does not exist.
+     *
+     * @param file The log file.
+     * @throws IOException If the file cannot be read or created.
+     */
+    public CustomerLogFile(Path file) throws IOException {
+        this.file = file;
+        this.lock = new ReentrantReadWriteLock();
+        this.offsets = new long[1024];
+        this.lengths = new int[1024];
+        this.plateHashes = new long[1024];
+        this.plateIds = new int[1024];
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        rebuildIndex();
+    }
+
+    /**
+     * Appends the current state of a customer.
+     *
+     * @param customer The customer to store.
+     * @throws IOException If the record cannot be written.
+     */
+    public void write(Customer customer) throws IOException {
+        byte[] record = encode(customer);
+        lock.writeLock().lock();
+        try {
+            ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + record.length);
+            buffer.putInt(record.length).put(record).flip();
+            long offset = end;
+            while (buffer.hasRemaining()) {
+                channel.write(buffer, offset + buffer.position());
+            }
+            end = offset + HEADER_BYTES + record.length;
+            index(customer, offset, HEADER_BYTES + record.length);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Reads the latest record of a customer.
+     *
+     * @param id The customer ID.
+     * @return The customer, or null if the log has no record of them.
+     * @throws IOException If the record cannot be read.
+     */
+    public Customer read(int id) throws IOException {
+        lock.readLock().lock();
+        try {
+            if (id < 0 || id >= offsets.length || offsets[id] == 0) {
+                return null;
+            }
+            ByteBuffer record = ByteBuffer.allocate(lengths[id]);
+            readFully(record, offsets[id] - 1);
+            return decode(record.array(), HEADER_BYTES);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Checks whether the log has a record of a customer.
+     *
+     * @param id The customer ID.
+     * @return True if the customer is stored.
+     */
+    public boolean contains(int id) {
+        lock.readLock().lock();
+        try {
+            return id >= 0 && id < offsets.length && offsets[id] != 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Gets the IDs of customers whose vehicle number may match. Different
+     * numbers can share a hash, and a customer may have changed vehicles
+     * since, so callers must check the records themselves.
+     *
+     * @param vehicleNumber The vehicle number, ignoring case and surrounding
+     *                      spaces.
+     * @return The candidate customer IDs, possibly empty.
+     */
+    public int[] candidatesFor(String vehicleNumber) {
+        long hash = plateHash(vehicleNumber);
+        lock.readLock().lock();
+        try {
+            int[] found = new int[0];
+            int mask = plateHashes.length - 1;
+            for (int slot = (int) hash & mask; plateHashes[slot] != 0; slot = (slot + 1) & mask) {
+                if (plateHashes[slot] == hash) {
+                    found = Arrays.copyOf(found, found.length + 1);
+                    found[found.length - 1] = plateIds[slot];
+                }
+            }
+            return found;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Gets the number of distinct customers stored.
+     *
+     * @return The number of customers.
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return count;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Gets the highest customer ID stored.
+     *
+     * @return The highest ID, or -1 if the log is empty.
+     */
+    public int maxId() {
+        lock.readLock().lock();
+        try {
+            return maxId;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Reads the latest record of every customer, in ID order.
+     *
+     * @param action The action to run for each customer.
+     * @throws IOException If a record cannot be read.
+     */
+    public void forEach(Consumer<Customer> action) throws IOException {
+        lock.readLock().lock();
+        try {
+            for (int id = 0; id <= maxId; id++) {
+                if (offsets[id] != 0) {
+                    ByteBuffer record = ByteBuffer.allocate(lengths[id]);
+                    readFully(record, offsets[id] - 1);
+                    action.accept(decode(record.array(), HEADER_BYTES));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Gets the size of the log including superseded records.
+     *
+     * @return The file size in bytes.
+     */
+    public long fileSize() {
+        lock.readLock().lock();
+        try {
+            return end;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Gets the size the log would have after compaction.
+     *
+     * @return The bytes of the latest records.
+     */
+    public long liveBytes() {
+        lock.readLock().lock();
+        try {
+            return liveBytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Rewrites the log with only the latest record of each customer. The new
+     * file replaces the old one atomically, so a crash leaves one or the
+     * other.
+     *
+     * @throws IOException If the log cannot be rewritten.
+     */
+    public void compact() throws IOException {
+        lock.writeLock().lock();
+        try {
+            Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+            long[] moved = new long[offsets.length];
+            long position = 0;
+            try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                for (int id = 0; id < offsets.length; id++) {
+                    if (offsets[id] == 0) {
+                        continue;
+                    }
+                    long offset = offsets[id] - 1;
+                    ByteBuffer record = ByteBuffer.allocate(lengths[id]);
+                    readFully(record, offset);
+                    record.flip();
+                    moved[id] = position + 1;
+                    while (record.hasRemaining()) {
+                        position += out.write(record, position);
+                    }
+                }
+                out.force(true);
+            }
+            channel.close();
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            offsets = moved;
+            end = position;
+            liveBytes = position;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.writeLock().lock();
+        try {
+            channel.close();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Reads the whole log once, pointing the index at the latest record of each customer
+    private void rebuildIndex() throws IOException {
+        long size = channel.size();
+        long offset = 0;
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        while (offset + HEADER_BYTES <= size) {
+            header.clear();
+            readFully(header, offset);
+            int length = header.getInt(0);
+            if (length <= 0 || offset + HEADER_BYTES + length > size) {
+                break; // Half-written record at the end
+            }
+            ByteBuffer record = ByteBuffer.allocate(length);
+            readFully(record, offset + HEADER_BYTES);
+            index(decode(record.array(), 0), offset, HEADER_BYTES + length);
+            offset += HEADER_BYTES + length;
+        }
+        end = offset;
+        if (end < size) {
+            channel.truncate(end);
+        }
+    }
+
+    private void index(Customer customer, long offset, int length) {
+        int id = customer.getId();
+        if (id >= offsets.length) {
+            offsets = Arrays.copyOf(offsets, Math.max(id + 1, offsets.length * 2));
+            lengths = Arrays.copyOf(lengths, offsets.length);
+        }
+        if (offsets[id] == 0) {
+            count++;
+            maxId = Math.max(maxId, id);
+        }
+        liveBytes += length - lengths[id];
+        offsets[id] = offset + 1;
+        lengths[id] = length;
+        if (customer.getVehicleNumber() != null) {
+            addPlate(plateHash(customer.getVehicleNumber()), id);
+        }
+    }
+
+    // Adds a vehicle number hash for an ID unless the pair is already present
+    private void addPlate(long hash, int id) {
+        if ((plates + 1) * 2 > plateHashes.length) {
+            long[] oldHashes = plateHashes;
+            int[] oldIds = plateIds;
+            plateHashes = new long[oldHashes.length * 2];
+            plateIds = new int[oldHashes.length * 2];
+            plates = 0;
+            for (int i = 0; i < oldHashes.length; i++) {
+                if (oldHashes[i] != 0) {
+                    addPlate(oldHashes[i], oldIds[i]);
+                }
+            }
+        }
+        int mask = plateHashes.length - 1;
+        int slot = (int) hash & mask;
+        while (plateHashes[slot] != 0) {
+            if (plateHashes[slot] == hash && plateIds[slot] == id) {
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        plateHashes[slot] = hash;
+        plateIds[slot] = id;
+        plates++;
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException("Customer log ends inside a record.");
+            }
+        }
+    }
+
+    private static byte[] encode(Customer customer) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            GarageStateFile.writeCustomer(out, customer);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static Customer decode(byte[] record, int start) throws IOException {
+        return GarageStateFile.readCustomer(
+                new DataInputStream(new ByteArrayInputStream(record, start, record.length - start)));
+    }
+
+    // 64-bit FNV-1a hash of the normalized vehicle number; never 0, which marks empty slots
+    static long plateHash(String vehicleNumber) {
+        String normalized = vehicleNumber.trim().toUpperCase(Locale.ROOT);
+        long hash = 0xCBF29CE484222325L;
+        for (int i = 0; i < normalized.length(); i++) {
+            hash ^= normalized.charAt(i);
+            hash *= 0x100000001B3L;
+        }
+        return hash == 0 ? 1 : hash;
+    }
+}
@@ -0,0 +1,56 @@
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Stores customers, registered and unregistered alike, by customer ID.
+ */
+public interface CustomerRepository {
+
+    /**
+     * Stores a new customer or the current state of a known one.
+     *
+     * @param customer The customer.
+     */
+    void save(Customer customer);
+
+    /**
+     * Stores several customers.
+     *
+     * @param customers The customers.
+     */
+    default void saveAll(Collection<Customer> customers) {
+        for (Customer customer : customers) {
+            save(customer);
+        }
+    }
+
+    /**
+     * Removes a customer, e.g. one merged into another. Removing an unknown
+     * customer has no effect.
+     *
+     * @param id The customer ID.
+     */
+    void delete(int id);
+
+    /**
+     * Finds a customer by ID.
+     *
+     * @param id The customer ID.
+     * @return The customer, or null if none is stored under that ID.
+     */
+    Customer findById(int id);
+
+    /**
+     * Gets every stored customer.
+     *
+     * @return The customers in ID order.
+     */
+    List<Customer> findAll();
+
+    /**
+     * Gets the number of stored customers.
+     *
+     * @return The number of customers.
+     */
+    int count();
+}
@@ -0,0 +1,94 @@
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * A customer segment built from filters over a CustomerSegmentIndex, for
+ * example "registered AND model = Corolla AND not serviced in 6 months".
+ * All filters are combined with AND; each one is evaluated as a bitmap
+ * operation, so no customer list is ever scanned.
+ */
+public class CustomerSegment {
+    private final CustomerSegmentIndex index; // Index the segment is evaluated against
+    private CompressedBitmap filter; // Intersection of the filters so far, null for none
+
+    /**
+     * Constructs a segment matching every customer in the index.
+     *
+     * @param index The index to evaluate the segment against.
+     */
+    public CustomerSegment(CustomerSegmentIndex index) {
+        this.index = index;
+    }
+
+    /**
+     * Restricts the segment to registered or unregistered customers.
+     *
+     * @param isRegistered True to keep registered customers, false to keep
+     *                     unregistered ones.
+     * @return This segment.
+     */
+    public CustomerSegment registered(boolean isRegistered) {
+        return and(index.registered(isRegistered));
+    }
+
+    /**
+     * Restricts the segment to customers with vehicles from a manufacturer.
+     *
+     * @param manufacturer The manufacturer name.
+     * @return This segment.
+     */
+    public CustomerSegment manufacturer(String manufacturer) {
+        return and(index.withManufacturer(manufacturer));
+    }
+
+    /**
+     * Restricts the segment to customers driving a vehicle model.
+     *
+     * @param model The vehicle model.
+     * @return This segment.
+     */
+    public CustomerSegment model(String model) {
+        return and(index.withModel(model));
+    }
+
+    /**
+     * Restricts the segment to customers not serviced within the given number
+     * of months before a reference date.
+     *
+     * @param months The number of months without a service.
+     * @param today  The reference date.
+     * @return This segment.
+     */
+    public CustomerSegment notServicedWithinMonths(int months, LocalDate today) {
+        return and(index.notServicedSince(today.minusMonths(months)));
+    }
+
+    /**
+     * Adds an arbitrary bitmap condition, e.g. an OR of other index bitmaps.
+     *
+     * @param condition The customer IDs to intersect with.
+     * @return This segment.
+     */
+    public CustomerSegment and(CompressedBitmap condition) {
+        filter = filter == null ? condition : filter.and(condition);
+        return this;
+    }
+
+    /**
+     * Evaluates the segment.
+     *
+     * @return A bitmap of the IDs of the matching customers.
+     */
+    public CompressedBitmap evaluate() {
+        return filter == null ? index.all() : filter.copy();
+    }
+
+    /**
+     * Evaluates the segment and resolves the matching customers.
+     *
+     * @return The matching customers in ascending ID order.
+     */
+    public List<Customer> customers() {
+        return index.customers(evaluate());
+    }
+}
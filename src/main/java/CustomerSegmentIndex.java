@@ -0,0 +1,329 @@
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Keeps compressed bitmap indexes over customer attributes so that customer
+ * segments can be evaluated with bitmap AND/OR/NOT instead of scanning the
+ * customer lists. Bit positions are customer IDs.
+ *
+ * Indexed attributes are the registration flag, the vehicle manufacturer
+ * (the first word of the vehicle model, e.g. "Toyota" in "Toyota Corolla"),
+ * the vehicle model (both the full text and the part after the
+ * manufacturer) and the month of the last completed service. The index is
+ * safe to use from several threads.
+ *
+ * Customers moved to a TieredCustomerStore can be evicted from the index's
+ * heap references while staying in every bitmap; they are looked up in the
+ * store when a segment is resolved or a service is recorded.
+ */
+public class CustomerSegmentIndex {
+    private final List<Customer> customersById; // Customers by ID for direct lookup
+    private final Map<String, Integer> idsByVehicleNumber; // Customer ID per vehicle number
+    private final CompressedBitmap allCustomers; // Every indexed customer
+    private final CompressedBitmap registered; // Customers with the registration flag set
+    private final Map<String, CompressedBitmap> byManufacturer; // Customers per vehicle manufacturer
+    private final Map<String, CompressedBitmap> byModel; // Customers per vehicle model
+    private final Map<YearMonth, CompressedBitmap> byServiceMonth; // Customers per last service month
+    private TieredCustomerStore archive; // Store holding evicted customers, or null
+
+    /**
+     * Constructs an empty index.
+     */
+    public CustomerSegmentIndex() {
+        this.customersById = new ArrayList<>();
+        this.idsByVehicleNumber = new HashMap<>();
+        this.allCustomers = new CompressedBitmap();
+        this.registered = new CompressedBitmap();
+        this.byManufacturer = new HashMap<>();
+        this.byModel = new HashMap<>();
+        this.byServiceMonth = new HashMap<>();
+    }
+
+    /**
+     * Adds a customer to the index. Adding an already indexed customer has no
+     * effect.
+     *
+     * @param customer The customer to index.
+     */
+    public synchronized void add(Customer customer) {
+        int id = customer.getId();
+        if (allCustomers.contains(id)) {
+            return;
+        }
+        while (customersById.size() <= id) {
+            customersById.add(null);
+        }
+        customersById.set(id, customer);
+        allCustomers.add(id);
+        if (customer.getVehicleNumber() != null) {
+            idsByVehicleNumber.put(normalize(customer.getVehicleNumber()), id);
+        }
+        if (customer.isRegistered()) {
+            registered.add(id);
+        }
+        String model = customer.getVehicleModel() == null ? "" : customer.getVehicleModel().trim();
+        if (!model.isEmpty()) {
+            bitmapFor(byModel, normalize(model)).add(id);
+            int space = model.indexOf(' ');
+            if (space > 0) {
+                bitmapFor(byManufacturer, normalize(model.substring(0, space))).add(id);
+                bitmapFor(byModel, normalize(model.substring(space + 1))).add(id);
+            }
+        }
+        if (customer.getLastServiceDate() != null) {
+            bitmapFor(byServiceMonth, YearMonth.from(customer.getLastServiceDate())).add(id);
+        }
+    }
+
+    /**
+     * Sets the store that holds customers evicted from the heap.
+     *
+     * @param archive The customer store.
+     */
+    public synchronized void setArchive(TieredCustomerStore archive) {
+        this.archive = archive;
+    }
+
+    /**
+     * Drops the index's heap reference to a customer who has been written to
+     * the archive. The customer stays in every segment.
+     *
+     * @param customer The archived customer.
+     */
+    public synchronized void evict(Customer customer) {
+        int id = customer.getId();
+        if (archive == null || id >= customersById.size()) {
+            return;
+        }
+        customersById.set(id, null);
+        if (customer.getVehicleNumber() != null) {
+            idsByVehicleNumber.remove(normalize(customer.getVehicleNumber()), id);
+        }
+    }
+
+    /**
+     * Removes a customer from the index and from every segment, e.g. after
+     * the customer was merged into another one.
+     *
+     * @param customer The customer to remove.
+     */
+    public synchronized void remove(Customer customer) {
+        int id = customer.getId();
+        if (!allCustomers.contains(id)) {
+            return;
+        }
+        allCustomers.remove(id);
+        registered.remove(id);
+        if (id < customersById.size()) {
+            customersById.set(id, null);
+        }
+        if (customer.getVehicleNumber() != null) {
+            idsByVehicleNumber.remove(normalize(customer.getVehicleNumber()), id);
+        }
+        removeFromAll(byManufacturer, id);
+        removeFromAll(byModel, id);
+        removeFromAll(byServiceMonth, id);
+    }
+
+    /**
+     * Refreshes the registration flag of an indexed customer, e.g. after the
+     * customer was upgraded to registered.
+     *
+     * @param customer The customer whose registration flag changed.
+     */
+    public synchronized void updateRegistration(Customer customer) {
+        if (!allCustomers.contains(customer.getId())) {
+            add(customer);
+        } else if (customer.isRegistered()) {
+            registered.add(customer.getId());
+        } else {
+            registered.remove(customer.getId());
+        }
+    }
+
+    /**
+     * Records a completed service for the customer owning the given vehicle
+     * and moves them to the matching last-service bucket.
+     *
+     * @param vehicleNumber The vehicle number of the serviced vehicle.
+     * @param date          The date the service was completed.
+     * @return The serviced customer, or null if no indexed customer owns the
+     *         vehicle.
+     */
+    public synchronized Customer recordService(String vehicleNumber, LocalDate date) {
+        if (vehicleNumber == null) {
+            return null;
+        }
+        Integer id = idsByVehicleNumber.get(normalize(vehicleNumber));
+        Customer customer = id == null ? null : customerAt(id);
+        if (customer == null && archive != null) {
+            customer = archive.findByVehicleNumber(vehicleNumber);
+            if (customer != null && !allCustomers.contains(customer.getId())) {
+                customer = null;
+            }
+        }
+        if (customer == null) {
+            return null;
+        }
+        id = customer.getId();
+        LocalDate previous = customer.getLastServiceDate();
+        if (previous != null && !date.isAfter(previous)) {
+            return customer;
+        }
+        if (previous != null) {
+            YearMonth month = YearMonth.from(previous);
+            CompressedBitmap bucket = byServiceMonth.get(month);
+            bucket.remove(id);
+            if (bucket.isEmpty()) {
+                byServiceMonth.remove(month);
+            }
+        }
+        customer.setLastServiceDate(date);
+        bitmapFor(byServiceMonth, YearMonth.from(date)).add(id);
+        if (customersById.get(id) == null) {
+            archive.put(customer); // Archived customers are only kept on disk
+        }
+        return customer;
+    }
+
+    /**
+     * Gets every indexed customer.
+     *
+     * @return A bitmap of all customer IDs.
+     */
+    public synchronized CompressedBitmap all() {
+        return allCustomers.copy();
+    }
+
+    /**
+     * Gets the customers with the given registration status.
+     *
+     * @param isRegistered True for registered customers, false for unregistered
+     *                     ones.
+     * @return A bitmap of the matching customer IDs.
+     */
+    public synchronized CompressedBitmap registered(boolean isRegistered) {
+        return isRegistered ? registered.copy() : allCustomers.andNot(registered);
+    }
+
+    /**
+     * Gets the customers whose vehicle is made by the given manufacturer.
+     *
+     * @param manufacturer The manufacturer name, case-insensitive.
+     * @return A bitmap of the matching customer IDs.
+     */
+    public synchronized CompressedBitmap withManufacturer(String manufacturer) {
+        CompressedBitmap bitmap = byManufacturer.get(normalize(manufacturer));
+        return bitmap == null ? new CompressedBitmap() : bitmap.copy();
+    }
+
+    /**
+     * Gets the customers driving the given vehicle model. Both the full model
+     * text ("Toyota Corolla") and the model alone ("Corolla") match.
+     *
+     * @param model The vehicle model, case-insensitive.
+     * @return A bitmap of the matching customer IDs.
+     */
+    public synchronized CompressedBitmap withModel(String model) {
+        CompressedBitmap bitmap = byModel.get(normalize(model));
+        return bitmap == null ? new CompressedBitmap() : bitmap.copy();
+    }
+
+    /**
+     * Gets the customers whose last completed service was on or after the
+     * given date.
+     *
+     * @param since The earliest service date to include.
+     * @return A bitmap of the matching customer IDs.
+     */
+    public synchronized CompressedBitmap servicedSince(LocalDate since) {
+        YearMonth firstMonth = YearMonth.from(since);
+        CompressedBitmap result = new CompressedBitmap();
+        for (Map.Entry<YearMonth, CompressedBitmap> bucket : byServiceMonth.entrySet()) {
+            if (bucket.getKey().isAfter(firstMonth)) {
+                result = result.or(bucket.getValue());
+            } else if (bucket.getKey().equals(firstMonth)) {
+                // Boundary month: only part of the bucket qualifies
+                CompressedBitmap partial = new CompressedBitmap();
+                bucket.getValue().forEach(id -> {
+                    if (!customerAt(id).getLastServiceDate().isBefore(since)) {
+                        partial.add(id);
+                    }
+                });
+                result = result.or(partial);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Gets the customers who have not been serviced on or after the given
+     * date, including customers who were never serviced.
+     *
+     * @param since The date from which a service would exclude a customer.
+     * @return A bitmap of the matching customer IDs.
+     */
+    public synchronized CompressedBitmap notServicedSince(LocalDate since) {
+        return allCustomers.andNot(servicedSince(since));
+    }
+
+    /**
+     * Resolves a bitmap of customer IDs to the customers themselves.
+     *
+     * @param ids The customer IDs.
+     * @return The customers in ascending ID order.
+     */
+    public synchronized List<Customer> customers(CompressedBitmap ids) {
+        List<Customer> result = new ArrayList<>(ids.cardinality());
+        ids.forEach(id -> {
+            Customer customer = customerAt(id);
+            if (customer != null) {
+                result.add(customer);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Starts a segment query over this index.
+     *
+     * @return A new segment with no filters, matching every customer.
+     */
+    public synchronized CustomerSegment segment() {
+        return new CustomerSegment(this);
+    }
+
+    // The customer with the given ID, from the heap or else from the archive
+    private Customer customerAt(int id) {
+        Customer customer = id < customersById.size() ? customersById.get(id) : null;
+        if (customer == null && archive != null && allCustomers.contains(id)) {
+            customer = archive.findById(id);
+        }
+        return customer;
+    }
+
+    private static <K> CompressedBitmap bitmapFor(Map<K, CompressedBitmap> index, K key) {
+        return index.computeIfAbsent(key, k -> new CompressedBitmap());
+    }
+
+    private static String normalize(String value) {
+        return value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    // Removes an ID from every bitmap of a map, dropping bitmaps left empty
+    private static <K> void removeFromAll(Map<K, CompressedBitmap> bitmaps, int id) {
+        for (Iterator<CompressedBitmap> iterator = bitmaps.values().iterator(); iterator.hasNext();) {
+            CompressedBitmap bitmap = iterator.next();
+            bitmap.remove(id);
+            if (bitmap.isEmpty()) {
+                iterator.remove();
+            }
+        }
+    }
+}
@@ -0,0 +1,418 @@
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Thread-safe customer operations shared by every manager session.
+ *
+ * IDs come from a lock-free allocator. The customer lists are guarded by
+ * their own monitors, held only while a list is changed or copied; when both
+ * are needed, the unregistered list is locked first. Readers get snapshot
+ * copies and never see a customer in both lists or in neither. Listed
+ * customers are also indexed by ID and by vehicle number in concurrent maps,
+ * changed under the list monitors, so that lookups take no lock.
+ *
+ * With a TieredCustomerStore attached, customers who have not been in for a
+ * while can be archived: they leave the lists for the store on disk and are
+ * then found through the store's cache. The lists and the store never hold
+ * the same customer.
+ */
+public class CustomerService {
+    private final List<Customer> customers; // Registered customers
+    private final List<Customer> unregisteredCustomers; // Walk-in customers
+    private final Map<Integer, Customer> listedById; // Customers of both lists, by ID
+    private final Map<String, List<Customer>> listedByVehicle; // Same, by vehicle key, in the order listed
+    private final CustomerSegmentIndex segmentIndex; // Index kept in step with the lists
+    private final IdAllocator ids; // Source of new customer IDs
+    private volatile TieredCustomerStore store; // Disk-backed store of all customers, or null
+    private volatile CustomerRepository repository; // Persistent copy of the customers, or null
+
+    /**
+     * Constructs the service over existing customer lists. Customers already
+     * in the lists are indexed and their IDs are never handed out again.
+     *
+     * @param customers             List of registered customers
+     * @param unregisteredCustomers List of unregistered customers
+     * @param segmentIndex          Bitmap index used for targeted notifications
+     */
+    public CustomerService(List<Customer> customers, List<Customer> unregisteredCustomers,
+            CustomerSegmentIndex segmentIndex) {
+        this.customers = customers;
+        this.unregisteredCustomers = unregisteredCustomers;
+        this.segmentIndex = segmentIndex;
+        this.listedById = new ConcurrentHashMap<>();
+        this.listedByVehicle = new ConcurrentHashMap<>();
+        this.ids = new IdAllocator(1);
+        synchronized (unregisteredCustomers) {
+            synchronized (customers) {
+                for (Customer customer : customers) {
+                    segmentIndex.add(customer);
+                    ids.reserveThrough(customer.getId());
+                    index(customer);
+                }
+                for (Customer customer : unregisteredCustomers) {
+                    segmentIndex.add(customer);
+                    ids.reserveThrough(customer.getId());
+                    index(customer);
+                }
+            }
+        }
+    }
+
+    /**
+     * Attaches a store of archived customers, e.g. one kept from an earlier
+     * run. Its customers are added to the segment index without being kept
+     * on the heap, and their IDs are not handed out again.
+     *
+     * @param store The tiered customer store
+     */
+    public void setStore(TieredCustomerStore store) {
+        ids.reserveThrough(store.maxId());
+        segmentIndex.setArchive(store);
+        store.forEach(customer -> {
+            segmentIndex.add(customer);
+            segmentIndex.evict(customer);
+        });
+        this.store = store;
+    }
+
+    /**
+     * Sets the repository that new and upgraded customers are saved to.
+     *
+     * @param repository The customer repository
+     */
+    public void setRepository(CustomerRepository repository) {
+        this.repository = repository;
+    }
+
+    /**
+     * Gets the attached disk-backed store.
+     *
+     * @return The tiered customer store, or null
+     */
+    public TieredCustomerStore getStore() {
+        return store;
+    }
+
+    /**
+     * Registers a new customer.
+     *
+     * @param name          The customer's name
+     * @param contactInfo   The customer's contact information
+     * @param vehicleNumber The vehicle number
+     * @param vehicleModel  The vehicle model
+     * @return The new customer
+     */
+    public Customer register(String name, String contactInfo, String vehicleNumber, String vehicleModel) {
+        Customer customer = new Customer(ids.next(), name, contactInfo, vehicleNumber, vehicleModel, true);
+        synchronized (customers) {
+            customers.add(customer);
+            index(customer);
+        }
+        segmentIndex.add(customer);
+        saved(customer);
+        return customer;
+    }
+
+    /**
+     * Adds a walk-in unregistered customer.
+     *
+     * @param name          The customer's name
+     * @param contactInfo   The customer's contact information
+     * @param vehicleNumber The vehicle number
+     * @param vehicleModel  The vehicle model
+     * @return The new customer
+     */
+    public Customer addUnregistered(String name, String contactInfo, String vehicleNumber, String vehicleModel) {
+        Customer customer = new Customer(ids.next(), name, contactInfo, vehicleNumber, vehicleModel, false);
+        synchronized (unregisteredCustomers) {
+            unregisteredCustomers.add(customer);
+            index(customer);
+        }
+        segmentIndex.add(customer);
+        saved(customer);
+        return customer;
+    }
+
+    /**
+     * Lists restored customers, e.g. ones read from a saved state, keeping
+     * their IDs. They are neither saved again nor added to the segment index,
+     * which the restore fills itself.
+     *
+     * @param restored The restored customers
+     */
+    public void addRestored(Collection<Customer> restored) {
+        synchronized (unregisteredCustomers) {
+            synchronized (customers) {
+                for (Customer customer : restored) {
+                    (customer.isRegistered() ? customers : unregisteredCustomers).add(customer);
+                    index(customer);
+                    ids.reserveThrough(customer.getId());
+                }
+            }
+        }
+    }
+
+    /**
+     * Upgrades an unregistered customer to registered. If several sessions
+     * upgrade the same customer at once, exactly one of them succeeds.
+     *
+     * @param customer The customer to upgrade
+     * @return True if this call upgraded the customer, false if they were
+     *         already registered or are not in the unregistered list
+     */
+    public boolean upgrade(Customer customer) {
+        synchronized (unregisteredCustomers) {
+            if (customer.isRegistered() || !removeSame(unregisteredCustomers, customer)) {
+                return false;
+            }
+            synchronized (customers) {
+                customer.setRegistered(true);
+                customers.add(customer);
+            }
+        }
+        segmentIndex.updateRegistration(customer);
+        saved(customer);
+        return true;
+    }
+
+    /**
+     * Merges a duplicate customer into the customer to keep: the duplicate is
+     * removed from the lists, the index and the repository, and the kept
+     * customer becomes registered if either of them was. Tasks are not
+     * touched; see DuplicateCustomerFinder.merge.
+     *
+     * @param keep      The customer to keep
+     * @param duplicate The customer to merge into it
+     * @return True if this call merged them, false if either is no longer in
+     *         the lists or they are the same customer
+     */
+    public boolean merge(Customer keep, Customer duplicate) {
+        if (keep == duplicate) {
+            return false;
+        }
+        boolean upgraded = false;
+        synchronized (unregisteredCustomers) {
+            synchronized (customers) {
+                if (!containsSame(customers, keep) && !containsSame(unregisteredCustomers, keep)) {
+                    return false;
+                }
+                if (!removeSame(customers, duplicate) && !removeSame(unregisteredCustomers, duplicate)) {
+                    return false;
+                }
+                unindex(duplicate);
+                if (duplicate.isRegistered() && !keep.isRegistered()) {
+                    removeSame(unregisteredCustomers, keep);
+                    keep.setRegistered(true);
+                    customers.add(keep);
+                    upgraded = true;
+                }
+            }
+        }
+        segmentIndex.remove(duplicate);
+        if (upgraded) {
+            segmentIndex.updateRegistration(keep);
+        }
+        CustomerRepository current = repository;
+        if (current != null) {
+            current.delete(duplicate.getId());
+        }
+        saved(keep);
+        return true;
+    }
+
+    /**
+     * Finds a customer by ID in either list, or else in the attached store.
+     *
+     * @param id The customer ID
+     * @return The customer, or null if there is none with that ID
+     */
+    public Customer findById(int id) {
+        Customer customer = listedById.get(id);
+        TieredCustomerStore current = store;
+        if (customer == null && current != null) {
+            customer = current.findById(id);
+        }
+        return customer;
+    }
+
+    /**
+     * Finds the customer owning a vehicle in either list, or else in the
+     * attached store.
+     *
+     * @param vehicleNumber The vehicle number, ignoring case and surrounding
+     *                      spaces
+     * @return The customer, or null if no customer owns the vehicle; of
+     *         several listed owners, the one listed first
+     */
+    public Customer findByVehicleNumber(String vehicleNumber) {
+        List<Customer> owners = listedByVehicle.get(vehicleKey(vehicleNumber));
+        if (owners != null) {
+            return owners.get(0);
+        }
+        TieredCustomerStore current = store;
+        return current == null ? null : current.findByVehicleNumber(vehicleNumber);
+    }
+
+    /**
+     * Moves customers whose last service was before the given date out of
+     * the lists and into the attached store. Customers who were never
+     * serviced stay. Archived customers are still found by ID, by vehicle
+     * number and in customer segments.
+     *
+     * @param cutoff The date before which a last service counts as inactive
+     * @return The number of customers archived, 0 if no store is attached
+     */
+    public int archiveNotServicedSince(LocalDate cutoff) {
+        TieredCustomerStore current = store;
+        if (current == null) {
+            return 0;
+        }
+        List<Customer> archived = new ArrayList<>();
+        synchronized (unregisteredCustomers) {
+            synchronized (customers) {
+                for (List<Customer> list : List.of(customers, unregisteredCustomers)) {
+                    for (Iterator<Customer> iterator = list.iterator(); iterator.hasNext();) {
+                        Customer customer = iterator.next();
+                        LocalDate lastService = customer.getLastServiceDate();
+                        if (lastService != null && lastService.isBefore(cutoff)) {
+                            current.put(customer);
+                            iterator.remove();
+                            unindex(customer);
+                            archived.add(customer);
+                        }
+                    }
+                }
+            }
+        }
+        for (Customer customer : archived) {
+            segmentIndex.evict(customer);
+        }
+        return archived.size();
+    }
+
+    private void saved(Customer customer) {
+        CustomerRepository current = repository;
+        if (current != null) {
+            current.save(customer);
+        }
+    }
+
+    // Makes a newly listed customer findable; called holding the monitor of the list it went into
+    private void index(Customer customer) {
+        listedById.put(customer.getId(), customer);
+        if (customer.getVehicleNumber() != null) {
+            listedByVehicle.merge(vehicleKey(customer.getVehicleNumber()), List.of(customer), (owners, added) -> {
+                List<Customer> all = new ArrayList<>(owners);
+                all.addAll(added);
+                return List.copyOf(all);
+            });
+        }
+    }
+
+    // Forgets a customer that left the lists; called holding both list monitors
+    private void unindex(Customer customer) {
+        listedById.remove(customer.getId(), customer);
+        if (customer.getVehicleNumber() != null) {
+            listedByVehicle.computeIfPresent(vehicleKey(customer.getVehicleNumber()), (key, owners) -> {
+                List<Customer> rest = new ArrayList<>(owners);
+                rest.removeIf(owner -> owner == customer);
+                return rest.isEmpty() ? null : List.copyOf(rest);
+            });
+        }
+    }
+
+    // Vehicle numbers match ignoring case and surrounding spaces
+    private static String vehicleKey(String vehicleNumber) {
+        return vehicleNumber.trim().toUpperCase(Locale.ROOT);
+    }
+
+    /**
+     * Gets a copy of the registered customers.
+     *
+     * @return The registered customers at the time of the call
+     */
+    public List<Customer> registeredCustomers() {
+        synchronized (customers) {
+            return new ArrayList<>(customers);
+        }
+    }
+
+    /**
+     * Gets a copy of the unregistered customers.
+     *
+     * @return The unregistered customers at the time of the call
+     */
+    public List<Customer> unregisteredCustomers() {
+        synchronized (unregisteredCustomers) {
+            return new ArrayList<>(unregisteredCustomers);
+        }
+    }
+
+    /**
+     * Gets a copy of every customer: registered, unregistered and, if a store
+     * is attached, archived.
+     *
+     * @return The customers at the time of the call
+     * @throws java.io.UncheckedIOException If archived customers cannot be
+     *                                      read
+     */
+    public List<Customer> allCustomers() {
+        List<Customer> all = new ArrayList<>();
+        synchronized (unregisteredCustomers) {
+            synchronized (customers) {
+                all.addAll(customers);
+                all.addAll(unregisteredCustomers);
+            }
+        }
+        TieredCustomerStore current = store;
+        if (current != null) {
+            current.forEach(all::add);
+        }
+        return all;
+    }
+
+    /**
+     * Makes sure customer IDs up to the given one are not handed out, e.g.
+     * while saved customers are still being restored.
+     *
+     * @param id The highest customer ID in use
+     */
+    public void reserveIdsThrough(int id) {
+        ids.reserveThrough(id);
+    }
+
+    /**
+     * Gets the index kept in step with the customer lists.
+     *
+     * @return The customer segment index
+     */
+    public CustomerSegmentIndex getSegmentIndex() {
+        return segmentIndex;
+    }
+
+    // Removes the given object itself, not an equal one
+    private static boolean containsSame(List<Customer> list, Customer customer) {
+        for (Customer listed : list) {
+            if (listed == customer) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean removeSame(List<Customer> list, Customer customer) {
+        for (int i = 0; i < list.size(); i++) {
+            if (list.get(i) == customer) {
+                list.remove(i);
+                return true;
+            }
+        }
+        return false;
+    }
+}
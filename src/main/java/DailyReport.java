@@ -0,0 +1,209 @@
+import java.io.PrintStream;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * The manager's report for one day, as built by a ReportEngine.
+ */
+public class DailyReport {
+    private final LocalDate date; // Day the report covers
+    private final List<MechanicRow> mechanics; // Work per mechanic, in mechanic order
+    private final SortedMap<Integer, Long> backlogByPriority; // Queued tasks per priority, highest first
+    private final List<CustomerRow> repeatCustomers; // Customers with several tasks, most tasks first
+    private final Map<String, Long> topManufacturers; // Tasks per manufacturer, most tasks first
+    private final long nanos; // Time taken to build the report
+
+    /**
+     * Constructs a report.
+     *
+     * @param date              The day the report covers.
+     * @param mechanics         The work per mechanic.
+     * @param backlogByPriority The queued tasks per priority, highest first.
+     * @param repeatCustomers   The customers with several tasks.
+     * @param topManufacturers  The tasks per manufacturer, most tasks first.
+     * @param nanos             The time taken to build the report.
+     */
+    DailyReport(LocalDate date, List<MechanicRow> mechanics, TreeMap<Integer, Long> backlogByPriority,
+            List<CustomerRow> repeatCustomers, Map<String, Long> topManufacturers, long nanos) {
+        this.date = date;
+        this.mechanics = List.copyOf(mechanics);
+        this.backlogByPriority = Collections.unmodifiableSortedMap(backlogByPriority);
+        this.repeatCustomers = List.copyOf(repeatCustomers);
+        this.topManufacturers = Collections.unmodifiableMap(new LinkedHashMap<>(topManufacturers));
+        this.nanos = nanos;
+    }
+
+    /**
+     * Gets the day the report covers.
+     *
+     * @return The date.
+     */
+    public LocalDate getDate() {
+        return date;
+    }
+
+    /**
+     * Gets the completed and open tasks of each mechanic.
+     *
+     * @return One row per mechanic, in mechanic order.
+     */
+    public List<MechanicRow> getMechanics() {
+        return mechanics;
+    }
+
+    /**
+     * Gets the number of queued tasks per priority.
+     *
+     * @return The counts, highest priority first.
+     */
+    public SortedMap<Integer, Long> getBacklogByPriority() {
+        return backlogByPriority;
+    }
+
+    /**
+     * Gets the customers whose vehicle has more than one task today.
+     *
+     * @return At most ReportEngine.TOP_CUSTOMERS rows, most tasks first.
+     */
+    public List<CustomerRow> getRepeatCustomers() {
+        return repeatCustomers;
+    }
+
+    /**
+     * Gets the manufacturers with the most tasks today, going by the first
+     * word of each customer's vehicle model.
+     *
+     * @return At most ReportEngine.TOP_MANUFACTURERS counts, most tasks
+     *         first.
+     */
+    public Map<String, Long> getTopManufacturers() {
+        return topManufacturers;
+    }
+
+    /**
+     * Gets the time taken to build the report.
+     *
+     * @return The time in milliseconds.
+     */
+    public long getMillis() {
+        return nanos / 1_000_000;
+    }
+
+    /**
+     * Prints the report.
+     *
+     * @param out The stream to print to.
+     */
+    public void print(PrintStream out) {
+        out.println("Daily report for " + date + " (built in " + getMillis() + " ms)");
+        out.println("Mechanics:");
+        if (mechanics.isEmpty()) {
+            out.println("  No mechanics.");
+        }
+        for (MechanicRow row : mechanics) {
+            out.println("  " + row.getMechanic().getName() + " (ID " + row.getMechanic().getId() + "): "
+                    + row.getCompleted() + " completed today, " + row.getOpen() + " open");
+        }
+        long queued = 0;
+        for (long count : backlogByPriority.values()) {
+            queued += count;
+        }
+        out.println("Backlog: " + queued + " task(s)");
+        for (Map.Entry<Integer, Long> entry : backlogByPriority.entrySet()) {
+            out.println("  Priority " + entry.getKey() + ": " + entry.getValue());
+        }
+        out.println("Repeat customers:");
+        if (repeatCustomers.isEmpty()) {
+            out.println("  None.");
+        }
+        for (CustomerRow row : repeatCustomers) {
+            out.println("  " + row.getCustomer().getName() + " (ID " + row.getCustomer().getId() + ", "
+                    + row.getCustomer().getVehicleNumber() + "): " + row.getTasks() + " tasks");
+        }
+        out.println("Top manufacturers:");
+        if (topManufacturers.isEmpty()) {
+            out.println("  None.");
+        }
+        for (Map.Entry<String, Long> entry : topManufacturers.entrySet()) {
+            out.println("  " + entry.getKey() + ": " + entry.getValue() + " tasks");
+        }
+    }
+
+    /**
+     * Completed and open tasks of one mechanic.
+     */
+    public static final class MechanicRow {
+        private final Mechanic mechanic; // The mechanic
+        private final long completed; // Tasks completed today
+        private final long open; // Tasks assigned and not completed
+
+        MechanicRow(Mechanic mechanic, long completed, long open) {
+            this.mechanic = mechanic;
+            this.completed = completed;
+            this.open = open;
+        }
+
+        /**
+         * Gets the mechanic.
+         *
+         * @return The mechanic.
+         */
+        public Mechanic getMechanic() {
+            return mechanic;
+        }
+
+        /**
+         * Gets the number of tasks the mechanic completed today.
+         *
+         * @return The completed count.
+         */
+        public long getCompleted() {
+            return completed;
+        }
+
+        /**
+         * Gets the number of tasks assigned to the mechanic and not completed.
+         *
+         * @return The open count.
+         */
+        public long getOpen() {
+            return open;
+        }
+    }
+
+    /**
+     * A customer and the number of tasks for their vehicle.
+     */
+    public static final class CustomerRow {
+        private final Customer customer; // The customer
+        private final long tasks; // Tasks for the customer's vehicle
+
+        CustomerRow(Customer customer, long tasks) {
+            this.customer = customer;
+            this.tasks = tasks;
+        }
+
+        /**
+         * Gets the customer.
+         *
+         * @return The customer.
+         */
+        public Customer getCustomer() {
+            return customer;
+        }
+
+        /**
+         * Gets the number of tasks for the customer's vehicle.
+         *
+         * @return The task count.
+         */
+        public long getTasks() {
+            return tasks;
+        }
+    }
+}
@@ -0,0 +1,526 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+/**
+ * Finds customers entered more than once, e.g. a walk-in typed in again
+ * with a small typo, and merges them.
+ *
+ * Comparing every pair of customers is quadratic, so candidates are found
+ * by MinHash locality-sensitive hashing instead. Each customer's name,
+ * contact details (without an e-mail domain, which many customers share)
+ * and vehicle number are cut into character trigrams, and a signature
+ * keeps the smallest hash of those trigrams under each of SIGNATURE_SIZE
+ * hash functions. Two signatures agree in a slot with a probability equal
+ * to the Jaccard similarity of the trigram sets. The
+ * signature is cut into BANDS bands; customers sharing any whole band land
+ * in the same bucket and become candidates, so only similar customers are
+ * ever compared. Candidates whose signatures agree in at least the
+ * threshold share of slots are then checked field by field: at least two
+ * of name, contact and vehicle number must be nearly the same, so that
+ * namesakes, or people sharing one phone, are not reported. A customer
+ * record stands for one vehicle, so customers whose vehicle numbers are
+ * more than one typo apart are never duplicates. Work grows with
+ * the number of customers, not with its square; signatures and bands are
+ * computed in parallel.
+ *
+ * With 8 bands of 4 rows, pairs of similarity 0.8 become candidates with
+ * probability 0.98, pairs of 0.5 with about 0.4 and pairs of 0.3 with
+ * about 0.06.
+ */
+public class DuplicateCustomerFinder {
+
+    // Hash functions in a customer's signature
+    public static final int SIGNATURE_SIZE = 32;
+
+    // Bands the signature is cut into; each band has SIGNATURE_SIZE / BANDS slots
+    public static final int BANDS = 8;
+
+    // Share of agreeing signature slots above which a candidate is checked when none is given
+    public static final double DEFAULT_THRESHOLD = 0.6;
+
+    // Trigram similarity above which a single field counts as the same
+    public static final double FIELD_MATCH = 0.75;
+
+    // Buckets with more customers than this are too common to be evidence, e.g. a shared fleet contact
+    private static final int MAX_BUCKET = 64;
+
+    // Index of the vehicle number among a customer's compared fields
+    private static final int PLATE = 2;
+
+    // Signature slots per band
+    private static final int ROWS = SIGNATURE_SIZE / BANDS;
+
+    // Multipliers and offsets of the hash functions, fixed so results are repeatable
+    private static final long[] MULTIPLIERS = new long[SIGNATURE_SIZE];
+    private static final long[] OFFSETS = new long[SIGNATURE_SIZE];
+
+    static {
+        SplittableRandom random = new SplittableRandom(0x5EED);
+        for (int i = 0; i < SIGNATURE_SIZE; i++) {
+            MULTIPLIERS[i] = random.nextLong() | 1;
+            OFFSETS[i] = random.nextLong();
+        }
+    }
+
+    private final CustomerService customerService; // Customers to merge
+    private final MechanicService mechanicService; // Mechanics whose tasks are re-pointed
+    private final TaskQueue taskQueue; // Queue whose tasks are re-pointed
+    private final double threshold; // Share of agreeing slots needed for a candidate
+    private TaskRepository taskRepository; // Stores re-pointed tasks, or null
+    private TaskDependencyGraph dependencyGraph; // Graph whose blocked tasks are re-pointed, or null
+    private InvoiceLedger invoiceLedger; // Ledger whose unbilled tasks are re-pointed, or null
+
+    /**
+     * Constructs a finder with the default threshold.
+     *
+     * @param customerService The customer service.
+     * @param mechanicService The mechanic service.
+     * @param taskQueue       The task queue.
+     */
+    public DuplicateCustomerFinder(CustomerService customerService, MechanicService mechanicService,
+            TaskQueue taskQueue) {
+        this(customerService, mechanicService, taskQueue, DEFAULT_THRESHOLD);
+    }
+
+    /**
+     * Constructs a finder.
+     *
+     * @param customerService The customer service.
+     * @param mechanicService The mechanic service.
+     * @param taskQueue       The task queue.
+     * @param threshold       The share of signature slots, from 0 to 1, two
+     *                        customers must agree in to be checked field by
+     *                        field.
+     */
+    public DuplicateCustomerFinder(CustomerService customerService, MechanicService mechanicService,
+            TaskQueue taskQueue, double threshold) {
+        this.customerService = customerService;
+        this.mechanicService = mechanicService;
+        this.taskQueue = taskQueue;
+        this.threshold = threshold;
+    }
+
+    /**
+     * Stores tasks whose vehicle changes in a merge.
+     *
+     * @param taskRepository The task repository.
+     */
+    public void setTaskRepository(TaskRepository taskRepository) {
+        this.taskRepository = taskRepository;
+    }
+
+    /**
+     * Re-points tasks waiting for their prerequisites in a merge.
+     *
+     * @param dependencyGraph The task dependency graph.
+     */
+    public void setDependencyGraph(TaskDependencyGraph dependencyGraph) {
+        this.dependencyGraph = dependencyGraph;
+    }
+
+    /**
+     * Re-points completed tasks waiting to be billed in a merge.
+     *
+     * @param invoiceLedger The invoice ledger.
+     */
+    public void setInvoiceLedger(InvoiceLedger invoiceLedger) {
+        this.invoiceLedger = invoiceLedger;
+    }
+
+    /**
+     * Finds the likely duplicates among the registered and unregistered
+     * customers.
+     *
+     * @return The candidates, most similar first.
+     */
+    public List<Candidate> find() {
+        List<Customer> customers = customerService.registeredCustomers();
+        customers.addAll(customerService.unregisteredCustomers());
+        return find(customers);
+    }
+
+    /**
+     * Finds the likely duplicates among the given customers.
+     *
+     * @param customers The customers.
+     * @return The candidates, most similar first.
+     */
+    public List<Candidate> find(List<Customer> customers) {
+        int count = customers.size();
+        int[][] signatures = new int[count][];
+        IntStream.range(0, count).parallel().forEach(i -> signatures[i] = signature(customers.get(i)));
+
+        Map<Long, Double> pairs = new ConcurrentHashMap<>();
+        IntStream.range(0, BANDS).parallel().forEach(band -> {
+            // Band hash in the high half, customer index in the low half, so sorting groups each bucket
+            long[] keys = new long[count];
+            int used = 0;
+            for (int i = 0; i < count; i++) {
+                if (signatures[i] != null) {
+                    keys[used++] = ((long) bandHash(signatures[i], band) << 32) | i;
+                }
+            }
+            Arrays.sort(keys, 0, used);
+            for (int start = 0, end; start < used; start = end) {
+                end = start + 1;
+                while (end < used && (keys[end] >>> 32) == (keys[start] >>> 32)) {
+                    end++;
+                }
+                if (end - start < 2 || end - start > MAX_BUCKET) {
+                    continue;
+                }
+                for (int a = start; a < end; a++) {
+                    for (int b = a + 1; b < end; b++) {
+                        int first = (int) keys[a];
+                        int second = (int) keys[b];
+                        long pair = ((long) first << 32) | second;
+                        if (!pairs.containsKey(pair)
+                                && similarity(signatures[first], signatures[second]) >= threshold) {
+                            double score = fieldSimilarity(customers.get(first), customers.get(second));
+                            if (score >= 0) {
+                                pairs.put(pair, score);
+                            }
+                        }
+                    }
+                }
+            }
+        });
+
+        List<Candidate> candidates = new ArrayList<>(pairs.size());
+        for (Map.Entry<Long, Double> pair : pairs.entrySet()) {
+            candidates.add(new Candidate(customers.get((int) (pair.getKey() >>> 32)),
+                    customers.get((int) (long) pair.getKey()), pair.getValue()));
+        }
+        candidates.sort(Comparator.comparingDouble(Candidate::getSimilarity).reversed()
+                .thenComparingInt(candidate -> candidate.getKeep().getId())
+                .thenComparingInt(candidate -> candidate.getDuplicate().getId()));
+        return candidates;
+    }
+
+    /**
+     * Merges a duplicate customer into the customer to keep and points the
+     * duplicate's tasks at the kept customer's vehicle: queued tasks, tasks
+     * blocked on prerequisites, tasks assigned to a mechanic, and completed
+     * tasks still waiting to be billed.
+     *
+     * @param keep      The customer to keep.
+     * @param duplicate The customer to merge into it.
+     * @return The number of tasks re-pointed, or -1 if the customers could
+     *         not be merged because either is no longer listed.
+     */
+    public int merge(Customer keep, Customer duplicate) {
+        if (!customerService.merge(keep, duplicate)) {
+            return -1;
+        }
+        String from = duplicate.getVehicleNumber();
+        String to = keep.getVehicleNumber();
+        if (from == null || to == null) {
+            return 0;
+        }
+        String fromKey = RecallEntry.normalizeVehicleNumber(from);
+        if (fromKey.equals(RecallEntry.normalizeVehicleNumber(to))) {
+            return 0; // Tasks already name the kept vehicle
+        }
+        int repointed = 0;
+        for (Task task : taskQueue.getTasksAsList()) {
+            if (repoint(task, fromKey, to, null)) {
+                taskQueue.updateTask(task);
+                repointed++;
+            }
+        }
+        TaskDependencyGraph graph = dependencyGraph;
+        if (graph != null) {
+            for (Task task : graph.getBlockedTasks()) {
+                if (repoint(task, fromKey, to, null)) {
+                    repointed++;
+                }
+            }
+        }
+        for (Mechanic mechanic : mechanicService.mechanics()) {
+            for (Task task : mechanic.getAssignedTasks()) {
+                if (repoint(task, fromKey, to, mechanic)) {
+                    repointed++;
+                }
+            }
+        }
+        InvoiceLedger ledger = invoiceLedger;
+        if (ledger != null) {
+            for (Map.Entry<Mechanic, List<Task>> unbilled : ledger.pendingTasks().entrySet()) {
+                for (Task task : unbilled.getValue()) {
+                    if (repoint(task, fromKey, to, unbilled.getKey())) {
+                        repointed++;
+                    }
+                }
+            }
+        }
+        return repointed;
+    }
+
+    private boolean repoint(Task task, String fromKey, String to, Mechanic mechanic) {
+        String vehicle = task.getVehicleDetails();
+        if (vehicle == null || !RecallEntry.normalizeVehicleNumber(vehicle).equals(fromKey)) {
+            return false;
+        }
+        task.setVehicleDetails(to);
+        TaskRepository current = taskRepository;
+        if (current != null) {
+            current.save(task, mechanic);
+        }
+        return true;
+    }
+
+    /**
+     * Computes a customer's MinHash signature over the trigrams of their
+     * name, contact details and vehicle number.
+     *
+     * @param customer The customer.
+     * @return The signature, or null if the customer has nothing to compare.
+     */
+    static int[] signature(Customer customer) {
+        int[] signature = new int[SIGNATURE_SIZE];
+        Arrays.fill(signature, Integer.MAX_VALUE);
+        boolean any = false;
+        String[] fields = fields(customer);
+        for (int field = 0; field < fields.length; field++) {
+            for (long gram : trigrams(fields[field])) {
+                gram = mix(gram + field); // The same letters in different fields are different grams
+                for (int slot = 0; slot < SIGNATURE_SIZE; slot++) {
+                    int hash = (int) ((gram * MULTIPLIERS[slot] + OFFSETS[slot]) >>> 33);
+                    if (hash < signature[slot]) {
+                        signature[slot] = hash;
+                    }
+                }
+                any = true;
+            }
+        }
+        return any ? signature : null;
+    }
+
+    /**
+     * Estimates the Jaccard similarity of two customers from their
+     * signatures.
+     *
+     * @param first  The first signature.
+     * @param second The second signature.
+     * @return The share of slots in which the signatures agree.
+     */
+    static double similarity(int[] first, int[] second) {
+        int same = 0;
+        for (int i = 0; i < SIGNATURE_SIZE; i++) {
+            if (first[i] == second[i]) {
+                same++;
+            }
+        }
+        return (double) same / SIGNATURE_SIZE;
+    }
+
+    /**
+     * Compares two customers field by field.
+     *
+     * @param first  The first customer.
+     * @param second The second customer.
+     * @return The mean trigram similarity of the fields both customers have,
+     *         or -1 if fewer than two of them (or not all, if they share
+     *         only one) reach FIELD_MATCH or their vehicle numbers are more
+     *         than one typo apart.
+     */
+    static double fieldSimilarity(Customer first, Customer second) {
+        String[] firstFields = fields(first);
+        String[] secondFields = fields(second);
+        int shared = 0;
+        int matching = 0;
+        double total = 0;
+        for (int field = 0; field < firstFields.length; field++) {
+            long[] firstGrams = trigrams(firstFields[field]);
+            long[] secondGrams = trigrams(secondFields[field]);
+            if (firstGrams.length == 0 || secondGrams.length == 0) {
+                continue;
+            }
+            double similarity = jaccard(firstGrams, secondGrams);
+            boolean same = similarity >= FIELD_MATCH;
+            if (field == PLATE && !same) {
+                if (!withinOneEdit(firstFields[field], secondFields[field])) {
+                    return -1; // Another vehicle, so another customer record
+                }
+                same = true;
+            }
+            shared++;
+            total += similarity;
+            if (same) {
+                matching++;
+            }
+        }
+        return shared > 0 && matching >= Math.min(2, shared) ? total / shared : -1;
+    }
+
+    // Whether one character replaced, added or dropped, or two neighbours swapped, turns one text into the other
+    private static boolean withinOneEdit(String first, String second) {
+        if (first.length() > second.length()) {
+            return withinOneEdit(second, first);
+        }
+        if (second.length() - first.length() > 1) {
+            return false;
+        }
+        int i = 0;
+        while (i < first.length() && first.charAt(i) == second.charAt(i)) {
+            i++;
+        }
+        if (first.length() < second.length()) {
+            return first.regionMatches(i, second, i + 1, first.length() - i); // Dropped from the shorter text
+        }
+        if (first.regionMatches(i + 1, second, i + 1, first.length() - i - 1)) {
+            return true; // Replaced
+        }
+        return i + 1 < first.length() && first.charAt(i) == second.charAt(i + 1)
+                && first.charAt(i + 1) == second.charAt(i)
+                && first.regionMatches(i + 2, second, i + 2, first.length() - i - 2);
+    }
+
+    // Normalized name, contact and vehicle number; missing ones are empty
+    private static String[] fields(Customer customer) {
+        return new String[] { normalizeText(customer.getName()),
+                normalizeText(contactKey(customer.getContactInfo())),
+                customer.getVehicleNumber() == null ? ""
+                        : RecallEntry.normalizeVehicleNumber(customer.getVehicleNumber()) };
+    }
+
+    // Sorted distinct hashes of the trigrams of a text; a text shorter than three characters is one gram
+    private static long[] trigrams(String text) {
+        if (text == null || text.isEmpty()) {
+            return new long[0];
+        }
+        long[] grams = new long[Math.max(1, text.length() - 2)];
+        for (int start = 0; start < grams.length; start++) {
+            long gram = 0;
+            for (int i = start; i < Math.min(start + 3, text.length()); i++) {
+                gram = gram * 0x10001 + text.charAt(i);
+            }
+            grams[start] = gram;
+        }
+        Arrays.sort(grams);
+        int distinct = 0;
+        for (int i = 0; i < grams.length; i++) {
+            if (i == 0 || grams[i] != grams[i - 1]) {
+                grams[distinct++] = grams[i];
+            }
+        }
+        return distinct == grams.length ? grams : Arrays.copyOf(grams, distinct);
+    }
+
+    // Jaccard similarity of two sorted sets of distinct grams
+    private static double jaccard(long[] first, long[] second) {
+        int same = 0;
+        for (int i = 0, j = 0; i < first.length && j < second.length;) {
+            if (first[i] == second[j]) {
+                same++;
+                i++;
+                j++;
+            } else if (first[i] < second[j]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return (double) same / (first.length + second.length - same);
+    }
+
+    private static int bandHash(int[] signature, int band) {
+        long hash = band;
+        for (int i = band * ROWS; i < (band + 1) * ROWS; i++) {
+            hash = hash * 0x9E3779B97F4A7C15L + signature[i];
+        }
+        return (int) (mix(hash) >>> 32);
+    }
+
+    // Spreads the bits of a 64-bit value (the finalizer of SplitMix64)
+    private static long mix(long value) {
+        value = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+        value = (value ^ (value >>> 27)) * 0x94D049BB133111EBL;
+        return value ^ (value >>> 31);
+    }
+
+    // The part of the contact details that identifies the customer: an e-mail address without its
+    // domain, which many customers share
+    private static String contactKey(String contact) {
+        if (contact == null) {
+            return null;
+        }
+        int at = contact.indexOf('@');
+        return at > 0 ? contact.substring(0, at) : contact;
+    }
+
+    // Lower case letters and digits, with runs of anything else collapsed to one space
+    private static String normalizeText(String text) {
+        if (text == null) {
+            return null;
+        }
+        StringBuilder normalized = new StringBuilder(text.length());
+        boolean gap = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                if (gap && normalized.length() > 0) {
+                    normalized.append(' ');
+                }
+                normalized.append(Character.toLowerCase(c));
+                gap = false;
+            } else {
+                gap = true;
+            }
+        }
+        return normalized.toString();
+    }
+
+    /**
+     * Two customers that are likely the same person or vehicle. The one to
+     * keep is the registered one, or the older one if both or neither are
+     * registered.
+     */
+    public static final class Candidate {
+        private final Customer keep; // The customer to keep
+        private final Customer duplicate; // The customer to merge into it
+        private final double similarity; // Mean trigram similarity of the shared fields
+
+        private Candidate(Customer first, Customer second, double similarity) {
+            boolean firstKept = first.isRegistered() != second.isRegistered() ? first.isRegistered()
+                    : first.getId() <= second.getId();
+            this.keep = firstKept ? first : second;
+            this.duplicate = firstKept ? second : first;
+            this.similarity = similarity;
+        }
+
+        /**
+         * Gets the customer to keep.
+         *
+         * @return The customer.
+         */
+        public Customer getKeep() {
+            return keep;
+        }
+
+        /**
+         * Gets the customer to merge into the kept one.
+         *
+         * @return The customer.
+         */
+        public Customer getDuplicate() {
+            return duplicate;
+        }
+
+        /**
+         * Gets the similarity of the two customers: the mean trigram
+         * similarity of the fields both have.
+         *
+         * @return The similarity, from 0 to 1.
+         */
+        public double getSimilarity() {
+            return similarity;
+        }
+    }
+}
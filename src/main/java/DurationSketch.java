@@ -0,0 +1,188 @@
+import java.util.Arrays;
+
+/**
+ * A constant-memory streaming quantile sketch for durations (DDSketch).
+ * Values are counted in logarithmic buckets, so any quantile is answered
+ * within a fixed relative error (1% by default) no matter how many values
+ * were recorded. When the buckets would exceed their limit, the smallest
+ * ones are merged, which only affects the lowest quantiles.
+ */
+public class DurationSketch {
+
+    // Default relative accuracy of quantile answers
+    private static final double DEFAULT_ACCURACY = 0.01;
+
+    // Default maximum number of buckets kept
+    private static final int DEFAULT_MAX_BUCKETS = 1024;
+
+    private final double gamma; // Ratio between consecutive bucket bounds
+    private final double logGamma; // Natural logarithm of gamma
+    private final int maxBuckets; // Upper bound on the number of buckets
+    private long[] counts; // Bucket counts; counts[i] belongs to bucket key offset + i
+    private int offset; // Bucket key of counts[0]
+    private int used; // Number of bucket slots in use from counts[0]
+    private long zeroCount; // Number of zero-length durations
+    private long count; // Number of recorded durations
+    private double sum; // Sum of recorded durations in seconds
+
+    /**
+     * Constructs a sketch with 1% relative accuracy and at most 1024 buckets.
+     */
+    public DurationSketch() {
+        this(DEFAULT_ACCURACY, DEFAULT_MAX_BUCKETS);
+    }
+
+    /**
+     * Constructs a sketch with the given accuracy and bucket limit.
+     *
+     * @param relativeAccuracy The relative error allowed in quantile answers.
+     * @param maxBuckets       The maximum number of buckets kept.
+     */
+    public DurationSketch(double relativeAccuracy, int maxBuckets) {
+        if (relativeAccuracy <= 0 || relativeAccuracy >= 1 || maxBuckets < 2) {
+            throw new IllegalArgumentException("Invalid sketch parameters.");
+        }
+        this.gamma = (1 + relativeAccuracy) / (1 - relativeAccuracy);
+        this.logGamma = Math.log(gamma);
+        this.maxBuckets = maxBuckets;
+        this.counts = new long[16];
+    }
+
+    /**
+     * Records one duration.
+     *
+     * @param seconds The duration in seconds; negative values count as zero.
+     */
+    public synchronized void record(double seconds) {
+        if (seconds <= 0) {
+            zeroCount++;
+            count++;
+            return;
+        }
+        sum += seconds;
+        add((int) Math.ceil(Math.log(seconds) / logGamma), 1);
+    }
+
+    /**
+     * Gets the number of recorded durations.
+     *
+     * @return The number of durations.
+     */
+    public synchronized long getCount() {
+        return count;
+    }
+
+    /**
+     * Gets the mean of the recorded durations.
+     *
+     * @return The mean in seconds, or 0 if nothing was recorded.
+     */
+    public synchronized double getMean() {
+        return count == 0 ? 0 : sum / count;
+    }
+
+    /**
+     * Estimates a quantile of the recorded durations.
+     *
+     * @param quantile The quantile between 0 and 1, e.g. 0.5 for the median.
+     * @return The estimated duration in seconds, or NaN if nothing was
+     *         recorded.
+     */
+    public synchronized double quantile(double quantile) {
+        if (quantile < 0 || quantile > 1) {
+            throw new IllegalArgumentException("Quantile must be between 0 and 1.");
+        }
+        if (count == 0) {
+            return Double.NaN;
+        }
+        long rank = (long) (quantile * (count - 1));
+        if (rank < zeroCount) {
+            return 0;
+        }
+        long seen = zeroCount;
+        for (int i = 0; i < used; i++) {
+            seen += counts[i];
+            if (seen > rank) {
+                return 2 * Math.pow(gamma, offset + i) / (gamma + 1);
+            }
+        }
+        return 2 * Math.pow(gamma, offset + used - 1) / (gamma + 1);
+    }
+
+    /**
+     * Adds all durations recorded in another sketch with the same accuracy.
+     *
+     * @param other The sketch to merge in.
+     */
+    public void merge(DurationSketch other) {
+        long[] otherCounts;
+        int otherOffset;
+        long otherZeroCount;
+        double otherSum;
+        synchronized (other) {
+            if (other.gamma != gamma) {
+                throw new IllegalArgumentException("Sketches have different accuracy.");
+            }
+            otherCounts = Arrays.copyOf(other.counts, other.used);
+            otherOffset = other.offset;
+            otherZeroCount = other.zeroCount;
+            otherSum = other.sum;
+        }
+        synchronized (this) {
+            zeroCount += otherZeroCount;
+            count += otherZeroCount;
+            sum += otherSum;
+            for (int i = 0; i < otherCounts.length; i++) {
+                if (otherCounts[i] > 0) {
+                    add(otherOffset + i, otherCounts[i]);
+                }
+            }
+        }
+    }
+
+    // Adds n values to the bucket with the given key, keeping the bucket limit
+    private void add(int key, long n) {
+        count += n;
+        if (used == 0) {
+            offset = key;
+            used = 1;
+        } else if (key < offset) {
+            if (offset + used - key > maxBuckets) {
+                key = offset; // Too small to keep apart: merge into the lowest bucket
+            } else {
+                grow(offset - key, 0);
+                offset = key;
+            }
+        } else if (key >= offset + used) {
+            grow(0, key - (offset + used) + 1);
+            if (used > maxBuckets) {
+                collapseLowest(used - maxBuckets);
+            }
+        }
+        counts[key - offset] += n;
+    }
+
+    // Adds empty bucket slots below and above the ones in use
+    private void grow(int before, int after) {
+        int needed = used + before + after;
+        long[] target = needed <= counts.length ? counts : new long[needed * 2];
+        System.arraycopy(counts, 0, target, before, used);
+        if (target == counts) {
+            Arrays.fill(counts, 0, before, 0);
+        }
+        counts = target;
+        used = needed;
+    }
+
+    private void collapseLowest(int buckets) {
+        long merged = 0;
+        for (int i = 0; i <= buckets; i++) {
+            merged += counts[i];
+        }
+        System.arraycopy(counts, buckets, counts, 0, used - buckets);
+        Arrays.fill(counts, used - buckets, used, 0);
+        counts[0] = merged;
+        offset += buckets;
+        used -= buckets;
+    }
+}
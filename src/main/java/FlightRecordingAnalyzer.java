@@ -0,0 +1,187 @@
+import jdk.jfr.consumer.RecordedClass;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Summarizes a Flight Recorder recording of the garage into one latency
+ * table row per operation: manager and mechanic operations from
+ * OperationEvent, task queue changes from TaskQueueEvent. Rows are sorted by
+ * total time, so the operations worth looking at come first. For menu
+ * operations, the work columns leave out the time spent waiting for the
+ * user to type.
+ *
+ * Run it on a recording made with {@code --record=<file>}, e.g.
+ * {@code java FlightRecordingAnalyzer garage.jfr}.
+ */
+public class FlightRecordingAnalyzer {
+
+    /**
+     * Latency statistics of one operation.
+     */
+    public static final class Row {
+        private final String operation; // Module and operation, or queue method and implementation
+        private final DurationSketch durations = new DurationSketch(); // Event durations in seconds
+        private final DurationSketch work = new DurationSketch(); // Durations without input wait, in seconds
+        private long totalNanos; // Sum of the event durations
+        private long maxNanos; // Longest event duration
+        private int maxQueued = -1; // Largest queue size seen, -1 if not recorded
+        private boolean hasWork; // True if input wait was recorded
+
+        private Row(String operation) {
+            this.operation = operation;
+        }
+
+        private void add(Duration duration, Duration inputWait, int queued) {
+            long nanos = duration.toNanos();
+            durations.record(nanos / 1e9);
+            if (inputWait != null) {
+                work.record((nanos - inputWait.toNanos()) / 1e9);
+                hasWork = true;
+            }
+            totalNanos += nanos;
+            maxNanos = Math.max(maxNanos, nanos);
+            maxQueued = Math.max(maxQueued, queued);
+        }
+
+        /**
+         * Gets the name of the operation.
+         *
+         * @return The module and operation, e.g. "Manager createTask", or the
+         *         queue method and implementation, e.g.
+         *         "TaskQueue getNextTask (BucketTaskQueue)".
+         */
+        public String getOperation() {
+            return operation;
+        }
+
+        /**
+         * Gets the number of recorded events.
+         *
+         * @return The event count.
+         */
+        public long getCount() {
+            return durations.getCount();
+        }
+
+        /**
+         * Estimates a quantile of the event durations.
+         *
+         * @param quantile The quantile between 0 and 1.
+         * @return The estimated duration in milliseconds.
+         */
+        public double quantileMillis(double quantile) {
+            return durations.quantile(quantile) * 1000;
+        }
+
+        /**
+         * Estimates a quantile of the event durations without input wait.
+         *
+         * @param quantile The quantile between 0 and 1.
+         * @return The estimated duration in milliseconds, or NaN if the
+         *         events do not record input wait.
+         */
+        public double workQuantileMillis(double quantile) {
+            return hasWork ? work.quantile(quantile) * 1000 : Double.NaN;
+        }
+
+        /**
+         * Gets the sum of the event durations.
+         *
+         * @return The total time in milliseconds.
+         */
+        public double getTotalMillis() {
+            return totalNanos / 1e6;
+        }
+
+        /**
+         * Gets the longest event duration.
+         *
+         * @return The duration in milliseconds.
+         */
+        public double getMaxMillis() {
+            return maxNanos / 1e6;
+        }
+
+        /**
+         * Gets the largest queue size recorded with the events.
+         *
+         * @return The queue size, or -1 if none was recorded.
+         */
+        public int getMaxQueued() {
+            return maxQueued;
+        }
+    }
+
+    /**
+     * Reads a recording and groups its garage events by operation.
+     *
+     * @param recording The recording file.
+     * @return One row per operation, longest total time first.
+     * @throws IOException If the recording cannot be read.
+     */
+    public static List<Row> analyze(Path recording) throws IOException {
+        Map<String, Row> rows = new HashMap<>();
+        try (RecordingFile file = new RecordingFile(recording)) {
+            while (file.hasMoreEvents()) {
+                RecordedEvent event = file.readEvent();
+                String name = event.getEventType().getName();
+                if (OperationEvent.NAME.equals(name)) {
+                    rows.computeIfAbsent(event.getString("module") + " " + event.getString("operation"), Row::new)
+                            .add(event.getDuration(), event.getDuration("inputWait"), event.getInt("queuedTasks"));
+                } else if (TaskQueueEvent.NAME.equals(name)) {
+                    RecordedClass queue = event.getClass("queue");
+                    String key = "TaskQueue " + event.getString("operation")
+                            + (queue == null ? "" : " (" + queue.getName() + ")");
+                    rows.computeIfAbsent(key, Row::new).add(event.getDuration(), null, event.getInt("queueSize"));
+                }
+            }
+        }
+        List<Row> sorted = new ArrayList<>(rows.values());
+        sorted.sort(Comparator.comparingLong((Row row) -> row.totalNanos).reversed());
+        return sorted;
+    }
+
+    /**
+     * Prints the rows as a table.
+     *
+     * @param rows The rows to print.
+     * @param out  Where to print them.
+     */
+    public static void print(List<Row> rows, PrintStream out) {
+        if (rows.isEmpty()) {
+            out.println("No garage events in the recording.");
+            return;
+        }
+        out.printf("%-52s %8s %9s %9s %9s %9s %10s %9s %9s %7s%n", "Operation", "Count", "p50 ms", "p90 ms",
+                "p99 ms", "max ms", "total ms", "work p50", "work p99", "queued");
+        for (Row row : rows) {
+            out.printf("%-52s %8d %9.3f %9.3f %9.3f %9.3f %10.1f %9s %9s %7s%n", row.getOperation(), row.getCount(),
+                    row.quantileMillis(0.5), row.quantileMillis(0.9), row.quantileMillis(0.99), row.getMaxMillis(),
+                    row.getTotalMillis(), formatMillis(row.workQuantileMillis(0.5)),
+                    formatMillis(row.workQuantileMillis(0.99)), row.getMaxQueued() < 0 ? "-" : row.getMaxQueued());
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.out.println("Usage: java FlightRecordingAnalyzer <recording.jfr>");
+            return;
+        }
+        print(analyze(Path.of(args[0])), System.out);
+    }
+
+    // Formats milliseconds for the table, "-" if not available
+    private static String formatMillis(double millis) {
+        return Double.isNaN(millis) ? "-" : String.format("%.3f", millis);
+    }
+}
@@ -0,0 +1,250 @@
+import java.io.BufferedOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads and writes the saved state of the garage: customers, manufacturers
+ * with their suppliers, mechanics with their assigned tasks, pending tasks,
+ * and completed tasks not yet invoiced.
+ *
+ * Layout (all values big-endian, strings as modified UTF-8):
+ * <pre>
+ * header     MAGIC, VERSION, highest customer ID
+ * customers  count, then one record per customer in ascending ID order
+ * makers     count, then name and supplier names per manufacturer
+ * mechanics  count, then ID, name and assigned tasks per mechanic
+ * tasks      count, then one record per pending task
+ * unbilled   count, then ID, name and tasks not yet invoiced per mechanic
+ * directory  count, then (customer ID, record offset) pairs
+ * trailer    directory offset (long), MAGIC
+ * </pre>
+ * The directory lets a single customer be read without loading the rest.
+ * Version 1 files have neither the unbilled section nor the line items at
+ * the end of each task record; they are still read.
+ */
+public final class GarageStateFile {
+
+    // Marks a garage state file ("GMS1")
+    static final int MAGIC = 0x474D5331;
+
+    // Format version written by this class
+    static final int VERSION = 2;
+
+    // Oldest format version still read
+    static final int FIRST_VERSION = 1;
+
+    // Size of the trailer at the end of the file
+    static final int TRAILER_BYTES = 12;
+
+    private GarageStateFile() {
+    }
+
+    /**
+     * Writes the given state to a file. The file is replaced atomically, so a
+     * crash while saving leaves the previous state intact.
+     *
+     * @param file                  The file to write.
+     * @param customers             Registered customers.
+     * @param unregisteredCustomers Unregistered customers.
+     * @param manufacturers         Manufacturers and their suppliers.
+     * @param mechanics             Mechanics and their assigned tasks.
+     * @param taskQueue             Pending tasks.
+     * @param unbilled              Completed tasks not yet invoiced, per
+     *                              mechanic who completed them.
+     * @throws IOException If the file cannot be written.
+     */
+    public static void write(Path file, List<Customer> customers, List<Customer> unregisteredCustomers,
+            List<Manufacturer> manufacturers, List<Mechanic> mechanics, TaskQueue taskQueue,
+            Map<Mechanic, List<Task>> unbilled) throws IOException {
+        Customer[] all = new Customer[customers.size() + unregisteredCustomers.size()];
+        int n = 0;
+        for (Customer customer : customers) {
+            all[n++] = customer;
+        }
+        for (Customer customer : unregisteredCustomers) {
+            all[n++] = customer;
+        }
+        Arrays.sort(all, (a, b) -> Integer.compare(a.getId(), b.getId()));
+
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(temp.toFile()), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(all.length == 0 ? 0 : all[all.length - 1].getId());
+
+            long[] offsets = new long[all.length];
+            out.writeInt(all.length);
+            for (int i = 0; i < all.length; i++) {
+                offsets[i] = out.size();
+                writeCustomer(out, all[i]);
+            }
+
+            out.writeInt(manufacturers.size());
+            for (Manufacturer manufacturer : manufacturers) {
+                writeString(out, manufacturer.getName());
+                out.writeInt(manufacturer.getPartsSuppliers().size());
+                for (PartsSupplier supplier : manufacturer.getPartsSuppliers()) {
+                    writeString(out, supplier.getName());
+                }
+            }
+
+            out.writeInt(mechanics.size());
+            for (Mechanic mechanic : mechanics) {
+                out.writeInt(mechanic.getId());
+                writeString(out, mechanic.getName());
+                out.writeInt(mechanic.getAssignedTasks().size());
+                for (Task task : mechanic.getAssignedTasks()) {
+                    writeTask(out, task);
+                }
+            }
+
+            List<Task> pending = taskQueue.getTasksAsList();
+            out.writeInt(pending.size());
+            for (Task task : pending) {
+                writeTask(out, task);
+            }
+
+            out.writeInt(unbilled.size());
+            for (Map.Entry<Mechanic, List<Task>> entry : unbilled.entrySet()) {
+                out.writeInt(entry.getKey().getId());
+                writeString(out, entry.getKey().getName());
+                out.writeInt(entry.getValue().size());
+                for (Task task : entry.getValue()) {
+                    writeTask(out, task);
+                }
+            }
+
+            long directoryOffset = out.size();
+            out.writeInt(all.length);
+            for (int i = 0; i < all.length; i++) {
+                out.writeInt(all[i].getId());
+                out.writeLong(offsets[i]);
+            }
+            out.writeLong(directoryOffset);
+            out.writeInt(MAGIC);
+            if (out.size() == Integer.MAX_VALUE) {
+                // DataOutputStream stops counting at 2 GB, so the offsets above are unusable
+                throw new IOException("State is too large for the file format.");
+            }
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Reads the directory offset from the trailer and checks the file header.
+     *
+     * @param file An open state file.
+     * @return The offset of the customer directory.
+     * @throws IOException If the file is not a valid state file.
+     */
+    static long readDirectoryOffset(RandomAccessFile file) throws IOException {
+        file.seek(0);
+        if (file.length() < TRAILER_BYTES || file.readInt() != MAGIC) {
+            throw new IOException("Not a garage state file.");
+        }
+        int version = file.readInt();
+        if (version < FIRST_VERSION || version > VERSION) {
+            throw new IOException("Unsupported garage state file version " + version + ".");
+        }
+        file.seek(file.length() - TRAILER_BYTES);
+        long directoryOffset = file.readLong();
+        if (file.readInt() != MAGIC) {
+            throw new IOException("Garage state file is truncated.");
+        }
+        return directoryOffset;
+    }
+
+    static Customer readCustomer(DataInput in) throws IOException {
+        int id = in.readInt();
+        Customer customer = new Customer(id, readString(in), readString(in), readString(in), readString(in),
+                in.readBoolean());
+        long lastService = in.readLong();
+        if (lastService != Long.MIN_VALUE) {
+            customer.setLastServiceDate(LocalDate.ofEpochDay(lastService));
+        }
+        return customer;
+    }
+
+    static Manufacturer readManufacturer(DataInput in) throws IOException {
+        Manufacturer manufacturer = new Manufacturer(readString(in));
+        int suppliers = in.readInt();
+        for (int i = 0; i < suppliers; i++) {
+            manufacturer.addPartsSupplier(new PartsSupplier(readString(in)));
+        }
+        return manufacturer;
+    }
+
+    static Mechanic readMechanic(DataInput in, int version) throws IOException {
+        int id = in.readInt();
+        Mechanic mechanic = new Mechanic(readString(in), id);
+        int tasks = in.readInt();
+        for (int i = 0; i < tasks; i++) {
+            mechanic.assignTask(readTask(in, version));
+        }
+        return mechanic;
+    }
+
+    static Task readTask(DataInput in, int version) throws IOException {
+        Task task = new Task(readString(in), readString(in), in.readInt());
+        if ("Completed".equals(readString(in))) {
+            task.markAsCompleted();
+        }
+        if (version >= 2) {
+            LineItem.Kind[] kinds = LineItem.Kind.values();
+            int lineItems = in.readInt();
+            for (int i = 0; i < lineItems; i++) {
+                task.addLineItem(LineItem.of(kinds[in.readByte()], readString(in), in.readInt(), in.readLong()));
+            }
+        }
+        return task;
+    }
+
+    static void writeCustomer(DataOutput out, Customer customer) throws IOException {
+        out.writeInt(customer.getId());
+        writeString(out, customer.getName());
+        writeString(out, customer.getContactInfo());
+        writeString(out, customer.getVehicleNumber());
+        writeString(out, customer.getVehicleModel());
+        out.writeBoolean(customer.isRegistered());
+        LocalDate lastService = customer.getLastServiceDate();
+        out.writeLong(lastService == null ? Long.MIN_VALUE : lastService.toEpochDay());
+    }
+
+    private static void writeTask(DataOutputStream out, Task task) throws IOException {
+        writeString(out, task.getDescription());
+        writeString(out, task.getVehicleDetails());
+        out.writeInt(task.getPriority());
+        writeString(out, task.getStatus());
+        List<LineItem> lineItems = task.getLineItems();
+        out.writeInt(lineItems.size());
+        for (LineItem item : lineItems) {
+            out.writeByte(item.getKind().ordinal());
+            writeString(out, item.getDescription());
+            out.writeInt(item.getQuantity());
+            out.writeLong(item.getUnitPriceCents());
+        }
+    }
+
+    private static void writeString(DataOutput out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    static String readString(DataInput in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
@@ -0,0 +1,105 @@
+import java.util.Locale;
+
+/**
+ * A position on the map, in degrees of latitude and longitude, e.g. where a
+ * mobile mechanic's van is or where a roadside job waits. Immutable.
+ */
+public final class GeoPoint {
+
+    // Mean radius of the earth
+    static final double EARTH_RADIUS_KM = 6371.0;
+
+    // Length of one degree of latitude, and of longitude at the equator
+    static final double KM_PER_DEGREE = Math.PI * EARTH_RADIUS_KM / 180;
+
+    private final double latitude; // Degrees north, -90 to 90
+    private final double longitude; // Degrees east, -180 to 180
+
+    /**
+     * Constructs a point.
+     *
+     * @param latitude  Degrees north, -90 to 90.
+     * @param longitude Degrees east, -180 to 180.
+     * @throws IllegalArgumentException If a coordinate is out of range.
+     */
+    public GeoPoint(double latitude, double longitude) {
+        if (!(latitude >= -90 && latitude <= 90) || !(longitude >= -180 && longitude <= 180)) {
+            throw new IllegalArgumentException("Invalid location " + latitude + "," + longitude + ".");
+        }
+        this.latitude = latitude;
+        this.longitude = longitude;
+    }
+
+    /**
+     * Parses a point written as {@code latitude,longitude}, e.g.
+     * {@code 52.2297,21.0122}.
+     *
+     * @param text The point.
+     * @return The point.
+     * @throws IllegalArgumentException If the text is not a valid point.
+     */
+    public static GeoPoint parse(String text) {
+        int comma = text.indexOf(',');
+        if (comma < 0) {
+            throw new IllegalArgumentException("Expected latitude,longitude but found '" + text.trim() + "'.");
+        }
+        return new GeoPoint(Double.parseDouble(text.substring(0, comma).trim()),
+                Double.parseDouble(text.substring(comma + 1).trim()));
+    }
+
+    /**
+     * Gets the latitude.
+     *
+     * @return Degrees north.
+     */
+    public double getLatitude() {
+        return latitude;
+    }
+
+    /**
+     * Gets the longitude.
+     *
+     * @return Degrees east.
+     */
+    public double getLongitude() {
+        return longitude;
+    }
+
+    /**
+     * Gets the great-circle distance to another point.
+     *
+     * @param other The other point.
+     * @return The distance in kilometres.
+     */
+    public double distanceKm(GeoPoint other) {
+        double dLat = Math.toRadians(other.latitude - latitude);
+        double dLon = Math.toRadians(other.longitude - longitude);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2) + Math.cos(Math.toRadians(latitude))
+                * Math.cos(Math.toRadians(other.latitude)) * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (!(other instanceof GeoPoint)) {
+            return false;
+        }
+        GeoPoint point = (GeoPoint) other;
+        return Double.compare(latitude, point.latitude) == 0 && Double.compare(longitude, point.longitude) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        return Double.hashCode(latitude) * 31 + Double.hashCode(longitude);
+    }
+
+    /**
+     * Returns a string representation of the point.
+     *
+     * @return The point as {@code latitude,longitude}.
+     */
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "%.5f,%.5f", latitude, longitude);
+    }
+}
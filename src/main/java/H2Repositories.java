@@ -0,0 +1,648 @@
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Repositories kept in an embedded H2 database, in-process and without a
+ * separate server. A file URL such as {@code jdbc:h2:/var/garage/shop}
+ * keeps the data across restarts; {@code jdbc:h2:mem:name} keeps it in
+ * memory.
+ *
+ * Saves are buffered per repository and written as one JDBC batch in one
+ * transaction once a batch is full, on flush() and close(), and before
+ * every read, so reads always see earlier saves. Saving the same entity
+ * several times before a flush writes it once. Until a flush, at most one
+ * batch of changes can be lost if the process dies.
+ *
+ * Tasks keep their catalog job code, job location and line items, and the
+ * dependencies between tasks and the completed tasks not yet invoiced are
+ * kept in tables of their own. Give the
+ * repositories the ServiceCatalog so that tasks read back refer to their
+ * catalog job again.
+ *
+ * Connections come from a ConnectionPool that caches prepared statements.
+ * Database errors are reported as RepositoryException.
+ */
+public class H2Repositories implements Repositories {
+
+    // Connections in the pool when none is given
+    public static final int DEFAULT_POOL_SIZE = 4;
+
+    // Saves per batch when none is given
+    public static final int DEFAULT_BATCH_SIZE = 256;
+
+    private static final String[] SCHEMA = {
+            "CREATE TABLE IF NOT EXISTS customers (id INT PRIMARY KEY, name VARCHAR, contact VARCHAR,"
+                    + " vehicle_number VARCHAR, vehicle_model VARCHAR, registered BOOLEAN NOT NULL, last_service DATE)",
+            "CREATE TABLE IF NOT EXISTS mechanics (id INT PRIMARY KEY, name VARCHAR)",
+            "CREATE TABLE IF NOT EXISTS manufacturers (name VARCHAR PRIMARY KEY)",
+            "CREATE TABLE IF NOT EXISTS suppliers (manufacturer VARCHAR NOT NULL, name VARCHAR NOT NULL,"
+                    + " PRIMARY KEY (manufacturer, name))",
+            "CREATE TABLE IF NOT EXISTS tasks (id BIGINT PRIMARY KEY, description VARCHAR, vehicle VARCHAR,"
+                    + " priority INT NOT NULL, status VARCHAR NOT NULL, mechanic_id INT)",
+            // Columns added later; databases created before them gain them here
+            "ALTER TABLE tasks ADD COLUMN IF NOT EXISTS service_code VARCHAR",
+            "ALTER TABLE tasks ADD COLUMN IF NOT EXISTS latitude DOUBLE",
+            "ALTER TABLE tasks ADD COLUMN IF NOT EXISTS longitude DOUBLE",
+            "CREATE INDEX IF NOT EXISTS tasks_by_mechanic ON tasks (mechanic_id)",
+            "CREATE TABLE IF NOT EXISTS task_dependencies (task_id BIGINT NOT NULL, prerequisite_id BIGINT NOT NULL,"
+                    + " PRIMARY KEY (task_id, prerequisite_id))",
+            "CREATE TABLE IF NOT EXISTS line_items (task_id BIGINT NOT NULL, line_no INT NOT NULL,"
+                    + " kind VARCHAR NOT NULL, description VARCHAR, quantity INT NOT NULL, unit_price BIGINT NOT NULL,"
+                    + " PRIMARY KEY (task_id, line_no))",
+            "CREATE TABLE IF NOT EXISTS unbilled_tasks (task_id BIGINT PRIMARY KEY, mechanic_id INT NOT NULL)" };
+
+    private static final String SAVE_CUSTOMER = "MERGE INTO customers (id, name, contact, vehicle_number,"
+            + " vehicle_model, registered, last_service) KEY (id) VALUES (?, ?, ?, ?, ?, ?, ?)";
+    private static final String DELETE_CUSTOMER = "DELETE FROM customers WHERE id = ?";
+    private static final String CUSTOMER_COLUMNS = "SELECT id, name, contact, vehicle_number, vehicle_model,"
+            + " registered, last_service FROM customers";
+    private static final String SAVE_MECHANIC = "MERGE INTO mechanics (id, name) KEY (id) VALUES (?, ?)";
+    private static final String SAVE_MANUFACTURER = "MERGE INTO manufacturers (name) KEY (name) VALUES (?)";
+    private static final String SAVE_SUPPLIER = "MERGE INTO suppliers (manufacturer, name) KEY (manufacturer, name)"
+            + " VALUES (?, ?)";
+    private static final String SAVE_TASK = "MERGE INTO tasks (id, description, vehicle, priority, status,"
+            + " mechanic_id, service_code, latitude, longitude) KEY (id) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String OPEN_TASK_COLUMNS = "SELECT id, description, vehicle, priority, service_code,"
+            + " latitude, longitude FROM tasks WHERE status <> 'Completed' AND ";
+    private static final String SAVE_LINE_ITEM = "MERGE INTO line_items (task_id, line_no, kind, description,"
+            + " quantity, unit_price) KEY (task_id, line_no) VALUES (?, ?, ?, ?, ?, ?)";
+    private static final String UNBILLED_TASKS = "SELECT t.id, t.description, t.vehicle, t.priority, t.service_code,"
+            + " t.latitude, t.longitude, u.mechanic_id FROM tasks t JOIN unbilled_tasks u ON u.task_id = t.id"
+            + " ORDER BY t.id";
+    private static final String UNBILLED_LINE_ITEMS = "SELECT l.task_id, l.kind, l.description, l.quantity,"
+            + " l.unit_price FROM line_items l JOIN unbilled_tasks u ON u.task_id = l.task_id"
+            + " ORDER BY l.task_id, l.line_no";
+    private static final String SAVE_UNBILLED = "MERGE INTO unbilled_tasks (task_id, mechanic_id) KEY (task_id)"
+            + " VALUES (?, ?)";
+    private static final String DELETE_UNBILLED = "DELETE FROM unbilled_tasks WHERE task_id = ?";
+    private static final String SAVE_DEPENDENCY = "MERGE INTO task_dependencies (task_id, prerequisite_id)"
+            + " KEY (task_id, prerequisite_id) VALUES (?, ?)";
+    private static final String OPEN_DEPENDENCIES = "SELECT d.task_id, d.prerequisite_id FROM task_dependencies d"
+            + " JOIN tasks p ON p.id = d.prerequisite_id WHERE p.status <> 'Completed'";
+
+    private final ConnectionPool pool; // Connections with cached statements
+    private final int batchSize; // Buffered saves that trigger a write
+    private final Customers customers; // Customer table
+    private final Mechanics mechanics; // Mechanic table
+    private final Manufacturers manufacturers; // Manufacturer and supplier tables
+    private final Tasks tasks; // Task table
+    private final Dependencies dependencies; // Task dependency table
+    private final Unbilled unbilled; // Completed tasks not yet invoiced
+    private volatile ServiceCatalog serviceCatalog; // Resolves the job codes of stored tasks, or null
+
+    /**
+     * Opens the database with the default pool and batch sizes, creating
+     * the tables if needed.
+     *
+     * @param url The JDBC URL of the H2 database.
+     * @throws SQLException If the database cannot be opened.
+     */
+    public H2Repositories(String url) throws SQLException {
+        this(url, DEFAULT_POOL_SIZE, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Opens the database, creating the tables if needed.
+     *
+     * @param url       The JDBC URL of the H2 database.
+     * @param poolSize  The maximum number of open connections.
+     * @param batchSize The number of buffered saves written at once; 1 writes
+     *                  every save immediately.
+     * @throws SQLException If the database cannot be opened.
+     */
+    public H2Repositories(String url, int poolSize, int batchSize) throws SQLException {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be at least 1.");
+        }
+        this.pool = new ConnectionPool(url, poolSize);
+        this.batchSize = batchSize;
+        try (ConnectionPool.PooledConnection connection = pool.borrow();
+                Statement statement = connection.connection().createStatement()) {
+            for (String sql : SCHEMA) {
+                statement.execute(sql);
+            }
+            connection.commit();
+        } catch (SQLException e) {
+            pool.close();
+            throw e;
+        }
+        this.customers = new Customers();
+        this.mechanics = new Mechanics();
+        this.manufacturers = new Manufacturers();
+        List<Long> maxTaskId = query("SELECT COALESCE(MAX(id), 0) FROM tasks", row -> row.getLong(1));
+        this.tasks = new Tasks(maxTaskId.get(0));
+        this.dependencies = new Dependencies();
+        this.unbilled = new Unbilled();
+    }
+
+    /**
+     * Sets the catalog the job codes of stored tasks are looked up in.
+     * Without one, or for codes no longer in it, tasks are read back as
+     * free-text tasks with their stored description.
+     *
+     * @param serviceCatalog The service catalog.
+     */
+    public void setServiceCatalog(ServiceCatalog serviceCatalog) {
+        this.serviceCatalog = serviceCatalog;
+    }
+
+    @Override
+    public CustomerRepository customers() {
+        return customers;
+    }
+
+    @Override
+    public MechanicRepository mechanics() {
+        return mechanics;
+    }
+
+    @Override
+    public ManufacturerRepository manufacturers() {
+        return manufacturers;
+    }
+
+    @Override
+    public TaskRepository tasks() {
+        return tasks;
+    }
+
+    /**
+     * Gets the connection pool, e.g. to report how often prepared statements
+     * were reused.
+     *
+     * @return The connection pool.
+     */
+    public ConnectionPool getPool() {
+        return pool;
+    }
+
+    @Override
+    public void flush() {
+        customers.flush();
+        mechanics.flush();
+        manufacturers.flush();
+        tasks.flush();
+        dependencies.flush();
+        unbilled.flush();
+    }
+
+    @Override
+    public void close() {
+        try {
+            flush();
+        } finally {
+            pool.close();
+        }
+    }
+
+    // Runs a query on a pooled connection and reads every row
+    private <T> List<T> query(String sql, RowReader<T> reader, Object... parameters) {
+        try (ConnectionPool.PooledConnection connection = pool.borrow()) {
+            PreparedStatement statement = connection.prepare(sql);
+            for (int i = 0; i < parameters.length; i++) {
+                statement.setObject(i + 1, parameters[i]);
+            }
+            List<T> rows = new ArrayList<>();
+            try (ResultSet result = statement.executeQuery()) {
+                while (result.next()) {
+                    rows.add(reader.read(result));
+                }
+            }
+            return rows;
+        } catch (SQLException e) {
+            throw new RepositoryException("Could not read from the database.", e);
+        }
+    }
+
+    private int count(String table) {
+        return query("SELECT COUNT(*) FROM " + table, row -> row.getInt(1)).get(0);
+    }
+
+    private static void setNullableString(PreparedStatement statement, int index, String value) throws SQLException {
+        if (value == null) {
+            statement.setNull(index, Types.VARCHAR);
+        } else {
+            statement.setString(index, value);
+        }
+    }
+
+    /**
+     * Reads one row of a result set.
+     *
+     * @param <T> The type the row is read as.
+     */
+    private interface RowReader<T> {
+        T read(ResultSet row) throws SQLException;
+    }
+
+    /**
+     * Saves waiting to be written, keyed so that an entity saved several
+     * times is written once. A failed write keeps the saves for the next
+     * attempt.
+     *
+     * @param <K> The key of a saved entity.
+     * @param <V> What is written for the entity.
+     */
+    private abstract class WriteBuffer<K, V> {
+        private Map<K, V> pending = new LinkedHashMap<>();
+
+        // Buffers a save and writes the buffer once it holds a full batch
+        protected synchronized void buffer(K key, V value) {
+            pending.put(key, value);
+            if (pending.size() >= batchSize) {
+                flush();
+            }
+        }
+
+        protected synchronized void flush() {
+            if (pending.isEmpty()) {
+                return;
+            }
+            try (ConnectionPool.PooledConnection connection = pool.borrow()) {
+                write(connection, pending);
+                connection.commit();
+            } catch (SQLException e) {
+                throw new RepositoryException("Could not write to the database.", e);
+            }
+            pending = new LinkedHashMap<>();
+        }
+
+        // Adds every pending save to the batch of its statement and executes the batches
+        protected abstract void write(ConnectionPool.PooledConnection connection, Map<K, V> pending)
+                throws SQLException;
+    }
+
+    private final class Customers extends WriteBuffer<Integer, Customer> implements CustomerRepository {
+
+        @Override
+        public void save(Customer customer) {
+            buffer(customer.getId(), customer);
+        }
+
+        // Writes buffered saves first, so a pending save of the customer cannot bring the row back
+        @Override
+        public void delete(int id) {
+            flush();
+            try (ConnectionPool.PooledConnection connection = pool.borrow()) {
+                PreparedStatement statement = connection.prepare(DELETE_CUSTOMER);
+                statement.setInt(1, id);
+                statement.executeUpdate();
+                connection.commit();
+            } catch (SQLException e) {
+                throw new RepositoryException("Could not write to the database.", e);
+            }
+        }
+
+        @Override
+        public Customer findById(int id) {
+            flush();
+            List<Customer> found = query(CUSTOMER_COLUMNS + " WHERE id = ?", this::read, id);
+            return found.isEmpty() ? null : found.get(0);
+        }
+
+        @Override
+        public List<Customer> findAll() {
+            flush();
+            return query(CUSTOMER_COLUMNS + " ORDER BY id", this::read);
+        }
+
+        @Override
+        public int count() {
+            flush();
+            return H2Repositories.this.count("customers");
+        }
+
+        @Override
+        protected void write(ConnectionPool.PooledConnection connection, Map<Integer, Customer> pending)
+                throws SQLException {
+            PreparedStatement statement = connection.prepare(SAVE_CUSTOMER);
+            for (Customer customer : pending.values()) {
+                statement.setInt(1, customer.getId());
+                setNullableString(statement, 2, customer.getName());
+                setNullableString(statement, 3, customer.getContactInfo());
+                setNullableString(statement, 4, customer.getVehicleNumber());
+                setNullableString(statement, 5, customer.getVehicleModel());
+                statement.setBoolean(6, customer.isRegistered());
+                LocalDate lastService = customer.getLastServiceDate();
+                if (lastService == null) {
+                    statement.setNull(7, Types.DATE);
+                } else {
+                    statement.setObject(7, lastService);
+                }
+                statement.addBatch();
+            }
+            statement.executeBatch();
+        }
+
+        private Customer read(ResultSet row) throws SQLException {
+            Customer customer = new Customer(row.getInt(1), row.getString(2), row.getString(3), row.getString(4),
+                    row.getString(5), row.getBoolean(6));
+            customer.setLastServiceDate(row.getObject(7, LocalDate.class));
+            return customer;
+        }
+    }
+
+    private final class Mechanics extends WriteBuffer<Integer, Mechanic> implements MechanicRepository {
+
+        @Override
+        public void save(Mechanic mechanic) {
+            buffer(mechanic.getId(), mechanic);
+        }
+
+        @Override
+        public List<Mechanic> findAll() {
+            flush();
+            return query("SELECT id, name FROM mechanics ORDER BY id",
+                    row -> new Mechanic(row.getString(2), row.getInt(1)));
+        }
+
+        @Override
+        public int count() {
+            flush();
+            return H2Repositories.this.count("mechanics");
+        }
+
+        @Override
+        protected void write(ConnectionPool.PooledConnection connection, Map<Integer, Mechanic> pending)
+                throws SQLException {
+            PreparedStatement statement = connection.prepare(SAVE_MECHANIC);
+            for (Mechanic mechanic : pending.values()) {
+                statement.setInt(1, mechanic.getId());
+                setNullableString(statement, 2, mechanic.getName());
+                statement.addBatch();
+            }
+            statement.executeBatch();
+        }
+    }
+
+    private final class Manufacturers extends WriteBuffer<String, Manufacturer> implements ManufacturerRepository {
+
+        @Override
+        public void save(Manufacturer manufacturer) {
+            buffer(manufacturer.getName(), manufacturer);
+        }
+
+        @Override
+        public List<Manufacturer> findAll() {
+            flush();
+            Map<String, Manufacturer> byName = new LinkedHashMap<>();
+            query("SELECT m.name, s.name FROM manufacturers m LEFT JOIN suppliers s ON s.manufacturer = m.name"
+                    + " ORDER BY m.name, s.name", row -> {
+                        Manufacturer manufacturer = byName.computeIfAbsent(row.getString(1), Manufacturer::new);
+                        String supplier = row.getString(2);
+                        if (supplier != null) {
+                            manufacturer.addPartsSupplier(new PartsSupplier(supplier));
+                        }
+                        return manufacturer;
+                    });
+            return new ArrayList<>(byName.values());
+        }
+
+        @Override
+        public int count() {
+            flush();
+            return H2Repositories.this.count("manufacturers");
+        }
+
+        @Override
+        protected void write(ConnectionPool.PooledConnection connection, Map<String, Manufacturer> pending)
+                throws SQLException {
+            PreparedStatement manufacturerStatement = connection.prepare(SAVE_MANUFACTURER);
+            PreparedStatement supplierStatement = connection.prepare(SAVE_SUPPLIER);
+            boolean anySupplier = false;
+            for (Manufacturer manufacturer : pending.values()) {
+                manufacturerStatement.setString(1, manufacturer.getName());
+                manufacturerStatement.addBatch();
+                for (PartsSupplier supplier : manufacturer.getPartsSuppliers()) {
+                    supplierStatement.setString(1, manufacturer.getName());
+                    supplierStatement.setString(2, supplier.getName());
+                    supplierStatement.addBatch();
+                    anySupplier = true;
+                }
+            }
+            manufacturerStatement.executeBatch();
+            if (anySupplier) {
+                supplierStatement.executeBatch();
+            }
+        }
+    }
+
+    /**
+     * The task table, keyed by task ID. Opening the database reserves the
+     * stored IDs, so tasks created afterwards never reuse one; the database
+     * has to be opened before any task is created.
+     */
+    private final class Tasks extends WriteBuffer<Task, Mechanic> implements TaskRepository {
+
+        private Tasks(long lastRowId) {
+            Task.reserveIds(lastRowId);
+        }
+
+        @Override
+        public void save(Task task, Mechanic mechanic) {
+            buffer(task, mechanic);
+        }
+
+        @Override
+        public void saveDependency(Task task, Task prerequisite) {
+            dependencies.buffer(Map.entry(task.getId(), prerequisite.getId()), Boolean.TRUE);
+        }
+
+        @Override
+        public List<Task> findPending() {
+            flush();
+            return query(OPEN_TASK_COLUMNS + "mechanic_id IS NULL ORDER BY id", this::read);
+        }
+
+        @Override
+        public Map<Task, List<Task>> findOpenPrerequisites(Collection<Task> openTasks) {
+            flush();
+            dependencies.flush();
+            Map<Long, Task> byRowId = new HashMap<>();
+            for (Task task : openTasks) {
+                byRowId.put(task.getId(), task);
+            }
+            Map<Task, List<Task>> found = new HashMap<>();
+            query(OPEN_DEPENDENCIES, row -> {
+                Task task = byRowId.get(row.getLong(1));
+                Task prerequisite = byRowId.get(row.getLong(2));
+                if (task != null && prerequisite != null) {
+                    found.computeIfAbsent(task, unused -> new ArrayList<>()).add(prerequisite);
+                }
+                return task;
+            });
+            return found;
+        }
+
+        @Override
+        public void saveUnbilled(Task task, Mechanic mechanic) {
+            unbilled.buffer(task.getId(), mechanic.getId());
+        }
+
+        @Override
+        public void saveBilled(Collection<Task> tasks) {
+            for (Task task : tasks) {
+                unbilled.buffer(task.getId(), null);
+            }
+            unbilled.flush();
+        }
+
+        @Override
+        public Map<Integer, List<Task>> findUnbilled() {
+            flush();
+            unbilled.flush();
+            Map<Long, Task> byId = new HashMap<>();
+            Map<Integer, List<Task>> found = new HashMap<>();
+            query(UNBILLED_TASKS, row -> {
+                Task task = read(row);
+                task.markAsCompleted();
+                byId.put(task.getId(), task);
+                found.computeIfAbsent(row.getInt(8), id -> new ArrayList<>()).add(task);
+                return task;
+            });
+            query(UNBILLED_LINE_ITEMS, row -> {
+                Task task = byId.get(row.getLong(1));
+                if (task != null) {
+                    task.addLineItem(LineItem.of(LineItem.Kind.valueOf(row.getString(2)), row.getString(3),
+                            row.getInt(4), row.getLong(5)));
+                }
+                return task;
+            });
+            return found;
+        }
+
+        @Override
+        public List<Task> findAssignedTo(int mechanicId) {
+            flush();
+            return query(OPEN_TASK_COLUMNS + "mechanic_id = ? ORDER BY id", this::read, mechanicId);
+        }
+
+        @Override
+        public int count() {
+            flush();
+            return H2Repositories.this.count("tasks");
+        }
+
+        @Override
+        protected void write(ConnectionPool.PooledConnection connection, Map<Task, Mechanic> pending)
+                throws SQLException {
+            PreparedStatement statement = connection.prepare(SAVE_TASK);
+            PreparedStatement lineItemStatement = connection.prepare(SAVE_LINE_ITEM);
+            boolean anyLineItem = false;
+            for (Map.Entry<Task, Mechanic> entry : pending.entrySet()) {
+                Task task = entry.getKey();
+                statement.setLong(1, task.getId());
+                setNullableString(statement, 2, task.getDescription());
+                setNullableString(statement, 3, task.getVehicleDetails());
+                statement.setInt(4, task.getPriority());
+                statement.setString(5, task.getStatus());
+                if (entry.getValue() == null) {
+                    statement.setNull(6, Types.INTEGER);
+                } else {
+                    statement.setInt(6, entry.getValue().getId());
+                }
+                ServiceType serviceType = task.getServiceType();
+                setNullableString(statement, 7, serviceType == null ? null : serviceType.getCode());
+                GeoPoint location = task.getLocation();
+                if (location == null) {
+                    statement.setNull(8, Types.DOUBLE);
+                    statement.setNull(9, Types.DOUBLE);
+                } else {
+                    statement.setDouble(8, location.getLatitude());
+                    statement.setDouble(9, location.getLongitude());
+                }
+                statement.addBatch();
+                List<LineItem> lineItems = task.getLineItems();
+                for (int i = 0; i < lineItems.size(); i++) {
+                    LineItem item = lineItems.get(i);
+                    lineItemStatement.setLong(1, task.getId());
+                    lineItemStatement.setInt(2, i);
+                    lineItemStatement.setString(3, item.getKind().name());
+                    setNullableString(lineItemStatement, 4, item.getDescription());
+                    lineItemStatement.setInt(5, item.getQuantity());
+                    lineItemStatement.setLong(6, item.getUnitPriceCents());
+                    lineItemStatement.addBatch();
+                    anyLineItem = true;
+                }
+            }
+            statement.executeBatch();
+            if (anyLineItem) {
+                lineItemStatement.executeBatch();
+            }
+        }
+
+        private Task read(ResultSet row) throws SQLException {
+            ServiceCatalog catalog = serviceCatalog;
+            ServiceType serviceType = catalog == null ? null : catalog.lookup(row.getString(5));
+            Task task = new Task(row.getLong(1), serviceType, row.getString(2), row.getString(3), row.getInt(4));
+            double latitude = row.getDouble(6);
+            if (!row.wasNull()) {
+                task.setLocation(new GeoPoint(latitude, row.getDouble(7)));
+            }
+            return task;
+        }
+    }
+
+    /**
+     * The table of completed tasks not yet invoiced, by task ID, with the ID
+     * of the mechanic who completed them. A buffered null removes the row.
+     */
+    private final class Unbilled extends WriteBuffer<Long, Integer> {
+
+        @Override
+        protected void write(ConnectionPool.PooledConnection connection, Map<Long, Integer> pending)
+                throws SQLException {
+            PreparedStatement saveStatement = connection.prepare(SAVE_UNBILLED);
+            PreparedStatement deleteStatement = connection.prepare(DELETE_UNBILLED);
+            boolean anySave = false;
+            boolean anyDelete = false;
+            for (Map.Entry<Long, Integer> entry : pending.entrySet()) {
+                if (entry.getValue() == null) {
+                    deleteStatement.setLong(1, entry.getKey());
+                    deleteStatement.addBatch();
+                    anyDelete = true;
+                } else {
+                    saveStatement.setLong(1, entry.getKey());
+                    saveStatement.setInt(2, entry.getValue());
+                    saveStatement.addBatch();
+                    anySave = true;
+                }
+            }
+            if (anySave) {
+                saveStatement.executeBatch();
+            }
+            if (anyDelete) {
+                deleteStatement.executeBatch();
+            }
+        }
+    }
+
+    /**
+     * The task dependency table, one row per task and prerequisite. Rows are
+     * kept after the prerequisite is completed; reads skip them.
+     */
+    private final class Dependencies extends WriteBuffer<Map.Entry<Long, Long>, Boolean> {
+
+        @Override
+        protected void write(ConnectionPool.PooledConnection connection, Map<Map.Entry<Long, Long>, Boolean> pending)
+                throws SQLException {
+            PreparedStatement statement = connection.prepare(SAVE_DEPENDENCY);
+            for (Map.Entry<Long, Long> dependency : pending.keySet()) {
+                statement.setLong(1, dependency.getKey());
+                statement.setLong(2, dependency.getValue());
+                statement.addBatch();
+            }
+            statement.executeBatch();
+        }
+    }
+}
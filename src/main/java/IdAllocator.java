@@ -0,0 +1,46 @@
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hands out unique, increasing integer IDs without locking. Safe to use from
+ * several threads.
+ */
+public class IdAllocator {
+    private final AtomicInteger next; // The next ID to hand out
+
+    /**
+     * Constructs an allocator.
+     *
+     * @param first The first ID to hand out.
+     */
+    public IdAllocator(int first) {
+        this.next = new AtomicInteger(first);
+    }
+
+    /**
+     * Takes the next free ID.
+     *
+     * @return An ID that has not been handed out before.
+     */
+    public int next() {
+        return next.getAndIncrement();
+    }
+
+    /**
+     * Makes sure IDs up to and including the given one are never handed out,
+     * e.g. because they belong to restored records.
+     *
+     * @param id The highest ID already in use.
+     */
+    public void reserveThrough(int id) {
+        next.accumulateAndGet(id + 1, Math::max);
+    }
+
+    /**
+     * Gets the ID the next call to next() would return.
+     *
+     * @return The next free ID.
+     */
+    public int peek() {
+        return next.get();
+    }
+}
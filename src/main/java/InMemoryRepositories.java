@@ -0,0 +1,222 @@
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Repositories that keep their data in maps on the heap. Nothing survives
+ * the process, so this is the backend used when no database is given, and
+ * the baseline the embedded database is measured against.
+ *
+ * Entities are stored by reference: saving a customer that is changed later
+ * stores the change as well. Every repository is safe to use from several
+ * threads.
+ */
+public class InMemoryRepositories implements Repositories {
+    private final Customers customers; // Customers by ID
+    private final Mechanics mechanics; // Mechanics by ID
+    private final Manufacturers manufacturers; // Manufacturers by name
+    private final Tasks tasks; // Tasks and their mechanics
+
+    /**
+     * Constructs empty repositories.
+     */
+    public InMemoryRepositories() {
+        this.customers = new Customers();
+        this.mechanics = new Mechanics();
+        this.manufacturers = new Manufacturers();
+        this.tasks = new Tasks();
+    }
+
+    @Override
+    public CustomerRepository customers() {
+        return customers;
+    }
+
+    @Override
+    public MechanicRepository mechanics() {
+        return mechanics;
+    }
+
+    @Override
+    public ManufacturerRepository manufacturers() {
+        return manufacturers;
+    }
+
+    @Override
+    public TaskRepository tasks() {
+        return tasks;
+    }
+
+    @Override
+    public void flush() {
+        // Nothing is buffered
+    }
+
+    @Override
+    public void close() {
+        // Nothing to release
+    }
+
+    private static final class Customers implements CustomerRepository {
+        private final Map<Integer, Customer> byId = new ConcurrentSkipListMap<>();
+
+        @Override
+        public void save(Customer customer) {
+            byId.put(customer.getId(), customer);
+        }
+
+        @Override
+        public void delete(int id) {
+            byId.remove(id);
+        }
+
+        @Override
+        public Customer findById(int id) {
+            return byId.get(id);
+        }
+
+        @Override
+        public List<Customer> findAll() {
+            return new ArrayList<>(byId.values());
+        }
+
+        @Override
+        public int count() {
+            return byId.size();
+        }
+    }
+
+    private static final class Mechanics implements MechanicRepository {
+        private final Map<Integer, Mechanic> byId = new ConcurrentSkipListMap<>();
+
+        @Override
+        public void save(Mechanic mechanic) {
+            byId.put(mechanic.getId(), mechanic);
+        }
+
+        // Fresh copies without tasks, as the interface promises
+        @Override
+        public List<Mechanic> findAll() {
+            List<Mechanic> all = new ArrayList<>();
+            for (Mechanic mechanic : byId.values()) {
+                all.add(new Mechanic(mechanic.getName(), mechanic.getId()));
+            }
+            return all;
+        }
+
+        @Override
+        public int count() {
+            return byId.size();
+        }
+    }
+
+    private static final class Manufacturers implements ManufacturerRepository {
+        private final Map<String, Manufacturer> byName = new LinkedHashMap<>();
+
+        @Override
+        public synchronized void save(Manufacturer manufacturer) {
+            byName.put(manufacturer.getName(), manufacturer);
+        }
+
+        @Override
+        public synchronized List<Manufacturer> findAll() {
+            return new ArrayList<>(byName.values());
+        }
+
+        @Override
+        public synchronized int count() {
+            return byName.size();
+        }
+    }
+
+    /**
+     * Tasks in creation order with the ID of their mechanic, 0 while queued,
+     * the prerequisites of waiting tasks, by task ID, and the completed tasks
+     * not yet invoiced with the ID of the mechanic who completed them.
+     */
+    private static final class Tasks implements TaskRepository {
+        private final Map<Task, Integer> mechanicIds = new LinkedHashMap<>();
+        private final Map<Task, List<Task>> prerequisites = new HashMap<>();
+        private final Map<Task, Integer> unbilled = new LinkedHashMap<>();
+
+        @Override
+        public synchronized void save(Task task, Mechanic mechanic) {
+            mechanicIds.put(task, mechanic == null ? 0 : mechanic.getId());
+        }
+
+        @Override
+        public synchronized void saveDependency(Task task, Task prerequisite) {
+            List<Task> waitsFor = prerequisites.computeIfAbsent(task, unused -> new ArrayList<>());
+            if (!waitsFor.contains(prerequisite)) {
+                waitsFor.add(prerequisite);
+            }
+        }
+
+        @Override
+        public synchronized Map<Task, List<Task>> findOpenPrerequisites(Collection<Task> openTasks) {
+            Set<Task> open = new HashSet<>();
+            open.addAll(openTasks);
+            Map<Task, List<Task>> found = new HashMap<>();
+            for (Task task : openTasks) {
+                for (Task prerequisite : prerequisites.getOrDefault(task, List.of())) {
+                    if (open.contains(prerequisite)) {
+                        found.computeIfAbsent(task, unused -> new ArrayList<>()).add(prerequisite);
+                    }
+                }
+            }
+            return found;
+        }
+
+        @Override
+        public synchronized void saveUnbilled(Task task, Mechanic mechanic) {
+            unbilled.put(task, mechanic.getId());
+        }
+
+        @Override
+        public synchronized void saveBilled(Collection<Task> tasks) {
+            for (Task task : tasks) {
+                unbilled.remove(task);
+            }
+        }
+
+        @Override
+        public synchronized Map<Integer, List<Task>> findUnbilled() {
+            Map<Integer, List<Task>> found = new HashMap<>();
+            for (Map.Entry<Task, Integer> entry : unbilled.entrySet()) {
+                found.computeIfAbsent(entry.getValue(), id -> new ArrayList<>()).add(entry.getKey());
+            }
+            return found;
+        }
+
+        @Override
+        public synchronized List<Task> findPending() {
+            return find(0);
+        }
+
+        @Override
+        public synchronized List<Task> findAssignedTo(int mechanicId) {
+            return find(mechanicId);
+        }
+
+        @Override
+        public synchronized int count() {
+            return mechanicIds.size();
+        }
+
+        private List<Task> find(int mechanicId) {
+            List<Task> found = new ArrayList<>();
+            for (Map.Entry<Task, Integer> entry : mechanicIds.entrySet()) {
+                if (entry.getValue() == mechanicId && !"Completed".equals(entry.getKey().getStatus())) {
+                    found.add(entry.getKey());
+                }
+            }
+            return found;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Wraps the console input and adds up the time spent blocked waiting for
+ * the user to type. Menu operations read it before and after they run, so
+ * their OperationEvent can tell time spent waiting for input apart from
+ * time spent working.
+ */
+public class InputWaitTracker extends FilterInputStream {
+    private static final AtomicLong waitedNanos = new AtomicLong(); // Time blocked in reads, all streams
+
+    /**
+     * Constructs a tracker around an input stream.
+     *
+     * @param in The input stream, usually System.in.
+     */
+    public InputWaitTracker(InputStream in) {
+        super(in);
+    }
+
+    /**
+     * Gets the total time spent blocked reading tracked input so far.
+     *
+     * @return The time in nanoseconds.
+     */
+    public static long waitedNanos() {
+        return waitedNanos.get();
+    }
+
+    @Override
+    public int read() throws IOException {
+        long started = System.nanoTime();
+        try {
+            return super.read();
+        } finally {
+            waitedNanos.addAndGet(System.nanoTime() - started);
+        }
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        long started = System.nanoTime();
+        try {
+            return super.read(buffer, offset, length);
+        } finally {
+            waitedNanos.addAndGet(System.nanoTime() - started);
+        }
+    }
+}
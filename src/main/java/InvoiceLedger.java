@@ -0,0 +1,452 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Collects completed tasks per mechanic and bills them in an end-of-day run:
+ * one invoice per task, listing its labour and part lines, written to one
+ * file per mechanic.
+ *
+ * The run forks one fork/join task per mechanic partition. Each streams its
+ * invoices through its own buffered writer, so partitions never share a
+ * lock or a file. Invoice numbers are handed out in blocks before the fork,
+ * so they are unique and follow mechanic order whatever the scheduling. The
+ * next number is kept in a sequence file in the invoice directory, so
+ * numbers carry on across runs and restarts. Each file is written under a
+ * temporary name and renamed once complete, so a failed run leaves no
+ * partial file behind. Invoice files are never overwritten; a file that
+ * already exists fails like any other.
+ * Amounts are long cents throughout; tax is rounded half up per invoice.
+ *
+ * Tasks completed while the ledger listens are billed, as are tasks given
+ * back with restore after a restart. Given a TaskRepository, the ledger
+ * stores which tasks wait to be billed. If a partition cannot be written,
+ * its tasks go back into the ledger for the next run.
+ */
+public class InvoiceLedger implements TaskLifecycleListener {
+
+    // Hourly labour rate used when none is given: 60.00
+    public static final long DEFAULT_LABOUR_RATE_CENTS = 60_00;
+
+    // Tax rate used when none is given, in basis points: 23%
+    public static final int DEFAULT_TAX_BASIS_POINTS = 2_300;
+
+    // Characters buffered per invoice file before writing
+    private static final int FILE_BUFFER = 1 << 16;
+
+    // File in the invoice directory holding the next invoice number
+    private static final String SEQUENCE_FILE = "invoice-sequence.txt";
+
+    // Date and time stamp of a run, in file names and invoice numbers
+    private static final DateTimeFormatter RUN_STAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss", Locale.ROOT);
+
+    // Date and time printed on invoices
+    private static final DateTimeFormatter INVOICE_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm",
+            Locale.ROOT);
+
+    private final Map<Integer, Partition> partitions; // Completed tasks waiting to be billed, per mechanic ID
+    private final long labourRateCents; // Hourly labour rate offered to mechanics recording their time
+    private final int taxBasisPoints; // Tax rate in hundredths of a percent
+    private final ForkJoinPool pool; // Pool the partitions are billed on
+    private final Clock clock; // Source of run times
+    private volatile TaskRepository taskRepository; // Stores which tasks wait to be billed, or null
+
+    /**
+     * Constructs a ledger with the default labour and tax rates, billing on
+     * the common fork/join pool.
+     */
+    public InvoiceLedger() {
+        this(DEFAULT_LABOUR_RATE_CENTS, DEFAULT_TAX_BASIS_POINTS, ForkJoinPool.commonPool(),
+                Clock.systemDefaultZone());
+    }
+
+    /**
+     * Constructs a ledger.
+     *
+     * @param labourRateCents The hourly labour rate in cents.
+     * @param taxBasisPoints  The tax rate in hundredths of a percent.
+     * @param pool            The pool to bill on.
+     * @param clock           The source of run times.
+     */
+    public InvoiceLedger(long labourRateCents, int taxBasisPoints, ForkJoinPool pool, Clock clock) {
+        this.partitions = new ConcurrentHashMap<>();
+        this.labourRateCents = labourRateCents;
+        this.taxBasisPoints = taxBasisPoints;
+        this.pool = pool;
+        this.clock = clock;
+    }
+
+    /**
+     * Stores every task waiting to be billed from now on in the given
+     * repository, and every billed task as billed.
+     *
+     * @param taskRepository The task repository.
+     */
+    public void setTaskRepository(TaskRepository taskRepository) {
+        this.taskRepository = taskRepository;
+    }
+
+    @Override
+    public void taskCompleted(Task task, Mechanic mechanic) {
+        partitions.computeIfAbsent(mechanic.getId(), id -> new Partition(mechanic)).tasks.add(task);
+        TaskRepository current = taskRepository;
+        if (current != null) {
+            current.saveUnbilled(task, mechanic);
+        }
+    }
+
+    /**
+     * Takes back completed tasks that had not been billed before a restart.
+     * They are not stored again.
+     *
+     * @param mechanic The mechanic who completed the tasks.
+     * @param tasks    The tasks still to bill.
+     */
+    public void restore(Mechanic mechanic, Collection<Task> tasks) {
+        if (!tasks.isEmpty()) {
+            partitions.computeIfAbsent(mechanic.getId(), id -> new Partition(mechanic)).tasks.addAll(tasks);
+        }
+    }
+
+    /**
+     * Gets the hourly labour rate.
+     *
+     * @return The rate in cents.
+     */
+    public long getLabourRateCents() {
+        return labourRateCents;
+    }
+
+    /**
+     * Gets the number of completed tasks not yet billed.
+     *
+     * @return The number of pending tasks.
+     */
+    public int pendingCount() {
+        int count = 0;
+        for (Partition partition : partitions.values()) {
+            count += partition.tasks.size();
+        }
+        return count;
+    }
+
+    /**
+     * Gets the completed tasks not yet billed, with the mechanic who
+     * completed them.
+     *
+     * @return The pending tasks per mechanic.
+     */
+    public Map<Mechanic, List<Task>> pendingTasks() {
+        Map<Mechanic, List<Task>> pending = new HashMap<>();
+        for (Partition partition : partitions.values()) {
+            List<Task> tasks = new ArrayList<>(partition.tasks);
+            if (!tasks.isEmpty()) {
+                pending.put(partition.mechanic, tasks);
+            }
+        }
+        return pending;
+    }
+
+    /**
+     * Bills every completed task collected so far, writing one invoice file
+     * per mechanic into a directory.
+     *
+     * @param directory The directory to write to; created if missing.
+     * @param customers The customers to name on the invoices, matched by
+     *                  vehicle number; tasks for unknown vehicles are billed
+     *                  without a customer.
+     * @return What the run billed.
+     * @throws IOException If the directory, the invoice sequence or an
+     *                     invoice file cannot be written, or an invoice file
+     *                     already exists; tasks of files that failed stay
+     *                     pending.
+     */
+    public synchronized Summary runEndOfDay(Path directory, List<Customer> customers) throws IOException {
+        long started = System.nanoTime();
+        Files.createDirectories(directory);
+        Map<String, Customer> customersByVehicle = new HashMap<>();
+        for (Customer customer : customers) {
+            if (customer.getVehicleNumber() != null) {
+                customersByVehicle.putIfAbsent(normalize(customer.getVehicleNumber()), customer);
+            }
+        }
+        LocalDateTime runTime = LocalDateTime.now(clock);
+        String stamp = RUN_STAMP.format(runTime);
+
+        // Take the pending tasks of every mechanic and reserve their invoice numbers in mechanic order
+        List<Partition> mechanicOrder = new ArrayList<>(partitions.values());
+        mechanicOrder.sort(Comparator.comparingInt(partition -> partition.mechanic.getId()));
+        List<InvoiceFileTask> files = new ArrayList<>();
+        Path sequence = directory.resolve(SEQUENCE_FILE);
+        long nextNumber = readSequence(sequence);
+        for (Partition partition : mechanicOrder) {
+            List<Task> tasks = partition.drain();
+            if (tasks.isEmpty()) {
+                continue;
+            }
+            Path file = directory.resolve("invoices-" + stamp + "-mechanic-" + partition.mechanic.getId() + ".txt");
+            files.add(new InvoiceFileTask(file, partition, tasks, nextNumber, stamp, INVOICE_TIME.format(runTime),
+                    customersByVehicle));
+            nextNumber += tasks.size();
+        }
+        if (!files.isEmpty()) {
+            try {
+                writeSequence(sequence, nextNumber); // Numbers of files that fail below are not reused
+            } catch (IOException e) {
+                for (InvoiceFileTask file : files) {
+                    file.partition.tasks.addAll(file.tasks);
+                }
+                throw e;
+            }
+            pool.invoke(new RecursiveTask<Void>() {
+                @Override
+                protected Void compute() {
+                    ForkJoinTask.invokeAll(files);
+                    return null;
+                }
+            });
+        }
+
+        int invoices = 0;
+        long totalCents = 0;
+        List<Path> written = new ArrayList<>();
+        IOException failure = null;
+        for (InvoiceFileTask file : files) {
+            if (file.failure != null) {
+                file.partition.tasks.addAll(file.tasks); // Bill them on the next run
+                if (failure == null) {
+                    failure = file.failure;
+                } else {
+                    failure.addSuppressed(file.failure);
+                }
+                continue;
+            }
+            invoices += file.tasks.size();
+            totalCents += file.totalCents;
+            written.add(file.file);
+            TaskRepository current = taskRepository;
+            if (current != null) {
+                current.saveBilled(file.tasks);
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        return new Summary(invoices, totalCents, written, System.nanoTime() - started);
+    }
+
+    // Reads the next invoice number, 1 if no invoices were written to the directory yet
+    private static long readSequence(Path sequence) throws IOException {
+        if (!Files.exists(sequence)) {
+            return 1;
+        }
+        String text = Files.readString(sequence, StandardCharsets.UTF_8).trim();
+        try {
+            return Long.parseLong(text);
+        } catch (NumberFormatException e) {
+            throw new IOException("Invalid invoice sequence in " + sequence + ": " + text, e);
+        }
+    }
+
+    private static void writeSequence(Path sequence, long nextNumber) throws IOException {
+        Path temp = sequence.resolveSibling(sequence.getFileName() + ".tmp");
+        Files.writeString(temp, nextNumber + "\n", StandardCharsets.UTF_8);
+        Files.move(temp, sequence, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static String normalize(String vehicleNumber) {
+        return vehicleNumber.trim().toUpperCase(Locale.ROOT);
+    }
+
+    /**
+     * Completed tasks of one mechanic waiting to be billed.
+     */
+    private static final class Partition {
+        private final Mechanic mechanic; // The mechanic who completed the tasks
+        private final ConcurrentLinkedQueue<Task> tasks = new ConcurrentLinkedQueue<>(); // Tasks to bill
+
+        private Partition(Mechanic mechanic) {
+            this.mechanic = mechanic;
+        }
+
+        // Takes every task queued so far; tasks completed meanwhile wait for the next run
+        private List<Task> drain() {
+            List<Task> drained = new ArrayList<>();
+            for (Task task = tasks.poll(); task != null; task = tasks.poll()) {
+                drained.add(task);
+            }
+            return drained;
+        }
+    }
+
+    /**
+     * Writes the invoices of one mechanic partition to its file.
+     */
+    private final class InvoiceFileTask extends RecursiveTask<Void> {
+
+        // Version of the serialized form
+        private static final long serialVersionUID = 1L;
+
+        private final Path file; // The invoice file
+        private final Partition partition; // The partition the tasks came from
+        private final List<Task> tasks; // The tasks to bill
+        private final long firstNumber; // Invoice number of the first task
+        private final String stamp; // Run stamp for invoice numbers
+        private final String date; // Date and time printed on the invoices
+        private final Map<String, Customer> customersByVehicle; // Customers by normalized vehicle number
+        private long totalCents; // Total billed, tax included
+        private IOException failure; // Why the file could not be written, or null
+
+        private InvoiceFileTask(Path file, Partition partition, List<Task> tasks, long firstNumber, String stamp,
+                String date, Map<String, Customer> customersByVehicle) {
+            this.file = file;
+            this.partition = partition;
+            this.tasks = tasks;
+            this.firstNumber = firstNumber;
+            this.stamp = stamp;
+            this.date = date;
+            this.customersByVehicle = customersByVehicle;
+        }
+
+        // Writes under a temporary name first; the rename fails if the invoice file already exists
+        @Override
+        protected Void compute() {
+            Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+            StringBuilder invoice = new StringBuilder(512);
+            try {
+                if (Files.exists(file, LinkOption.NOFOLLOW_LINKS)) {
+                    throw new FileAlreadyExistsException(file.toString());
+                }
+                try (BufferedWriter out = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(temp),
+                        StandardCharsets.UTF_8), FILE_BUFFER)) {
+                    long number = firstNumber;
+                    for (Task task : tasks) {
+                        invoice.setLength(0);
+                        totalCents += format(invoice, task, number++);
+                        out.append(invoice);
+                    }
+                }
+                Files.move(temp, file);
+            } catch (IOException e) {
+                failure = e;
+                try {
+                    Files.deleteIfExists(temp);
+                } catch (IOException deleteFailure) {
+                    e.addSuppressed(deleteFailure);
+                }
+            }
+            return null;
+        }
+
+        // Writes one invoice and returns its total with tax
+        private long format(StringBuilder text, Task task, long number) {
+            Mechanic mechanic = partition.mechanic;
+            Customer customer = task.getVehicleDetails() == null ? null
+                    : customersByVehicle.get(normalize(task.getVehicleDetails()));
+            text.append("INVOICE ").append(stamp).append('-').append(number).append('\n');
+            text.append("Date: ").append(date).append('\n');
+            text.append("Mechanic: ").append(mechanic.getName()).append(" (ID ").append(mechanic.getId())
+                    .append(")\n");
+            if (customer != null) {
+                text.append("Customer: ").append(customer.getName()).append(" (ID ").append(customer.getId())
+                        .append(")\n");
+            }
+            text.append("Vehicle: ").append(task.getVehicleDetails()).append('\n');
+            text.append("Task: ").append(task.getDescription()).append('\n');
+            long subtotal = 0;
+            for (LineItem item : task.getLineItems()) {
+                if (item.getKind() == LineItem.Kind.LABOUR) {
+                    text.append("  Labour: ").append(item.getDescription()).append(", ").append(item.getQuantity())
+                            .append(" min at ");
+                    Money.append(text, item.getUnitPriceCents()).append("/h");
+                } else {
+                    text.append("  Part: ").append(item.getDescription()).append(", ").append(item.getQuantity())
+                            .append(" x ");
+                    Money.append(text, item.getUnitPriceCents());
+                }
+                Money.append(text.append(" = "), item.getAmountCents()).append('\n');
+                subtotal += item.getAmountCents();
+            }
+            long tax = Money.percentOf(subtotal, taxBasisPoints);
+            Money.append(text.append("Subtotal: "), subtotal).append('\n');
+            Money.append(text.append("Tax at "), taxBasisPoints).append("%: ");
+            Money.append(text, tax).append('\n');
+            Money.append(text.append("Total: "), subtotal + tax).append("\n\n");
+            return subtotal + tax;
+        }
+    }
+
+    /**
+     * What an end-of-day run billed.
+     */
+    public static class Summary {
+        private final int invoices; // Invoices written
+        private final long totalCents; // Total billed, tax included
+        private final List<Path> files; // Invoice files written
+        private final long nanos; // Time taken
+
+        private Summary(int invoices, long totalCents, List<Path> files, long nanos) {
+            this.invoices = invoices;
+            this.totalCents = totalCents;
+            this.files = List.copyOf(files);
+            this.nanos = nanos;
+        }
+
+        /**
+         * Gets the number of invoices written.
+         *
+         * @return The invoice count.
+         */
+        public int getInvoices() {
+            return invoices;
+        }
+
+        /**
+         * Gets the total billed over all invoices, tax included.
+         *
+         * @return The total in cents.
+         */
+        public long getTotalCents() {
+            return totalCents;
+        }
+
+        /**
+         * Gets the invoice files written, one per mechanic with billed tasks.
+         *
+         * @return The files in mechanic order.
+         */
+        public List<Path> getFiles() {
+            return files;
+        }
+
+        /**
+         * Gets the wall-clock time the run took.
+         *
+         * @return The time in milliseconds.
+         */
+        public long getMillis() {
+            return nanos / 1_000_000;
+        }
+    }
+}
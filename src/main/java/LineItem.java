@@ -0,0 +1,118 @@
+/**
+ * One billable line of a task: labour time or a part. Amounts are held as a
+ * long number of cents.
+ */
+public class LineItem {
+
+    /**
+     * What a line bills for.
+     */
+    public enum Kind {
+        LABOUR, PART
+    }
+
+    private final Kind kind; // Labour or part
+    private final String description; // What was done or fitted
+    private final int quantity; // Minutes of labour, or number of parts
+    private final long unitPriceCents; // Hourly rate for labour, price per part for parts
+    private final long amountCents; // Price of the line
+
+    private LineItem(Kind kind, String description, int quantity, long unitPriceCents, long amountCents) {
+        if (quantity < 0 || unitPriceCents < 0) {
+            throw new IllegalArgumentException("Quantity and price cannot be negative.");
+        }
+        this.kind = kind;
+        this.description = description;
+        this.quantity = quantity;
+        this.unitPriceCents = unitPriceCents;
+        this.amountCents = amountCents;
+    }
+
+    /**
+     * Creates a labour line billed by the minute at an hourly rate, rounded
+     * to the nearest cent.
+     *
+     * @param description     What was done.
+     * @param minutes         The minutes worked.
+     * @param hourlyRateCents The hourly rate in cents.
+     * @return The labour line.
+     */
+    public static LineItem labour(String description, int minutes, long hourlyRateCents) {
+        return new LineItem(Kind.LABOUR, description, minutes, hourlyRateCents,
+                (Math.multiplyExact((long) minutes, hourlyRateCents) + 30) / 60);
+    }
+
+    /**
+     * Creates a part line.
+     *
+     * @param description    The part fitted.
+     * @param quantity       The number of parts.
+     * @param unitPriceCents The price per part in cents.
+     * @return The part line.
+     */
+    public static LineItem part(String description, int quantity, long unitPriceCents) {
+        return new LineItem(Kind.PART, description, quantity, unitPriceCents,
+                Math.multiplyExact((long) quantity, unitPriceCents));
+    }
+
+    /**
+     * Rebuilds a stored line from its kind, quantity and unit price.
+     *
+     * @param kind           Labour or part.
+     * @param description    What was done or fitted.
+     * @param quantity       Minutes of labour, or number of parts.
+     * @param unitPriceCents The hourly rate for labour, the price per part
+     *                       for parts.
+     * @return The line.
+     */
+    static LineItem of(Kind kind, String description, int quantity, long unitPriceCents) {
+        return kind == Kind.LABOUR ? labour(description, quantity, unitPriceCents)
+                : part(description, quantity, unitPriceCents);
+    }
+
+    /**
+     * Gets what the line bills for.
+     *
+     * @return Labour or part.
+     */
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * Gets what was done or fitted.
+     *
+     * @return The description.
+     */
+    public String getDescription() {
+        return description;
+    }
+
+    /**
+     * Gets the quantity: minutes for labour, number of parts for parts.
+     *
+     * @return The quantity.
+     */
+    public int getQuantity() {
+        return quantity;
+    }
+
+    /**
+     * Gets the unit price: the hourly rate for labour, the price per part for
+     * parts.
+     *
+     * @return The unit price in cents.
+     */
+    public long getUnitPriceCents() {
+        return unitPriceCents;
+    }
+
+    /**
+     * Gets the price of the line.
+     *
+     * @return The amount in cents.
+     */
+    public long getAmountCents() {
+        return amountCents;
+    }
+}
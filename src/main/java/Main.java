@@ -1,3 +1,17 @@
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.text.ParseException;
 import java.util.*;
 
 /**
@@ -5,11 +19,47 @@ import java.util.*;
  * It initializes the necessary modules and allows users to choose their role
  * (Manager or Mechanic)
  * to perform respective operations.
+ *
+ * Passing {@code --state=<file>} saves the state to that file on exit and
+ * restores it on the next start. Restoring runs in the background, so the
+ * menus are available immediately. Passing {@code --dispatch=stealing}
+ * keeps pending tasks in per-mechanic work-stealing deques instead of one
+ * central queue, {@code --dispatch=buckets} keeps them in one FIFO bucket
+ * per priority from 0 to 10, so equal-priority tasks are served in arrival
+ * order, and {@code --dispatch=offheap} keeps them in native memory records
+ * for very large backlogs. Passing {@code --customer-store=<file>} lets the
+ * manager archive inactive customers to that file, keeping only frequently
+ * used ones in memory. Passing {@code --db=<file>} keeps customers,
+ * mechanics, manufacturers and tasks in an embedded H2 database in that file
+ * instead of in memory only; it replaces {@code --state}. Passing
+ * {@code --batch=<file>} replays the commands in that file instead of
+ * opening the menus, then saves and exits; see {@link BatchRunner} for the
+ * file format. Passing {@code --catalog=<file>} reads the standard job
+ * codes tasks are created from from that file instead of using the built-in
+ * catalog; see {@link ServiceCatalog#readCatalog} for the file format.
+ * Passing {@code --board-port=<port>} streams task changes to shop-floor
+ * boards as server-sent events on {@code http://<host>:<port>/events}; see
+ * {@link TaskBoardServer}. Passing {@code --record=<file>} records every
+ * manager and mechanic operation and task queue change with Flight Recorder
+ * and writes the recording to that file on exit; summarize it with
+ * {@link FlightRecordingAnalyzer}. Passing {@code --reminders=<file>} keeps
+ * pending service and MOT reminders in that file across restarts; without
+ * it, service reminders are rebuilt from the customers' last service dates
+ * on every start.
  */
 public class Main {
+    // Number of service bays available for booking
+    private static final int SERVICE_BAYS = 4;
+    // Archived customers kept in memory by the customer store's cache
+    private static final int CUSTOMER_CACHE_SIZE = 100_000;
+    // Characters of batch output buffered before writing to the console
+    private static final int BATCH_OUTPUT_BUFFER = 1 << 16;
+
     public static void main(String[] args) {
         // Initialize scanner for user input
-        Scanner scanner = new Scanner(System.in);
+        // Console input is tracked so operation events can leave out time spent waiting for the user
+        Scanner scanner = new Scanner(new InputWaitTracker(System.in));
+        Recording recording = startRecording(pathArgument(args, "--record="));
 
         // Initialize required lists for customers, unregistered customers,
         // manufacturers, mechanics, and tasks
@@ -17,12 +67,140 @@ public class Main {
         List<Customer> unregisteredCustomers = new ArrayList<>();
         List<Manufacturer> manufacturers = new ArrayList<>();
         List<Mechanic> mechanics = new ArrayList<>();
-        TaskQueue taskQueue = new TaskQueue();
+        TaskQueue taskQueue = hasArgument(args, "--dispatch=stealing") ? new WorkStealingTaskQueue()
+                : hasArgument(args, "--dispatch=buckets") ? new BucketTaskQueue()
+                : hasArgument(args, "--dispatch=offheap") ? new OffHeapTaskQueue(new OffHeapTaskStore())
+                : new TaskQueue();
+        CustomerSegmentIndex segmentIndex = new CustomerSegmentIndex();
+
+        // Load stored state from the database, if one was given, before the services index it
+        ServiceCatalog serviceCatalog = openServiceCatalog(pathArgument(args, "--catalog="));
+        Path databaseFile = pathArgument(args, "--db=");
+        Repositories repositories = openRepositories(databaseFile, serviceCatalog);
+        TaskDependencyGraph dependencyGraph = new TaskDependencyGraph(taskQueue);
+        dependencyGraph.setTaskRepository(repositories.tasks());
+        repositories.loadInto(customers, unregisteredCustomers, manufacturers, mechanics, taskQueue,
+                dependencyGraph);
 
         // Initialize modules for Manager and Mechanic functionalities
-        ManagerModule managerModule = new ManagerModule(scanner, customers, unregisteredCustomers, manufacturers,
-                taskQueue, mechanics);
-        MechanicModule mechanicModule = new MechanicModule(scanner, mechanics, manufacturers);
+        CustomerService customerService = new CustomerService(customers, unregisteredCustomers, segmentIndex);
+        customerService.setRepository(repositories.customers());
+        MechanicService mechanicService = new MechanicService(mechanics, taskQueue);
+        mechanicService.setRepository(repositories.mechanics());
+        Path customerStoreFile = pathArgument(args, "--customer-store=");
+        TieredCustomerStore customerStore = null;
+        if (customerStoreFile != null) {
+            try {
+                customerStore = new TieredCustomerStore(customerStoreFile, CUSTOMER_CACHE_SIZE);
+                customerService.setStore(customerStore);
+            } catch (IOException | UncheckedIOException e) {
+                System.out.println("Could not open customer store: " + e.getMessage());
+            }
+        }
+        ManagerModule managerModule = new ManagerModule(scanner, customerService, mechanicService, manufacturers,
+                taskQueue);
+        managerModule.setManufacturerRepository(repositories.manufacturers());
+        managerModule.setBayScheduler(new BayScheduler(SERVICE_BAYS));
+        TaskDurationStats durationStats = new TaskDurationStats();
+        ShopThroughput throughput = new ShopThroughput();
+        TaskEvents taskEvents = new TaskEvents();
+        taskEvents.addListener(durationStats);
+        taskEvents.addListener(throughput);
+        taskEvents.addListener(dependencyGraph);
+        taskEvents.addListener(repositories.tasks());
+        InvoiceLedger invoiceLedger = new InvoiceLedger();
+        restoreUnbilled(invoiceLedger, repositories.tasks(), mechanics);
+        taskEvents.addListener(invoiceLedger);
+        managerModule.setInvoiceLedger(invoiceLedger);
+        ReportEngine reportEngine = new ReportEngine(customerService, mechanicService, taskQueue);
+        taskEvents.addListener(reportEngine);
+        reportEngine.setManufacturers(manufacturers);
+        managerModule.setReportEngine(reportEngine);
+        TaskBoardServer boardServer = openBoardServer(args, taskEvents);
+        DuplicateCustomerFinder duplicateFinder = new DuplicateCustomerFinder(customerService, mechanicService,
+                taskQueue);
+        duplicateFinder.setTaskRepository(repositories.tasks());
+        duplicateFinder.setDependencyGraph(dependencyGraph);
+        duplicateFinder.setInvoiceLedger(invoiceLedger);
+        managerModule.setDuplicateFinder(duplicateFinder);
+        managerModule.setServiceCatalog(serviceCatalog);
+        WaitTimeEstimator waitTimeEstimator = new WaitTimeEstimator(durationStats);
+        waitTimeEstimator.setServiceCatalog(serviceCatalog);
+        taskEvents.addListener(waitTimeEstimator);
+        managerModule.setWaitTimeEstimator(waitTimeEstimator);
+        managerModule.setThroughput(throughput);
+        managerModule.setTaskEvents(taskEvents);
+        managerModule.setDependencyGraph(dependencyGraph);
+        MechanicModule mechanicModule = new MechanicModule(scanner, mechanics, manufacturers, segmentIndex);
+        mechanicModule.setTaskEvents(taskEvents);
+        mechanicModule.setTaskQueue(taskQueue);
+        mechanicModule.setInvoiceLedger(invoiceLedger);
+        MobileFleet mobileFleet = new MobileFleet();
+        taskEvents.addListener(mobileFleet);
+        managerModule.setMobileFleet(mobileFleet);
+        mechanicModule.setMobileFleet(mobileFleet);
+        // Suppliers' ordering systems are not connected yet; the stub answers with made-up stock
+        PartAvailability partAvailability = new PartAvailability(new StubSupplierClient());
+        mechanicModule.setPartAvailability(partAvailability);
+        Path remindersFile = pathArgument(args, "--reminders=");
+        ServiceReminders serviceReminders = new ServiceReminders(customerService);
+        boolean remindersLoaded = loadReminders(remindersFile, serviceReminders);
+        taskEvents.addListener(serviceReminders);
+        managerModule.setServiceReminders(serviceReminders);
+
+        // Restore saved state in the background if a state file was given
+        Path stateFile = pathArgument(args, "--state=");
+        if (stateFile != null && databaseFile != null) {
+            System.out.println("Ignoring --state because --db is given.");
+            stateFile = null;
+        }
+        WarmStart warmStart = null;
+        if (stateFile != null && Files.exists(stateFile)) {
+            try {
+                warmStart = new WarmStart(stateFile, customers, unregisteredCustomers, manufacturers, mechanics,
+                        taskQueue, segmentIndex);
+                warmStart.setInvoiceLedger(invoiceLedger);
+                warmStart.setCustomerService(customerService);
+                warmStart.setMechanicService(mechanicService);
+                warmStart.start();
+                managerModule.setWarmStart(warmStart);
+                mechanicModule.setWarmStart(warmStart);
+                serviceReminders.setWarmStart(warmStart);
+            } catch (IOException e) {
+                System.out.println("Could not read saved state: " + e.getMessage());
+                warmStart = null;
+            }
+        }
+
+        // Replay a command file instead of opening the menus, if one was given
+        Path batchFile = pathArgument(args, "--batch=");
+        if (batchFile != null) {
+            BatchRunner batchRunner = new BatchRunner(customerService, mechanicService, manufacturers, taskQueue);
+            batchRunner.setTaskEvents(taskEvents);
+            batchRunner.setDependencyGraph(dependencyGraph);
+            batchRunner.setManufacturerRepository(repositories.manufacturers());
+            batchRunner.setServiceCatalog(serviceCatalog);
+            runBatch(batchFile, batchRunner, warmStart, mechanicService);
+            if (!remindersLoaded) {
+                serviceReminders.scheduleFromHistory(customerService.allCustomers());
+            }
+            if (stateFile != null) {
+                saveState(stateFile, warmStart, customers, unregisteredCustomers, manufacturers, mechanics,
+                        taskQueue, dependencyGraph.getBlockedTasks(), invoiceLedger);
+            }
+            closeQuietly(customerStore);
+            closeQuietly(boardServer);
+            partAvailability.close();
+            saveReminders(remindersFile, serviceReminders);
+            stopRecording(recording);
+            saveRepositories(repositories, customers, unregisteredCustomers, manufacturers, mechanics);
+            return;
+        }
+        serviceReminders.start(!remindersLoaded);
+        if (stateFile != null) {
+            System.out.println("Menus ready " + ManagementFactory.getRuntimeMXBean().getUptime()
+                    + " ms after startup.");
+        }
 
         // Main application loop
         while (true) {
@@ -59,7 +237,17 @@ public class Main {
                     mechanicModule.mechanicMenu();
                     break;
                 case 3:
-                    // Exit the application
+                    // Save state if requested, then exit the application
+                    if (stateFile != null) {
+                        saveState(stateFile, warmStart, customers, unregisteredCustomers, manufacturers, mechanics,
+                                taskQueue, dependencyGraph.getBlockedTasks(), invoiceLedger);
+                    }
+                    closeQuietly(customerStore);
+                    closeQuietly(boardServer);
+                    partAvailability.close();
+                    saveReminders(remindersFile, serviceReminders);
+                    stopRecording(recording);
+                    saveRepositories(repositories, customers, unregisteredCustomers, manufacturers, mechanics);
                     System.out.println("Exiting the system. Goodbye!");
                     return;
                 default:
@@ -68,4 +256,321 @@ public class Main {
             }
         }
     }
+
+    /**
+     * Reads a file location from the command-line arguments.
+     *
+     * @param args   The command-line arguments.
+     * @param prefix The argument prefix, e.g. {@code --state=}.
+     * @return The file, or null if none was given.
+     */
+    private static Path pathArgument(String[] args, String prefix) {
+        for (String arg : args) {
+            if (arg.startsWith(prefix)) {
+                return Path.of(arg.substring(prefix.length()));
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Replays a command file once any saved state is fully restored. Results
+     * go to the console through one large buffer rather than line by line.
+     *
+     * @param batchFile       The command file.
+     * @param batchRunner     The runner to replay it with.
+     * @param warmStart       The restore in progress, or null.
+     * @param mechanicService The mechanic service, told about restored
+     *                        mechanics.
+     */
+    private static void runBatch(Path batchFile, BatchRunner batchRunner, WarmStart warmStart,
+            MechanicService mechanicService) {
+        if (warmStart != null) {
+            for (WarmStart.Section section : WarmStart.Section.values()) {
+                warmStart.await(section);
+            }
+            mechanicService.reserveExistingIds();
+        }
+        try {
+            Writer out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8),
+                    BATCH_OUTPUT_BUFFER);
+            BatchRunner.Summary summary = batchRunner.run(Files.newInputStream(batchFile), out);
+            System.out.printf("Replayed %d command(s), %d failed, in %d ms (%.0f commands/s).%n",
+                    summary.getCommands(), summary.getFailed(), summary.getMillis(),
+                    summary.getCommandsPerSecond());
+        } catch (IOException e) {
+            System.out.println("Error while replaying " + batchFile + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Opens the embedded database in the given file, or in-memory
+     * repositories if no file was given or the database cannot be opened.
+     *
+     * @param databaseFile   The database file, or null.
+     * @param serviceCatalog The catalog stored tasks' job codes refer to.
+     * @return The repositories.
+     */
+    private static Repositories openRepositories(Path databaseFile, ServiceCatalog serviceCatalog) {
+        if (databaseFile == null) {
+            return new InMemoryRepositories();
+        }
+        try {
+            H2Repositories repositories = new H2Repositories("jdbc:h2:" + databaseFile.toAbsolutePath());
+            repositories.setServiceCatalog(serviceCatalog);
+            return repositories;
+        } catch (SQLException e) {
+            System.out.println("Could not open database, keeping data in memory only: " + e.getMessage());
+            return new InMemoryRepositories();
+        }
+    }
+
+    /**
+     * Reads the service catalog, falling back to the built-in one if no file
+     * was given or it cannot be read.
+     *
+     * @param catalogFile The catalog file, or null.
+     * @return The service catalog.
+     */
+    private static ServiceCatalog openServiceCatalog(Path catalogFile) {
+        if (catalogFile == null) {
+            return ServiceCatalog.standard();
+        }
+        try {
+            return ServiceCatalog.readCatalog(catalogFile);
+        } catch (IOException e) {
+            System.out.println("Could not read service catalog, using the built-in one: " + e.getMessage());
+            return ServiceCatalog.standard();
+        }
+    }
+
+    /**
+     * Saves the current state of customers, manufacturers and mechanics and
+     * closes the repositories.
+     *
+     * @param repositories          The repositories.
+     * @param customers             Registered customers.
+     * @param unregisteredCustomers Unregistered customers.
+     * @param manufacturers         Manufacturers.
+     * @param mechanics             Mechanics.
+     */
+    private static void saveRepositories(Repositories repositories, List<Customer> customers,
+            List<Customer> unregisteredCustomers, List<Manufacturer> manufacturers, List<Mechanic> mechanics) {
+        try {
+            repositories.saveAll(customers, unregisteredCustomers, manufacturers, mechanics);
+            repositories.close();
+        } catch (RepositoryException e) {
+            System.out.println("Error while saving to the database: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Closes the customer store, if one was opened.
+     *
+     * @param customerStore The customer store, or null.
+     */
+    private static void closeQuietly(TieredCustomerStore customerStore) {
+        if (customerStore == null) {
+            return;
+        }
+        try {
+            customerStore.close();
+        } catch (IOException e) {
+            System.out.println("Error while closing customer store: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Reads saved reminders, if a file was given and exists.
+     *
+     * @param remindersFile    The reminders file, or null.
+     * @param serviceReminders The reminders to add them to.
+     * @return True if reminders were read.
+     */
+    private static boolean loadReminders(Path remindersFile, ServiceReminders serviceReminders) {
+        if (remindersFile == null || !Files.exists(remindersFile)) {
+            return false;
+        }
+        try {
+            serviceReminders.load(remindersFile);
+            return true;
+        } catch (IOException e) {
+            System.out.println("Could not read saved reminders, rebuilding them: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Stops sending reminders and saves the pending ones, if a file was
+     * given.
+     *
+     * @param remindersFile    The reminders file, or null.
+     * @param serviceReminders The reminders.
+     */
+    private static void saveReminders(Path remindersFile, ServiceReminders serviceReminders) {
+        serviceReminders.close();
+        if (remindersFile == null) {
+            return;
+        }
+        try {
+            serviceReminders.save(remindersFile);
+        } catch (IOException e) {
+            System.out.println("Error while saving reminders: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Stops the board server, if one was started.
+     *
+     * @param boardServer The board server, or null.
+     */
+    private static void closeQuietly(TaskBoardServer boardServer) {
+        if (boardServer != null) {
+            boardServer.close();
+        }
+    }
+
+    /**
+     * Starts a Flight Recorder recording with the garage events enabled, if a
+     * file was given.
+     *
+     * @param recordingFile The file to write the recording to, or null.
+     * @return The running recording, or null if none was started.
+     */
+    private static Recording startRecording(Path recordingFile) {
+        if (recordingFile == null) {
+            return null;
+        }
+        try {
+            Recording recording = new Recording(Configuration.getConfiguration("default"));
+            recording.enable(OperationEvent.NAME).withoutThreshold();
+            recording.enable(TaskQueueEvent.NAME).withoutThreshold();
+            recording.setDestination(recordingFile);
+            recording.start();
+            return recording;
+        } catch (IOException | ParseException | IllegalStateException | SecurityException e) {
+            System.out.println("Could not start flight recording: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Stops the flight recording, if one was started, which writes it to its
+     * file.
+     *
+     * @param recording The recording, or null.
+     */
+    private static void stopRecording(Recording recording) {
+        if (recording == null) {
+            return;
+        }
+        recording.stop();
+        System.out.println("Flight recording written to " + recording.getDestination()
+                + "; summarize it with java FlightRecordingAnalyzer " + recording.getDestination());
+        recording.close();
+    }
+
+    /**
+     * Starts serving task changes to shop-floor boards if a port was given.
+     *
+     * @param args       The command-line arguments.
+     * @param taskEvents The task event dispatcher the feed listens to.
+     * @return The running server, or null if no port was given or it cannot
+     *         be opened.
+     */
+    private static TaskBoardServer openBoardServer(String[] args, TaskEvents taskEvents) {
+        for (String arg : args) {
+            if (!arg.startsWith("--board-port=")) {
+                continue;
+            }
+            try {
+                TaskFeed feed = new TaskFeed();
+                TaskBoardServer boardServer = new TaskBoardServer(feed,
+                        Integer.parseInt(arg.substring("--board-port=".length())));
+                taskEvents.addListener(feed);
+                boardServer.start();
+                System.out.println("Task board feed at http://localhost:" + boardServer.getPort() + "/events");
+                return boardServer;
+            } catch (NumberFormatException | IOException e) {
+                System.out.println("Could not start task board feed: " + e.getMessage());
+                return null;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Checks whether a flag was given on the command line.
+     *
+     * @param args The command-line arguments.
+     * @param flag The flag to look for.
+     * @return True if the flag is present.
+     */
+    private static boolean hasArgument(String[] args, String flag) {
+        return Arrays.asList(args).contains(flag);
+    }
+
+    /**
+     * Gives the ledger back the tasks the task repository holds as not yet
+     * invoiced, and has it store unbilled tasks there from now on.
+     *
+     * @param invoiceLedger  The invoice ledger.
+     * @param taskRepository The task repository.
+     * @param mechanics      The loaded mechanics.
+     */
+    private static void restoreUnbilled(InvoiceLedger invoiceLedger, TaskRepository taskRepository,
+            List<Mechanic> mechanics) {
+        Map<Integer, List<Task>> unbilled = taskRepository.findUnbilled();
+        for (Mechanic mechanic : mechanics) {
+            invoiceLedger.restore(mechanic, unbilled.getOrDefault(mechanic.getId(), List.of()));
+        }
+        invoiceLedger.setTaskRepository(taskRepository);
+    }
+
+    /**
+     * Saves the current state, first waiting for any restore still running so
+     * that nothing is lost.
+     *
+     * @param stateFile             The file to save to.
+     * @param warmStart             The restore in progress, or null.
+     * @param customers             Registered customers.
+     * @param unregisteredCustomers Unregistered customers.
+     * @param manufacturers         Manufacturers and their suppliers.
+     * @param mechanics             Mechanics and their assigned tasks.
+     * @param taskQueue             Pending tasks.
+     * @param blockedTasks          Tasks waiting for prerequisites; saved as
+     *                              pending tasks, since the file format has no
+     *                              dependencies.
+     * @param invoiceLedger         Ledger whose unbilled tasks are saved.
+     */
+    private static void saveState(Path stateFile, WarmStart warmStart, List<Customer> customers,
+            List<Customer> unregisteredCustomers, List<Manufacturer> manufacturers, List<Mechanic> mechanics,
+            TaskQueue taskQueue, List<Task> blockedTasks, InvoiceLedger invoiceLedger) {
+        try {
+            if (warmStart != null) {
+                for (WarmStart.Section section : WarmStart.Section.values()) {
+                    warmStart.await(section);
+                }
+                if (warmStart.getFailure() != null) {
+                    System.out.println("Saved state was not fully restored; not overwriting " + stateFile + ".");
+                    return;
+                }
+            }
+            TaskQueue pending = taskQueue;
+            if (!blockedTasks.isEmpty()) {
+                pending = new TaskQueue();
+                for (Task task : taskQueue.getTasksAsList()) {
+                    pending.addTask(task);
+                }
+                for (Task task : blockedTasks) {
+                    pending.addTask(task);
+                }
+            }
+            GarageStateFile.write(stateFile, customers, unregisteredCustomers, manufacturers, mechanics, pending,
+                    invoiceLedger.pendingTasks());
+            System.out.println("State saved to " + stateFile + ".");
+        } catch (IOException e) {
+            System.out.println("Error while saving state: " + e.getMessage());
+        }
+    }
 }
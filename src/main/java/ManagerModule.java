@@ -1,4 +1,15 @@
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
  * ManagerModule handles various operations related to customers, tasks,
@@ -8,12 +19,37 @@ import java.util.*;
  */
 public class ManagerModule {
     private Scanner scanner;
-    private List<Customer> customers;
-    private List<Customer> unregisteredCustomers;
     private List<Manufacturer> manufacturers;
     private TaskQueue taskQueue;
-    private List<Mechanic> mechanics;
-    private int customerIdCounter;
+    private CustomerService customerService;
+    private MechanicService mechanicService;
+    private CustomerSegmentIndex segmentIndex;
+    private BayScheduler bayScheduler;
+    private WarmStart warmStart;
+    private WaitTimeEstimator waitTimeEstimator;
+    private TaskEvents taskEvents = new TaskEvents();
+    private ShopThroughput throughput;
+    private TaskDependencyGraph dependencyGraph;
+    private ManufacturerRepository manufacturerRepository;
+    private InvoiceLedger invoiceLedger;
+    private ReportEngine reportEngine;
+    private DuplicateCustomerFinder duplicateFinder;
+    private ServiceCatalog serviceCatalog; // Standard jobs tasks can be created from, or null
+    private MobileFleet mobileFleet; // Van locations for dispatching mobile jobs, or null
+    private ServiceReminders serviceReminders; // Service and MOT reminders to customers, or null
+    private CompletableFuture<DailyReport> pendingReport; // Report still being built when last asked for
+
+    // Duplicate candidates listed for the manager to pick from
+    private static final int MAX_LISTED_DUPLICATES = 20;
+
+    // Nearest mechanics suggested for a mobile job
+    private static final int NEAREST_MECHANICS = 3;
+
+    // How long the menu waits for a report before leaving it to finish in the background
+    private static final long REPORT_WAIT_MILLIS = 2_000;
+
+    // Format used when asking for appointment times
+    private static final DateTimeFormatter SLOT_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
 
     /**
      * Constructor to initialize the ManagerModule with required dependencies.
@@ -28,13 +64,182 @@ public class ManagerModule {
 
     public ManagerModule(Scanner scanner, List<Customer> customers, List<Customer> unregisteredCustomers,
             List<Manufacturer> manufacturers, TaskQueue taskQueue, List<Mechanic> mechanics) {
+        this(scanner, customers, unregisteredCustomers, manufacturers, taskQueue, mechanics,
+                new CustomerSegmentIndex());
+    }
+
+    /**
+     * Constructor to initialize the ManagerModule with a shared customer
+     * segment index. Customers already in the given lists are indexed.
+     *
+     * @param scanner               Scanner object for user input
+     * @param customers             List of registered customers
+     * @param unregisteredCustomers List of unregistered customers
+     * @param manufacturers         List of manufacturers and their suppliers
+     * @param taskQueue             Queue to manage pending tasks
+     * @param mechanics             List of available mechanics
+     * @param segmentIndex          Bitmap index used for targeted notifications
+     */
+    public ManagerModule(Scanner scanner, List<Customer> customers, List<Customer> unregisteredCustomers,
+            List<Manufacturer> manufacturers, TaskQueue taskQueue, List<Mechanic> mechanics,
+            CustomerSegmentIndex segmentIndex) {
+        this(scanner, new CustomerService(customers, unregisteredCustomers, segmentIndex),
+                new MechanicService(mechanics, taskQueue), manufacturers, taskQueue);
+    }
+
+    /**
+     * Constructor to initialize the ManagerModule with domain services that
+     * may be shared with other, concurrently running sessions.
+     *
+     * @param scanner         Scanner object for user input
+     * @param customerService Thread-safe customer operations
+     * @param mechanicService Thread-safe mechanic and assignment operations
+     * @param manufacturers   List of manufacturers and their suppliers
+     * @param taskQueue       Queue to manage pending tasks
+     */
+    public ManagerModule(Scanner scanner, CustomerService customerService, MechanicService mechanicService,
+            List<Manufacturer> manufacturers, TaskQueue taskQueue) {
         this.scanner = scanner;
-        this.customers = customers;
-        this.unregisteredCustomers = unregisteredCustomers;
+        this.customerService = customerService;
+        this.mechanicService = mechanicService;
         this.manufacturers = manufacturers;
         this.taskQueue = taskQueue;
-        this.mechanics = mechanics;
-        this.customerIdCounter = 1;
+        this.segmentIndex = customerService.getSegmentIndex();
+    }
+
+    /**
+     * Enables booking service bays when tasks are created.
+     *
+     * @param bayScheduler Scheduler holding the bay calendars
+     */
+    public void setBayScheduler(BayScheduler bayScheduler) {
+        this.bayScheduler = bayScheduler;
+    }
+
+    /**
+     * Enables creating tasks from standard job codes.
+     *
+     * @param serviceCatalog Catalog of the standard jobs
+     */
+    public void setServiceCatalog(ServiceCatalog serviceCatalog) {
+        this.serviceCatalog = serviceCatalog;
+    }
+
+    /**
+     * Lets the manager set MOT reminders for customers.
+     *
+     * @param serviceReminders Scheduler of service and MOT reminders
+     */
+    public void setServiceReminders(ServiceReminders serviceReminders) {
+        this.serviceReminders = serviceReminders;
+    }
+
+    /**
+     * Enables mobile jobs and suggests the nearest free mechanics for them.
+     *
+     * @param mobileFleet Tracker of the mechanics' van locations
+     */
+    public void setMobileFleet(MobileFleet mobileFleet) {
+        this.mobileFleet = mobileFleet;
+    }
+
+    /**
+     * Enables wait-time estimates for newly created tasks.
+     *
+     * @param waitTimeEstimator Estimator based on recorded task durations
+     */
+    public void setWaitTimeEstimator(WaitTimeEstimator waitTimeEstimator) {
+        this.waitTimeEstimator = waitTimeEstimator;
+    }
+
+    /**
+     * Sets where task creations and assignments are reported.
+     *
+     * @param taskEvents Dispatcher of task lifecycle events
+     */
+    public void setTaskEvents(TaskEvents taskEvents) {
+        this.taskEvents = taskEvents;
+    }
+
+    /**
+     * Enables the shop throughput report.
+     *
+     * @param throughput Sliding-window counters fed by task events
+     */
+    public void setThroughput(ShopThroughput throughput) {
+        this.throughput = throughput;
+    }
+
+    /**
+     * Enables prerequisites for new tasks. Tasks with open prerequisites are
+     * held back until those are completed.
+     *
+     * @param dependencyGraph Graph that releases tasks once they can start
+     */
+    public void setDependencyGraph(TaskDependencyGraph dependencyGraph) {
+        this.dependencyGraph = dependencyGraph;
+    }
+
+    /**
+     * Lets the manager bill completed tasks at the end of the day.
+     *
+     * @param invoiceLedger Ledger collecting completed tasks
+     */
+    public void setInvoiceLedger(InvoiceLedger invoiceLedger) {
+        this.invoiceLedger = invoiceLedger;
+    }
+
+    /**
+     * Lets the manager view the daily report.
+     *
+     * @param reportEngine Engine building the reports
+     */
+    public void setReportEngine(ReportEngine reportEngine) {
+        this.reportEngine = reportEngine;
+    }
+
+    /**
+     * Lets the manager find and merge duplicate customers.
+     *
+     * @param duplicateFinder Finder of likely duplicates
+     */
+    public void setDuplicateFinder(DuplicateCustomerFinder duplicateFinder) {
+        this.duplicateFinder = duplicateFinder;
+    }
+
+    /**
+     * Saves new manufacturers and suppliers to a repository.
+     *
+     * @param manufacturerRepository Persistent copy of the manufacturers
+     */
+    public void setManufacturerRepository(ManufacturerRepository manufacturerRepository) {
+        this.manufacturerRepository = manufacturerRepository;
+    }
+
+    /**
+     * Lets the module run while saved state is still being restored. New
+     * customers are numbered after the highest saved customer ID.
+     *
+     * @param warmStart Background restore of the saved state
+     */
+    public void setWarmStart(WarmStart warmStart) {
+        this.warmStart = warmStart;
+        customerService.reserveIdsThrough(warmStart.getMaxCustomerId());
+    }
+
+    /**
+     * Waits until a section of the saved state has been restored, if a warm
+     * start is in progress.
+     *
+     * @param section The section the operation needs
+     */
+    private void awaitRestored(WarmStart.Section section) {
+        if (warmStart != null) {
+            warmStart.await(section);
+            if (section == WarmStart.Section.MECHANICS) {
+                mechanicService.reserveExistingIds();
+            }
+        }
     }
 
     /**
@@ -55,25 +260,43 @@ public class ManagerModule {
                 System.out.println("9. Assign Tasks to Mechanics");
                 System.out.println("10. Add Mechanic");
                 System.out.println("11. Upgrade Unregistered Customer to Registered");
-                System.out.println("12. Back to Main Menu");
+                System.out.println("12. Send Notifications to Customer Segment");
+                System.out.println("13. View Shop Throughput");
+                System.out.println("14. Customer Storage");
+                System.out.println("15. Run Recall Campaign");
+                System.out.println("16. Run End-of-Day Invoicing");
+                System.out.println("17. View Daily Report");
+                System.out.println("18. Find Duplicate Customers");
+                System.out.println("19. Schedule MOT Reminder");
+                System.out.println("20. Back to Main Menu");
                 System.out.print("Enter your choice: ");
 
                 int choice = scanner.nextInt();
                 scanner.nextLine(); // Consume newline
 
                 switch (choice) {
-                    case 1 -> registerCustomer();
-                    case 2 -> viewAllRegisteredCustomers();
-                    case 3 -> addUnregisteredCustomer();
-                    case 4 -> viewAllUnregisteredCustomers();
-                    case 5 -> sendNotificationsToRegisteredCustomers();
-                    case 6 -> sendNotificationsToUnregisteredCustomers();
-                    case 7 -> addManufacturerAndSuppliers();
-                    case 8 -> createTask();
-                    case 9 -> assignTasks();
-                    case 10 -> addMechanic();
-                    case 11 -> upgradeCustomer();
-                    case 12 -> {
+                    case 1 -> record("registerCustomer", this::registerCustomer);
+                    case 2 -> record("viewAllRegisteredCustomers", this::viewAllRegisteredCustomers);
+                    case 3 -> record("addUnregisteredCustomer", this::addUnregisteredCustomer);
+                    case 4 -> record("viewAllUnregisteredCustomers", this::viewAllUnregisteredCustomers);
+                    case 5 -> record("sendNotificationsToRegisteredCustomers",
+                            this::sendNotificationsToRegisteredCustomers);
+                    case 6 -> record("sendNotificationsToUnregisteredCustomers",
+                            this::sendNotificationsToUnregisteredCustomers);
+                    case 7 -> record("addManufacturerAndSuppliers", this::addManufacturerAndSuppliers);
+                    case 8 -> record("createTask", this::createTask);
+                    case 9 -> record("assignTasks", this::assignTasks);
+                    case 10 -> record("addMechanic", this::addMechanic);
+                    case 11 -> record("upgradeCustomer", this::upgradeCustomer);
+                    case 12 -> record("sendNotificationsToSegment", this::sendNotificationsToSegment);
+                    case 13 -> record("viewThroughput", this::viewThroughput);
+                    case 14 -> record("manageCustomerStorage", this::manageCustomerStorage);
+                    case 15 -> record("runRecallCampaign", this::runRecallCampaign);
+                    case 16 -> record("runInvoicing", this::runInvoicing);
+                    case 17 -> record("viewDailyReport", this::viewDailyReport);
+                    case 18 -> record("findDuplicateCustomers", this::findDuplicateCustomers);
+                    case 19 -> record("scheduleMotReminder", this::scheduleMotReminder);
+                    case 20 -> {
                         return;
                     }
                     default -> System.out.println("Invalid choice. Please try again.");
@@ -101,8 +324,7 @@ public class ManagerModule {
             System.out.print("Enter vehicle model: ");
             String vehicleModel = scanner.nextLine();
 
-            Customer customer = new Customer(customerIdCounter++, name, contact, vehicleNumber, vehicleModel, true);
-            customers.add(customer);
+            customerService.register(name, contact, vehicleNumber, vehicleModel);
             System.out.println("Customer registered successfully.");
         } catch (Exception e) {
             System.out.println("Error while registering customer: " + e.getMessage());
@@ -113,6 +335,8 @@ public class ManagerModule {
      * Displays all registered customers.
      */
     protected void viewAllRegisteredCustomers() {
+        awaitRestored(WarmStart.Section.CUSTOMERS);
+        List<Customer> customers = customerService.registeredCustomers();
         System.out.println("\nRegistered Customers:");
         if (customers.isEmpty()) {
             System.out.println("No registered customers found.");
@@ -142,8 +366,7 @@ public class ManagerModule {
             System.out.print("Enter vehicle model: ");
             String vehicleModel = scanner.nextLine();
 
-            Customer customer = new Customer(customerIdCounter++, name, contact, vehicleNumber, vehicleModel, false);
-            unregisteredCustomers.add(customer);
+            customerService.addUnregistered(name, contact, vehicleNumber, vehicleModel);
             System.out.println("Unregistered walk-in customer added successfully.");
         } catch (Exception e) {
             System.out.println("Error while adding unregistered customer: " + e.getMessage());
@@ -154,6 +377,8 @@ public class ManagerModule {
      * Displays all unregistered customers.
      */
     protected void viewAllUnregisteredCustomers() {
+        awaitRestored(WarmStart.Section.CUSTOMERS);
+        List<Customer> unregisteredCustomers = customerService.unregisteredCustomers();
         System.out.println("\nUnregistered Customers:");
         if (unregisteredCustomers.isEmpty()) {
             System.out.println("No unregistered customers found.");
@@ -174,9 +399,10 @@ public class ManagerModule {
      */
     protected void sendNotificationsToRegisteredCustomers() {
         try {
+            awaitRestored(WarmStart.Section.CUSTOMERS);
             System.out.print("Enter notification message: ");
             String message = scanner.nextLine();
-            for (Customer customer : customers) {
+            for (Customer customer : customerService.registeredCustomers()) {
                 System.out.println("Notification sent to registered customer " + customer.getName() + ": " + message);
             }
         } catch (Exception e) {
@@ -189,9 +415,10 @@ public class ManagerModule {
      */
     protected void sendNotificationsToUnregisteredCustomers() {
         try {
+            awaitRestored(WarmStart.Section.CUSTOMERS);
             System.out.print("Enter notification message: ");
             String message = scanner.nextLine();
-            for (Customer customer : unregisteredCustomers) {
+            for (Customer customer : customerService.unregisteredCustomers()) {
                 System.out.println("Notification sent to unregistered customer " + customer.getName() + ": " + message);
             }
         } catch (Exception e) {
@@ -199,11 +426,61 @@ public class ManagerModule {
         }
     }
 
+    /**
+     * Sends a notification message to the customers of a segment, e.g.
+     * registered Corolla owners not serviced in the last 6 months.
+     */
+    protected void sendNotificationsToSegment() {
+        try {
+            awaitRestored(WarmStart.Section.INDEXES);
+            CustomerSegment segment = segmentIndex.segment();
+            System.out.print("Registration status (registered/unregistered/any): ");
+            String registration = scanner.nextLine().trim();
+            if (registration.equalsIgnoreCase("registered")) {
+                segment.registered(true);
+            } else if (registration.equalsIgnoreCase("unregistered")) {
+                segment.registered(false);
+            }
+            System.out.print("Vehicle manufacturer (leave blank for any): ");
+            String manufacturer = scanner.nextLine().trim();
+            if (!manufacturer.isEmpty()) {
+                segment.manufacturer(manufacturer);
+            }
+            System.out.print("Vehicle model (leave blank for any): ");
+            String model = scanner.nextLine().trim();
+            if (!model.isEmpty()) {
+                segment.model(model);
+            }
+            System.out.print("Only customers not serviced in the last N months (0 for no limit): ");
+            int months = scanner.nextInt();
+            scanner.nextLine(); // Consume newline
+            if (months > 0) {
+                segment.notServicedWithinMonths(months, LocalDate.now());
+            }
+
+            List<Customer> recipients = segment.customers();
+            if (recipients.isEmpty()) {
+                System.out.println("No customers match the segment.");
+                return;
+            }
+            System.out.print("Enter notification message: ");
+            String message = scanner.nextLine();
+            int sent = new Notification(message).sendNotifications(recipients);
+            System.out.println("Notification sent to " + sent + " customer(s).");
+        } catch (InputMismatchException e) {
+            System.out.println("Invalid input. Please enter valid data.");
+            scanner.nextLine(); // Clear invalid input
+        } catch (Exception e) {
+            System.out.println("Error while sending notifications: " + e.getMessage());
+        }
+    }
+
     /**
      * Adds a manufacturer and its parts suppliers.
      */
     protected void addManufacturerAndSuppliers() {
         try {
+            awaitRestored(WarmStart.Section.MANUFACTURERS);
             System.out.print("Enter manufacturer name: ");
             String manufacturerName = scanner.nextLine();
             Manufacturer manufacturer = findManufacturerByName(manufacturerName);
@@ -222,6 +499,9 @@ public class ManagerModule {
                 manufacturer.addPartsSupplier(new PartsSupplier(supplierName));
                 System.out.println("Parts supplier added successfully to " + manufacturerName);
             }
+            if (manufacturerRepository != null) {
+                manufacturerRepository.save(manufacturer);
+            }
         } catch (Exception e) {
             System.out.println("Error while adding manufacturer or supplier: " + e.getMessage());
         }
@@ -247,8 +527,15 @@ public class ManagerModule {
      */
     protected void createTask() {
         try {
+            if (warmStart != null) {
+                warmStart.drainCustomers(); // List whoever is restored; lookups below still find the rest
+                if (!warmStart.isComplete()) {
+                    System.out.println("\n(Saved customers are still loading; any saved customer ID can be entered.)");
+                }
+            }
             System.out.println("\nSelect a customer to create a task for:");
 
+            List<Customer> customers = customerService.registeredCustomers();
             System.out.println("\nRegistered Customers:");
             if (customers.isEmpty()) {
                 System.out.println("No registered customers available.");
@@ -260,6 +547,7 @@ public class ManagerModule {
                 }
             }
 
+            List<Customer> unregisteredCustomers = customerService.unregisteredCustomers();
             System.out.println("\nUnregistered Customers:");
             if (unregisteredCustomers.isEmpty()) {
                 System.out.println("No unregistered customers available.");
@@ -271,25 +559,87 @@ public class ManagerModule {
                 }
             }
 
-            System.out.print("\nEnter the customer ID to create a task for: ");
-            int customerId = scanner.nextInt();
-            scanner.nextLine(); // Consume newline
+            System.out.print("\nEnter the customer ID or vehicle number to create a task for: ");
+            String customerKey = scanner.nextLine().trim();
 
-            Customer selectedCustomer = findCustomerById(customerId);
+            Customer selectedCustomer;
+            try {
+                selectedCustomer = findCustomerById(Integer.parseInt(customerKey));
+            } catch (NumberFormatException e) {
+                selectedCustomer = customerService.findByVehicleNumber(customerKey); // Also finds archived customers
+            }
             if (selectedCustomer == null) {
                 System.out.println("Customer not found. Returning to menu.");
                 return;
             }
 
-            System.out.print("Enter task description: ");
-            String description = scanner.nextLine();
+            ServiceType serviceType = null;
+            if (serviceCatalog != null) {
+                System.out.println("\nStandard Jobs:");
+                for (ServiceType type : serviceCatalog.types()) {
+                    System.out.println(type);
+                }
+                System.out.print("Enter job code (leave blank for a free-text task): ");
+                String code = scanner.nextLine().trim();
+                if (!code.isEmpty()) {
+                    serviceType = serviceCatalog.lookup(code);
+                    if (serviceType == null) {
+                        System.out.println("Unknown job code. Returning to menu.");
+                        return;
+                    }
+                    printServiceType(serviceType);
+                }
+            }
+            String description;
+            if (serviceType != null) {
+                System.out.print("Enter task description (leave blank for '" + serviceType.getDescription() + "'): ");
+                description = scanner.nextLine().trim();
+                if (description.isEmpty()) {
+                    description = null;
+                }
+            } else {
+                System.out.print("Enter task description: ");
+                description = scanner.nextLine();
+            }
             System.out.print("Enter task priority (higher number = higher priority): ");
             int priority = scanner.nextInt();
             scanner.nextLine(); // Consume newline
 
-            Task task = new Task(description, selectedCustomer.getVehicleNumber(), priority);
-            taskQueue.addTask(task);
+            Task task = new Task(serviceType, description, selectedCustomer.getVehicleNumber(), priority);
+            if (mobileFleet != null) {
+                System.out.print("Enter job location for a mobile job (latitude,longitude; leave blank for in-shop): ");
+                String locationText = scanner.nextLine().trim();
+                if (!locationText.isEmpty()) {
+                    try {
+                        task.setLocation(GeoPoint.parse(locationText));
+                    } catch (IllegalArgumentException e) {
+                        System.out.println("Invalid location. Returning to menu.");
+                        return;
+                    }
+                }
+            }
+            if (bayScheduler != null) {
+                bookBayForTask(task);
+            }
+            if (dependencyGraph != null) {
+                dependencyGraph.addTask(task, askPrerequisites());
+            } else {
+                taskQueue.addTask(task);
+            }
+            taskEvents.taskCreated(task);
+            if (dependencyGraph != null && dependencyGraph.isBlocked(task)) {
+                System.out.println("Task created for customer " + selectedCustomer.getName() + "; it waits for "
+                        + dependencyGraph.openPrerequisites(task) + " prerequisite task(s) before joining the queue.");
+                return;
+            }
             System.out.println("Task created for customer " + selectedCustomer.getName() + " and added to the queue.");
+            if (waitTimeEstimator != null) {
+                WaitEstimate estimate = waitTimeEstimator.estimate(task, taskQueue, mechanicService.mechanics());
+                if (estimate != null) {
+                    System.out.println("Estimated start: " + estimate.getExpectedStart().format(SLOT_FORMAT)
+                            + ", estimated finish: " + estimate.getExpectedFinish().format(SLOT_FORMAT));
+                }
+            }
         } catch (InputMismatchException e) {
             System.out.println("Invalid input. Please enter valid data.");
             scanner.nextLine(); // Clear invalid input
@@ -298,6 +648,118 @@ public class ManagerModule {
         }
     }
 
+    /**
+     * Shows what a standard job involves.
+     *
+     * @param type The catalog job
+     */
+    private void printServiceType(ServiceType type) {
+        System.out.println("--> Standard time: " + type.getStandardMinutes() + " minutes");
+        if (!type.getRequiredSkills().isEmpty()) {
+            System.out.println("--> Required skills: " + String.join(", ", type.getRequiredSkills()));
+        }
+        if (!type.getTypicalParts().isEmpty()) {
+            System.out.println("--> Typical parts: " + String.join(", ", type.getTypicalParts()));
+        }
+    }
+
+    /**
+     * Asks which open tasks a new task has to wait for.
+     *
+     * @return The chosen prerequisite tasks, possibly empty
+     */
+    private List<Task> askPrerequisites() {
+        List<Task> openTasks = new ArrayList<>(taskQueue.getTasksAsList());
+        openTasks.addAll(dependencyGraph.getBlockedTasks());
+        for (Mechanic mechanic : mechanicService.mechanics()) {
+            for (Task assigned : mechanic.getAssignedTasks()) {
+                if (!"Completed".equals(assigned.getStatus())) {
+                    openTasks.add(assigned);
+                }
+            }
+        }
+        List<Task> prerequisites = new ArrayList<>();
+        if (openTasks.isEmpty()) {
+            return prerequisites;
+        }
+
+        System.out.println("\nOpen Tasks:");
+        for (int i = 0; i < openTasks.size(); i++) {
+            Task open = openTasks.get(i);
+            System.out.println((i + 1) + ". " + open.getDescription() + " (" + open.getVehicleDetails() + ", "
+                    + open.getStatus() + ")");
+        }
+        System.out.print("Enter the numbers of tasks that must be completed first (comma-separated, blank for none): ");
+        String line = scanner.nextLine().trim();
+        if (line.isEmpty()) {
+            return prerequisites;
+        }
+        for (String part : line.split(",")) {
+            try {
+                int number = Integer.parseInt(part.trim());
+                if (number < 1 || number > openTasks.size()) {
+                    System.out.println("Ignoring invalid task number " + number + ".");
+                } else {
+                    prerequisites.add(openTasks.get(number - 1));
+                }
+            } catch (NumberFormatException e) {
+                System.out.println("Ignoring invalid task number '" + part.trim() + "'.");
+            }
+        }
+        return prerequisites;
+    }
+
+    /**
+     * Offers to book the earliest free service bay slot for a new task.
+     *
+     * @param task The task being created
+     */
+    private void bookBayForTask(Task task) {
+        System.out.print("Book a service bay for this task? (yes/no): ");
+        if (!scanner.nextLine().trim().equalsIgnoreCase("yes")) {
+            return;
+        }
+        int minutes;
+        ServiceType type = task.getServiceType();
+        if (type != null) {
+            System.out.print("Enter job duration in minutes (leave blank for the standard "
+                    + type.getStandardMinutes() + "): ");
+            String minutesText = scanner.nextLine().trim();
+            try {
+                minutes = minutesText.isEmpty() ? type.getStandardMinutes() : Integer.parseInt(minutesText);
+            } catch (NumberFormatException e) {
+                System.out.println("Invalid duration. No bay booked.");
+                return;
+            }
+        } else {
+            System.out.print("Enter job duration in minutes: ");
+            minutes = scanner.nextInt();
+            scanner.nextLine(); // Consume newline
+        }
+        if (minutes <= 0) {
+            System.out.println("Invalid duration. No bay booked.");
+            return;
+        }
+        System.out.print("Enter earliest start (yyyy-MM-dd HH:mm, leave blank for now): ");
+        String startText = scanner.nextLine().trim();
+        LocalDateTime from;
+        try {
+            from = startText.isEmpty() ? LocalDateTime.now().withSecond(0).withNano(0)
+                    : LocalDateTime.parse(startText, SLOT_FORMAT);
+        } catch (DateTimeParseException e) {
+            System.out.println("Invalid date format. No bay booked.");
+            return;
+        }
+
+        Booking booking = bayScheduler.bookNextAvailable(from, Duration.ofMinutes(minutes), task);
+        if (booking == null) {
+            System.out.println("No service bays available. No bay booked.");
+            return;
+        }
+        System.out.println("Booked bay " + booking.getBayNumber() + " from " + booking.getStart().format(SLOT_FORMAT)
+                + " to " + booking.getEnd().format(SLOT_FORMAT) + ".");
+    }
+
     /**
      * Finds a customer by their ID.
      *
@@ -305,17 +767,312 @@ public class ManagerModule {
      * @return Customer object if found, null otherwise
      */
     private Customer findCustomerById(int id) {
-        for (Customer customer : customers) {
-            if (customer.getId() == id) {
-                return customer;
+        OperationEvent event = new OperationEvent("Manager", "findCustomerById");
+        Customer customer = customerService.findById(id);
+        if (customer == null && warmStart != null) {
+            customer = warmStart.findCustomer(id);
+        }
+        commit(event);
+        return customer;
+    }
+
+    /**
+     * Runs a menu operation and records it as an OperationEvent.
+     *
+     * @param operation Name of the operation
+     * @param action    The operation
+     */
+    private void record(String operation, Runnable action) {
+        OperationEvent event = new OperationEvent("Manager", operation);
+        try {
+            action.run();
+        } finally {
+            commit(event);
+        }
+    }
+
+    /**
+     * Ends an operation event and, if it is recorded, adds the current
+     * customer, mechanic and queued task counts.
+     *
+     * @param event The event
+     */
+    private void commit(OperationEvent event) {
+        if (event.finish()) {
+            event.customers = customerService.registeredCustomers().size()
+                    + customerService.unregisteredCustomers().size();
+            event.mechanics = mechanicService.mechanics().size();
+            event.queuedTasks = taskQueue.size();
+            event.commit();
+        }
+    }
+
+    /**
+     * Displays task throughput for the last hour and the last day, shop-wide
+     * and per mechanic.
+     */
+    protected void viewThroughput() {
+        if (throughput == null) {
+            System.out.println("Throughput tracking is not enabled.");
+            return;
+        }
+        awaitRestored(WarmStart.Section.MECHANICS);
+        Duration hour = ShopThroughput.LAST_HOUR;
+        Duration day = ShopThroughput.LAST_DAY;
+        System.out.println("\nShop Throughput (last hour / last day):");
+        System.out.println("--> Tasks Created: " + throughput.createdInLast(hour) + " / " + throughput.createdInLast(day));
+        System.out.println("--> Tasks Assigned: " + throughput.assignedInLast(hour) + " / "
+                + throughput.assignedInLast(day));
+        System.out.println("--> Tasks Completed: " + throughput.completedInLast(hour) + " / "
+                + throughput.completedInLast(day));
+        System.out.println("--> Queue Net Inflow: " + throughput.netInflow(hour) + " / " + throughput.netInflow(day));
+        for (Mechanic mechanic : mechanicService.mechanics()) {
+            System.out.println("Mechanic " + mechanic.getName() + " (ID " + mechanic.getId() + ") completed: "
+                    + throughput.completedInLast(mechanic.getId(), hour) + " / "
+                    + throughput.completedInLast(mechanic.getId(), day));
+        }
+    }
+
+    /**
+     * Shows how customer lookups are served and archives customers who have
+     * not been in for a given number of months.
+     */
+    protected void manageCustomerStorage() {
+        TieredCustomerStore store = customerService.getStore();
+        if (store == null) {
+            System.out.println("Customer storage is not enabled.");
+            return;
+        }
+        try {
+            awaitRestored(WarmStart.Section.CUSTOMERS);
+            DurationSketch missLatency = store.getMissLatency();
+            System.out.println("\nCustomer Storage:");
+            System.out.println("--> Customers Stored: " + store.size());
+            System.out.println("--> Customers In Memory: " + (customerService.registeredCustomers().size()
+                    + customerService.unregisteredCustomers().size()) + " listed, " + store.cachedCount() + " cached");
+            System.out.println("--> Log File Size: " + store.fileSize() + " bytes");
+            System.out.printf("--> Cache Hit Rate: %.1f%% (%d hits, %d misses)%n", store.getHitRate() * 100,
+                    store.getHits(), store.getMisses());
+            if (missLatency.getCount() > 0) {
+                System.out.printf("--> Disk Lookup Time: p50 %.3f ms, p99 %.3f ms%n",
+                        missLatency.quantile(0.5) * 1000, missLatency.quantile(0.99) * 1000);
+            }
+
+            System.out.print("\nArchive customers not serviced for how many months? (0 to skip): ");
+            int months = scanner.nextInt();
+            scanner.nextLine(); // Consume newline
+            if (months <= 0) {
+                return;
             }
+            int archived = customerService.archiveNotServicedSince(LocalDate.now().minusMonths(months));
+            store.compact();
+            System.out.println(archived + " customer(s) archived to disk.");
+        } catch (InputMismatchException e) {
+            System.out.println("Invalid input. Please enter a valid number.");
+            scanner.nextLine(); // Clear invalid input
+        } catch (Exception e) {
+            System.out.println("An error occurred while archiving customers: " + e.getMessage());
         }
-        for (Customer customer : unregisteredCustomers) {
-            if (customer.getId() == id) {
-                return customer;
+    }
+
+    /**
+     * Loads a manufacturer's recall list, finds every affected customer and,
+     * once confirmed, creates a recall task and sends a notification for
+     * each match.
+     */
+    protected void runRecallCampaign() {
+        try {
+            System.out.print("Enter the recall list file: ");
+            Path file = Path.of(scanner.nextLine().trim());
+            List<RecallEntry> recalls = RecallCampaign.readRecallList(file);
+            if (recalls.isEmpty()) {
+                System.out.println("The recall list is empty.");
+                return;
+            }
+            awaitRestored(WarmStart.Section.CUSTOMERS);
+            RecallCampaign campaign = new RecallCampaign(recalls);
+            List<Customer> customers = customerService.allCustomers();
+            long start = System.nanoTime();
+            List<RecallCampaign.Match> matches = campaign.match(customers);
+            long millis = (System.nanoTime() - start) / 1_000_000;
+            System.out.println(recalls.size() + " recall(s) checked against " + customers.size() + " customer(s) in "
+                    + millis + " ms: " + matches.size() + " affected vehicle(s).");
+            if (matches.isEmpty()) {
+                return;
+            }
+
+            System.out.print("Create recall tasks and notify the affected customers? (yes/no): ");
+            if (!scanner.nextLine().trim().equalsIgnoreCase("yes")) {
+                System.out.println("Recall campaign cancelled.");
+                return;
+            }
+            awaitRestored(WarmStart.Section.TASKS);
+            List<Task> tasks = campaign.createTasks(matches, taskQueue, taskEvents);
+            int sent = campaign.notifyCustomers(matches);
+            System.out.println(tasks.size() + " recall task(s) added to the queue; " + sent
+                    + " notification(s) sent.");
+        } catch (IOException e) {
+            System.out.println("Could not read the recall list: " + e.getMessage());
+        } catch (Exception e) {
+            System.out.println("An error occurred while running the recall campaign: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Writes an invoice for every task completed since the last run, one file
+     * per mechanic.
+     */
+    protected void runInvoicing() {
+        if (invoiceLedger == null) {
+            System.out.println("Invoicing is not enabled.");
+            return;
+        }
+        awaitRestored(WarmStart.Section.UNBILLED);
+        int pending = invoiceLedger.pendingCount();
+        if (pending == 0) {
+            System.out.println("No completed tasks to invoice.");
+            return;
+        }
+        try {
+            System.out.print("Enter the directory to write " + pending + " invoice(s) to: ");
+            Path directory = Path.of(scanner.nextLine().trim());
+            awaitRestored(WarmStart.Section.CUSTOMERS);
+            InvoiceLedger.Summary summary = invoiceLedger.runEndOfDay(directory, customerService.allCustomers());
+            System.out.println(summary.getInvoices() + " invoice(s) totalling " + Money.format(summary.getTotalCents())
+                    + " written to " + summary.getFiles().size() + " file(s) in " + summary.getMillis() + " ms.");
+        } catch (IOException e) {
+            System.out.println("Could not write invoices; unwritten tasks stay pending: " + e.getMessage());
+        } catch (Exception e) {
+            System.out.println("An error occurred while invoicing: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Shows the daily report. The report is built in the background; if it
+     * takes too long, the manager can come back for it later.
+     */
+    protected void viewDailyReport() {
+        if (reportEngine == null) {
+            System.out.println("Reports are not enabled.");
+            return;
+        }
+        try {
+            if (pendingReport == null) {
+                awaitRestored(WarmStart.Section.CUSTOMERS);
+                awaitRestored(WarmStart.Section.MECHANICS);
+                awaitRestored(WarmStart.Section.TASKS);
+                pendingReport = reportEngine.dailyReport();
             }
+            DailyReport report = pendingReport.get(REPORT_WAIT_MILLIS, TimeUnit.MILLISECONDS);
+            pendingReport = null;
+            report.print(System.out);
+        } catch (TimeoutException e) {
+            System.out.println("The report is still being prepared. Choose this option again to see it.");
+        } catch (ExecutionException e) {
+            pendingReport = null;
+            System.out.println("Could not build the report: " + e.getCause().getMessage());
+        } catch (Exception e) {
+            System.out.println("An error occurred while building the report: " + e.getMessage());
         }
-        return null;
+    }
+
+    /**
+     * Lists likely duplicate customers and merges the ones the manager picks,
+     * pointing the duplicate's tasks at the kept customer's vehicle.
+     */
+    protected void findDuplicateCustomers() {
+        if (duplicateFinder == null) {
+            System.out.println("Duplicate detection is not enabled.");
+            return;
+        }
+        try {
+            awaitRestored(WarmStart.Section.CUSTOMERS);
+            awaitRestored(WarmStart.Section.MECHANICS);
+            awaitRestored(WarmStart.Section.TASKS);
+            List<DuplicateCustomerFinder.Candidate> candidates = duplicateFinder.find();
+            if (candidates.isEmpty()) {
+                System.out.println("No likely duplicate customers found.");
+                return;
+            }
+            int shown = Math.min(candidates.size(), MAX_LISTED_DUPLICATES);
+            System.out.println("\nLikely duplicates (" + candidates.size() + " found, showing " + shown + "):");
+            for (int i = 0; i < shown; i++) {
+                DuplicateCustomerFinder.Candidate candidate = candidates.get(i);
+                System.out.printf("%d. Keep %s%n   merge %s (similarity %.2f)%n", i + 1,
+                        describe(candidate.getKeep()), describe(candidate.getDuplicate()), candidate.getSimilarity());
+            }
+            while (true) {
+                System.out.print("Enter a number to merge, or 0 to finish: ");
+                int choice = scanner.nextInt();
+                scanner.nextLine(); // Consume newline
+                if (choice == 0) {
+                    return;
+                }
+                if (choice < 1 || choice > shown) {
+                    System.out.println("Invalid number.");
+                    continue;
+                }
+                DuplicateCustomerFinder.Candidate candidate = candidates.get(choice - 1);
+                int repointed = duplicateFinder.merge(candidate.getKeep(), candidate.getDuplicate());
+                if (repointed < 0) {
+                    System.out.println("Could not merge; one of the customers is no longer listed.");
+                } else {
+                    System.out.println("Merged customer " + candidate.getDuplicate().getId() + " into customer "
+                            + candidate.getKeep().getId() + "; " + repointed + " task(s) re-pointed.");
+                }
+            }
+        } catch (InputMismatchException e) {
+            System.out.println("Invalid input. Please enter a valid number.");
+            scanner.nextLine(); // Clear invalid input
+        } catch (Exception e) {
+            System.out.println("An error occurred while looking for duplicates: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Sets the date a customer's MOT is due, so they are reminded two weeks
+     * before it, and shows their pending service reminder.
+     */
+    protected void scheduleMotReminder() {
+        if (serviceReminders == null) {
+            System.out.println("Service reminders are not enabled.");
+            return;
+        }
+        try {
+            awaitRestored(WarmStart.Section.CUSTOMERS);
+            System.out.print("Enter customer ID: ");
+            int id = scanner.nextInt();
+            scanner.nextLine(); // Consume newline
+            Customer customer = findCustomerById(id);
+            if (customer == null) {
+                System.out.println("Customer not found.");
+                return;
+            }
+            System.out.print("Enter MOT due date (yyyy-MM-dd): ");
+            LocalDate motDate = LocalDate.parse(scanner.nextLine().trim());
+            LocalDateTime sendAt = serviceReminders.scheduleMot(customer, motDate);
+            System.out.println("MOT reminder for " + customer.getName() + " will be sent on "
+                    + sendAt.format(SLOT_FORMAT) + ".");
+            LocalDateTime service = serviceReminders.pending(customer, ReminderWheel.Kind.SERVICE);
+            if (service != null) {
+                System.out.println("Next service reminder: " + service.format(SLOT_FORMAT) + ".");
+            }
+        } catch (InputMismatchException e) {
+            System.out.println("Invalid input. Please enter a valid number.");
+            scanner.nextLine(); // Clear invalid input
+        } catch (DateTimeParseException e) {
+            System.out.println("Invalid date. Please use the format yyyy-MM-dd.");
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+        } catch (Exception e) {
+            System.out.println("An error occurred while scheduling the MOT reminder: " + e.getMessage());
+        }
+    }
+
+    // One-line summary of a customer for lists
+    private static String describe(Customer customer) {
+        return "ID " + customer.getId() + ": " + customer.getName() + ", " + customer.getContactInfo() + ", "
+                + customer.getVehicleNumber() + (customer.isRegistered() ? " (registered)" : " (walk-in)");
     }
 
     /**
@@ -323,6 +1080,9 @@ public class ManagerModule {
      */
     protected void assignTasks() {
         try {
+            awaitRestored(WarmStart.Section.MECHANICS);
+            awaitRestored(WarmStart.Section.TASKS);
+            List<Mechanic> mechanics = mechanicService.mechanics();
             if (mechanics.isEmpty()) {
                 System.out.println("No mechanics available.");
                 return;
@@ -354,6 +1114,17 @@ public class ManagerModule {
 
             Task selectedTask = pendingTasks.get(taskNumber - 1);
 
+            if (mobileFleet != null && selectedTask.getLocation() != null) {
+                List<MobileFleet.Candidate> nearest = mobileFleet.nearestFor(selectedTask, NEAREST_MECHANICS);
+                System.out.println("\nNearest Available Mechanics for this mobile job:");
+                if (nearest.isEmpty()) {
+                    System.out.println("No free qualified mechanic with a known van location.");
+                }
+                for (MobileFleet.Candidate candidate : nearest) {
+                    System.out.printf("ID: %d, Name: %s, Distance: %.1f km%n", candidate.getMechanic().getId(),
+                            candidate.getMechanic().getName(), candidate.getDistanceKm());
+                }
+            }
             System.out.println("\nAvailable Mechanics:");
             for (Mechanic mechanic : mechanics) {
                 System.out.println("ID: " + mechanic.getId() + ", Name: " + mechanic.getName());
@@ -363,14 +1134,17 @@ public class ManagerModule {
             int mechanicId = scanner.nextInt();
             scanner.nextLine(); // Consume newline
 
-            Mechanic mechanic = findMechanicById(mechanicId);
+            Mechanic mechanic = mechanicService.findById(mechanicId);
             if (mechanic == null) {
                 System.out.println("Invalid mechanic ID. Returning to menu.");
                 return;
             }
 
-            taskQueue.removeTask(selectedTask);
-            mechanic.assignTask(selectedTask);
+            if (!mechanicService.assign(selectedTask, mechanic)) {
+                System.out.println("Task is no longer pending; it may have been assigned in another session.");
+                return;
+            }
+            taskEvents.taskAssigned(selectedTask, mechanic);
             System.out
                     .println("Task '" + selectedTask.getDescription() + "' assigned to Mechanic " + mechanic.getName());
         } catch (InputMismatchException e) {
@@ -381,32 +1155,23 @@ public class ManagerModule {
         }
     }
 
-    /**
-     * Finds a mechanic by their ID.
-     *
-     * @param id Mechanic ID
-     * @return Mechanic object if found, null otherwise
-     */
-    private Mechanic findMechanicById(int id) {
-        for (Mechanic mechanic : mechanics) {
-            if (mechanic.getId() == id) {
-                return mechanic;
-            }
-        }
-        return null;
-    }
-
     /**
      * Adds a new mechanic to the system.
      */
     protected void addMechanic() {
         try {
+            awaitRestored(WarmStart.Section.MECHANICS);
             System.out.print("Enter mechanic name: ");
             String name = scanner.nextLine();
-            int id = mechanics.size() + 1; // Generate unique ID
-            Mechanic mechanic = new Mechanic(name, id);
-            mechanics.add(mechanic);
-            System.out.println("Mechanic added successfully with ID: " + id);
+            Mechanic mechanic = mechanicService.addMechanic(name);
+            if (mobileFleet != null) {
+                System.out.print("Enter mechanic skills (comma-separated, leave blank for none): ");
+                String skills = scanner.nextLine().trim();
+                if (!skills.isEmpty()) {
+                    mobileFleet.setSkills(mechanic, Arrays.asList(skills.split(",")));
+                }
+            }
+            System.out.println("Mechanic added successfully with ID: " + mechanic.getId());
         } catch (Exception e) {
             System.out.println("Error while adding mechanic: " + e.getMessage());
         }
@@ -417,6 +1182,8 @@ public class ManagerModule {
      */
     protected void upgradeCustomer() {
         try {
+            awaitRestored(WarmStart.Section.CUSTOMERS);
+            List<Customer> unregisteredCustomers = customerService.unregisteredCustomers();
             if (unregisteredCustomers.isEmpty()) {
                 System.out.println("No unregistered customers available to upgrade.");
                 return;
@@ -441,9 +1208,11 @@ public class ManagerModule {
                 return;
             }
 
-            Customer customerToUpgrade = unregisteredCustomers.remove(customerIndex);
-            customerToUpgrade.setRegistered(true);
-            customers.add(customerToUpgrade);
+            Customer customerToUpgrade = unregisteredCustomers.get(customerIndex);
+            if (!customerService.upgrade(customerToUpgrade)) {
+                System.out.println("Customer is already registered; they may have been upgraded in another session.");
+                return;
+            }
             System.out.println("Customer upgraded to registered successfully.");
         } catch (InputMismatchException e) {
             System.out.println("Invalid input. Please enter valid data.");
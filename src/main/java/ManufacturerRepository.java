@@ -0,0 +1,40 @@
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Stores manufacturers and their parts suppliers by manufacturer name.
+ */
+public interface ManufacturerRepository {
+
+    /**
+     * Stores a new manufacturer or adds the suppliers of a known one.
+     *
+     * @param manufacturer The manufacturer.
+     */
+    void save(Manufacturer manufacturer);
+
+    /**
+     * Stores several manufacturers.
+     *
+     * @param manufacturers The manufacturers.
+     */
+    default void saveAll(Collection<Manufacturer> manufacturers) {
+        for (Manufacturer manufacturer : manufacturers) {
+            save(manufacturer);
+        }
+    }
+
+    /**
+     * Gets every stored manufacturer with its suppliers.
+     *
+     * @return The manufacturers.
+     */
+    List<Manufacturer> findAll();
+
+    /**
+     * Gets the number of stored manufacturers.
+     *
+     * @return The number of manufacturers.
+     */
+    int count();
+}
@@ -1,5 +1,5 @@
-import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * Represents a mechanic in the system, including their name, ID, and a list of
@@ -21,7 +21,7 @@ public class Mechanic {
     public Mechanic(String name, int id) {
         this.name = name;
         this.id = id;
-        this.assignedTasks = new ArrayList<>();
+        this.assignedTasks = new CopyOnWriteArrayList<>();
     }
 
     /**
@@ -43,7 +43,8 @@ public class Mechanic {
     }
 
     /**
-     * Gets the list of tasks currently assigned to the mechanic.
+     * Gets the list of tasks currently assigned to the mechanic. The list may
+     * be iterated while other sessions assign tasks.
      *
      * @return A list of assigned tasks.
      */
@@ -57,6 +58,9 @@ public class Mechanic {
      * @param task The task to be assigned to the mechanic.
      */
     public void assignTask(Task task) {
+        if (task.getAssignedAt() == null) {
+            task.markAsAssigned();
+        }
         assignedTasks.add(task);
     }
 
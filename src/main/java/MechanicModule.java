@@ -1,3 +1,4 @@
+import java.time.LocalDate;
 import java.util.*;
 
 /**
@@ -11,6 +12,13 @@ public class MechanicModule {
     private Scanner scanner;
     private List<Manufacturer> manufacturers;
     private List<Mechanic> mechanics;
+    private CustomerSegmentIndex segmentIndex;
+    private WarmStart warmStart;
+    private TaskEvents taskEvents = new TaskEvents();
+    private TaskQueue taskQueue;
+    private InvoiceLedger invoiceLedger;
+    private MobileFleet mobileFleet; // Van locations for dispatching mobile jobs, or null
+    private PartAvailability partAvailability; // Asks suppliers which of them has a part, or null
 
     /**
      * Constructor to initialize the MechanicModule with the provided scanner,
@@ -22,9 +30,93 @@ public class MechanicModule {
      * @param manufacturers List of manufacturers in the system.
      */
     public MechanicModule(Scanner scanner, List<Mechanic> mechanics, List<Manufacturer> manufacturers) {
+        this(scanner, mechanics, manufacturers, null);
+    }
+
+    /**
+     * Constructor to initialize the MechanicModule with a customer segment
+     * index that is told about every completed service.
+     *
+     * @param scanner       Scanner for user input.
+     * @param mechanics     List of mechanics in the system.
+     * @param manufacturers List of manufacturers in the system.
+     * @param segmentIndex  Customer index to record services in, or null.
+     */
+    public MechanicModule(Scanner scanner, List<Mechanic> mechanics, List<Manufacturer> manufacturers,
+            CustomerSegmentIndex segmentIndex) {
         this.scanner = scanner;
         this.mechanics = mechanics;
         this.manufacturers = manufacturers;
+        this.segmentIndex = segmentIndex;
+    }
+
+    /**
+     * Sets where task completions are reported.
+     *
+     * @param taskEvents Dispatcher of task lifecycle events.
+     */
+    public void setTaskEvents(TaskEvents taskEvents) {
+        this.taskEvents = taskEvents;
+    }
+
+    /**
+     * Lets mechanics take their next task from the queue themselves.
+     *
+     * @param taskQueue Queue of pending tasks.
+     */
+    public void setTaskQueue(TaskQueue taskQueue) {
+        this.taskQueue = taskQueue;
+    }
+
+    /**
+     * Asks mechanics for the labour and parts of each task they complete, so
+     * that the task can be invoiced.
+     *
+     * @param invoiceLedger Ledger billing completed tasks.
+     */
+    public void setInvoiceLedger(InvoiceLedger invoiceLedger) {
+        this.invoiceLedger = invoiceLedger;
+    }
+
+    /**
+     * Lets mechanics report where their van is, so mobile jobs can be sent
+     * to the nearest one.
+     *
+     * @param mobileFleet Tracker of the mechanics' van locations.
+     */
+    public void setMobileFleet(MobileFleet mobileFleet) {
+        this.mobileFleet = mobileFleet;
+    }
+
+    /**
+     * Shows mechanics which suppliers have a part, and at what price and
+     * delivery time, before they pick one to request it from.
+     *
+     * @param partAvailability Checker asking all suppliers of a manufacturer.
+     */
+    public void setPartAvailability(PartAvailability partAvailability) {
+        this.partAvailability = partAvailability;
+    }
+
+    /**
+     * Lets the module run while saved state is still being restored.
+     *
+     * @param warmStart Background restore of the saved state.
+     */
+    public void setWarmStart(WarmStart warmStart) {
+        this.warmStart = warmStart;
+    }
+
+    /**
+     * Waits until a section of the saved state has been restored, if a warm
+     * start is in progress.
+     *
+     * @param section The section the operation needs.
+     */
+    private void awaitRestored(WarmStart.Section section) {
+        if (warmStart != null) {
+            warmStart.await(section);
+        }
     }
 
     /**
@@ -32,6 +124,7 @@ public class MechanicModule {
      */
     public void mechanicMenu() {
         try {
+            awaitRestored(WarmStart.Section.MECHANICS);
             System.out.print("Enter your name: ");
             String name = scanner.nextLine();
             Mechanic mechanic = findMechanicByName(name);
@@ -48,18 +141,22 @@ public class MechanicModule {
                     System.out.println("2. Mark Task as Completed");
                     System.out.println("3. Add Manufacturer and Parts Supplier");
                     System.out.println("4. Request Part for Vehicle");
-                    System.out.println("5. Back to Main Menu");
+                    System.out.println("5. Take Next Task");
+                    System.out.println("6. Update Van Location");
+                    System.out.println("7. Back to Main Menu");
                     System.out.print("Enter your choice: ");
 
                     int choice = scanner.nextInt();
                     scanner.nextLine(); // Consume newline
 
                     switch (choice) {
-                        case 1 -> viewAssignedTasks(mechanic);
-                        case 2 -> markTaskAsCompleted(mechanic);
-                        case 3 -> addManufacturerAndSupplier();
-                        case 4 -> requestPartForVehicle();
-                        case 5 -> {
+                        case 1 -> record("viewAssignedTasks", mechanic, () -> viewAssignedTasks(mechanic));
+                        case 2 -> record("markTaskAsCompleted", mechanic, () -> markTaskAsCompleted(mechanic));
+                        case 3 -> record("addManufacturerAndSupplier", mechanic, this::addManufacturerAndSupplier);
+                        case 4 -> record("requestPartForVehicle", mechanic, this::requestPartForVehicle);
+                        case 5 -> record("takeNextTask", mechanic, () -> takeNextTask(mechanic));
+                        case 6 -> record("updateVanLocation", mechanic, () -> updateVanLocation(mechanic));
+                        case 7 -> {
                             return;
                         }
                         default -> System.out.println("Invalid choice. Please try again.");
@@ -76,6 +173,50 @@ public class MechanicModule {
         }
     }
 
+    /**
+     * Runs a menu operation and records it as an OperationEvent, with the
+     * mechanic's assigned task count and the queued task count.
+     *
+     * @param operation Name of the operation.
+     * @param mechanic  The mechanic using the menu.
+     * @param action    The operation.
+     */
+    private void record(String operation, Mechanic mechanic, Runnable action) {
+        OperationEvent event = new OperationEvent("Mechanic", operation);
+        try {
+            action.run();
+        } finally {
+            if (event.finish()) {
+                event.mechanics = mechanics.size();
+                event.assignedTasks = mechanic.getAssignedTasks().size();
+                event.queuedTasks = taskQueue == null ? -1 : taskQueue.size();
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * Takes the next pending task for the mechanic and assigns it to them.
+     *
+     * @param mechanic The mechanic asking for work.
+     */
+    protected void takeNextTask(Mechanic mechanic) {
+        if (taskQueue == null) {
+            System.out.println("Tasks are assigned by the manager.");
+            return;
+        }
+        awaitRestored(WarmStart.Section.TASKS);
+        Task task = taskQueue.nextTaskFor(mechanic);
+        if (task == null) {
+            System.out.println("No pending tasks.");
+            return;
+        }
+        mechanic.assignTask(task);
+        taskEvents.taskAssigned(task, mechanic);
+        System.out.println("Took task '" + task.getDescription() + "' for vehicle " + task.getVehicleDetails()
+                + " (priority " + task.getPriority() + ").");
+    }
+
     /**
      * Displays the list of tasks assigned to the mechanic.
      *
@@ -134,7 +275,18 @@ public class MechanicModule {
             }
 
             Task selectedTask = tasks.get(taskNumber - 1);
-            selectedTask.markAsCompleted();
+            if (invoiceLedger != null && !"Completed".equals(selectedTask.getStatus())) {
+                for (LineItem item : askLineItems(selectedTask)) {
+                    selectedTask.addLineItem(item);
+                }
+            }
+            if (selectedTask.markAsCompleted()) {
+                taskEvents.taskCompleted(selectedTask, mechanic);
+            }
+            if (segmentIndex != null) {
+                awaitRestored(WarmStart.Section.INDEXES);
+                segmentIndex.recordService(selectedTask.getVehicleDetails(), LocalDate.now());
+            }
             System.out.println("Task '" + selectedTask.getDescription() + "' marked as completed.");
         } catch (InputMismatchException e) {
             System.out.println("Invalid input. Please enter a valid number.");
@@ -144,11 +296,41 @@ public class MechanicModule {
         }
     }
 
+    /**
+     * Asks for the labour time and the parts used on a task. Nothing is added
+     * to the task until every answer was valid.
+     *
+     * @param task The task being completed.
+     * @return The labour and part line items.
+     */
+    private List<LineItem> askLineItems(Task task) {
+        List<LineItem> items = new ArrayList<>();
+        System.out.print("Enter labour time in minutes (0 for none): ");
+        int minutes = scanner.nextInt();
+        scanner.nextLine(); // Consume newline
+        if (minutes > 0) {
+            items.add(LineItem.labour(task.getDescription(), minutes, invoiceLedger.getLabourRateCents()));
+        }
+        while (true) {
+            System.out.print("Enter part used (or type 'done' to finish): ");
+            String part = scanner.nextLine().trim();
+            if (part.equalsIgnoreCase("done") || part.isEmpty()) {
+                return items;
+            }
+            System.out.print("Enter quantity: ");
+            int quantity = scanner.nextInt();
+            scanner.nextLine(); // Consume newline
+            System.out.print("Enter unit price (e.g. 24.99): ");
+            items.add(LineItem.part(part, quantity, Money.parseCents(scanner.nextLine())));
+        }
+    }
+
     /**
      * Adds a manufacturer and its parts suppliers to the system.
      */
     protected void addManufacturerAndSupplier() {
         try {
+            awaitRestored(WarmStart.Section.MANUFACTURERS);
             System.out.print("Enter manufacturer name: ");
             String manufacturerName = scanner.nextLine();
             Manufacturer manufacturer = findManufacturerByName(manufacturerName);
@@ -172,11 +354,32 @@ public class MechanicModule {
         }
     }
 
+    /**
+     * Records where the mechanic's van is now.
+     *
+     * @param mechanic The mechanic driving the van.
+     */
+    protected void updateVanLocation(Mechanic mechanic) {
+        if (mobileFleet == null) {
+            System.out.println("Mobile service is not enabled.");
+            return;
+        }
+        System.out.print("Enter van location (latitude,longitude): ");
+        try {
+            GeoPoint location = GeoPoint.parse(scanner.nextLine());
+            mobileFleet.updateLocation(mechanic, location);
+            System.out.println("Van location updated to " + location + ".");
+        } catch (IllegalArgumentException e) {
+            System.out.println("Invalid location. Please enter e.g. 52.2297,21.0122.");
+        }
+    }
+
     /**
      * Requests a part for a vehicle from a manufacturer and its supplier.
      */
     protected void requestPartForVehicle() {
         try {
+            awaitRestored(WarmStart.Section.MANUFACTURERS);
             System.out.println("\nAvailable Manufacturers:");
             for (int i = 0; i < manufacturers.size(); i++) {
                 System.out.println((i + 1) + ". " + manufacturers.get(i).getName());
@@ -192,11 +395,17 @@ public class MechanicModule {
             }
 
             Manufacturer selectedManufacturer = manufacturers.get(manufacturerNumber - 1);
-
-            System.out.println("\nAvailable Parts Suppliers for " + selectedManufacturer.getName() + ":");
             List<PartsSupplier> suppliers = selectedManufacturer.getPartsSuppliers();
-            for (int i = 0; i < suppliers.size(); i++) {
-                System.out.println((i + 1) + ". " + suppliers.get(i).getName());
+            String partDescription = null;
+            if (partAvailability != null) {
+                System.out.print("Enter part description: ");
+                partDescription = scanner.nextLine();
+                printAvailability(selectedManufacturer, partDescription);
+            } else {
+                System.out.println("\nAvailable Parts Suppliers for " + selectedManufacturer.getName() + ":");
+                for (int i = 0; i < suppliers.size(); i++) {
+                    System.out.println((i + 1) + ". " + suppliers.get(i).getName());
+                }
             }
 
             System.out.print("Select parts supplier by number: ");
@@ -210,8 +419,10 @@ public class MechanicModule {
 
             PartsSupplier selectedSupplier = suppliers.get(supplierNumber - 1);
 
-            System.out.print("Enter part description: ");
-            String partDescription = scanner.nextLine();
+            if (partDescription == null) {
+                System.out.print("Enter part description: ");
+                partDescription = scanner.nextLine();
+            }
             System.out
                     .println("Part request sent for '" + partDescription + "' to " + selectedSupplier.getName() + ".");
         } catch (InputMismatchException e) {
@@ -222,6 +433,39 @@ public class MechanicModule {
         }
     }
 
+    /**
+     * Asks every supplier of a manufacturer for a part and lists their
+     * answers, marking the cheapest and the fastest one in stock.
+     *
+     * @param manufacturer    The manufacturer whose suppliers to ask.
+     * @param partDescription The part.
+     */
+    private void printAvailability(Manufacturer manufacturer, String partDescription) {
+        List<PartsSupplier> suppliers = manufacturer.getPartsSuppliers();
+        System.out.println("\nChecking " + suppliers.size() + " supplier(s) of " + manufacturer.getName()
+                + " for '" + partDescription.trim() + "'...");
+        PartAvailability.Result result = partAvailability.check(manufacturer, partDescription);
+        PartQuote cheapest = result.cheapest();
+        PartQuote fastest = result.fastest();
+        for (int i = 0; i < suppliers.size(); i++) {
+            PartQuote quote = result.quoteFrom(suppliers.get(i));
+            String line = (i + 1) + ". " + suppliers.get(i).getName() + " - ";
+            if (quote == null) {
+                line += "no answer within " + partAvailability.getBudget().toMillis() + " ms";
+            } else {
+                line += quote;
+                if (quote == cheapest) {
+                    line += " (cheapest)";
+                }
+                if (quote == fastest) {
+                    line += " (fastest)";
+                }
+            }
+            System.out.println(line);
+        }
+        System.out.println("Answered in " + result.getElapsedMillis() + " ms.");
+    }
+
     /**
      * Finds a manufacturer by its name.
      *
@@ -244,9 +488,11 @@ public class MechanicModule {
      * @return The Mechanic object if found, otherwise null.
      */
     private Mechanic findMechanicByName(String name) {
-        for (Mechanic mechanic : mechanics) {
-            if (mechanic.getName().equalsIgnoreCase(name)) {
-                return mechanic;
+        synchronized (mechanics) { // Other sessions may be adding mechanics
+            for (Mechanic mechanic : mechanics) {
+                if (mechanic.getName().equalsIgnoreCase(name)) {
+                    return mechanic;
+                }
             }
         }
         return null;
@@ -258,6 +504,7 @@ public class MechanicModule {
      * @return True if there are mechanics, false otherwise.
      */
     public boolean hasMechanics() {
+        awaitRestored(WarmStart.Section.MECHANICS);
         return !mechanics.isEmpty();
     }
 }
\ No newline at end of file
@@ -0,0 +1,41 @@
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Stores mechanics by mechanic ID. Their assigned tasks are stored by the
+ * TaskRepository.
+ */
+public interface MechanicRepository {
+
+    /**
+     * Stores a new mechanic or the current state of a known one.
+     *
+     * @param mechanic The mechanic.
+     */
+    void save(Mechanic mechanic);
+
+    /**
+     * Stores several mechanics.
+     *
+     * @param mechanics The mechanics.
+     */
+    default void saveAll(Collection<Mechanic> mechanics) {
+        for (Mechanic mechanic : mechanics) {
+            save(mechanic);
+        }
+    }
+
+    /**
+     * Gets every stored mechanic, without assigned tasks.
+     *
+     * @return The mechanics in ID order.
+     */
+    List<Mechanic> findAll();
+
+    /**
+     * Gets the number of stored mechanics.
+     *
+     * @return The number of mechanics.
+     */
+    int count();
+}
@@ -0,0 +1,135 @@
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Thread-safe mechanic and task assignment operations shared by every
+ * manager session.
+ *
+ * Mechanic IDs come from a lock-free allocator. Only the session that
+ * actually removed a task from the queue gets to assign it, so a task never
+ * ends up with two mechanics. The mechanic list is guarded by its own
+ * monitor; readers get snapshot copies. Lookups by ID go to a concurrent
+ * map kept in step with the list and take no lock.
+ */
+public class MechanicService {
+    private final List<Mechanic> mechanics; // Mechanics of the shop
+    private final Map<Integer, Mechanic> mechanicsById; // The same mechanics, by ID
+    private final TaskQueue taskQueue; // Queue tasks are assigned from
+    private final IdAllocator ids; // Source of new mechanic IDs
+    private volatile MechanicRepository repository; // Persistent copy of the mechanics, or null
+
+    /**
+     * Constructs the service over an existing mechanic list. Mechanics
+     * already in the list are indexed and their IDs are never handed out
+     * again.
+     *
+     * @param mechanics List of mechanics
+     * @param taskQueue Queue of pending tasks
+     */
+    public MechanicService(List<Mechanic> mechanics, TaskQueue taskQueue) {
+        this.mechanics = mechanics;
+        this.mechanicsById = new ConcurrentHashMap<>();
+        this.taskQueue = taskQueue;
+        this.ids = new IdAllocator(1);
+        reserveExistingIds();
+    }
+
+    /**
+     * Sets the repository that new mechanics are saved to.
+     *
+     * @param repository The mechanic repository
+     */
+    public void setRepository(MechanicRepository repository) {
+        this.repository = repository;
+    }
+
+    /**
+     * Adds a new mechanic with a fresh ID.
+     *
+     * @param name The mechanic's name
+     * @return The new mechanic
+     */
+    public Mechanic addMechanic(String name) {
+        Mechanic mechanic = new Mechanic(name, ids.next());
+        synchronized (mechanics) {
+            mechanics.add(mechanic);
+            mechanicsById.put(mechanic.getId(), mechanic);
+        }
+        MechanicRepository current = repository;
+        if (current != null) {
+            current.save(mechanic);
+        }
+        return mechanic;
+    }
+
+    /**
+     * Adds restored mechanics, e.g. ones read from a saved state, keeping
+     * their IDs. They are not saved again.
+     *
+     * @param restored The restored mechanics
+     */
+    public void addRestored(Collection<Mechanic> restored) {
+        synchronized (mechanics) {
+            for (Mechanic mechanic : restored) {
+                mechanics.add(mechanic);
+                mechanicsById.put(mechanic.getId(), mechanic);
+                ids.reserveThrough(mechanic.getId());
+            }
+        }
+    }
+
+    /**
+     * Moves a task from the queue to a mechanic. If several sessions assign
+     * the same task at once, exactly one of them succeeds.
+     *
+     * @param task     The queued task
+     * @param mechanic The mechanic to assign it to
+     * @return True if this call assigned the task, false if it was no longer
+     *         queued
+     */
+    public boolean assign(Task task, Mechanic mechanic) {
+        if (!taskQueue.removeTask(task)) {
+            return false;
+        }
+        mechanic.assignTask(task);
+        return true;
+    }
+
+    /**
+     * Finds a mechanic by ID.
+     *
+     * @param id The mechanic ID
+     * @return The mechanic, or null if there is none with that ID
+     */
+    public Mechanic findById(int id) {
+        return mechanicsById.get(id);
+    }
+
+    /**
+     * Gets a copy of the mechanics.
+     *
+     * @return The mechanics at the time of the call
+     */
+    public List<Mechanic> mechanics() {
+        synchronized (mechanics) {
+            return new ArrayList<>(mechanics);
+        }
+    }
+
+    /**
+     * Makes sure every mechanic now in the list can be found by ID and that
+     * their IDs are not handed out, e.g. after mechanics were added to the
+     * list directly.
+     */
+    public void reserveExistingIds() {
+        synchronized (mechanics) {
+            for (Mechanic mechanic : mechanics) {
+                mechanicsById.putIfAbsent(mechanic.getId(), mechanic);
+                ids.reserveThrough(mechanic.getId());
+            }
+        }
+    }
+}
@@ -0,0 +1,356 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Tracks where the mobile mechanics' vans are and finds the nearest ones
+ * that are free and qualified for a roadside or mobile job.
+ *
+ * Vans are kept in a uniform grid of cells about 5 km across, so moving a
+ * van only touches its old and new cell. A query visits rings of cells
+ * around the job, nearest first, and stops as soon as no unvisited cell can
+ * hold a closer van than the k found so far; if the vans are so spread out
+ * that visiting cells would cost more than looking at every van, it looks
+ * at every van instead.
+ *
+ * Register the fleet with TaskEvents: assigning a job with a location makes
+ * the mechanic unavailable, and completing it makes them available again,
+ * with the van at the job's location.
+ */
+public class MobileFleet implements TaskLifecycleListener {
+
+    // Size of a grid cell in degrees of latitude and longitude
+    static final double CELL_DEGREES = 0.05;
+
+    // Margin for the ring distance bound, which treats meridian gaps as parallel arcs
+    private static final double BOUND_SAFETY = 0.99;
+
+    private final Map<Integer, Van> vans = new HashMap<>(); // Vans by mechanic ID
+    private final Map<Long, Cell> cells = new HashMap<>(); // Occupied grid cells by cell key
+    private int minRow = Integer.MAX_VALUE; // Lowest row any van was in
+    private int maxRow = Integer.MIN_VALUE; // Highest row any van was in
+    private int minColumn = Integer.MAX_VALUE; // Lowest column any van was in
+    private int maxColumn = Integer.MIN_VALUE; // Highest column any van was in
+
+    /**
+     * A mechanic found for a job, with the distance from their van.
+     */
+    public static final class Candidate {
+        private final Mechanic mechanic; // The mechanic
+        private final double distanceKm; // Distance from their van to the job
+
+        private Candidate(Mechanic mechanic, double distanceKm) {
+            this.mechanic = mechanic;
+            this.distanceKm = distanceKm;
+        }
+
+        /**
+         * Gets the mechanic.
+         *
+         * @return The mechanic.
+         */
+        public Mechanic getMechanic() {
+            return mechanic;
+        }
+
+        /**
+         * Gets the distance from the mechanic's van to the job.
+         *
+         * @return The distance in kilometres.
+         */
+        public double getDistanceKm() {
+            return distanceKm;
+        }
+    }
+
+    /**
+     * Records where a mechanic's van is, adding the van if it is new. Only
+     * the van's old and new grid cells are updated.
+     *
+     * @param mechanic The mechanic.
+     * @param location Where their van is.
+     */
+    public synchronized void updateLocation(Mechanic mechanic, GeoPoint location) {
+        Van van = vans.get(mechanic.getId());
+        if (van == null) {
+            van = new Van(mechanic);
+            vans.put(mechanic.getId(), van);
+        }
+        int row = row(location.getLatitude());
+        int column = column(location.getLongitude());
+        long key = key(row, column);
+        van.location = location;
+        if (van.cell != null && van.cell.key == key) {
+            return;
+        }
+        Cell previous = van.cell;
+        if (previous != null) {
+            previous.remove(van);
+            if (previous.count == 0) {
+                cells.remove(previous.key);
+            }
+        }
+        Cell cell = cells.get(key);
+        if (cell == null) {
+            cell = new Cell(key);
+            cells.put(key, cell);
+        }
+        cell.add(van);
+        minRow = Math.min(minRow, row);
+        maxRow = Math.max(maxRow, row);
+        minColumn = Math.min(minColumn, column);
+        maxColumn = Math.max(maxColumn, column);
+    }
+
+    /**
+     * Sets what a mechanic is qualified for, e.g. "Tyres" or "Electrical".
+     *
+     * @param mechanic The mechanic.
+     * @param skills   Their skills; compared ignoring case.
+     */
+    public synchronized void setSkills(Mechanic mechanic, Collection<String> skills) {
+        Set<String> normalized = new HashSet<>();
+        for (String skill : skills) {
+            normalized.add(normalizeSkill(skill));
+        }
+        vanOf(mechanic).skills = normalized;
+    }
+
+    /**
+     * Marks a mechanic as free or not free to take a mobile job, e.g. at
+     * the start or end of a shift.
+     *
+     * @param mechanic  The mechanic.
+     * @param available True if they can be sent to a job.
+     */
+    public synchronized void setAvailable(Mechanic mechanic, boolean available) {
+        vanOf(mechanic).offShift = !available;
+    }
+
+    /**
+     * Gets where a mechanic's van is.
+     *
+     * @param mechanic The mechanic.
+     * @return The location, or null if it is not known.
+     */
+    public synchronized GeoPoint locationOf(Mechanic mechanic) {
+        Van van = vans.get(mechanic.getId());
+        return van == null ? null : van.location;
+    }
+
+    /**
+     * Gets the number of mechanics the fleet knows about.
+     *
+     * @return The van count.
+     */
+    public synchronized int size() {
+        return vans.size();
+    }
+
+    /**
+     * Finds the nearest available mechanics with every required skill.
+     *
+     * @param location       Where the job is.
+     * @param k              The most mechanics to return.
+     * @param requiredSkills Skills the job needs; compared ignoring case.
+     * @return Up to k mechanics, nearest first.
+     */
+    public synchronized List<Candidate> nearest(GeoPoint location, int k, Collection<String> requiredSkills) {
+        List<Candidate> result = new ArrayList<>();
+        if (k <= 0 || vans.isEmpty()) {
+            return result;
+        }
+        List<String> required = new ArrayList<>(requiredSkills.size());
+        for (String skill : requiredSkills) {
+            required.add(normalizeSkill(skill));
+        }
+        PriorityQueue<Candidate> best = new PriorityQueue<>(k + 1,
+                Comparator.comparingDouble(Candidate::getDistanceKm).reversed());
+        int row = row(location.getLatitude());
+        int column = column(location.getLongitude());
+        int maxRing = Math.max(Math.max(Math.abs(row - minRow), Math.abs(row - maxRow)),
+                Math.max(Math.abs(column - minColumn), Math.abs(column - maxColumn)));
+        long cellsVisited = 0;
+        for (int ring = 0; ring <= maxRing; ring++) {
+            if (best.size() == k && best.peek().distanceKm <= ringDistanceKm(location, row, column, ring)) {
+                break;
+            }
+            cellsVisited += ring == 0 ? 1 : 8L * ring;
+            if (cellsVisited > vans.size()) {
+                best.clear(); // Sparse fleet: looking at every van is cheaper than visiting empty cells
+                for (Van van : vans.values()) {
+                    offer(best, k, van, location, required);
+                }
+                break;
+            }
+            if (ring == 0) {
+                offerCell(best, k, cells.get(key(row, column)), location, required);
+                continue;
+            }
+            for (int c = column - ring; c <= column + ring; c++) {
+                offerCell(best, k, cells.get(key(row - ring, c)), location, required);
+                offerCell(best, k, cells.get(key(row + ring, c)), location, required);
+            }
+            for (int r = row - ring + 1; r <= row + ring - 1; r++) {
+                offerCell(best, k, cells.get(key(r, column - ring)), location, required);
+                offerCell(best, k, cells.get(key(r, column + ring)), location, required);
+            }
+        }
+        result.addAll(best);
+        result.sort(Comparator.comparingDouble(Candidate::getDistanceKm));
+        return result;
+    }
+
+    /**
+     * Finds the nearest available mechanics qualified for a mobile job.
+     *
+     * @param task The job; its location is where to send the mechanic.
+     * @param k    The most mechanics to return.
+     * @return Up to k mechanics, nearest first, or an empty list if the task
+     *         has no location.
+     */
+    public List<Candidate> nearestFor(Task task, int k) {
+        if (task.getLocation() == null) {
+            return new ArrayList<>();
+        }
+        ServiceType type = task.getServiceType();
+        return nearest(task.getLocation(), k, type == null ? List.of() : type.getRequiredSkills());
+    }
+
+    @Override
+    public synchronized void taskAssigned(Task task, Mechanic mechanic) {
+        if (task.getLocation() != null) {
+            vanOf(mechanic).openJobs++;
+        }
+    }
+
+    @Override
+    public void taskCompleted(Task task, Mechanic mechanic) {
+        GeoPoint jobLocation = task.getLocation();
+        if (jobLocation == null) {
+            return;
+        }
+        synchronized (this) {
+            Van van = vanOf(mechanic);
+            van.openJobs = Math.max(0, van.openJobs - 1);
+            updateLocation(mechanic, jobLocation); // The van is at the job site now
+        }
+    }
+
+    // Gets a mechanic's van, adding one without a location if needed; callers hold the lock
+    private Van vanOf(Mechanic mechanic) {
+        return vans.computeIfAbsent(mechanic.getId(), id -> new Van(mechanic));
+    }
+
+    private static void offerCell(PriorityQueue<Candidate> best, int k, Cell cell, GeoPoint location,
+            List<String> required) {
+        if (cell == null) {
+            return;
+        }
+        for (int i = 0; i < cell.count; i++) {
+            offer(best, k, cell.vans[i], location, required);
+        }
+    }
+
+    // Keeps the van among the k best if it is available, qualified and near enough
+    private static void offer(PriorityQueue<Candidate> best, int k, Van van, GeoPoint location,
+            List<String> required) {
+        if (van.location == null || van.offShift || van.openJobs > 0 || !van.skills.containsAll(required)) {
+            return;
+        }
+        double distance = location.distanceKm(van.location);
+        if (best.size() < k) {
+            best.add(new Candidate(van.mechanic, distance));
+        } else if (distance < best.peek().distanceKm) {
+            best.poll();
+            best.add(new Candidate(van.mechanic, distance));
+        }
+    }
+
+    // Smallest distance from the location to any cell of this ring or beyond
+    private static double ringDistanceKm(GeoPoint location, int row, int column, int ring) {
+        if (ring == 0) {
+            return 0;
+        }
+        double latitude = location.getLatitude();
+        double longitude = location.getLongitude();
+        double latitudeGap = Math.min(latitude - (row - ring + 1) * CELL_DEGREES,
+                (row + ring) * CELL_DEGREES - latitude);
+        double longitudeGap = Math.min(longitude - (column - ring + 1) * CELL_DEGREES,
+                (column + ring) * CELL_DEGREES - longitude);
+        double widestLatitude = Math.min(89.9, Math.abs(latitude) + ring * CELL_DEGREES);
+        return BOUND_SAFETY * GeoPoint.KM_PER_DEGREE * Math.min(latitudeGap,
+                longitudeGap * Math.cos(Math.toRadians(widestLatitude)));
+    }
+
+    private static int row(double latitude) {
+        return (int) Math.floor(latitude / CELL_DEGREES);
+    }
+
+    private static int column(double longitude) {
+        return (int) Math.floor(longitude / CELL_DEGREES);
+    }
+
+    private static long key(int row, int column) {
+        return ((long) row << 32) | (column & 0xffffffffL);
+    }
+
+    private static String normalizeSkill(String skill) {
+        return skill.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * A mechanic's van: where it is and whether it can take a job.
+     */
+    private static final class Van {
+        private final Mechanic mechanic; // The mechanic driving the van
+        private GeoPoint location; // Where the van is, null if not known yet
+        private Set<String> skills = Set.of(); // Lower-case skills of the mechanic
+        private boolean offShift; // True if the mechanic was marked unavailable
+        private int openJobs; // Mobile jobs assigned and not yet completed
+        private Cell cell; // Grid cell holding the van, null if not located
+        private int slot; // Position of the van in its cell
+
+        private Van(Mechanic mechanic) {
+            this.mechanic = mechanic;
+        }
+    }
+
+    /**
+     * The vans in one grid cell, in an array with swap-removal.
+     */
+    private static final class Cell {
+        private final long key; // Row and column of the cell
+        private Van[] vans = new Van[4]; // Vans in the cell, first count in use
+        private int count; // Number of vans in the cell
+
+        private Cell(long key) {
+            this.key = key;
+        }
+
+        private void add(Van van) {
+            if (count == vans.length) {
+                vans = Arrays.copyOf(vans, count * 2);
+            }
+            van.cell = this;
+            van.slot = count;
+            vans[count++] = van;
+        }
+
+        private void remove(Van van) {
+            Van last = vans[--count];
+            vans[van.slot] = last;
+            last.slot = van.slot;
+            vans[count] = null;
+            van.cell = null;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+/**
+ * Formats and parses money amounts held as a long number of cents, so that
+ * prices and totals are exact without boxed decimal types.
+ */
+public final class Money {
+
+    private Money() {
+    }
+
+    /**
+     * Formats an amount with two decimals, e.g. 12345 as "123.45".
+     *
+     * @param cents The amount in cents.
+     * @return The formatted amount.
+     */
+    public static String format(long cents) {
+        return append(new StringBuilder(16), cents).toString();
+    }
+
+    /**
+     * Appends an amount with two decimals to a builder without creating
+     * intermediate strings.
+     *
+     * @param text  The builder.
+     * @param cents The amount in cents.
+     * @return The builder.
+     */
+    public static StringBuilder append(StringBuilder text, long cents) {
+        if (cents < 0) {
+            text.append('-');
+            cents = -cents;
+        }
+        long fraction = cents % 100;
+        text.append(cents / 100).append('.');
+        if (fraction < 10) {
+            text.append('0');
+        }
+        return text.append(fraction);
+    }
+
+    /**
+     * Parses an amount such as "25", "25.5" or "25.50" into cents.
+     *
+     * @param amount The amount text.
+     * @return The amount in cents.
+     * @throws NumberFormatException If the text is not an amount with at
+     *                               most two decimals.
+     */
+    public static long parseCents(String amount) {
+        String text = amount.trim();
+        int point = text.indexOf('.');
+        String whole = point < 0 ? text : text.substring(0, point);
+        String fraction = point < 0 ? "" : text.substring(point + 1);
+        if (whole.isEmpty() && fraction.isEmpty() || fraction.length() > 2 || whole.startsWith("-")
+                || whole.startsWith("+") || fraction.startsWith("-") || fraction.startsWith("+")) {
+            throw new NumberFormatException("Not an amount: '" + amount + "'.");
+        }
+        long cents = whole.isEmpty() ? 0 : Math.multiplyExact(Long.parseLong(whole), 100);
+        if (!fraction.isEmpty()) {
+            cents += Long.parseLong(fraction) * (fraction.length() == 1 ? 10 : 1);
+        }
+        return cents;
+    }
+
+    /**
+     * Multiplies an amount by a rate in basis points, rounding half up, e.g.
+     * a 23% tax is 2300 basis points.
+     *
+     * @param cents       The amount in cents.
+     * @param basisPoints The rate in hundredths of a percent.
+     * @return The rounded result in cents.
+     */
+    public static long percentOf(long cents, int basisPoints) {
+        return Math.floorDiv(Math.multiplyExact(cents, basisPoints) + 5_000, 10_000);
+    }
+}
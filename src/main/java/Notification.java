@@ -24,4 +24,19 @@ public class Notification {
     public void sendNotification(Customer customer) {
         System.out.println("Notification to " + customer.getName() + ": " + message);
     }
+
+    /**
+     * Sends the notification to each of the specified customers.
+     *
+     * @param recipients The customers to whom the notification is sent.
+     * @return The number of customers notified.
+     */
+    public int sendNotifications(Iterable<Customer> recipients) {
+        int sent = 0;
+        for (Customer customer : recipients) {
+            sendNotification(customer);
+            sent++;
+        }
+        return sent;
+    }
 }
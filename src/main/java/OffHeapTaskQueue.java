@@ -0,0 +1,218 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A TaskQueue that keeps its backlog in an OffHeapTaskStore.
+ * Pending tasks are written to fixed-size native records and the queue
+ * orders int record indexes in a primitive binary heap, so ordering the
+ * backlog compares priorities in native memory instead of chasing Task
+ * references, and the queue itself adds no per-task nodes for the garbage
+ * collector to trace.
+ *
+ * The records are the only copy of a queued task: the queue keeps no Task
+ * objects. Tasks handed out by getNextTask, getTasksAsList and snapshot are
+ * rebuilt from their records; they carry the queued task's ID, so they
+ * equal the task that was queued and the task listeners and the dependency
+ * graph recognise them. Changes to a queued task's vehicle or location are
+ * kept only once passed to updateTask. Rebuilt tasks remember their
+ * record, which is how removeTask finds them again. Listing the queue and
+ * snapshots are not free in this mode: they rebuild every pending task.
+ */
+public class OffHeapTaskQueue extends TaskQueue {
+    private final OffHeapTaskStore store; // Native records of the pending tasks
+    private int[] heap; // Record indexes in binary heap order
+    private int[] positions; // Heap position of each record index, -1 if absent
+    private int size; // Number of pending tasks
+    private long version; // Number of changes made to the queue
+
+    /**
+     * Constructs an off-heap queue over the given store.
+     *
+     * @param store The store that holds the task records.
+     */
+    public OffHeapTaskQueue(OffHeapTaskStore store) {
+        this.store = store;
+        this.heap = new int[64];
+        this.positions = new int[64];
+        Arrays.fill(positions, -1);
+    }
+
+    // Add a new task to the queue
+    @Override
+    public synchronized void addTask(Task task) {
+        TaskQueueEvent event = new TaskQueueEvent("addTask");
+        insert(task);
+        event.finish(this, 1);
+    }
+
+    // Add several tasks, each stored off-heap on its own
+    @Override
+    public synchronized void addTasks(Collection<Task> tasks) {
+        TaskQueueEvent event = new TaskQueueEvent("addTasks");
+        for (Task task : tasks) {
+            insert(task);
+        }
+        event.finish(this, tasks.size());
+    }
+
+    // Store a task off-heap and add it to the heap; callers hold the lock
+    private void insert(Task task) {
+        long handle = store.store(task);
+        task.setStoreHandle(handle);
+        int index = OffHeapTaskStore.index(handle);
+        if (size == heap.length) {
+            heap = Arrays.copyOf(heap, size * 2);
+        }
+        if (index >= positions.length) {
+            int oldLength = positions.length;
+            positions = Arrays.copyOf(positions, Math.max(index + 1, oldLength * 2));
+            Arrays.fill(positions, oldLength, positions.length, -1);
+        }
+        heap[size] = index;
+        positions[index] = size;
+        siftUp(size++);
+        version++;
+    }
+
+    // Retrieve and remove the highest-priority task
+    @Override
+    public synchronized Task getNextTask() {
+        TaskQueueEvent event = new TaskQueueEvent("getNextTask");
+        if (size == 0) {
+            event.finish(this, 0);
+            return null;
+        }
+        int index = heap[0];
+        long handle = store.handleAt(index);
+        Task task = store.load(handle);
+        task.setStoreHandle(-1);
+        removeAt(0);
+        store.free(handle);
+        version++;
+        event.finish(this, 1);
+        return task;
+    }
+
+    // Check if the queue is empty
+    @Override
+    public synchronized boolean isEmpty() {
+        return size == 0;
+    }
+
+    // Get the number of pending tasks
+    @Override
+    public synchronized int size() {
+        return size;
+    }
+
+    // Remove a specific task from the queue; returns false if it was not queued
+    @Override
+    public synchronized boolean removeTask(Task task) {
+        TaskQueueEvent event = new TaskQueueEvent("removeTask");
+        long handle = task.getStoreHandle();
+        int index = OffHeapTaskStore.index(handle);
+        if (!store.isLive(handle) || index >= positions.length || positions[index] < 0
+                || store.idAt(index) != task.getId()) {
+            event.finish(this, 0);
+            return false;
+        }
+        removeAt(positions[index]);
+        store.free(handle);
+        version++;
+        event.finish(this, 1);
+        return true;
+    }
+
+    // Retrieve all tasks as a list, highest priority first (for display purposes)
+    @Override
+    public synchronized List<Task> getTasksAsList() {
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = heap[i];
+        }
+        Arrays.sort(order, (a, b) -> Integer.compare(store.priorityAt(b), store.priorityAt(a)));
+        List<Task> listed = new ArrayList<>(size);
+        for (int index : order) {
+            listed.add(store.load(store.handleAt(index)));
+        }
+        return Collections.unmodifiableList(listed);
+    }
+
+    // Copy all pending tasks into an immutable snapshot, O(n) in this mode
+    @Override
+    public synchronized TaskQueueSnapshot snapshot() {
+        PersistentTaskHeap pending = PersistentTaskHeap.EMPTY;
+        for (int i = 0; i < size; i++) {
+            pending = pending.insert(store.load(store.handleAt(heap[i])));
+        }
+        return new TaskQueueSnapshot(version, pending);
+    }
+
+    // Write a queued task's changed vehicle or location back into its record
+    @Override
+    public synchronized void updateTask(Task task) {
+        long handle = task.getStoreHandle();
+        int index = OffHeapTaskStore.index(handle);
+        if (store.isLive(handle) && index < positions.length && positions[index] >= 0
+                && store.idAt(index) == task.getId()) {
+            store.update(handle, task);
+        }
+    }
+
+    private void removeAt(int position) {
+        int removed = heap[position];
+        positions[removed] = -1;
+        size--;
+        if (position == size) {
+            return;
+        }
+        int last = heap[size];
+        heap[position] = last;
+        positions[last] = position;
+        siftDown(position);
+        if (heap[position] == last) {
+            siftUp(position);
+        }
+    }
+
+    private void siftUp(int position) {
+        int index = heap[position];
+        int priority = store.priorityAt(index);
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+            if (store.priorityAt(heap[parent]) >= priority) {
+                break;
+            }
+            move(heap[parent], position);
+            position = parent;
+        }
+        move(index, position);
+    }
+
+    private void siftDown(int position) {
+        int index = heap[position];
+        int priority = store.priorityAt(index);
+        int half = size >>> 1;
+        while (position < half) {
+            int child = 2 * position + 1;
+            int right = child + 1;
+            if (right < size && store.priorityAt(heap[right]) > store.priorityAt(heap[child])) {
+                child = right;
+            }
+            if (priority >= store.priorityAt(heap[child])) {
+                break;
+            }
+            move(heap[child], position);
+            position = child;
+        }
+        move(index, position);
+    }
+
+    private void move(int index, int position) {
+        heap[position] = index;
+        positions[index] = position;
+    }
+}
@@ -0,0 +1,326 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Stores tasks as fixed-size records outside the Java heap, either in
+ * direct byte buffers or in a memory-mapped file. Strings (description,
+ * vehicle details and status) are kept once in a StringDictionary and
+ * referenced by code, and catalog jobs by their index in a small table, so
+ * a task costs 48 bytes of native memory and no objects for the garbage
+ * collector to trace. Tasks that were already assigned or billed cannot be
+ * stored, since the record has no room for assignment times or line items.
+ *
+ * Records are addressed by long handles that combine the record index with
+ * a generation number; a handle stops being valid as soon as its record is
+ * freed, even if the slot is later reused.
+ */
+public class OffHeapTaskStore implements AutoCloseable {
+
+    // Record layout: generation, description, vehicle details, priority, status, catalog job, job location, task ID
+    private static final int GENERATION = 0;
+    private static final int DESCRIPTION = 4;
+    private static final int VEHICLE = 8;
+    private static final int PRIORITY = 12;
+    private static final int STATUS = 16;
+    private static final int SERVICE_TYPE = 20;
+    private static final int LATITUDE = 24;
+    private static final int LONGITUDE = 32;
+    private static final int ID = 40;
+    private static final int RECORD_BYTES = 48;
+
+    // Status code marking a free record
+    private static final int FREE = -2;
+
+    // Records per buffer segment (2^16 records, 3 MB)
+    private static final int SEGMENT_SHIFT = 16;
+    private static final int SEGMENT_RECORDS = 1 << SEGMENT_SHIFT;
+    private static final int SEGMENT_MASK = SEGMENT_RECORDS - 1;
+
+    private final StringDictionary strings; // Shared text of all records
+    private final List<ServiceType> serviceTypes = new ArrayList<>(); // Catalog jobs by record code
+    private final Map<ServiceType, Integer> serviceTypeCodes = new HashMap<>(); // Record code of each catalog job
+    private final FileChannel channel; // Backing file in mapped mode, null for direct buffers
+    private ByteBuffer[] segments; // Record storage, allocated one segment at a time
+    private int segmentCount; // Number of allocated segments
+    private int capacity; // Number of records ever handed out
+    private int[] freeRecords; // Stack of free record indexes
+    private int freeCount; // Number of free record indexes
+    private int size; // Number of live records
+
+    /**
+     * Constructs a store backed by direct byte buffers.
+     */
+    public OffHeapTaskStore() {
+        this.strings = new StringDictionary();
+        this.channel = null;
+        this.segments = new ByteBuffer[4];
+        this.freeRecords = new int[64];
+    }
+
+    /**
+     * Constructs a store backed by a memory-mapped file. The file is used as
+     * scratch space: it is created if needed, grows one segment at a time and
+     * its previous contents are overwritten.
+     *
+     * @param file The file to map the records into.
+     * @throws IOException If the file cannot be opened.
+     */
+    public OffHeapTaskStore(Path file) throws IOException {
+        this.strings = new StringDictionary();
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        this.segments = new ByteBuffer[4];
+        this.freeRecords = new int[64];
+    }
+
+    /**
+     * Writes a task into a free record.
+     *
+     * @param task The task to store.
+     * @return The handle of the new record.
+     * @throws IllegalArgumentException If the task was already assigned or
+     *                                  has line items.
+     */
+    public synchronized long store(Task task) {
+        if (task.getAssignedAt() != null || !task.getLineItems().isEmpty()) {
+            throw new IllegalArgumentException("Only unassigned, unbilled tasks can be stored off-heap: " + task);
+        }
+        int index;
+        if (freeCount > 0) {
+            index = freeRecords[--freeCount];
+        } else {
+            index = capacity;
+            if ((index >>> SEGMENT_SHIFT) == segmentCount) {
+                addSegment();
+            }
+            capacity++;
+        }
+        ByteBuffer segment = segments[index >>> SEGMENT_SHIFT];
+        int offset = (index & SEGMENT_MASK) * RECORD_BYTES;
+        segment.putInt(offset + DESCRIPTION, strings.acquire(task.getDescription()));
+        segment.putInt(offset + VEHICLE, strings.acquire(task.getVehicleDetails()));
+        segment.putInt(offset + PRIORITY, task.getPriority());
+        segment.putInt(offset + STATUS, strings.acquire(task.getStatus()));
+        segment.putInt(offset + SERVICE_TYPE, serviceTypeCode(task.getServiceType()));
+        GeoPoint location = task.getLocation();
+        segment.putDouble(offset + LATITUDE, location == null ? Double.NaN : location.getLatitude());
+        segment.putDouble(offset + LONGITUDE, location == null ? Double.NaN : location.getLongitude());
+        segment.putLong(offset + ID, task.getId());
+        size++;
+        return handle(segment.getInt(offset + GENERATION), index);
+    }
+
+    /**
+     * Writes the details a queued task can still change, its vehicle and job
+     * location, back into its record.
+     *
+     * @param handle The handle of the record.
+     * @param task   The task with its new details.
+     * @return True if the record was updated, false if the handle was stale.
+     */
+    public synchronized boolean update(long handle, Task task) {
+        if (!isLive(handle)) {
+            return false;
+        }
+        int index = index(handle);
+        ByteBuffer segment = segments[index >>> SEGMENT_SHIFT];
+        int offset = (index & SEGMENT_MASK) * RECORD_BYTES;
+        int vehicle = strings.acquire(task.getVehicleDetails());
+        strings.release(segment.getInt(offset + VEHICLE));
+        segment.putInt(offset + VEHICLE, vehicle);
+        GeoPoint location = task.getLocation();
+        segment.putDouble(offset + LATITUDE, location == null ? Double.NaN : location.getLatitude());
+        segment.putDouble(offset + LONGITUDE, location == null ? Double.NaN : location.getLongitude());
+        return true;
+    }
+
+    /**
+     * Frees a record and its string references.
+     *
+     * @param handle The handle of the record.
+     * @return True if the record was freed, false if the handle was stale.
+     */
+    public synchronized boolean free(long handle) {
+        if (!isLive(handle)) {
+            return false;
+        }
+        int index = index(handle);
+        ByteBuffer segment = segments[index >>> SEGMENT_SHIFT];
+        int offset = (index & SEGMENT_MASK) * RECORD_BYTES;
+        strings.release(segment.getInt(offset + DESCRIPTION));
+        strings.release(segment.getInt(offset + VEHICLE));
+        strings.release(segment.getInt(offset + STATUS));
+        segment.putInt(offset + STATUS, FREE);
+        segment.putInt(offset + GENERATION, segment.getInt(offset + GENERATION) + 1);
+        if (freeCount == freeRecords.length) {
+            freeRecords = Arrays.copyOf(freeRecords, freeCount * 2);
+        }
+        freeRecords[freeCount++] = index;
+        size--;
+        return true;
+    }
+
+    /**
+     * Checks if a handle still refers to a live record.
+     *
+     * @param handle The handle to check.
+     * @return True if the record is live, false otherwise.
+     */
+    public synchronized boolean isLive(long handle) {
+        int index = index(handle);
+        if (index < 0 || index >= capacity) {
+            return false;
+        }
+        ByteBuffer segment = segments[index >>> SEGMENT_SHIFT];
+        int offset = (index & SEGMENT_MASK) * RECORD_BYTES;
+        return segment.getInt(offset + STATUS) != FREE
+                && segment.getInt(offset + GENERATION) == (int) (handle >>> 32);
+    }
+
+    /**
+     * Reads the priority of a record without creating any objects.
+     *
+     * @param index The record index (the low 32 bits of its handle).
+     * @return The stored priority.
+     */
+    public int priorityAt(int index) {
+        return segments[index >>> SEGMENT_SHIFT].getInt((index & SEGMENT_MASK) * RECORD_BYTES + PRIORITY);
+    }
+
+    /**
+     * Reads the ID of the task in a record without creating any objects.
+     *
+     * @param index The record index (the low 32 bits of its handle).
+     * @return The stored task ID.
+     */
+    public long idAt(int index) {
+        return segments[index >>> SEGMENT_SHIFT].getLong((index & SEGMENT_MASK) * RECORD_BYTES + ID);
+    }
+
+    /**
+     * Rebuilds a Task object from a record. The task has the stored ID, so it
+     * equals the task that was stored, and remembers the handle it was read
+     * from.
+     *
+     * @param handle The handle of the record.
+     * @return The task, or null if the handle is stale.
+     */
+    public synchronized Task load(long handle) {
+        if (!isLive(handle)) {
+            return null;
+        }
+        int index = index(handle);
+        ByteBuffer segment = segments[index >>> SEGMENT_SHIFT];
+        int offset = (index & SEGMENT_MASK) * RECORD_BYTES;
+        int serviceType = segment.getInt(offset + SERVICE_TYPE);
+        Task task = new Task(segment.getLong(offset + ID), serviceType < 0 ? null : serviceTypes.get(serviceType),
+                strings.get(segment.getInt(offset + DESCRIPTION)), strings.get(segment.getInt(offset + VEHICLE)),
+                segment.getInt(offset + PRIORITY));
+        double latitude = segment.getDouble(offset + LATITUDE);
+        if (!Double.isNaN(latitude)) {
+            task.setLocation(new GeoPoint(latitude, segment.getDouble(offset + LONGITUDE)));
+        }
+        if ("Completed".equals(strings.get(segment.getInt(offset + STATUS)))) {
+            task.markAsCompleted();
+        }
+        task.setStoreHandle(handle);
+        return task;
+    }
+
+    /**
+     * Gets the current handle of a live record.
+     *
+     * @param index The record index.
+     * @return The record handle.
+     */
+    public synchronized long handleAt(int index) {
+        return handle(segments[index >>> SEGMENT_SHIFT].getInt((index & SEGMENT_MASK) * RECORD_BYTES + GENERATION),
+                index);
+    }
+
+    /**
+     * Gets the number of live records.
+     *
+     * @return The number of stored tasks.
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Gets the native memory reserved for records, excluding the string
+     * dictionary.
+     *
+     * @return The reserved size in bytes.
+     */
+    public synchronized long reservedBytes() {
+        return (long) segmentCount * SEGMENT_RECORDS * RECORD_BYTES;
+    }
+
+    /**
+     * Closes the backing file in mapped mode. Direct buffers are released by
+     * the garbage collector once the store is unreachable.
+     *
+     * @throws IOException If the file cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+        }
+    }
+
+    /**
+     * Extracts the record index from a handle.
+     *
+     * @param handle The record handle.
+     * @return The record index.
+     */
+    public static int index(long handle) {
+        return (int) handle;
+    }
+
+    // Catalog jobs are few and shared, so they are kept in a table that only grows
+    private int serviceTypeCode(ServiceType serviceType) {
+        if (serviceType == null) {
+            return -1;
+        }
+        Integer code = serviceTypeCodes.get(serviceType);
+        if (code == null) {
+            code = serviceTypes.size();
+            serviceTypes.add(serviceType);
+            serviceTypeCodes.put(serviceType, code);
+        }
+        return code;
+    }
+
+    private static long handle(int generation, int index) {
+        return ((long) generation << 32) | (index & 0xFFFFFFFFL);
+    }
+
+    private void addSegment() {
+        ByteBuffer segment;
+        int bytes = SEGMENT_RECORDS * RECORD_BYTES;
+        if (channel == null) {
+            segment = ByteBuffer.allocateDirect(bytes);
+        } else {
+            try {
+                segment = channel.map(FileChannel.MapMode.READ_WRITE, (long) segmentCount * bytes, bytes);
+            } catch (IOException e) {
+                throw new IllegalStateException("Could not grow task store file: " + e.getMessage(), e);
+            }
+        }
+        if (segmentCount == segments.length) {
+            segments = Arrays.copyOf(segments, segmentCount * 2);
+        }
+        segments[segmentCount++] = segment;
+    }
+}
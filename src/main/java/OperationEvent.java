@@ -0,0 +1,88 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight Recorder event for one manager or mechanic operation, such as
+ * creating a task. Records how long the operation took, how much of that
+ * was spent waiting for console input, and how many customers, mechanics
+ * and tasks there were, so slow operations can be tied to data sizes.
+ *
+ * Disabled by default; start the application with {@code --record=<file>}
+ * or enable {@value #NAME} in a recording's settings. While disabled, the
+ * counts are not gathered at all.
+ */
+@Name(OperationEvent.NAME)
+@Label("Garage Operation")
+@Category({ "Garage", "Operations" })
+@Description("A manager or mechanic operation")
+@Enabled(false)
+@StackTrace(false)
+public class OperationEvent extends Event {
+
+    // Name the event is recorded under
+    public static final String NAME = "garage.Operation";
+
+    @Label("Module")
+    @Description("Menu the operation was started from")
+    String module;
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Input Wait")
+    @Description("Time spent waiting for console input during the operation")
+    @Timespan(Timespan.NANOSECONDS)
+    long inputWait;
+
+    @Label("Customers")
+    @Description("Registered and unregistered customers, -1 if not counted")
+    int customers = -1;
+
+    @Label("Mechanics")
+    @Description("Mechanics, -1 if not counted")
+    int mechanics = -1;
+
+    @Label("Queued Tasks")
+    @Description("Tasks waiting in the queue, -1 if not counted")
+    int queuedTasks = -1;
+
+    @Label("Assigned Tasks")
+    @Description("Tasks assigned to the mechanic, -1 if not counted")
+    int assignedTasks = -1;
+
+    private final transient long inputWaitAtStart; // Tracked input wait when the operation began
+
+    /**
+     * Constructs and begins an event.
+     *
+     * @param module    Menu the operation was started from.
+     * @param operation Name of the operation.
+     */
+    public OperationEvent(String module, String operation) {
+        this.module = module;
+        this.operation = operation;
+        this.inputWaitAtStart = InputWaitTracker.waitedNanos();
+        begin();
+    }
+
+    /**
+     * Ends the event and records the input wait. The caller fills in the
+     * counts and commits if this returns true.
+     *
+     * @return True if the event is to be committed.
+     */
+    public boolean finish() {
+        end();
+        if (!shouldCommit()) {
+            return false;
+        }
+        inputWait = InputWaitTracker.waitedNanos() - inputWaitAtStart;
+        return true;
+    }
+}
@@ -0,0 +1,488 @@
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Checks which suppliers have a part by asking all of them at once through
+ * a SupplierClient, and answers within a latency budget with whatever the
+ * suppliers said by then.
+ *
+ * Each call to a supplier is abandoned after a timeout. If a call takes
+ * longer than the supplier usually needs, a second, hedged call is sent and
+ * the first answer wins; a call that fails is also tried once more. How
+ * long a supplier usually needs is its 95th percentile latency, once enough
+ * calls were seen. Answers are cached for a short time, and suppliers are
+ * asked only once for a part several mechanics check at the same time.
+ */
+public class PartAvailability implements AutoCloseable {
+
+    // Calls to a supplier before its own latency decides when to hedge
+    private static final int MIN_LATENCY_SAMPLES = 20;
+
+    // Latency quantile after which a call is hedged
+    private static final double HEDGE_QUANTILE = 0.95;
+
+    // Cached answers kept before expired ones are dropped
+    private static final int CACHE_PURGE_SIZE = 10_000;
+
+    private final SupplierClient client; // Talks to the suppliers
+    private final Clock clock; // Source of cache times
+    private final ExecutorService calls; // Runs the blocking supplier calls
+    private final Map<String, CachedQuote> cache = new ConcurrentHashMap<>(); // Recent answers by supplier and part
+    private final Map<String, Call> inFlight = new ConcurrentHashMap<>(); // Unanswered calls by supplier and part
+    private final Map<String, DurationSketch> latencies = new ConcurrentHashMap<>(); // Call latency by supplier
+    private final LongAdder supplierCalls = new LongAdder(); // Calls sent, hedges included
+    private final LongAdder hedgedCalls = new LongAdder(); // Hedged and repeated calls sent
+    private volatile boolean hedging = true; // False to never hedge slow calls
+    private volatile Duration callTimeout = Duration.ofMillis(500); // Longest wait for one call
+    private volatile Duration hedgeDelay = Duration.ofMillis(100); // Wait before hedging a supplier with no history
+    private volatile Duration cacheTtl = Duration.ofSeconds(60); // How long an answer is reused
+    private volatile Duration budget = Duration.ofSeconds(1); // Longest wait for a whole check
+
+    /**
+     * Constructs a checker using the system clock.
+     *
+     * @param client Talks to the suppliers.
+     */
+    public PartAvailability(SupplierClient client) {
+        this(client, Clock.systemUTC());
+    }
+
+    /**
+     * Constructs a checker.
+     *
+     * @param client Talks to the suppliers.
+     * @param clock  Source of cache times.
+     */
+    public PartAvailability(SupplierClient client, Clock clock) {
+        this.client = client;
+        this.clock = clock;
+        this.calls = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "supplier-call");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Sets how long one call to a supplier may take before it is abandoned.
+     *
+     * @param callTimeout The call timeout.
+     */
+    public void setCallTimeout(Duration callTimeout) {
+        this.callTimeout = callTimeout;
+    }
+
+    /**
+     * Turns hedging of slow calls on or off. Failed calls are tried once
+     * more either way.
+     *
+     * @param hedging True to hedge slow calls.
+     */
+    public void setHedging(boolean hedging) {
+        this.hedging = hedging;
+    }
+
+    /**
+     * Sets how long to wait before hedging a call to a supplier whose usual
+     * latency is not known yet.
+     *
+     * @param hedgeDelay The hedge delay.
+     */
+    public void setHedgeDelay(Duration hedgeDelay) {
+        this.hedgeDelay = hedgeDelay;
+    }
+
+    /**
+     * Sets how long a supplier's answer is reused for the same part.
+     *
+     * @param cacheTtl The time to live of cached answers.
+     */
+    public void setCacheTtl(Duration cacheTtl) {
+        this.cacheTtl = cacheTtl;
+    }
+
+    /**
+     * Sets how long check waits for the suppliers by default.
+     *
+     * @param budget The latency budget.
+     */
+    public void setBudget(Duration budget) {
+        this.budget = budget;
+    }
+
+    /**
+     * Gets how long check waits for the suppliers by default.
+     *
+     * @return The latency budget.
+     */
+    public Duration getBudget() {
+        return budget;
+    }
+
+    /**
+     * Gets the number of calls sent to suppliers.
+     *
+     * @return The call count, hedged and repeated calls included.
+     */
+    public long getSupplierCalls() {
+        return supplierCalls.sum();
+    }
+
+    /**
+     * Gets the number of hedged and repeated calls sent to suppliers.
+     *
+     * @return The hedged call count.
+     */
+    public long getHedgedCalls() {
+        return hedgedCalls.sum();
+    }
+
+    /**
+     * Asks every supplier of a manufacturer for a part, waiting at most the
+     * default latency budget.
+     *
+     * @param manufacturer    The manufacturer whose suppliers to ask.
+     * @param partDescription The part, e.g. "Brake pads".
+     * @return The answers received within the budget.
+     */
+    public Result check(Manufacturer manufacturer, String partDescription) {
+        return check(manufacturer.getPartsSuppliers(), partDescription, budget);
+    }
+
+    /**
+     * Asks suppliers for a part concurrently. Suppliers that have not
+     * answered within the budget are reported as unanswered; their calls
+     * go on until the call timeout and fill the cache if they succeed.
+     *
+     * @param suppliers       The suppliers to ask.
+     * @param partDescription The part, e.g. "Brake pads".
+     * @param budget          Longest time to wait for the answers.
+     * @return The answers received within the budget.
+     */
+    public Result check(List<PartsSupplier> suppliers, String partDescription, Duration budget) {
+        long started = System.nanoTime();
+        long deadline = started + budget.toNanos();
+        String part = partDescription.trim();
+        List<PartQuote> quotes = new ArrayList<>();
+        List<PartsSupplier> unanswered = new ArrayList<>();
+        List<PartsSupplier> asked = new ArrayList<>();
+        List<CompletableFuture<PartQuote>> answers = new ArrayList<>();
+        int cacheHits = 0;
+        long now = clock.millis();
+        for (PartsSupplier supplier : suppliers) {
+            String key = key(supplier, part);
+            CachedQuote cached = cache.get(key);
+            if (cached != null && cached.expiresAt > now) {
+                quotes.add(cached.quote);
+                cacheHits++;
+            } else {
+                asked.add(supplier);
+                answers.add(call(supplier, part, key));
+            }
+        }
+
+        try {
+            CompletableFuture.allOf(answers.toArray(new CompletableFuture<?>[0]))
+                    .get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException | ExecutionException e) {
+            // Use what has arrived; failed and late suppliers are reported below
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (int i = 0; i < asked.size(); i++) {
+            CompletableFuture<PartQuote> answer = answers.get(i);
+            if (answer.isDone() && !answer.isCompletedExceptionally()) {
+                quotes.add(answer.join());
+            } else {
+                unanswered.add(asked.get(i));
+            }
+        }
+        return new Result(quotes, unanswered, cacheHits, (System.nanoTime() - started) / 1_000_000);
+    }
+
+    /**
+     * Stops the threads calling suppliers; calls still running are
+     * abandoned.
+     */
+    @Override
+    public void close() {
+        calls.shutdownNow();
+    }
+
+    // Gets the answer of the call asking a supplier for a part, starting one if none is running
+    private CompletableFuture<PartQuote> call(PartsSupplier supplier, String part, String key) {
+        Call call = new Call(supplier, part, key);
+        Call running = inFlight.putIfAbsent(key, call);
+        if (running != null) {
+            return running.answer;
+        }
+        call.start();
+        return call.answer;
+    }
+
+    private void remember(String key, PartQuote quote) {
+        long now = clock.millis();
+        if (cache.size() >= CACHE_PURGE_SIZE) {
+            cache.values().removeIf(cached -> cached.expiresAt <= now);
+        }
+        cache.put(key, new CachedQuote(quote, now + cacheTtl.toMillis()));
+    }
+
+    // How long to wait for a supplier before hedging: its usual latency, or the default if not known yet
+    private long hedgeDelayNanos(PartsSupplier supplier) {
+        DurationSketch latency = latencies.get(supplierKey(supplier));
+        if (latency == null || latency.getCount() < MIN_LATENCY_SAMPLES) {
+            return hedgeDelay.toNanos();
+        }
+        return (long) (latency.quantile(HEDGE_QUANTILE) * 1e9);
+    }
+
+    private void recordLatency(PartsSupplier supplier, long nanos) {
+        latencies.computeIfAbsent(supplierKey(supplier), name -> new DurationSketch()).record(nanos / 1e9);
+    }
+
+    private static String key(PartsSupplier supplier, String part) {
+        return supplierKey(supplier) + '\n' + part.toLowerCase(Locale.ROOT);
+    }
+
+    private static String supplierKey(PartsSupplier supplier) {
+        return supplier.getName().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * One question to one supplier, answered by the first of up to two
+     * attempts: the original and a hedged or repeated one.
+     */
+    private final class Call {
+        private final PartsSupplier supplier; // The supplier asked
+        private final String part; // The part asked for
+        private final String key; // Supplier and part, as cached
+        private final CompletableFuture<PartQuote> answer = new CompletableFuture<>(); // First successful answer
+        private final AtomicBoolean secondSent = new AtomicBoolean(); // True once the second attempt started
+        private final AtomicInteger running = new AtomicInteger(); // Attempts that have not finished
+        private volatile Throwable lastFailure; // Why the last failed attempt failed, null if none did
+
+        private Call(PartsSupplier supplier, String part, String key) {
+            this.supplier = supplier;
+            this.part = part;
+            this.key = key;
+        }
+
+        private void start() {
+            running.incrementAndGet();
+            attempt();
+            long delay = hedgeDelayNanos(supplier);
+            if (hedging && delay < callTimeout.toNanos()) {
+                CompletableFuture.delayedExecutor(delay, TimeUnit.NANOSECONDS, calls).execute(this::sendSecond);
+            }
+        }
+
+        // Sends the second attempt unless the call is answered or a second attempt was sent already
+        private void sendSecond() {
+            running.incrementAndGet(); // Before the flag, so a failure meanwhile cannot take the count to zero
+            if (!answer.isDone() && secondSent.compareAndSet(false, true)) {
+                hedgedCalls.increment();
+                attempt();
+            } else {
+                release();
+            }
+        }
+
+        // Sends one attempt, already counted as running
+        private void attempt() {
+            supplierCalls.increment();
+            long started = System.nanoTime();
+            CompletableFuture<PartQuote> attempt = new CompletableFuture<>();
+            Future<?> work;
+            try {
+                work = calls.submit(() -> {
+                    try {
+                        attempt.complete(client.checkAvailability(supplier, part));
+                    } catch (IOException | RuntimeException e) {
+                        attempt.completeExceptionally(e);
+                    } catch (InterruptedException e) {
+                        attempt.completeExceptionally(new CancellationException("Call abandoned."));
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                finished(null, e); // Closed
+                return;
+            }
+            attempt.orTimeout(callTimeout.toNanos(), TimeUnit.NANOSECONDS).whenComplete((quote, failure) -> {
+                if (failure == null) {
+                    recordLatency(supplier, System.nanoTime() - started);
+                } else if (unwrap(failure) instanceof TimeoutException) {
+                    recordLatency(supplier, callTimeout.toNanos()); // At least this slow
+                    work.cancel(true);
+                }
+                finished(quote, failure);
+            });
+            answer.whenComplete((quote, failure) -> work.cancel(true)); // Stop a losing or abandoned attempt
+        }
+
+        // Cached and no longer in flight before the answer completes, so a check that sees it done finds it
+        private void finished(PartQuote quote, Throwable failure) {
+            if (failure == null) {
+                if (!answer.isDone()) {
+                    remember(key, quote);
+                    inFlight.remove(key, this);
+                    answer.complete(quote);
+                }
+            } else {
+                lastFailure = failure;
+                if (!answer.isDone()) {
+                    sendSecond(); // A failed call is tried once more
+                }
+            }
+            release();
+        }
+
+        // Counts an attempt out; the last one fails the call unless an attempt answered it
+        private void release() {
+            if (running.decrementAndGet() == 0 && !answer.isDone()) {
+                inFlight.remove(key, this);
+                answer.completeExceptionally(unwrap(lastFailure));
+            }
+        }
+
+        private Throwable unwrap(Throwable failure) {
+            return failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure;
+        }
+    }
+
+    /**
+     * A supplier's answer and when it stops being reused.
+     */
+    private static final class CachedQuote {
+        private final PartQuote quote; // The answer
+        private final long expiresAt; // Clock millis after which the answer is asked for again
+
+        private CachedQuote(PartQuote quote, long expiresAt) {
+            this.quote = quote;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    /**
+     * The answers to one availability check.
+     */
+    public static final class Result {
+        private final List<PartQuote> quotes; // Answers received, cached or fresh
+        private final List<PartsSupplier> unanswered; // Suppliers that failed or missed the budget
+        private final int cacheHits; // Answers taken from the cache
+        private final long elapsedMillis; // Time the check took
+
+        private Result(List<PartQuote> quotes, List<PartsSupplier> unanswered, int cacheHits, long elapsedMillis) {
+            this.quotes = quotes;
+            this.unanswered = unanswered;
+            this.cacheHits = cacheHits;
+            this.elapsedMillis = elapsedMillis;
+        }
+
+        /**
+         * Gets the answers received, in stock or not.
+         *
+         * @return The quotes.
+         */
+        public List<PartQuote> getQuotes() {
+            return quotes;
+        }
+
+        /**
+         * Gets the suppliers that failed or did not answer within the budget.
+         *
+         * @return The suppliers without an answer.
+         */
+        public List<PartsSupplier> getUnanswered() {
+            return unanswered;
+        }
+
+        /**
+         * Gets the number of answers taken from the cache.
+         *
+         * @return The cache hit count.
+         */
+        public int getCacheHits() {
+            return cacheHits;
+        }
+
+        /**
+         * Gets how long the check took.
+         *
+         * @return The elapsed time in milliseconds.
+         */
+        public long getElapsedMillis() {
+            return elapsedMillis;
+        }
+
+        /**
+         * Gets the quote for a supplier.
+         *
+         * @param supplier The supplier.
+         * @return The supplier's quote, or null if it did not answer.
+         */
+        public PartQuote quoteFrom(PartsSupplier supplier) {
+            for (PartQuote quote : quotes) {
+                if (quote.getSupplier().getName().equalsIgnoreCase(supplier.getName())) {
+                    return quote;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Gets the cheapest supplier that has the part, the sooner delivery
+         * winning a tie.
+         *
+         * @return The cheapest quote in stock, or null if none is.
+         */
+        public PartQuote cheapest() {
+            PartQuote best = null;
+            for (PartQuote quote : quotes) {
+                if (quote.isInStock() && (best == null || quote.getPriceCents() < best.getPriceCents()
+                        || quote.getPriceCents() == best.getPriceCents()
+                                && quote.getDeliveryHours() < best.getDeliveryHours())) {
+                    best = quote;
+                }
+            }
+            return best;
+        }
+
+        /**
+         * Gets the supplier that can deliver the part soonest, the lower
+         * price winning a tie.
+         *
+         * @return The fastest quote in stock, or null if none is.
+         */
+        public PartQuote fastest() {
+            PartQuote best = null;
+            for (PartQuote quote : quotes) {
+                if (quote.isInStock() && (best == null || quote.getDeliveryHours() < best.getDeliveryHours()
+                        || quote.getDeliveryHours() == best.getDeliveryHours()
+                                && quote.getPriceCents() < best.getPriceCents())) {
+                    best = quote;
+                }
+            }
+            return best;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+/**
+ * A supplier's answer to whether it has a part: how many, at what price and
+ * how soon it can be delivered. Immutable.
+ */
+public final class PartQuote {
+    private final PartsSupplier supplier; // The supplier that answered
+    private final String partDescription; // The part asked for
+    private final int quantity; // Units in stock, 0 if none
+    private final long priceCents; // Unit price in cents
+    private final int deliveryHours; // Hours until the part can be at the garage
+
+    /**
+     * Constructs a quote.
+     *
+     * @param supplier        The supplier that answered.
+     * @param partDescription The part asked for.
+     * @param quantity        Units in stock, 0 if none.
+     * @param priceCents      Unit price in cents.
+     * @param deliveryHours   Hours until the part can be at the garage.
+     */
+    public PartQuote(PartsSupplier supplier, String partDescription, int quantity, long priceCents,
+            int deliveryHours) {
+        this.supplier = supplier;
+        this.partDescription = partDescription;
+        this.quantity = quantity;
+        this.priceCents = priceCents;
+        this.deliveryHours = deliveryHours;
+    }
+
+    /**
+     * Gets the supplier that answered.
+     *
+     * @return The supplier.
+     */
+    public PartsSupplier getSupplier() {
+        return supplier;
+    }
+
+    /**
+     * Gets the part asked for.
+     *
+     * @return The part description.
+     */
+    public String getPartDescription() {
+        return partDescription;
+    }
+
+    /**
+     * Gets the units in stock.
+     *
+     * @return The quantity, 0 if none.
+     */
+    public int getQuantity() {
+        return quantity;
+    }
+
+    /**
+     * Checks whether the supplier has the part.
+     *
+     * @return True if at least one unit is in stock.
+     */
+    public boolean isInStock() {
+        return quantity > 0;
+    }
+
+    /**
+     * Gets the unit price.
+     *
+     * @return The price in cents.
+     */
+    public long getPriceCents() {
+        return priceCents;
+    }
+
+    /**
+     * Gets how soon the part can be delivered.
+     *
+     * @return Hours until the part can be at the garage.
+     */
+    public int getDeliveryHours() {
+        return deliveryHours;
+    }
+
+    /**
+     * Returns a string representation of the quote.
+     *
+     * @return The stock, price and delivery time, or "out of stock".
+     */
+    @Override
+    public String toString() {
+        if (!isInStock()) {
+            return "out of stock";
+        }
+        return quantity + " in stock, " + Money.format(priceCents) + " each, delivery in " + deliveryHours + " h";
+    }
+}
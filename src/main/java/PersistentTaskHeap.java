@@ -0,0 +1,297 @@
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * An immutable (persistent) leftist heap of tasks.
+ * Every update returns a new heap that shares all untouched nodes with the
+ * previous one, so older versions stay valid and unchanged for as long as
+ * somebody still references them. Higher-priority tasks come out first.
+ */
+public final class PersistentTaskHeap {
+
+    // The shared empty heap
+    public static final PersistentTaskHeap EMPTY = new PersistentTaskHeap(null, 0);
+
+    // Orders tasks so that the highest priority comes first
+    private static final Comparator<Task> ORDER = (a, b) -> b.getPriority() - a.getPriority();
+
+    private final Node root; // Root node of the heap, null when empty
+    private final int size; // Number of tasks in the heap
+
+    private PersistentTaskHeap(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    /**
+     * Gets the number of tasks in the heap.
+     *
+     * @return The number of tasks.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Checks if the heap holds no tasks.
+     *
+     * @return True if the heap is empty, false otherwise.
+     */
+    public boolean isEmpty() {
+        return root == null;
+    }
+
+    /**
+     * Gets the highest-priority task without removing it.
+     *
+     * @return The highest-priority task, or null if the heap is empty.
+     */
+    public Task peek() {
+        return root == null ? null : root.task;
+    }
+
+    /**
+     * Returns a new heap containing all tasks of this heap plus the given task.
+     *
+     * @param task The task to insert.
+     * @return The new heap version.
+     */
+    public PersistentTaskHeap insert(Task task) {
+        return new PersistentTaskHeap(merge(root, new Node(task, null, null)), size + 1);
+    }
+
+    /**
+     * Returns a new heap without the highest-priority task.
+     *
+     * @return The new heap version, or this heap if it is empty.
+     */
+    public PersistentTaskHeap pop() {
+        if (root == null) {
+            return this;
+        }
+        return new PersistentTaskHeap(merge(root.left, root.right), size - 1);
+    }
+
+    /**
+     * Returns a new heap without the given task. Only the nodes on the path to
+     * the removed task are copied.
+     *
+     * @param task The task to remove.
+     * @return The new heap version, or this heap if the task is not present.
+     */
+    public PersistentTaskHeap remove(Task task) {
+        Node newRoot = remove(root, task);
+        return newRoot == root ? this : new PersistentTaskHeap(newRoot, size - 1);
+    }
+
+    /**
+     * Lists all tasks from highest to lowest priority without modifying the
+     * heap.
+     *
+     * @return An unmodifiable list of the tasks in priority order.
+     */
+    public List<Task> toSortedList() {
+        List<Task> result = new ArrayList<>(size);
+        if (root != null) {
+            // Best-first walk: a node can only be emitted after its parent
+            PriorityQueue<Node> frontier = new PriorityQueue<>((a, b) -> ORDER.compare(a.task, b.task));
+            frontier.add(root);
+            while (!frontier.isEmpty()) {
+                Node node = frontier.poll();
+                result.add(node.task);
+                if (node.left != null) {
+                    frontier.add(node.left);
+                }
+                if (node.right != null) {
+                    frontier.add(node.right);
+                }
+            }
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    /**
+     * Gets a spliterator over the tasks in no particular order. The heap is
+     * immutable, so the spliterator never sees changes; it splits by handing
+     * off subtrees, so parallel streams can walk the heap without first
+     * copying or sorting it.
+     *
+     * @return A spliterator over every task of this heap version.
+     */
+    public Spliterator<Task> spliterator() {
+        return new NodeSpliterator(root, size, true);
+    }
+
+    // Searches depth first with an explicit stack, since the left spine can be as long as the heap
+    private static Node remove(Node root, Task task) {
+        ArrayDeque<Step> pending = new ArrayDeque<>();
+        if (root != null) {
+            pending.push(new Step(root, null, false));
+        }
+        while (!pending.isEmpty()) {
+            Step step = pending.pop();
+            Node node = step.node;
+            if (node.task.equals(task)) {
+                // Copy the path bottom-up, from the merged children back to the root
+                Node copy = merge(node.left, node.right);
+                for (; step.parent != null; step = step.parent) {
+                    Node parent = step.parent.node;
+                    copy = step.left ? Node.of(parent.task, copy, parent.right)
+                            : Node.of(parent.task, parent.left, copy);
+                }
+                return copy;
+            }
+            if (ORDER.compare(task, node.task) < 0) {
+                continue; // Everything below ranks no higher than this node
+            }
+            if (node.right != null) {
+                pending.push(new Step(node.right, step, false));
+            }
+            if (node.left != null) {
+                pending.push(new Step(node.left, step, true));
+            }
+        }
+        return root;
+    }
+
+    private static Node merge(Node a, Node b) {
+        if (a == null) {
+            return b;
+        }
+        if (b == null) {
+            return a;
+        }
+        if (ORDER.compare(b.task, a.task) < 0) {
+            Node swap = a;
+            a = b;
+            b = swap;
+        }
+        return Node.of(a.task, a.left, merge(a.right, b));
+    }
+
+    /**
+     * Walks whole subtrees depth first. Splitting gives away half of the
+     * pending subtrees or, with only one left, its larger left child; the
+     * split node's own task is then kept as a loose task.
+     */
+    private static final class NodeSpliterator implements Spliterator<Task> {
+        private final ArrayDeque<Node> pending = new ArrayDeque<>(); // Subtrees still to visit
+        private final ArrayDeque<Task> loose = new ArrayDeque<>(); // Tasks of split nodes still to visit
+        private long estimate; // Tasks left, exact until the first split
+        private boolean exact; // Whether the estimate is exact
+
+        private NodeSpliterator(Node root, long estimate, boolean exact) {
+            if (root != null) {
+                pending.push(root);
+            }
+            this.estimate = estimate;
+            this.exact = exact;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super Task> action) {
+            Task task = loose.poll();
+            if (task == null) {
+                Node node = pending.poll();
+                if (node == null) {
+                    return false;
+                }
+                if (node.right != null) {
+                    pending.push(node.right);
+                }
+                if (node.left != null) {
+                    pending.push(node.left);
+                }
+                task = node.task;
+            }
+            if (estimate > 0) {
+                estimate--;
+            }
+            action.accept(task);
+            return true;
+        }
+
+        @Override
+        public Spliterator<Task> trySplit() {
+            NodeSpliterator split;
+            if (pending.size() > 1) {
+                split = new NodeSpliterator(null, 0, false);
+                for (int i = pending.size() / 2; i > 0; i--) {
+                    split.pending.push(pending.pollLast());
+                }
+            } else {
+                Node node = pending.peek();
+                if (node == null || node.left == null) {
+                    return null;
+                }
+                pending.pop();
+                loose.push(node.task);
+                if (node.right != null) {
+                    pending.push(node.right);
+                }
+                split = new NodeSpliterator(node.left, 0, false);
+            }
+            exact = false;
+            split.estimate = estimate / 2;
+            estimate -= split.estimate;
+            return split;
+        }
+
+        @Override
+        public long estimateSize() {
+            return estimate;
+        }
+
+        @Override
+        public int characteristics() {
+            return NONNULL | IMMUTABLE | (exact ? SIZED : 0);
+        }
+    }
+
+    /**
+     * A node reached while searching, linked to the step it was reached
+     * from, so that the path back to the root can be copied.
+     */
+    private static final class Step {
+        private final Node node; // The node reached
+        private final Step parent; // The step of its parent, null for the root
+        private final boolean left; // Whether the node is its parent's left child
+
+        private Step(Node node, Step parent, boolean left) {
+            this.node = node;
+            this.parent = parent;
+            this.left = left;
+        }
+    }
+
+    /**
+     * Immutable heap node. The rank is the length of the right spine, which
+     * the leftist property keeps logarithmic.
+     */
+    private static final class Node {
+        private final Task task;
+        private final Node left;
+        private final Node right;
+        private final int rank;
+
+        private Node(Task task, Node left, Node right) {
+            this.task = task;
+            this.left = left;
+            this.right = right;
+            this.rank = right == null ? 1 : right.rank + 1;
+        }
+
+        // Builds a node, swapping the children if needed to stay leftist
+        private static Node of(Task task, Node a, Node b) {
+            int rankA = a == null ? 0 : a.rank;
+            int rankB = b == null ? 0 : b.rank;
+            return rankA >= rankB ? new Node(task, a, b) : new Node(task, b, a);
+        }
+    }
+}
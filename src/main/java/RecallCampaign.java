@@ -0,0 +1,346 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Finds the customers affected by a manufacturer's recalls and creates the
+ * recall work for them in bulk.
+ *
+ * Matching is a hash join rather than a loop over every recall for every
+ * customer. The recall list is the build side: recalls of one model are
+ * hashed by the full model ("toyota corolla") and recalls of every model by
+ * the manufacturer. Under each key, recalls limited to vehicle number ranges
+ * are hashed by plate prefix and kept sorted by first number. Customers are
+ * the probe side: a customer's model is looked up as a whole and by each of
+ * its leading runs of words, so that manufacturers of several words ("land
+ * rover") match too, and costs a binary search per key that has range
+ * recalls for the customer's plate prefix. The customer list is split into
+ * slices that are probed in parallel on a fork/join pool.
+ */
+public class RecallCampaign {
+
+    // Customers one fork/join task probes without splitting further
+    private static final int SLICE_SIZE = 4096;
+
+    private final List<RecallEntry> entries; // Recalls of the campaign
+    private final Map<String, RecallGroup> byModel; // Recalls of one model, by full model key
+    private final Map<String, RecallGroup> byManufacturer; // Recalls of every model, by manufacturer key
+    private final ForkJoinPool pool; // Pool the customers are probed on
+
+    /**
+     * Constructs a campaign that probes on the common fork/join pool.
+     *
+     * @param entries The recalls of the campaign.
+     */
+    public RecallCampaign(List<RecallEntry> entries) {
+        this(entries, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Constructs a campaign that probes on the given fork/join pool.
+     *
+     * @param entries The recalls of the campaign.
+     * @param pool    The pool to probe on; a pool with parallelism 1 probes
+     *                on one thread.
+     */
+    public RecallCampaign(List<RecallEntry> entries, ForkJoinPool pool) {
+        this.entries = List.copyOf(entries);
+        this.pool = pool;
+        this.byModel = group(this.entries, false);
+        this.byManufacturer = group(this.entries, true);
+    }
+
+    /**
+     * Reads a recall list. One recall per line, fields separated by '|':
+     * {@code manufacturer|model|first vehicle number|last vehicle number|priority|description}.
+     * The model and the vehicle number range may be left empty. Blank lines
+     * and lines starting with '#' are skipped.
+     *
+     * @param file The recall list file.
+     * @return The recalls in file order.
+     * @throws IOException If the file cannot be read or a line is invalid.
+     */
+    public static List<RecallEntry> readRecallList(Path file) throws IOException {
+        List<RecallEntry> recalls = new ArrayList<>();
+        try (CommandReader reader = new CommandReader(Files.newInputStream(file))) {
+            while (reader.next()) {
+                try {
+                    if (reader.fieldCount() < 6) {
+                        throw new IllegalArgumentException("Expected 6 fields but found " + reader.fieldCount()
+                                + ".");
+                    }
+                    recalls.add(new RecallEntry(reader.field(0), reader.field(1), reader.field(2), reader.field(3),
+                            reader.rest(5), reader.intField(4)));
+                } catch (IllegalArgumentException e) {
+                    throw new IOException("Line " + reader.lineNumber() + " of " + file + ": " + e.getMessage(), e);
+                }
+            }
+        }
+        return recalls;
+    }
+
+    /**
+     * Gets the recalls of the campaign.
+     *
+     * @return The recalls.
+     */
+    public List<RecallEntry> getEntries() {
+        return entries;
+    }
+
+    /**
+     * Finds every affected customer. A customer affected by several recalls
+     * is matched once per recall.
+     *
+     * @param customers The customers to check; a random-access list.
+     * @return The matches, in customer order.
+     */
+    public List<Match> match(List<Customer> customers) {
+        if (customers.isEmpty() || entries.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return pool.invoke(new ProbeTask(customers, 0, customers.size()));
+    }
+
+    /**
+     * Creates a recall task for every match and adds them all to the queue
+     * at once.
+     *
+     * @param matches    The matches.
+     * @param taskQueue  The queue of pending tasks.
+     * @param taskEvents Where the task creations are reported.
+     * @return The created tasks, in match order.
+     */
+    public List<Task> createTasks(List<Match> matches, TaskQueue taskQueue, TaskEvents taskEvents) {
+        List<Task> tasks = new ArrayList<>(matches.size());
+        for (Match match : matches) {
+            RecallEntry entry = match.getEntry();
+            tasks.add(new Task("Recall: " + entry.getDescription(), match.getCustomer().getVehicleNumber(),
+                    entry.getPriority()));
+        }
+        taskQueue.addTasks(tasks);
+        for (Task task : tasks) {
+            taskEvents.taskCreated(task);
+        }
+        return tasks;
+    }
+
+    /**
+     * Notifies the affected customers, with one message per recall.
+     *
+     * @param matches The matches.
+     * @return The number of notifications sent.
+     */
+    public int notifyCustomers(List<Match> matches) {
+        Map<RecallEntry, List<Customer>> recipients = new LinkedHashMap<>();
+        for (Match match : matches) {
+            recipients.computeIfAbsent(match.getEntry(), entry -> new ArrayList<>()).add(match.getCustomer());
+        }
+        int sent = 0;
+        for (Map.Entry<RecallEntry, List<Customer>> recall : recipients.entrySet()) {
+            RecallEntry entry = recall.getKey();
+            Notification notification = new Notification("Your vehicle is affected by a " + entry.getManufacturer()
+                    + " recall (" + entry.getDescription() + "). Please book a visit; the work is free of charge.");
+            sent += notification.sendNotifications(recall.getValue());
+        }
+        return sent;
+    }
+
+    // Build side of the join: the recalls of one kind grouped by match key
+    private static Map<String, RecallGroup> group(List<RecallEntry> entries, boolean everyModel) {
+        Map<String, List<RecallEntry>> grouped = new HashMap<>();
+        for (RecallEntry entry : entries) {
+            if (entry.coversEveryModel() == everyModel) {
+                grouped.computeIfAbsent(entry.matchKey(), key -> new ArrayList<>()).add(entry);
+            }
+        }
+        Map<String, RecallGroup> groups = new HashMap<>();
+        grouped.forEach((key, recalls) -> groups.put(key, new RecallGroup(recalls)));
+        return groups;
+    }
+
+    // Probe side of the join for one customer
+    private void probe(Customer customer, List<Match> matches) {
+        if (customer.getVehicleModel() == null) {
+            return;
+        }
+        String model = RecallEntry.normalizeModel(customer.getVehicleModel());
+        List<RecallGroup> groups = new ArrayList<>(2);
+        RecallGroup modelRecalls = byModel.get(model);
+        if (modelRecalls != null) {
+            groups.add(modelRecalls);
+        }
+        // Manufacturers may have several words ("land rover"), so every leading run of words is a candidate
+        for (int end = model.indexOf(' '); ; end = model.indexOf(' ', end + 1)) {
+            RecallGroup manufacturerRecalls = byManufacturer.get(end < 0 ? model : model.substring(0, end));
+            if (manufacturerRecalls != null) {
+                groups.add(manufacturerRecalls);
+            }
+            if (end < 0) {
+                break;
+            }
+        }
+        if (groups.isEmpty()) {
+            return;
+        }
+        String vehicleKey = customer.getVehicleNumber() == null ? null
+                : RecallEntry.normalizeVehicleNumber(customer.getVehicleNumber());
+        String prefix = vehicleKey == null ? null : RecallEntry.platePrefix(vehicleKey);
+        String number = vehicleKey == null ? null : RecallEntry.plateNumber(vehicleKey);
+        for (RecallGroup group : groups) {
+            group.collect(customer, prefix, number, matches);
+        }
+    }
+
+    /**
+     * Probes a slice of the customer list, splitting it in halves until the
+     * slices are small enough.
+     */
+    private final class ProbeTask extends RecursiveTask<List<Match>> {
+
+        // Version of the serialized form
+        private static final long serialVersionUID = 1L;
+
+        private final List<Customer> customers; // The whole customer list
+        private final int from; // First customer of the slice
+        private final int to; // End of the slice, exclusive
+
+        private ProbeTask(List<Customer> customers, int from, int to) {
+            this.customers = customers;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected List<Match> compute() {
+            if (to - from <= SLICE_SIZE) {
+                List<Match> matches = new ArrayList<>();
+                for (int i = from; i < to; i++) {
+                    probe(customers.get(i), matches);
+                }
+                return matches;
+            }
+            int middle = (from + to) >>> 1;
+            ProbeTask left = new ProbeTask(customers, from, middle);
+            left.fork();
+            List<Match> right = new ProbeTask(customers, middle, to).compute();
+            List<Match> matches = left.join();
+            matches.addAll(right);
+            return matches;
+        }
+    }
+
+    /**
+     * The recalls under one match key. Recalls without a range match every
+     * vehicle; ranges are grouped by plate prefix, since a plate can only be
+     * in a range with its own prefix.
+     */
+    private static final class RecallGroup {
+        private final RecallEntry[] unranged; // Recalls of every vehicle under the key
+        private final Map<String, PrefixRanges> ranges; // Recalls limited to a range, by plate prefix
+
+        private RecallGroup(List<RecallEntry> recalls) {
+            unranged = recalls.stream().filter(entry -> !entry.hasRange()).toArray(RecallEntry[]::new);
+            Map<String, List<RecallEntry>> byPrefix = new HashMap<>();
+            for (RecallEntry entry : recalls) {
+                if (entry.hasRange()) {
+                    byPrefix.computeIfAbsent(entry.rangePrefix(), prefix -> new ArrayList<>()).add(entry);
+                }
+            }
+            ranges = new HashMap<>();
+            byPrefix.forEach((prefix, entries) -> ranges.put(prefix, new PrefixRanges(entries)));
+        }
+
+        // Adds a match for every recall without a range and every range containing the vehicle number
+        private void collect(Customer customer, String prefix, String number, List<Match> matches) {
+            for (RecallEntry entry : unranged) {
+                matches.add(new Match(customer, entry));
+            }
+            if (number == null) {
+                return;
+            }
+            PrefixRanges prefixRanges = ranges.get(prefix);
+            if (prefixRanges != null) {
+                prefixRanges.collect(customer, number, matches);
+            }
+        }
+    }
+
+    /**
+     * The ranges of one plate prefix under one match key, sorted by first
+     * number. The largest last number up to each position lets a lookup stop
+     * as soon as no earlier range can reach the vehicle's number.
+     */
+    private static final class PrefixRanges {
+        private final RecallEntry[] ranges; // Recalls limited to a range, sorted by first number
+        private final String[] reach; // Largest last number among the ranges up to each position
+
+        private PrefixRanges(List<RecallEntry> recalls) {
+            ranges = recalls.toArray(new RecallEntry[0]);
+            Arrays.sort(ranges, (a, b) -> RecallEntry.compareNumbers(a.firstNumber(), b.firstNumber()));
+            reach = new String[ranges.length];
+            for (int i = 0; i < ranges.length; i++) {
+                String last = ranges[i].lastNumber();
+                reach[i] = i > 0 && RecallEntry.compareNumbers(reach[i - 1], last) > 0 ? reach[i - 1] : last;
+            }
+        }
+
+        // Adds a match for every range containing the number
+        private void collect(Customer customer, String number, List<Match> matches) {
+            int low = 0;
+            int high = ranges.length;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (RecallEntry.compareNumbers(ranges[middle].firstNumber(), number) <= 0) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            for (int i = low - 1; i >= 0 && RecallEntry.compareNumbers(reach[i], number) >= 0; i--) {
+                if (RecallEntry.compareNumbers(ranges[i].lastNumber(), number) >= 0) {
+                    matches.add(new Match(customer, ranges[i]));
+                }
+            }
+        }
+    }
+
+    /**
+     * A customer affected by a recall.
+     */
+    public static final class Match {
+        private final Customer customer; // The affected customer
+        private final RecallEntry entry; // The recall affecting them
+
+        private Match(Customer customer, RecallEntry entry) {
+            this.customer = customer;
+            this.entry = entry;
+        }
+
+        /**
+         * Gets the affected customer.
+         *
+         * @return The customer.
+         */
+        public Customer getCustomer() {
+            return customer;
+        }
+
+        /**
+         * Gets the recall affecting the customer.
+         *
+         * @return The recall.
+         */
+        public RecallEntry getEntry() {
+            return entry;
+        }
+    }
+}
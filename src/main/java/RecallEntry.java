@@ -0,0 +1,357 @@
+import java.util.Locale;
+
+/**
+ * One line of a manufacturer's recall list: which vehicles are affected and
+ * what has to be done to them. A recall covers every vehicle of the
+ * manufacturer, or only one model, and can further be limited to a range of
+ * vehicle numbers.
+ *
+ * Vehicle numbers are compared ignoring case, spaces and hyphens, split into
+ * a prefix and the number the plate ends in. A plate is in a range only if
+ * its prefix equals the range's and its number lies between the two ends,
+ * so that PL100 to PL1500 contains PL999 but neither PL2 nor ZZ999.
+ */
+public class RecallEntry {
+    private final String manufacturer; // Manufacturer issuing the recall
+    private final String model; // Affected model as given, or null for every model
+    private final String firstVehicleNumber; // First affected vehicle number, or null for no range
+    private final String lastVehicleNumber; // Last affected vehicle number, or null for no range
+    private final String description; // Work to be done on affected vehicles
+    private final int priority; // Priority of the tasks created for the recall
+    private final String manufacturerKey; // Manufacturer as matched against customer vehicle models
+    private final String modelKey; // Full model as matched against customer vehicle models, or null
+    private final String rangePrefix; // Prefix shared by both ends of the range, or null for no range
+    private final String firstNumber; // Number the first vehicle number ends in, or null
+    private final String lastNumber; // Number the last vehicle number ends in, or null
+
+    /**
+     * Constructs a recall entry.
+     *
+     * @param manufacturer       The manufacturer issuing the recall.
+     * @param model              The affected model, with or without the
+     *                           manufacturer, or null or empty for every
+     *                           model of the manufacturer.
+     * @param firstVehicleNumber The first affected vehicle number, or null or
+     *                           empty for no range.
+     * @param lastVehicleNumber  The last affected vehicle number, or null or
+     *                           empty for no range.
+     * @param description        The work to be done on affected vehicles.
+     * @param priority           The priority of the tasks created for the
+     *                           recall.
+     * @throws IllegalArgumentException If the manufacturer is missing, only
+     *                                  one end of the range is given, or the
+     *                                  ends do not share a prefix and end
+     *                                  in numbers in order.
+     */
+    public RecallEntry(String manufacturer, String model, String firstVehicleNumber, String lastVehicleNumber,
+            String description, int priority) {
+        if (isBlank(manufacturer)) {
+            throw new IllegalArgumentException("A recall needs a manufacturer.");
+        }
+        if (isBlank(firstVehicleNumber) != isBlank(lastVehicleNumber)) {
+            throw new IllegalArgumentException("A vehicle number range needs both a first and a last number.");
+        }
+        this.manufacturer = manufacturer.trim();
+        this.manufacturerKey = normalizeModel(manufacturer);
+        String modelKey = isBlank(model) ? null : normalizeModel(model);
+        if (modelKey != null && !modelKey.startsWith(manufacturerKey + " ")) {
+            modelKey = manufacturerKey + " " + modelKey;
+        }
+        this.modelKey = modelKey;
+        this.model = modelKey == null ? null : model.trim();
+        this.firstVehicleNumber = isBlank(firstVehicleNumber) ? null : firstVehicleNumber.trim();
+        this.lastVehicleNumber = isBlank(lastVehicleNumber) ? null : lastVehicleNumber.trim();
+        if (this.firstVehicleNumber != null) {
+            String firstKey = normalizeVehicleNumber(firstVehicleNumber);
+            String lastKey = normalizeVehicleNumber(lastVehicleNumber);
+            this.rangePrefix = platePrefix(firstKey);
+            this.firstNumber = plateNumber(firstKey);
+            this.lastNumber = plateNumber(lastKey);
+            if (firstNumber == null || lastNumber == null || !rangePrefix.equals(platePrefix(lastKey))) {
+                throw new IllegalArgumentException("A vehicle number range needs two numbers with the same prefix, "
+                        + "e.g. PL100 and PL1500.");
+            }
+            if (compareNumbers(firstNumber, lastNumber) > 0) {
+                throw new IllegalArgumentException("The first vehicle number of a range must not be after the last.");
+            }
+        } else {
+            this.rangePrefix = null;
+            this.firstNumber = null;
+            this.lastNumber = null;
+        }
+        this.description = description;
+        this.priority = priority;
+    }
+
+    /**
+     * Gets the manufacturer issuing the recall.
+     *
+     * @return The manufacturer name.
+     */
+    public String getManufacturer() {
+        return manufacturer;
+    }
+
+    /**
+     * Gets the affected model.
+     *
+     * @return The model, or null if every model is affected.
+     */
+    public String getModel() {
+        return model;
+    }
+
+    /**
+     * Gets the first affected vehicle number.
+     *
+     * @return The vehicle number, or null if there is no range.
+     */
+    public String getFirstVehicleNumber() {
+        return firstVehicleNumber;
+    }
+
+    /**
+     * Gets the last affected vehicle number.
+     *
+     * @return The vehicle number, or null if there is no range.
+     */
+    public String getLastVehicleNumber() {
+        return lastVehicleNumber;
+    }
+
+    /**
+     * Gets the work to be done on affected vehicles.
+     *
+     * @return The description.
+     */
+    public String getDescription() {
+        return description;
+    }
+
+    /**
+     * Gets the priority of the tasks created for the recall.
+     *
+     * @return The priority.
+     */
+    public int getPriority() {
+        return priority;
+    }
+
+    /**
+     * Checks whether the recall has a vehicle number range.
+     *
+     * @return True if only vehicles in a range are affected.
+     */
+    public boolean hasRange() {
+        return rangePrefix != null;
+    }
+
+    /**
+     * Checks whether a customer's vehicle is affected by the recall.
+     *
+     * @param customer The customer.
+     * @return True if the vehicle's manufacturer, model and number match.
+     */
+    public boolean matches(Customer customer) {
+        if (customer.getVehicleModel() == null) {
+            return false;
+        }
+        String vehicleModel = normalizeModel(customer.getVehicleModel());
+        boolean sameVehicle = modelKey != null ? vehicleModel.equals(modelKey) : madeBy(vehicleModel, manufacturerKey);
+        return sameVehicle && (!hasRange() || inRange(customer.getVehicleNumber()));
+    }
+
+    /**
+     * Checks whether a vehicle number is in the recall's range.
+     *
+     * @param vehicleNumber The vehicle number, or null.
+     * @return True if the recall has a range and the number is in it.
+     */
+    public boolean inRange(String vehicleNumber) {
+        return vehicleNumber != null && containsVehicleKey(normalizeVehicleNumber(vehicleNumber));
+    }
+
+    /**
+     * Checks whether a normalized vehicle number is in the recall's range.
+     *
+     * @param key The normalized vehicle number.
+     * @return True if the recall has a range and the number is in it.
+     */
+    boolean containsVehicleKey(String key) {
+        return hasRange() && containsPlate(platePrefix(key), plateNumber(key));
+    }
+
+    /**
+     * Checks whether a vehicle number, already split into prefix and number,
+     * is in the recall's range.
+     *
+     * @param prefix The prefix of the normalized vehicle number.
+     * @param number The number it ends in, or null if it has none.
+     * @return True if the recall has a range and the number is in it.
+     */
+    boolean containsPlate(String prefix, String number) {
+        return hasRange() && number != null && rangePrefix.equals(prefix) && compareNumbers(firstNumber, number) <= 0
+                && compareNumbers(number, lastNumber) <= 0;
+    }
+
+    /**
+     * Gets the key the recall is matched under: the full model in lower case,
+     * e.g. "toyota corolla", or the manufacturer alone for recalls of every
+     * model.
+     *
+     * @return The match key.
+     */
+    String matchKey() {
+        return modelKey != null ? modelKey : manufacturerKey;
+    }
+
+    /**
+     * Checks whether the recall covers every model of the manufacturer.
+     *
+     * @return True if no model was given.
+     */
+    boolean coversEveryModel() {
+        return modelKey == null;
+    }
+
+    /**
+     * Gets the prefix shared by both ends of the range.
+     *
+     * @return The prefix, or null if there is no range.
+     */
+    String rangePrefix() {
+        return rangePrefix;
+    }
+
+    /**
+     * Gets the number the first vehicle number of the range ends in.
+     *
+     * @return The first number, or null if there is no range.
+     */
+    String firstNumber() {
+        return firstNumber;
+    }
+
+    /**
+     * Gets the number the last vehicle number of the range ends in.
+     *
+     * @return The last number, or null if there is no range.
+     */
+    String lastNumber() {
+        return lastNumber;
+    }
+
+    /**
+     * Normalizes a vehicle model for matching: trimmed and in lower case.
+     *
+     * @param model The vehicle model text.
+     * @return The normalized model.
+     */
+    static String normalizeModel(String model) {
+        return model.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Checks whether a normalized vehicle model starts with a manufacturer,
+     * word for word, so that "land rover defender" is made by "land rover"
+     * but "landmark" is not made by "land".
+     *
+     * @param normalizedModel The normalized vehicle model.
+     * @param manufacturerKey The normalized manufacturer name.
+     * @return True if the model names the manufacturer.
+     */
+    static boolean madeBy(String normalizedModel, String manufacturerKey) {
+        return normalizedModel.startsWith(manufacturerKey) && (normalizedModel.length() == manufacturerKey.length()
+                || normalizedModel.charAt(manufacturerKey.length()) == ' ');
+    }
+
+    /**
+     * Gets the first word of a normalized vehicle model, the manufacturer
+     * when nothing better is known.
+     *
+     * @param normalizedModel The normalized vehicle model.
+     * @return The first word.
+     */
+    static String manufacturerOf(String normalizedModel) {
+        int space = normalizedModel.indexOf(' ');
+        return space < 0 ? normalizedModel : normalizedModel.substring(0, space);
+    }
+
+    /**
+     * Normalizes a vehicle number for range checks: upper case, without
+     * spaces and hyphens.
+     *
+     * @param vehicleNumber The vehicle number.
+     * @return The normalized vehicle number.
+     */
+    static String normalizeVehicleNumber(String vehicleNumber) {
+        StringBuilder key = new StringBuilder(vehicleNumber.length());
+        for (int i = 0; i < vehicleNumber.length(); i++) {
+            char c = vehicleNumber.charAt(i);
+            if (c != ' ' && c != '-') {
+                key.append(Character.toUpperCase(c));
+            }
+        }
+        return key.toString();
+    }
+
+    /**
+     * Gets the prefix of a normalized vehicle number: everything before the
+     * digits it ends in, e.g. "PL" for "PL150".
+     *
+     * @param key The normalized vehicle number.
+     * @return The prefix, the whole number if it does not end in digits.
+     */
+    static String platePrefix(String key) {
+        return key.substring(0, numberStart(key));
+    }
+
+    /**
+     * Gets the number a normalized vehicle number ends in, without leading
+     * zeros, e.g. "150" for "PL0150".
+     *
+     * @param key The normalized vehicle number.
+     * @return The digits, or null if the vehicle number does not end in one.
+     */
+    static String plateNumber(String key) {
+        int start = numberStart(key);
+        if (start == key.length()) {
+            return null;
+        }
+        while (start < key.length() - 1 && key.charAt(start) == '0') {
+            start++;
+        }
+        return key.substring(start);
+    }
+
+    /**
+     * Orders the numbers of vehicle numbers by value. The digits are compared
+     * as text, so numbers of any length work.
+     *
+     * @param a The first number, without leading zeros.
+     * @param b The second number, without leading zeros.
+     * @return Negative, zero or positive as a is below, equal to or above b.
+     */
+    static int compareNumbers(String a, String b) {
+        return a.length() != b.length() ? Integer.compare(a.length(), b.length()) : a.compareTo(b);
+    }
+
+    // Index of the first of the digits a normalized vehicle number ends in, its length if none
+    private static int numberStart(String key) {
+        int start = key.length();
+        while (start > 0 && key.charAt(start - 1) >= '0' && key.charAt(start - 1) <= '9') {
+            start--;
+        }
+        return start;
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    @Override
+    public String toString() {
+        return manufacturer + (model == null ? "" : " " + model)
+                + (hasRange() ? " " + firstVehicleNumber + "-" + lastVehicleNumber : "") + ": " + description;
+    }
+}
@@ -0,0 +1,335 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A hierarchical timing wheel of customer reminders, each due at a tick
+ * (ServiceReminders uses one tick per minute). Scheduling and cancelling a
+ * reminder take constant time however many are pending, and advancing the
+ * wheel only touches the reminders that fall due, plus the ones moved to a
+ * finer wheel as their time comes closer.
+ *
+ * There are four wheels of 64 slots. A slot of wheel 0 holds the reminders
+ * due at one tick, a slot of wheel 1 those due within one 64-tick span, and
+ * so on, so the four wheels cover 64^4 ticks (about 31 years of minutes)
+ * ahead of the current tick. Reminders due later wait in an overflow slot.
+ * Each wheel keeps a bit per occupied slot, so advancing skips empty slots
+ * instead of visiting every tick. Pending reminders are found by customer
+ * ID in arrays, since IDs are handed out densely from 1. Not
+ * thread-safe.
+ */
+public class ReminderWheel {
+
+    // Bits of a tick that select the slot within one wheel
+    private static final int SLOT_BITS = 6;
+
+    // Slots per wheel
+    private static final int SLOTS = 1 << SLOT_BITS;
+
+    // Mask selecting a slot from a shifted tick
+    private static final int SLOT_MASK = SLOTS - 1;
+
+    // Number of wheels
+    private static final int LEVELS = 4;
+
+    // Slot of reminders scheduled at or before the current tick
+    private static final int OVERDUE = LEVELS * SLOTS;
+
+    // Slot of reminders due beyond the last wheel
+    private static final int OVERFLOW = OVERDUE + 1;
+
+    /**
+     * What a reminder is about.
+     */
+    public enum Kind {
+        SERVICE, MOT
+    }
+
+    private final Reminder[] slots = new Reminder[OVERFLOW + 1]; // First reminder of each slot, null if empty
+    private final long[] occupied = new long[LEVELS]; // Bit per non-empty slot of each wheel
+    private final Reminder[][] byCustomer = new Reminder[Kind.values().length][16]; // Pending by kind and ID
+    private int size; // Number of pending reminders
+    private long currentTick; // Tick the wheel has advanced to
+
+    /**
+     * Constructs an empty wheel.
+     *
+     * @param currentTick The tick to start at.
+     */
+    public ReminderWheel(long currentTick) {
+        this.currentTick = currentTick;
+    }
+
+    /**
+     * A pending reminder for one customer.
+     */
+    public static final class Reminder {
+        private final int customerId; // The customer to remind
+        private final Kind kind; // What the reminder is about
+        private final long dueTick; // Tick the reminder falls due at
+        private Reminder previous; // Previous reminder in the same slot
+        private Reminder next; // Next reminder in the same slot
+        private int slot = -1; // Index into slots, -1 once fired or cancelled
+
+        private Reminder(int customerId, Kind kind, long dueTick) {
+            this.customerId = customerId;
+            this.kind = kind;
+            this.dueTick = dueTick;
+        }
+
+        /**
+         * Gets the customer to remind.
+         *
+         * @return The customer ID.
+         */
+        public int getCustomerId() {
+            return customerId;
+        }
+
+        /**
+         * Gets what the reminder is about.
+         *
+         * @return The kind of reminder.
+         */
+        public Kind getKind() {
+            return kind;
+        }
+
+        /**
+         * Gets when the reminder falls due.
+         *
+         * @return The due tick.
+         */
+        public long getDueTick() {
+            return dueTick;
+        }
+    }
+
+    /**
+     * Gets the tick the wheel has advanced to.
+     *
+     * @return The current tick.
+     */
+    public long getCurrentTick() {
+        return currentTick;
+    }
+
+    /**
+     * Gets the number of pending reminders.
+     *
+     * @return The reminder count.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Schedules a reminder, replacing the customer's pending reminder of the
+     * same kind. A reminder due at or before the current tick falls due on
+     * the next advance, even one to the current tick.
+     *
+     * @param customerId The customer to remind.
+     * @param kind       What the reminder is about.
+     * @param dueTick    Tick the reminder falls due at.
+     * @return The scheduled reminder.
+     * @throws IllegalArgumentException If the customer ID is negative.
+     */
+    public Reminder schedule(int customerId, Kind kind, long dueTick) {
+        if (customerId < 0) {
+            throw new IllegalArgumentException("Invalid customer ID " + customerId + ".");
+        }
+        Reminder[] pending = byCustomer[kind.ordinal()];
+        if (customerId >= pending.length) {
+            pending = Arrays.copyOf(pending, Math.max(customerId + 1, pending.length * 2));
+            byCustomer[kind.ordinal()] = pending;
+        }
+        Reminder reminder = new Reminder(customerId, kind, dueTick);
+        Reminder replaced = pending[customerId];
+        pending[customerId] = reminder;
+        if (replaced != null) {
+            unlink(replaced);
+        } else {
+            size++;
+        }
+        if (dueTick <= currentTick) {
+            link(reminder, OVERDUE);
+        } else {
+            place(reminder);
+        }
+        return reminder;
+    }
+
+    /**
+     * Gets a customer's pending reminder.
+     *
+     * @param customerId The customer.
+     * @param kind       What the reminder is about.
+     * @return The reminder, or null if none is pending.
+     */
+    public Reminder get(int customerId, Kind kind) {
+        Reminder[] pending = byCustomer[kind.ordinal()];
+        return customerId >= 0 && customerId < pending.length ? pending[customerId] : null;
+    }
+
+    /**
+     * Cancels a customer's pending reminder.
+     *
+     * @param customerId The customer.
+     * @param kind       What the reminder is about.
+     * @return True if a reminder was pending.
+     */
+    public boolean cancel(int customerId, Kind kind) {
+        Reminder reminder = get(customerId, kind);
+        if (reminder == null) {
+            return false;
+        }
+        byCustomer[kind.ordinal()][customerId] = null;
+        size--;
+        unlink(reminder);
+        return true;
+    }
+
+    /**
+     * Advances the wheel and removes every reminder that fell due on the way.
+     *
+     * @param tick The tick to advance to; an earlier tick than the current
+     *             one advances nothing.
+     * @return The reminders that fell due, roughly in due order.
+     */
+    public List<Reminder> advance(long tick) {
+        List<Reminder> due = new ArrayList<>();
+        takeSlot(OVERDUE, due);
+        while (currentTick < tick) {
+            // Jump to the next occupied slot of wheel 0, or to the end of its rotation
+            int index = (int) (currentTick & SLOT_MASK);
+            long ahead = index == SLOT_MASK ? 0 : occupied[0] & (-1L << (index + 1));
+            long next = currentTick - index + (ahead != 0 ? Long.numberOfTrailingZeros(ahead) : SLOTS);
+            if (next > tick) {
+                currentTick = tick;
+                break;
+            }
+            currentTick = next;
+            if ((currentTick & SLOT_MASK) == 0) {
+                cascade(1, due);
+            }
+            takeSlot((int) (currentTick & SLOT_MASK), due);
+        }
+        return due;
+    }
+
+    /**
+     * Gets every pending reminder, e.g. to save them.
+     *
+     * @return The reminders, in no particular order.
+     */
+    public List<Reminder> reminders() {
+        List<Reminder> reminders = new ArrayList<>(size);
+        for (Reminder[] pending : byCustomer) {
+            for (Reminder reminder : pending) {
+                if (reminder != null) {
+                    reminders.add(reminder);
+                }
+            }
+        }
+        return reminders;
+    }
+
+    // Moves the reminders of the wheel's current slot to finer wheels, after the coarser wheels did the same
+    private void cascade(int level, List<Reminder> due) {
+        int slot = OVERFLOW;
+        if (level < LEVELS) {
+            int index = (int) ((currentTick >>> (SLOT_BITS * level)) & SLOT_MASK);
+            if (index == 0) {
+                cascade(level + 1, due);
+            }
+            slot = level * SLOTS + index;
+        }
+        Reminder reminder = slots[slot];
+        clearSlot(slot);
+        while (reminder != null) {
+            Reminder following = reminder.next;
+            reminder.previous = null;
+            reminder.next = null;
+            reminder.slot = -1;
+            placeOrFire(reminder, due);
+            reminder = following;
+        }
+    }
+
+    // Removes the reminders of a slot of wheel 0 or the overdue slot, which are due now
+    private void takeSlot(int slot, List<Reminder> due) {
+        Reminder reminder = slots[slot];
+        clearSlot(slot);
+        while (reminder != null) {
+            Reminder following = reminder.next;
+            reminder.previous = null;
+            reminder.next = null;
+            reminder.slot = -1;
+            fire(reminder, due);
+            reminder = following;
+        }
+    }
+
+    private void placeOrFire(Reminder reminder, List<Reminder> due) {
+        if (reminder.dueTick <= currentTick) {
+            fire(reminder, due);
+        } else {
+            place(reminder);
+        }
+    }
+
+    private void fire(Reminder reminder, List<Reminder> due) {
+        byCustomer[reminder.kind.ordinal()][reminder.customerId] = null;
+        size--;
+        due.add(reminder);
+    }
+
+    // Puts a reminder due after the current tick in the finest wheel whose span reaches its due tick
+    private void place(Reminder reminder) {
+        long delta = reminder.dueTick - currentTick;
+        for (int level = 0; level < LEVELS; level++) {
+            if (delta < 1L << (SLOT_BITS * (level + 1))) {
+                link(reminder, level * SLOTS + (int) ((reminder.dueTick >>> (SLOT_BITS * level)) & SLOT_MASK));
+                return;
+            }
+        }
+        link(reminder, OVERFLOW);
+    }
+
+    private void link(Reminder reminder, int slot) {
+        Reminder first = slots[slot];
+        reminder.next = first;
+        if (first != null) {
+            first.previous = reminder;
+        }
+        slots[slot] = reminder;
+        reminder.slot = slot;
+        if (slot < OVERDUE) {
+            occupied[slot / SLOTS] |= 1L << (slot & SLOT_MASK);
+        }
+    }
+
+    private void unlink(Reminder reminder) {
+        if (reminder.previous != null) {
+            reminder.previous.next = reminder.next;
+        } else {
+            slots[reminder.slot] = reminder.next;
+            if (reminder.next == null && reminder.slot < OVERDUE) {
+                occupied[reminder.slot / SLOTS] &= ~(1L << (reminder.slot & SLOT_MASK));
+            }
+        }
+        if (reminder.next != null) {
+            reminder.next.previous = reminder.previous;
+        }
+        reminder.previous = null;
+        reminder.next = null;
+        reminder.slot = -1;
+    }
+
+    private void clearSlot(int slot) {
+        slots[slot] = null;
+        if (slot < OVERDUE) {
+            occupied[slot / SLOTS] &= ~(1L << (slot & SLOT_MASK));
+        }
+    }
+}
@@ -0,0 +1,319 @@
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Builds the manager's daily report: completions and open work per
+ * mechanic, the backlog by priority, repeat customers and the most
+ * requested manufacturers.
+ *
+ * Reports are built asynchronously on a fork/join pool, so the menu never
+ * waits for one. Every aggregation is a parallel stream over a spliterator
+ * that splits without copying: the queue is walked subtree by subtree
+ * straight from its immutable snapshot, and mechanics' tasks through one
+ * flat index space over all mechanics, so a shop with one busy mechanic
+ * splits as evenly as one with many. Per-thread partial maps are merged at
+ * the end instead of sharing a concurrent map, so adding cores adds
+ * throughput rather than contention.
+ *
+ * The report covers today's work: tasks in the queue, open assignments and
+ * tasks completed today while the engine listened.
+ */
+public class ReportEngine implements TaskLifecycleListener {
+
+    // Repeat customers listed in a report
+    public static final int TOP_CUSTOMERS = 10;
+
+    // Manufacturers listed in a report
+    public static final int TOP_MANUFACTURERS = 5;
+
+    private final CustomerService customerService; // Source of customers
+    private final MechanicService mechanicService; // Source of mechanics and their assignments
+    private final TaskQueue taskQueue; // Source of the backlog
+    private final ForkJoinPool pool; // Pool reports are built on
+    private final Clock clock; // Source of the report date
+    private final Map<Integer, CompletedToday> completed; // Tasks completed today, per mechanic ID
+    private volatile List<Manufacturer> manufacturers = List.of(); // Known manufacturers, for multi-word names
+
+    /**
+     * Constructs a report engine building on the common fork/join pool.
+     *
+     * @param customerService The customer service.
+     * @param mechanicService The mechanic service.
+     * @param taskQueue       The task queue.
+     */
+    public ReportEngine(CustomerService customerService, MechanicService mechanicService, TaskQueue taskQueue) {
+        this(customerService, mechanicService, taskQueue, ForkJoinPool.commonPool(), Clock.systemDefaultZone());
+    }
+
+    /**
+     * Constructs a report engine.
+     *
+     * @param customerService The customer service.
+     * @param mechanicService The mechanic service.
+     * @param taskQueue       The task queue.
+     * @param pool            The pool to build reports on.
+     * @param clock           The source of the report date.
+     */
+    public ReportEngine(CustomerService customerService, MechanicService mechanicService, TaskQueue taskQueue,
+            ForkJoinPool pool, Clock clock) {
+        this.customerService = customerService;
+        this.mechanicService = mechanicService;
+        this.taskQueue = taskQueue;
+        this.pool = pool;
+        this.clock = clock;
+        this.completed = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Sets the known manufacturers. A vehicle is counted under the longest
+     * known manufacturer its model starts with, e.g. "Land Rover" for a
+     * Land Rover Defender; models of unknown manufacturers are counted
+     * under their first word.
+     *
+     * @param manufacturers The list of manufacturers.
+     */
+    public void setManufacturers(List<Manufacturer> manufacturers) {
+        this.manufacturers = manufacturers;
+    }
+
+    @Override
+    public void taskCompleted(Task task, Mechanic mechanic) {
+        LocalDate today = LocalDate.now(clock);
+        CompletedToday log = completed.compute(mechanic.getId(),
+                (id, current) -> current == null || !current.day.equals(today)
+                        ? new CompletedToday(today) : current);
+        log.tasks.add(task);
+    }
+
+    /**
+     * Starts building the daily report.
+     *
+     * @return The report, completed on the engine's pool.
+     */
+    public CompletableFuture<DailyReport> dailyReport() {
+        return CompletableFuture.supplyAsync(this::build, pool);
+    }
+
+    // Runs on the pool, so the parallel streams below fork into the same pool
+    private DailyReport build() {
+        long started = System.nanoTime();
+        LocalDate today = LocalDate.now(clock);
+        TaskQueueSnapshot backlog = taskQueue.snapshot();
+        List<Mechanic> mechanics = mechanicService.mechanics();
+        List<Customer> customers = customerService.allCustomers();
+
+        List<Task[]> openTasks = new ArrayList<>(mechanics.size());
+        List<Task[]> completedTasks = new ArrayList<>(mechanics.size());
+        for (Mechanic mechanic : mechanics) {
+            openTasks.add(mechanic.getAssignedTasks().stream()
+                    .filter(task -> !"Completed".equals(task.getStatus()))
+                    .toArray(Task[]::new));
+            CompletedToday log = completed.get(mechanic.getId());
+            completedTasks.add(log == null || !log.day.equals(today) ? new Task[0] : log.tasks.toArray(new Task[0]));
+        }
+
+        Map<Integer, Long> openByMechanic = assignments(mechanics, openTasks)
+                .collect(Collectors.groupingBy(assignment -> assignment.mechanic.getId(), Collectors.counting()));
+        Map<Integer, Long> completedByMechanic = assignments(mechanics, completedTasks)
+                .collect(Collectors.groupingBy(assignment -> assignment.mechanic.getId(), Collectors.counting()));
+        List<DailyReport.MechanicRow> mechanicRows = new ArrayList<>(mechanics.size());
+        for (Mechanic mechanic : mechanics) {
+            mechanicRows.add(new DailyReport.MechanicRow(mechanic,
+                    completedByMechanic.getOrDefault(mechanic.getId(), 0L),
+                    openByMechanic.getOrDefault(mechanic.getId(), 0L)));
+        }
+
+        TreeMap<Integer, Long> backlogByPriority = backlog.stream(true)
+                .collect(Collectors.groupingBy(Task::getPriority, () -> new TreeMap<>(Comparator.reverseOrder()),
+                        Collectors.counting()));
+
+        // Every task known today, counted per vehicle
+        Stream<Task> assigned = Stream.concat(assignments(mechanics, openTasks),
+                assignments(mechanics, completedTasks)).map(assignment -> assignment.task);
+        Map<String, Long> tasksByVehicle = Stream.concat(backlog.stream(true), assigned)
+                .filter(task -> task.getVehicleDetails() != null)
+                .collect(Collectors.groupingBy(task -> RecallEntry.normalizeVehicleNumber(task.getVehicleDetails()),
+                        Collectors.counting()));
+        Map<String, Customer> customersByVehicle = customers.parallelStream()
+                .filter(customer -> customer.getVehicleNumber() != null)
+                .collect(Collectors.toMap(customer -> RecallEntry.normalizeVehicleNumber(customer.getVehicleNumber()),
+                        Function.identity(), (first, second) -> first));
+
+        List<DailyReport.CustomerRow> repeatCustomers = tasksByVehicle.entrySet().parallelStream()
+                .filter(entry -> entry.getValue() >= 2 && customersByVehicle.containsKey(entry.getKey()))
+                .map(entry -> new DailyReport.CustomerRow(customersByVehicle.get(entry.getKey()), entry.getValue()))
+                .sorted(Comparator.comparingLong(DailyReport.CustomerRow::getTasks).reversed()
+                        .thenComparingInt(row -> row.getCustomer().getId()))
+                .limit(TOP_CUSTOMERS)
+                .collect(Collectors.toList());
+
+        List<Manufacturer> known = new ArrayList<>(manufacturers);
+        Map<String, Long> tasksByManufacturer = tasksByVehicle.entrySet().parallelStream()
+                .filter(entry -> {
+                    Customer customer = customersByVehicle.get(entry.getKey());
+                    return customer != null && customer.getVehicleModel() != null
+                            && !customer.getVehicleModel().isBlank();
+                })
+                .collect(Collectors.groupingBy(entry -> manufacturerName(customersByVehicle.get(entry.getKey()), known),
+                        Collectors.summingLong(Map.Entry::getValue)));
+        Map<String, Long> topManufacturers = new LinkedHashMap<>();
+        tasksByManufacturer.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                .limit(TOP_MANUFACTURERS)
+                .forEach(entry -> topManufacturers.put(entry.getKey(), entry.getValue()));
+
+        return new DailyReport(today, mechanicRows, backlogByPriority, repeatCustomers, topManufacturers,
+                System.nanoTime() - started);
+    }
+
+    // The manufacturer of a customer's vehicle, e.g. "Toyota" for "toyota corolla"
+    private static String manufacturerName(Customer customer, List<Manufacturer> known) {
+        String model = RecallEntry.normalizeModel(customer.getVehicleModel());
+        String longest = null;
+        for (Manufacturer manufacturer : known) {
+            String name = manufacturer.getName().trim();
+            if (!name.isEmpty() && (longest == null || name.length() > longest.length())
+                    && RecallEntry.madeBy(model, RecallEntry.normalizeModel(name))) {
+                longest = name;
+            }
+        }
+        if (longest != null) {
+            return longest;
+        }
+        String manufacturer = RecallEntry.manufacturerOf(model);
+        return manufacturer.substring(0, 1).toUpperCase(Locale.ROOT) + manufacturer.substring(1);
+    }
+
+    // A parallel stream of every task of every mechanic, tasks[i] belonging to mechanics[i]
+    private static Stream<Assignment> assignments(List<Mechanic> mechanics, List<Task[]> tasks) {
+        return StreamSupport.stream(new AssignmentSpliterator(mechanics.toArray(new Mechanic[0]),
+                tasks.toArray(new Task[0][])), true);
+    }
+
+    /**
+     * Tasks one mechanic completed on one day.
+     */
+    private static final class CompletedToday {
+        private final LocalDate day; // The day the tasks were completed
+        private final ConcurrentLinkedQueue<Task> tasks = new ConcurrentLinkedQueue<>(); // The completed tasks
+
+        private CompletedToday(LocalDate day) {
+            this.day = day;
+        }
+    }
+
+    /**
+     * A task together with the mechanic it belongs to.
+     */
+    private static final class Assignment {
+        private final Mechanic mechanic; // The mechanic
+        private final Task task; // The task
+
+        private Assignment(Mechanic mechanic, Task task) {
+            this.mechanic = mechanic;
+            this.task = task;
+        }
+    }
+
+    /**
+     * Walks the tasks of many mechanics as one flat range of indexes, so
+     * splits halve the number of tasks rather than the number of mechanics.
+     */
+    private static final class AssignmentSpliterator implements Spliterator<Assignment> {
+        private final Mechanic[] mechanics; // The mechanics
+        private final Task[][] tasks; // Tasks of each mechanic
+        private final long[] offsets; // Flat index of each mechanic's first task
+        private long index; // Next flat index to visit
+        private final long end; // Flat index after the last one to visit
+        private int mechanic; // Mechanic owning the next index
+        private int position; // Position of the next index in that mechanic's tasks
+
+        private AssignmentSpliterator(Mechanic[] mechanics, Task[][] tasks) {
+            this.mechanics = mechanics;
+            this.tasks = tasks;
+            this.offsets = new long[tasks.length + 1];
+            for (int i = 0; i < tasks.length; i++) {
+                offsets[i + 1] = offsets[i] + tasks[i].length;
+            }
+            this.end = offsets[tasks.length];
+            seek(0);
+        }
+
+        private AssignmentSpliterator(AssignmentSpliterator parent, long from, long end) {
+            this.mechanics = parent.mechanics;
+            this.tasks = parent.tasks;
+            this.offsets = parent.offsets;
+            this.end = end;
+            seek(from);
+        }
+
+        // Finds the mechanic and position of a flat index by binary search over the offsets
+        private void seek(long flatIndex) {
+            int low = 0;
+            int high = tasks.length;
+            while (low < high) {
+                int mid = (low + high + 1) >>> 1;
+                if (offsets[mid] <= flatIndex) {
+                    low = mid;
+                } else {
+                    high = mid - 1;
+                }
+            }
+            index = flatIndex;
+            mechanic = low;
+            position = (int) (flatIndex - offsets[low]);
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super Assignment> action) {
+            if (index >= end) {
+                return false;
+            }
+            while (position >= tasks[mechanic].length) {
+                mechanic++;
+                position = 0;
+            }
+            action.accept(new Assignment(mechanics[mechanic], tasks[mechanic][position++]));
+            index++;
+            return true;
+        }
+
+        @Override
+        public Spliterator<Assignment> trySplit() {
+            long mid = (index + end) >>> 1;
+            if (mid <= index) {
+                return null;
+            }
+            AssignmentSpliterator prefix = new AssignmentSpliterator(this, index, mid);
+            seek(mid);
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return end - index;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | SIZED | SUBSIZED | NONNULL | IMMUTABLE;
+        }
+    }
+}
@@ -0,0 +1,151 @@
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The repositories of one storage backend. The shop's state lives in the
+ * lists and the TaskQueue while the application runs; the repositories keep
+ * a copy that survives a restart. InMemoryRepositories keeps nothing beyond
+ * the process, H2Repositories keeps it in an embedded database.
+ *
+ * Implementations may buffer writes, so call flush() before reading through
+ * another channel and close() when done.
+ */
+public interface Repositories extends AutoCloseable {
+
+    /**
+     * Gets the customer repository.
+     *
+     * @return The customer repository.
+     */
+    CustomerRepository customers();
+
+    /**
+     * Gets the mechanic repository.
+     *
+     * @return The mechanic repository.
+     */
+    MechanicRepository mechanics();
+
+    /**
+     * Gets the manufacturer repository.
+     *
+     * @return The manufacturer repository.
+     */
+    ManufacturerRepository manufacturers();
+
+    /**
+     * Gets the task repository.
+     *
+     * @return The task repository.
+     */
+    TaskRepository tasks();
+
+    /**
+     * Writes out any buffered changes.
+     */
+    void flush();
+
+    /**
+     * Writes out any buffered changes and releases the backend.
+     */
+    @Override
+    void close();
+
+    /**
+     * Loads the stored state into the given lists and queue, with each
+     * mechanic's open tasks assigned to them again. Tasks that were waiting
+     * for prerequisites are queued as well; use the overload taking a
+     * TaskDependencyGraph to hold them back.
+     *
+     * @param customers             List of registered customers to fill.
+     * @param unregisteredCustomers List of unregistered customers to fill.
+     * @param manufacturers         List of manufacturers to fill.
+     * @param mechanics             List of mechanics to fill.
+     * @param taskQueue             Queue to add pending tasks to.
+     */
+    default void loadInto(List<Customer> customers, List<Customer> unregisteredCustomers,
+            List<Manufacturer> manufacturers, List<Mechanic> mechanics, TaskQueue taskQueue) {
+        loadInto(customers, unregisteredCustomers, manufacturers, mechanics, taskQueue, null);
+    }
+
+    /**
+     * Loads the stored state into the given lists, queue and dependency
+     * graph, with each mechanic's open tasks assigned to them again and
+     * tasks whose prerequisites are still open held back by the graph.
+     *
+     * @param customers             List of registered customers to fill.
+     * @param unregisteredCustomers List of unregistered customers to fill.
+     * @param manufacturers         List of manufacturers to fill.
+     * @param mechanics             List of mechanics to fill.
+     * @param taskQueue             Queue to add pending tasks to.
+     * @param dependencyGraph       Graph that releases blocked tasks into the
+     *                              queue, or null to queue them right away.
+     */
+    default void loadInto(List<Customer> customers, List<Customer> unregisteredCustomers,
+            List<Manufacturer> manufacturers, List<Mechanic> mechanics, TaskQueue taskQueue,
+            TaskDependencyGraph dependencyGraph) {
+        List<Task> open = new ArrayList<>();
+        for (Customer customer : customers().findAll()) {
+            (customer.isRegistered() ? customers : unregisteredCustomers).add(customer);
+        }
+        manufacturers.addAll(manufacturers().findAll());
+        for (Mechanic mechanic : mechanics().findAll()) {
+            for (Task task : tasks().findAssignedTo(mechanic.getId())) {
+                mechanic.assignTask(task);
+                open.add(task);
+            }
+            mechanics.add(mechanic);
+        }
+        List<Task> pending = tasks().findPending();
+        if (dependencyGraph == null) {
+            for (Task task : pending) {
+                taskQueue.addTask(task);
+            }
+            return;
+        }
+        open.addAll(pending);
+        Map<Task, List<Task>> prerequisites = tasks().findOpenPrerequisites(open);
+        Set<Task> pendingSet = new HashSet<>();
+        pendingSet.addAll(pending);
+        Set<Task> added = new HashSet<>();
+        for (Task task : pending) {
+            addAfterPrerequisites(task, prerequisites, pendingSet, added, dependencyGraph);
+        }
+    }
+
+    // Adds a pending task to the graph after the pending tasks it waits for, which the graph requires
+    private static void addAfterPrerequisites(Task task, Map<Task, List<Task>> prerequisites, Set<Task> pending,
+            Set<Task> added, TaskDependencyGraph dependencyGraph) {
+        if (!added.add(task)) {
+            return;
+        }
+        List<Task> waitsFor = prerequisites.getOrDefault(task, List.of());
+        for (Task prerequisite : waitsFor) {
+            if (pending.contains(prerequisite)) {
+                addAfterPrerequisites(prerequisite, prerequisites, pending, added, dependencyGraph);
+            }
+        }
+        dependencyGraph.addTask(task, waitsFor);
+    }
+
+    /**
+     * Stores the current state of every customer, manufacturer and mechanic
+     * in batches, e.g. before exiting, and writes everything out.
+     *
+     * @param customers             List of registered customers.
+     * @param unregisteredCustomers List of unregistered customers.
+     * @param manufacturers         List of manufacturers.
+     * @param mechanics             List of mechanics.
+     */
+    default void saveAll(List<Customer> customers, List<Customer> unregisteredCustomers,
+            List<Manufacturer> manufacturers, List<Mechanic> mechanics) {
+        customers().saveAll(customers);
+        customers().saveAll(unregisteredCustomers);
+        manufacturers().saveAll(manufacturers);
+        mechanics().saveAll(mechanics);
+        flush();
+    }
+}
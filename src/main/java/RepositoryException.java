@@ -0,0 +1,18 @@
+/**
+ * Thrown when a repository cannot read from or write to its backend.
+ */
+public class RepositoryException extends RuntimeException {
+
+    // Version of the serialized form
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Constructs the exception.
+     *
+     * @param message What the repository was doing.
+     * @param cause   The backend's error.
+     */
+    public RepositoryException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
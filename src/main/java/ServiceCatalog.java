@@ -0,0 +1,167 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * The standard jobs the garage offers, by job code. Each job is one shared
+ * ServiceType, so tasks created from the catalog refer to it instead of
+ * carrying their own copy of the description, and estimates read its
+ * standard labour time instead of guessing from free text.
+ *
+ * Free-text tasks whose description equals a catalog description, such as
+ * tasks restored from a saved state, are matched back to their job with
+ * {@link #typeOf(Task)}.
+ */
+public class ServiceCatalog {
+    private final Map<String, ServiceType> byCode; // Jobs by upper-case code, in code order
+    private final Map<String, ServiceType> byDescription; // Jobs by normalized standard description
+
+    /**
+     * Constructs an empty catalog.
+     */
+    public ServiceCatalog() {
+        this.byCode = new ConcurrentSkipListMap<>();
+        this.byDescription = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Constructs a catalog of the garage's usual jobs.
+     *
+     * @return The catalog.
+     */
+    public static ServiceCatalog standard() {
+        ServiceCatalog catalog = new ServiceCatalog();
+        catalog.register(new ServiceType("OIL", "Oil change", 30, List.of("General"),
+                List.of("Engine oil", "Oil filter", "Drain plug washer")));
+        catalog.register(new ServiceType("INSP", "Annual inspection", 60, List.of("General"), List.of()));
+        catalog.register(new ServiceType("BRAKE", "Brake pads replacement", 90, List.of("Brakes"),
+                List.of("Brake pads", "Brake cleaner")));
+        catalog.register(new ServiceType("DISC", "Brake discs and pads replacement", 150, List.of("Brakes"),
+                List.of("Brake discs", "Brake pads", "Brake cleaner")));
+        catalog.register(new ServiceType("TYRE", "Tyre change", 45, List.of("Tyres"),
+                List.of("Valve stems", "Wheel weights")));
+        catalog.register(new ServiceType("ALIGN", "Wheel alignment", 60, List.of("Tyres", "Suspension"),
+                List.of()));
+        catalog.register(new ServiceType("BATT", "Battery replacement", 20, List.of("Electrical"),
+                List.of("Battery")));
+        catalog.register(new ServiceType("AC", "Air conditioning service", 60, List.of("Air conditioning"),
+                List.of("Refrigerant", "Cabin filter")));
+        catalog.register(new ServiceType("TIMING", "Timing belt replacement", 240, List.of("Engine"),
+                List.of("Timing belt", "Tensioner", "Water pump")));
+        catalog.register(new ServiceType("CLUTCH", "Clutch replacement", 300, List.of("Transmission"),
+                List.of("Clutch kit", "Gear oil")));
+        catalog.register(new ServiceType("DIAG", "Engine diagnostics", 45, List.of("Electrical", "Engine"),
+                List.of()));
+        return catalog;
+    }
+
+    /**
+     * Reads a catalog. One job per line, fields separated by '|':
+     * {@code code|description|standard minutes|skills|typical parts}, where
+     * skills and parts are separated by ';' and may be left empty. Blank
+     * lines and lines starting with '#' are skipped.
+     *
+     * @param file The catalog file.
+     * @return The catalog.
+     * @throws IOException If the file cannot be read or a line is invalid.
+     */
+    public static ServiceCatalog readCatalog(Path file) throws IOException {
+        ServiceCatalog catalog = new ServiceCatalog();
+        try (CommandReader reader = new CommandReader(Files.newInputStream(file))) {
+            while (reader.next()) {
+                try {
+                    if (reader.fieldCount() < 3) {
+                        throw new IllegalArgumentException("Expected at least 3 fields but found "
+                                + reader.fieldCount() + ".");
+                    }
+                    catalog.register(new ServiceType(reader.field(0), reader.field(1), reader.intField(2),
+                            reader.fieldCount() > 3 ? splitList(reader.field(3)) : List.of(),
+                            reader.fieldCount() > 4 ? splitList(reader.rest(4)) : List.of()));
+                } catch (IllegalArgumentException e) {
+                    throw new IOException("Line " + reader.lineNumber() + " of " + file + ": " + e.getMessage(), e);
+                }
+            }
+        }
+        return catalog;
+    }
+
+    /**
+     * Adds a job to the catalog, replacing any job with the same code.
+     *
+     * @param type The job.
+     */
+    public synchronized void register(ServiceType type) {
+        ServiceType replaced = byCode.put(type.getCode(), type);
+        if (replaced != null) {
+            byDescription.remove(replaced.getStatsKey(), replaced);
+        }
+        byDescription.put(type.getStatsKey(), type);
+    }
+
+    /**
+     * Finds a job by its code, ignoring case and surrounding spaces.
+     *
+     * @param code The job code.
+     * @return The job, or null if the code is not in the catalog.
+     */
+    public ServiceType lookup(String code) {
+        return code == null ? null : byCode.get(ServiceType.normalizeCode(code));
+    }
+
+    /**
+     * Finds the job with a given standard description, ignoring case and
+     * surrounding spaces.
+     *
+     * @param description The description.
+     * @return The job, or null if no job has that description.
+     */
+    public ServiceType forDescription(String description) {
+        return description == null ? null : byDescription.get(ServiceType.normalizeDescription(description));
+    }
+
+    /**
+     * Gets the job of a task: the one it was created from, or else the one
+     * whose standard description it carries.
+     *
+     * @param task The task.
+     * @return The job, or null if the task is free text only.
+     */
+    public ServiceType typeOf(Task task) {
+        ServiceType type = task.getServiceType();
+        return type != null ? type : forDescription(task.getDescription());
+    }
+
+    /**
+     * Gets every job in the catalog.
+     *
+     * @return The jobs in code order.
+     */
+    public List<ServiceType> types() {
+        return new ArrayList<>(byCode.values());
+    }
+
+    /**
+     * Gets the number of jobs in the catalog.
+     *
+     * @return The job count.
+     */
+    public int size() {
+        return byCode.size();
+    }
+
+    // Splits a ';'-separated list, dropping empty entries
+    private static List<String> splitList(String text) {
+        List<String> items = new ArrayList<>();
+        for (String item : text.split(";")) {
+            if (!item.isBlank()) {
+                items.add(item.trim());
+            }
+        }
+        return items;
+    }
+}
@@ -0,0 +1,394 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.Period;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reminds customers when a periodic service or their MOT falls due. A
+ * service reminder is scheduled six months after each completed task for
+ * the customer's vehicle, replacing the previous one; MOT reminders are set
+ * by the manager and go out two weeks before the MOT date. All reminders go
+ * out at 09:00.
+ *
+ * Pending reminders are kept in a ReminderWheel ticking once a minute, so
+ * millions of them cost one background thread and constant time per
+ * change. Reminders that fall due in the same minute are sent as one
+ * Notification per message.
+ *
+ * Saved reminders file layout (all values big-endian):
+ * <pre>
+ * header     MAGIC, VERSION, count
+ * reminders  sorted by due minute: due minute as a varint delta from the
+ *            previous one (the first from 0), customer ID as a varint, kind
+ * trailer    MAGIC
+ * </pre>
+ * Most reminders take 4 to 6 bytes.
+ */
+public class ServiceReminders implements TaskLifecycleListener, AutoCloseable {
+
+    // Marks a saved reminders file ("GMSR")
+    static final int MAGIC = 0x474D5352;
+
+    // Format version written by this class
+    static final int VERSION = 1;
+
+    // Time from a completed service until the next one is due
+    public static final Period SERVICE_INTERVAL = Period.ofMonths(6);
+
+    // How long before the MOT date its reminder goes out
+    public static final Period MOT_NOTICE = Period.ofWeeks(2);
+
+    // Time of day reminders go out
+    private static final LocalTime SEND_TIME = LocalTime.of(9, 0);
+
+    // Length of one wheel tick
+    private static final long TICK_MILLIS = 60_000;
+
+    private final CustomerService customerService; // Finds the customers to remind
+    private final Clock clock; // Source of the current time
+    private final ReminderWheel wheel; // Pending reminders; guarded by this
+    private WarmStart warmStart; // Restore of saved customers in progress, or null
+    private ScheduledExecutorService ticker; // Delivers due reminders once a minute, null until started
+
+    /**
+     * Constructs the reminders using the system clock and time zone.
+     *
+     * @param customerService Finds the customers to remind.
+     */
+    public ServiceReminders(CustomerService customerService) {
+        this(customerService, Clock.systemDefaultZone());
+    }
+
+    /**
+     * Constructs the reminders.
+     *
+     * @param customerService Finds the customers to remind.
+     * @param clock           Source of the current time and time zone.
+     */
+    public ServiceReminders(CustomerService customerService, Clock clock) {
+        this.customerService = customerService;
+        this.clock = clock;
+        this.wheel = new ReminderWheel(clock.millis() / TICK_MILLIS);
+    }
+
+    /**
+     * Lets reminders be scheduled while saved customers are still being
+     * restored.
+     *
+     * @param warmStart Background restore of the saved state.
+     */
+    public void setWarmStart(WarmStart warmStart) {
+        this.warmStart = warmStart;
+    }
+
+    /**
+     * Schedules a customer's next service reminder six months after a
+     * service, replacing their pending one.
+     *
+     * @param customer    The customer.
+     * @param lastService The date of the service.
+     * @return When the reminder goes out.
+     */
+    public synchronized LocalDateTime scheduleService(Customer customer, LocalDate lastService) {
+        LocalDateTime sendAt = lastService.plus(SERVICE_INTERVAL).atTime(SEND_TIME);
+        wheel.schedule(customer.getId(), ReminderWheel.Kind.SERVICE, tickOf(sendAt));
+        return sendAt;
+    }
+
+    /**
+     * Schedules a reminder two weeks before a customer's MOT date,
+     * replacing their pending one.
+     *
+     * @param customer The customer.
+     * @param motDate  The date the MOT is due.
+     * @return When the reminder goes out; at once if the MOT is less than
+     *         two weeks away.
+     * @throws IllegalArgumentException If the MOT date is in the past.
+     */
+    public synchronized LocalDateTime scheduleMot(Customer customer, LocalDate motDate) {
+        if (motDate.isBefore(LocalDate.now(clock))) {
+            throw new IllegalArgumentException("The MOT date " + motDate + " is in the past.");
+        }
+        LocalDateTime sendAt = motDate.minus(MOT_NOTICE).atTime(SEND_TIME);
+        wheel.schedule(customer.getId(), ReminderWheel.Kind.MOT, tickOf(sendAt));
+        return sendAt;
+    }
+
+    /**
+     * Cancels a customer's pending reminder.
+     *
+     * @param customer The customer.
+     * @param kind     What the reminder is about.
+     * @return True if a reminder was pending.
+     */
+    public synchronized boolean cancel(Customer customer, ReminderWheel.Kind kind) {
+        return wheel.cancel(customer.getId(), kind);
+    }
+
+    /**
+     * Gets when a customer's pending reminder goes out.
+     *
+     * @param customer The customer.
+     * @param kind     What the reminder is about.
+     * @return The send time, or null if none is pending.
+     */
+    public synchronized LocalDateTime pending(Customer customer, ReminderWheel.Kind kind) {
+        ReminderWheel.Reminder reminder = wheel.get(customer.getId(), kind);
+        return reminder == null ? null : timeOf(reminder.getDueTick());
+    }
+
+    /**
+     * Gets the number of pending reminders.
+     *
+     * @return The reminder count.
+     */
+    public synchronized int size() {
+        return wheel.size();
+    }
+
+    /**
+     * Schedules a service reminder for every customer who has a last service
+     * date but no pending service reminder, e.g. on the first start.
+     * Reminders whose send time has already passed are skipped: the history
+     * is read on every start without saved reminders, so they would go out
+     * again on each one.
+     *
+     * @param customers The customers.
+     * @return The number of reminders scheduled.
+     */
+    public synchronized int scheduleFromHistory(Iterable<Customer> customers) {
+        LocalDateTime now = LocalDateTime.now(clock);
+        int scheduled = 0;
+        for (Customer customer : customers) {
+            LocalDate lastService = customer.getLastServiceDate();
+            if (lastService != null && lastService.plus(SERVICE_INTERVAL).atTime(SEND_TIME).isAfter(now)
+                    && wheel.get(customer.getId(), ReminderWheel.Kind.SERVICE) == null) {
+                scheduleService(customer, lastService);
+                scheduled++;
+            }
+        }
+        return scheduled;
+    }
+
+    @Override
+    public void taskCompleted(Task task, Mechanic mechanic) {
+        if (task.getVehicleDetails() == null) {
+            return;
+        }
+        awaitRestored();
+        Customer customer = customerService.findByVehicleNumber(task.getVehicleDetails());
+        if (customer != null) {
+            scheduleService(customer, LocalDate.now(clock));
+        }
+    }
+
+    /**
+     * Sends every reminder that has fallen due, one Notification per
+     * message. Reminders of customers that no longer exist are dropped.
+     *
+     * @return The number of customers notified.
+     */
+    public int deliverDue() {
+        List<ReminderWheel.Reminder> due;
+        synchronized (this) {
+            due = wheel.advance(clock.millis() / TICK_MILLIS);
+        }
+        if (due.isEmpty()) {
+            return 0;
+        }
+        awaitRestored();
+        Map<String, List<Customer>> batches = new LinkedHashMap<>();
+        for (ReminderWheel.Reminder reminder : due) {
+            Customer customer = customerService.findById(reminder.getCustomerId());
+            if (customer != null) {
+                batches.computeIfAbsent(messageOf(reminder), message -> new ArrayList<>()).add(customer);
+            }
+        }
+        int sent = 0;
+        for (Map.Entry<String, List<Customer>> batch : batches.entrySet()) {
+            sent += new Notification(batch.getKey()).sendNotifications(batch.getValue());
+        }
+        return sent;
+    }
+
+    /**
+     * Starts delivering due reminders once a minute on a background thread.
+     * Reminders that fell due while the garage system was not running go
+     * out on the first delivery.
+     *
+     * @param fromHistory True to first schedule the upcoming service
+     *                    reminders from the customers' last service dates,
+     *                    once saved customers are restored.
+     */
+    public synchronized void start(boolean fromHistory) {
+        if (ticker != null) {
+            return;
+        }
+        ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "service-reminders");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (fromHistory) {
+            ticker.execute(() -> {
+                awaitRestored();
+                scheduleFromHistory(customerService.allCustomers());
+            });
+        }
+        ticker.scheduleWithFixedDelay(() -> {
+            try {
+                deliverDue();
+            } catch (RuntimeException e) {
+                System.out.println("Error while sending service reminders: " + e.getMessage());
+            }
+        }, 0, TICK_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops delivering reminders. Pending reminders are kept.
+     */
+    @Override
+    public synchronized void close() {
+        if (ticker != null) {
+            ticker.shutdownNow();
+            ticker = null;
+        }
+    }
+
+    /**
+     * Writes the pending reminders to a file. The file is replaced
+     * atomically, so a crash while saving leaves the previous reminders
+     * intact.
+     *
+     * @param file The file to write.
+     * @throws IOException If the file cannot be written.
+     */
+    public void save(Path file) throws IOException {
+        List<ReminderWheel.Reminder> reminders;
+        synchronized (this) {
+            reminders = wheel.reminders();
+        }
+        reminders.sort(Comparator.comparingLong(ReminderWheel.Reminder::getDueTick));
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(temp.toFile()), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(reminders.size());
+            long previousTick = 0;
+            for (ReminderWheel.Reminder reminder : reminders) {
+                writeVarLong(out, reminder.getDueTick() - previousTick);
+                writeVarLong(out, reminder.getCustomerId());
+                out.writeByte(reminder.getKind().ordinal());
+                previousTick = reminder.getDueTick();
+            }
+            out.writeInt(MAGIC);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Reads reminders saved by {@link #save}, replacing pending reminders of
+     * the same customers and kinds. Reminders whose time has passed go out
+     * on the next delivery.
+     *
+     * @param file The file to read.
+     * @return The number of reminders read.
+     * @throws IOException If the file cannot be read or is not a reminders
+     *                     file.
+     */
+    public int load(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Not a reminders file: " + file);
+            }
+            int count = in.readInt();
+            ReminderWheel.Kind[] kinds = ReminderWheel.Kind.values();
+            long[] ticks = new long[count];
+            int[] customerIds = new int[count];
+            ReminderWheel.Kind[] kindOf = new ReminderWheel.Kind[count];
+            long tick = 0;
+            for (int i = 0; i < count; i++) {
+                tick += readVarLong(in);
+                ticks[i] = tick;
+                customerIds[i] = (int) readVarLong(in);
+                int kind = in.readUnsignedByte();
+                if (kind >= kinds.length) {
+                    throw new IOException("Unknown reminder kind " + kind + " in " + file);
+                }
+                kindOf[i] = kinds[kind];
+            }
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Reminders file is truncated: " + file);
+            }
+            synchronized (this) {
+                for (int i = 0; i < count; i++) {
+                    wheel.schedule(customerIds[i], kindOf[i], ticks[i]);
+                }
+            }
+            return count;
+        }
+    }
+
+    private void awaitRestored() {
+        if (warmStart != null) {
+            warmStart.await(WarmStart.Section.CUSTOMERS);
+        }
+    }
+
+    private String messageOf(ReminderWheel.Reminder reminder) {
+        if (reminder.getKind() == ReminderWheel.Kind.MOT) {
+            LocalDate motDate = timeOf(reminder.getDueTick()).toLocalDate().plus(MOT_NOTICE);
+            return "Your vehicle's MOT is due on " + motDate + ". Book your MOT test with us.";
+        }
+        return "Your vehicle is due for its six-monthly service. Book a visit with us.";
+    }
+
+    private long tickOf(LocalDateTime time) {
+        return time.atZone(clock.getZone()).toInstant().toEpochMilli() / TICK_MILLIS;
+    }
+
+    private LocalDateTime timeOf(long tick) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(tick * TICK_MILLIS), clock.getZone());
+    }
+
+    // Writes seven bits per byte, lowest first, with the top bit set on all but the last byte
+    private static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private static long readVarLong(DataInputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed number in reminders file.");
+    }
+}
@@ -0,0 +1,145 @@
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * A standard job from the service catalog, such as an oil change. One
+ * instance per job code is shared by every task of that kind, so the
+ * description, standard labour time, required skills and typical parts are
+ * stored once instead of once per task. Instances are immutable.
+ */
+public final class ServiceType {
+    private final String code; // Upper-case job code, e.g. "OIL"
+    private final String description; // Standard description of the job
+    private final int standardMinutes; // Standard labour time in minutes
+    private final Duration standardDuration; // Same as a Duration, precomputed
+    private final List<String> requiredSkills; // Skills a mechanic needs for the job
+    private final List<String> typicalParts; // Parts the job usually uses
+    private final String statsKey; // Key the job is counted under in TaskDurationStats
+
+    /**
+     * Constructs a service type.
+     *
+     * @param code            The job code; stored in upper case.
+     * @param description     The standard description of the job.
+     * @param standardMinutes The standard labour time in minutes.
+     * @param requiredSkills  The skills a mechanic needs for the job.
+     * @param typicalParts    The parts the job usually uses.
+     * @throws IllegalArgumentException If the code or description is blank or
+     *                                  the labour time is not positive.
+     */
+    public ServiceType(String code, String description, int standardMinutes, List<String> requiredSkills,
+            List<String> typicalParts) {
+        if (code == null || code.isBlank()) {
+            throw new IllegalArgumentException("Job code must not be empty.");
+        }
+        if (description == null || description.isBlank()) {
+            throw new IllegalArgumentException("Description of " + code + " must not be empty.");
+        }
+        if (standardMinutes <= 0) {
+            throw new IllegalArgumentException("Standard minutes of " + code + " must be positive.");
+        }
+        this.code = normalizeCode(code);
+        this.description = description.trim();
+        this.standardMinutes = standardMinutes;
+        this.standardDuration = Duration.ofMinutes(standardMinutes);
+        this.requiredSkills = List.copyOf(requiredSkills);
+        this.typicalParts = List.copyOf(typicalParts);
+        this.statsKey = normalizeDescription(this.description);
+    }
+
+    /**
+     * Gets the job code.
+     *
+     * @return The upper-case job code.
+     */
+    public String getCode() {
+        return code;
+    }
+
+    /**
+     * Gets the standard description of the job.
+     *
+     * @return The description.
+     */
+    public String getDescription() {
+        return description;
+    }
+
+    /**
+     * Gets the standard labour time.
+     *
+     * @return The labour time in minutes.
+     */
+    public int getStandardMinutes() {
+        return standardMinutes;
+    }
+
+    /**
+     * Gets the standard labour time.
+     *
+     * @return The labour time.
+     */
+    public Duration getStandardDuration() {
+        return standardDuration;
+    }
+
+    /**
+     * Gets the skills a mechanic needs for the job.
+     *
+     * @return The skills; an unmodifiable list.
+     */
+    public List<String> getRequiredSkills() {
+        return requiredSkills;
+    }
+
+    /**
+     * Gets the parts the job usually uses.
+     *
+     * @return The parts; an unmodifiable list.
+     */
+    public List<String> getTypicalParts() {
+        return typicalParts;
+    }
+
+    /**
+     * Gets the key tasks of this type are counted under in
+     * TaskDurationStats: the normalized standard description, so they share
+     * statistics with free-text tasks of the same description.
+     *
+     * @return The statistics key.
+     */
+    public String getStatsKey() {
+        return statsKey;
+    }
+
+    /**
+     * Normalizes a job code for lookups.
+     *
+     * @param code The job code.
+     * @return The code without surrounding spaces, in upper case.
+     */
+    static String normalizeCode(String code) {
+        return code.trim().toUpperCase(Locale.ROOT);
+    }
+
+    /**
+     * Normalizes a task description for lookups and statistics.
+     *
+     * @param description The description.
+     * @return The description without surrounding spaces, in lower case.
+     */
+    static String normalizeDescription(String description) {
+        return description.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Returns a string representation of the service type.
+     *
+     * @return The code, description and standard labour time.
+     */
+    @Override
+    public String toString() {
+        return code + " - " + description + " (" + standardMinutes + " min)";
+    }
+}
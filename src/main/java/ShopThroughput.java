@@ -0,0 +1,162 @@
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Sliding-window throughput of the shop: how many tasks were created,
+ * assigned and completed recently, shop-wide and per mechanic.
+ *
+ * Every series keeps two fixed rings of counters, one minute per bucket for
+ * the last hour and fifteen minutes per bucket for the last day, so memory
+ * does not grow with the number of tasks and each query reads at most 96
+ * buckets. Windows up to an hour are answered to the minute, longer ones to
+ * the quarter hour; nothing older than a day is kept.
+ *
+ * Created tasks are the inflow of the queue and assigned tasks its outflow.
+ */
+public class ShopThroughput implements TaskLifecycleListener {
+
+    // Longest window answered by the minute-resolution counters
+    public static final Duration LAST_HOUR = Duration.ofHours(1);
+
+    // Longest window answered at all
+    public static final Duration LAST_DAY = Duration.ofDays(1);
+
+    private final Clock clock; // Source of event and query times
+    private final Series created; // Tasks added to the queue
+    private final Series assigned; // Tasks taken from the queue
+    private final Series completed; // Tasks completed by any mechanic
+    private final Map<Integer, Series> completedByMechanic; // Completed tasks per mechanic ID
+
+    /**
+     * Constructs empty throughput counters using the system clock.
+     */
+    public ShopThroughput() {
+        this(Clock.systemDefaultZone());
+    }
+
+    /**
+     * Constructs empty throughput counters using the given clock.
+     *
+     * @param clock The source of event and query times.
+     */
+    public ShopThroughput(Clock clock) {
+        this.clock = clock;
+        this.created = new Series();
+        this.assigned = new Series();
+        this.completed = new Series();
+        this.completedByMechanic = new ConcurrentHashMap<>();
+    }
+
+    @Override
+    public void taskCreated(Task task) {
+        created.add(clock.millis());
+    }
+
+    @Override
+    public void taskAssigned(Task task, Mechanic mechanic) {
+        assigned.add(clock.millis());
+    }
+
+    @Override
+    public void taskCompleted(Task task, Mechanic mechanic) {
+        long now = clock.millis();
+        completed.add(now);
+        completedByMechanic.computeIfAbsent(mechanic.getId(), id -> new Series()).add(now);
+    }
+
+    /**
+     * Counts the tasks created within the window.
+     *
+     * @param window The window ending now; at most LAST_DAY.
+     * @return The number of created tasks.
+     */
+    public long createdInLast(Duration window) {
+        return created.count(clock.millis(), window);
+    }
+
+    /**
+     * Counts the tasks assigned within the window.
+     *
+     * @param window The window ending now; at most LAST_DAY.
+     * @return The number of assigned tasks.
+     */
+    public long assignedInLast(Duration window) {
+        return assigned.count(clock.millis(), window);
+    }
+
+    /**
+     * Counts the tasks completed by any mechanic within the window.
+     *
+     * @param window The window ending now; at most LAST_DAY.
+     * @return The number of completed tasks.
+     */
+    public long completedInLast(Duration window) {
+        return completed.count(clock.millis(), window);
+    }
+
+    /**
+     * Counts the tasks one mechanic completed within the window.
+     *
+     * @param mechanicId The mechanic ID.
+     * @param window     The window ending now; at most LAST_DAY.
+     * @return The number of completed tasks.
+     */
+    public long completedInLast(int mechanicId, Duration window) {
+        Series series = completedByMechanic.get(mechanicId);
+        return series == null ? 0 : series.count(clock.millis(), window);
+    }
+
+    /**
+     * Counts the completed tasks of every mechanic who has completed any.
+     *
+     * @param window The window ending now; at most LAST_DAY.
+     * @return The number of completed tasks per mechanic ID, by ascending ID.
+     */
+    public Map<Integer, Long> completedPerMechanic(Duration window) {
+        long now = clock.millis();
+        Map<Integer, Long> result = new TreeMap<>();
+        for (Map.Entry<Integer, Series> entry : completedByMechanic.entrySet()) {
+            result.put(entry.getKey(), entry.getValue().count(now, window));
+        }
+        return result;
+    }
+
+    /**
+     * Gets how much the queue grew within the window: created tasks minus
+     * assigned tasks. A positive value means work arrives faster than it is
+     * handed out.
+     *
+     * @param window The window ending now; at most LAST_DAY.
+     * @return The net inflow of the queue.
+     */
+    public long netInflow(Duration window) {
+        long now = clock.millis();
+        return created.count(now, window) - assigned.count(now, window);
+    }
+
+    /**
+     * One event series at minute resolution for the last hour and quarter-hour
+     * resolution for the last day.
+     */
+    private static final class Series {
+        private final SlidingWindowCounter fine = new SlidingWindowCounter(Duration.ofMinutes(1).toMillis(), 60);
+        private final SlidingWindowCounter coarse = new SlidingWindowCounter(Duration.ofMinutes(15).toMillis(), 96);
+
+        private void add(long timeMillis) {
+            fine.add(timeMillis, 1);
+            coarse.add(timeMillis, 1);
+        }
+
+        private long count(long nowMillis, Duration window) {
+            if (window.isNegative() || window.compareTo(LAST_DAY) > 0) {
+                throw new IllegalArgumentException("Window must be between zero and one day.");
+            }
+            long windowMillis = window.toMillis();
+            return windowMillis <= fine.getSpanMillis() ? fine.count(nowMillis, windowMillis)
+                    : coarse.count(nowMillis, windowMillis);
+        }
+    }
+}
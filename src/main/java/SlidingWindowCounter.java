@@ -0,0 +1,76 @@
+import java.util.Arrays;
+
+/**
+ * Counts events in a sliding time window using a ring buffer of fixed-width
+ * time buckets. Memory is fixed by the number of buckets, adding an event
+ * is O(1) and a windowed count is O(buckets). Windows are rounded to whole
+ * buckets: the current, partly elapsed bucket is always included.
+ */
+public class SlidingWindowCounter {
+    private final long bucketMillis; // Width of one bucket
+    private final long[] counts; // Event count per bucket
+    private final long[] epochs; // Which bucket period each slot currently holds
+
+    /**
+     * Constructs a counter covering bucketCount buckets of the given width.
+     *
+     * @param bucketMillis The width of one bucket in milliseconds.
+     * @param bucketCount  The number of buckets kept.
+     */
+    public SlidingWindowCounter(long bucketMillis, int bucketCount) {
+        if (bucketMillis <= 0 || bucketCount <= 0) {
+            throw new IllegalArgumentException("Bucket width and count must be positive.");
+        }
+        this.bucketMillis = bucketMillis;
+        this.counts = new long[bucketCount];
+        this.epochs = new long[bucketCount];
+        Arrays.fill(epochs, Long.MIN_VALUE);
+    }
+
+    /**
+     * Counts events at the given time.
+     *
+     * @param timeMillis The event time in epoch milliseconds.
+     * @param events     The number of events.
+     */
+    public synchronized void add(long timeMillis, long events) {
+        long epoch = Math.floorDiv(timeMillis, bucketMillis);
+        int slot = (int) Math.floorMod(epoch, (long) counts.length);
+        if (epochs[slot] != epoch) {
+            if (epochs[slot] > epoch) {
+                return; // Older than anything the ring still covers
+            }
+            epochs[slot] = epoch;
+            counts[slot] = 0;
+        }
+        counts[slot] += events;
+    }
+
+    /**
+     * Counts the events in the window ending at the given time.
+     *
+     * @param nowMillis    The end of the window in epoch milliseconds.
+     * @param windowMillis The window length; capped at the span of the ring.
+     * @return The number of events in the window.
+     */
+    public synchronized long count(long nowMillis, long windowMillis) {
+        long current = Math.floorDiv(nowMillis, bucketMillis);
+        long buckets = Math.min(counts.length, Math.max(1, (windowMillis + bucketMillis - 1) / bucketMillis));
+        long total = 0;
+        for (int slot = 0; slot < counts.length; slot++) {
+            if (epochs[slot] <= current && epochs[slot] > current - buckets) {
+                total += counts[slot];
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Gets the longest window this counter can answer.
+     *
+     * @return The span of the ring in milliseconds.
+     */
+    public long getSpanMillis() {
+        return bucketMillis * counts.length;
+    }
+}
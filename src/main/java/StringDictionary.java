@@ -0,0 +1,92 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Maps strings to small int codes so that records can store a code instead
+ * of a reference. Equal strings share one code. Codes are reference counted
+ * and reused once no record refers to them any more.
+ */
+public class StringDictionary {
+    private final Map<String, Integer> codes; // Code of each stored string
+    private final List<String> strings; // String of each code, null when free
+    private int[] referenceCounts; // Number of references per code
+    private int[] freeCodes; // Stack of released codes
+    private int freeCount; // Number of codes on the free stack
+
+    /**
+     * Constructs an empty dictionary.
+     */
+    public StringDictionary() {
+        this.codes = new HashMap<>();
+        this.strings = new ArrayList<>();
+        this.referenceCounts = new int[16];
+        this.freeCodes = new int[16];
+    }
+
+    /**
+     * Gets the code of a string, adding the string if needed, and counts one
+     * more reference to it.
+     *
+     * @param value The string to encode; null is stored as code -1.
+     * @return The code of the string.
+     */
+    public int acquire(String value) {
+        if (value == null) {
+            return -1;
+        }
+        Integer code = codes.get(value);
+        if (code == null) {
+            code = freeCount > 0 ? freeCodes[--freeCount] : strings.size();
+            if (code == strings.size()) {
+                strings.add(value);
+            } else {
+                strings.set(code, value);
+            }
+            codes.put(value, code);
+            if (code >= referenceCounts.length) {
+                referenceCounts = Arrays.copyOf(referenceCounts, referenceCounts.length * 2);
+            }
+        }
+        referenceCounts[code]++;
+        return code;
+    }
+
+    /**
+     * Drops one reference to a code; the code is freed when none are left.
+     *
+     * @param code The code to release; -1 is ignored.
+     */
+    public void release(int code) {
+        if (code < 0 || --referenceCounts[code] > 0) {
+            return;
+        }
+        codes.remove(strings.get(code));
+        strings.set(code, null);
+        if (freeCount == freeCodes.length) {
+            freeCodes = Arrays.copyOf(freeCodes, freeCodes.length * 2);
+        }
+        freeCodes[freeCount++] = code;
+    }
+
+    /**
+     * Gets the string stored under a code.
+     *
+     * @param code The code to decode.
+     * @return The string, or null for code -1.
+     */
+    public String get(int code) {
+        return code < 0 ? null : strings.get(code);
+    }
+
+    /**
+     * Gets the number of distinct strings currently stored.
+     *
+     * @return The number of strings.
+     */
+    public int size() {
+        return codes.size();
+    }
+}
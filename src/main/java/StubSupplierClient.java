@@ -0,0 +1,55 @@
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A stand-in for the suppliers' ordering systems until real ones are
+ * connected. Every supplier answers for every part with made-up but stable
+ * stock, prices and delivery times, after a simulated network delay that
+ * is occasionally much longer than usual.
+ */
+public class StubSupplierClient implements SupplierClient {
+
+    // Delivery times a supplier may quote, in hours
+    private static final int[] DELIVERY_HOURS = { 2, 4, 24, 48, 72 };
+
+    private final long typicalLatencyMillis; // Usual delay of an answer
+    private final double slowCallRate; // Fraction of calls that take about 20 times as long
+
+    /**
+     * Constructs a stub answering in about 40 ms, with one call in 50 slow.
+     */
+    public StubSupplierClient() {
+        this(40, 0.02);
+    }
+
+    /**
+     * Constructs a stub.
+     *
+     * @param typicalLatencyMillis Usual delay of an answer.
+     * @param slowCallRate         Fraction of calls that take about 20
+     *                             times as long.
+     */
+    public StubSupplierClient(long typicalLatencyMillis, double slowCallRate) {
+        this.typicalLatencyMillis = typicalLatencyMillis;
+        this.slowCallRate = slowCallRate;
+    }
+
+    @Override
+    public PartQuote checkAvailability(PartsSupplier supplier, String partDescription) throws InterruptedException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long delay = typicalLatencyMillis / 2 + random.nextLong(typicalLatencyMillis + 1);
+        if (random.nextDouble() < slowCallRate) {
+            delay *= 20;
+        }
+        Thread.sleep(delay);
+
+        // The same supplier always answers the same for the same part
+        Random answer = new Random(supplier.getName().toLowerCase(Locale.ROOT).hashCode() * 31L
+                + partDescription.trim().toLowerCase(Locale.ROOT).hashCode());
+        int quantity = answer.nextInt(10) < 3 ? 0 : 1 + answer.nextInt(12);
+        long priceCents = 1_000 + answer.nextInt(29_000);
+        int deliveryHours = DELIVERY_HOURS[answer.nextInt(DELIVERY_HOURS.length)];
+        return new PartQuote(supplier, partDescription, quantity, priceCents, deliveryHours);
+    }
+}
@@ -0,0 +1,23 @@
+import java.io.IOException;
+
+/**
+ * Asks a parts supplier's ordering system whether it has a part. Calls may
+ * block, be slow or fail; PartAvailability runs them concurrently and
+ * bounds how long it waits for each.
+ */
+public interface SupplierClient {
+
+    /**
+     * Asks a supplier for the stock, price and delivery time of a part.
+     *
+     * @param supplier        The supplier to ask.
+     * @param partDescription The part, e.g. "Brake pads".
+     * @return The supplier's answer; a quantity of 0 if it does not have
+     *         the part.
+     * @throws IOException          If the supplier cannot be reached or
+     *                              answers with an error.
+     * @throws InterruptedException If the call is abandoned while waiting.
+     */
+    PartQuote checkAvailability(PartsSupplier supplier, String partDescription)
+            throws IOException, InterruptedException;
+}
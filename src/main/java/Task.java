@@ -1,13 +1,40 @@
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
 /**
  * Represents a task assigned to a mechanic for a specific vehicle.
  * Each task includes details such as description, vehicle details, priority,
  * and status.
+ *
+ * A task created from the service catalog refers to its shared ServiceType
+ * and only stores a description of its own when the standard one was
+ * overridden.
+ *
+ * Every task has an ID that is unique in the running system. Two Task
+ * objects with the same ID are the same task: a queue that keeps tasks as
+ * records, such as OffHeapTaskQueue, hands out a new object for a queued
+ * task each time, and those compare equal to the one that was queued.
  */
 public class Task {
-    private String description; // Description of the task
-    private String vehicleDetails; // Details of the associated vehicle
+    // Shared by every task nothing has been billed for yet
+    private static final LineItem[] NO_LINE_ITEMS = new LineItem[0];
+
+    // Last task ID handed out
+    private static final AtomicLong LAST_ID = new AtomicLong();
+
+    private final long id; // Identifies the task, also across objects rebuilt for it
+    private final ServiceType serviceType; // Catalog job the task was created from, null for free text
+    private final String description; // Description of the task, null to use the service type's
+    private volatile String vehicleDetails; // Details of the associated vehicle
+    private volatile GeoPoint location; // Where a mobile job is done, null for work in the shop
     private int priority; // Priority level of the task (higher number indicates higher priority)
-    private String status; // Current status of the task (e.g., "Pending", "Completed")
+    private volatile String status; // Current status of the task (e.g., "Pending", "Completed")
+    private long storeHandle = -1; // Off-heap record the task is queued in, -1 if none
+    private Instant assignedAt; // When the task was assigned to a mechanic, null if not yet
+    private Instant completedAt; // When the task was completed, null if not yet
+    private volatile LineItem[] lineItems = NO_LINE_ITEMS; // Labour and parts billed for the task
 
     /**
      * Constructs a Task object with the specified description, vehicle details, and
@@ -19,19 +46,92 @@ public class Task {
      * @param priority       Priority level of the task.
      */
     public Task(String description, String vehicleDetails, int priority) {
-        this.description = description;
+        this(null, description, vehicleDetails, priority);
+    }
+
+    /**
+     * Constructs a Task object for a catalog job, using the job's standard
+     * description.
+     *
+     * @param serviceType    The catalog job.
+     * @param vehicleDetails Details of the associated vehicle.
+     * @param priority       Priority level of the task.
+     */
+    public Task(ServiceType serviceType, String vehicleDetails, int priority) {
+        this(serviceType, null, vehicleDetails, priority);
+    }
+
+    /**
+     * Constructs a Task object for a catalog job with its own description.
+     *
+     * @param serviceType    The catalog job, or null for a free-text task.
+     * @param description    Description overriding the job's standard one, or
+     *                       null to use the standard one.
+     * @param vehicleDetails Details of the associated vehicle.
+     * @param priority       Priority level of the task.
+     */
+    public Task(ServiceType serviceType, String description, String vehicleDetails, int priority) {
+        this(LAST_ID.incrementAndGet(), serviceType, description, vehicleDetails, priority);
+    }
+
+    /**
+     * Constructs a Task object for a task that already has an ID, e.g. one
+     * read back from a record or a database row.
+     *
+     * @param id             The task ID.
+     * @param serviceType    The catalog job, or null for a free-text task.
+     * @param description    Description overriding the job's standard one, or
+     *                       null to use the standard one.
+     * @param vehicleDetails Details of the associated vehicle.
+     * @param priority       Priority level of the task.
+     */
+    Task(long id, ServiceType serviceType, String description, String vehicleDetails, int priority) {
+        reserveIds(id);
+        this.id = id;
+        this.serviceType = serviceType;
+        this.description = serviceType != null && description != null
+                && description.equals(serviceType.getDescription()) ? null : description;
         this.vehicleDetails = vehicleDetails;
         this.priority = priority;
         this.status = "Pending"; // Default status
     }
 
+    /**
+     * Gets the task ID.
+     *
+     * @return The ID, unique among the tasks of the running system.
+     */
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * Makes sure new tasks get IDs above the given one, e.g. above every ID
+     * stored in a database.
+     *
+     * @param lastUsed The highest ID already in use.
+     */
+    static void reserveIds(long lastUsed) {
+        LAST_ID.accumulateAndGet(lastUsed, Math::max);
+    }
+
     /**
      * Gets the description of the task.
      *
-     * @return The task's description.
+     * @return The task's own description, or the standard description of
+     *         its catalog job.
      */
     public String getDescription() {
-        return description;
+        return description != null || serviceType == null ? description : serviceType.getDescription();
+    }
+
+    /**
+     * Gets the catalog job the task was created from.
+     *
+     * @return The service type, or null for a free-text task.
+     */
+    public ServiceType getServiceType() {
+        return serviceType;
     }
 
     /**
@@ -43,6 +143,34 @@ public class Task {
         return vehicleDetails;
     }
 
+    /**
+     * Points the task at another vehicle, e.g. when the customer it was
+     * created for turns out to be a duplicate of another one.
+     *
+     * @param vehicleDetails The new vehicle details.
+     */
+    public void setVehicleDetails(String vehicleDetails) {
+        this.vehicleDetails = vehicleDetails;
+    }
+
+    /**
+     * Gets where a mobile or roadside job is to be done.
+     *
+     * @return The job location, or null if the work is done in the shop.
+     */
+    public GeoPoint getLocation() {
+        return location;
+    }
+
+    /**
+     * Makes the task a mobile job done at the given location.
+     *
+     * @param location The job location, or null for work in the shop.
+     */
+    public void setLocation(GeoPoint location) {
+        this.location = location;
+    }
+
     /**
      * Gets the priority level of the task.
      *
@@ -61,11 +189,106 @@ public class Task {
         return status;
     }
 
+    /**
+     * Gets the time the task was assigned to a mechanic.
+     *
+     * @return The assignment time, or null if the task was never assigned.
+     */
+    public Instant getAssignedAt() {
+        return assignedAt;
+    }
+
+    /**
+     * Gets the time the task was completed.
+     *
+     * @return The completion time, or null if the task is not completed.
+     */
+    public Instant getCompletedAt() {
+        return completedAt;
+    }
+
+    /**
+     * Records the time the task was assigned to a mechanic.
+     */
+    public void markAsAssigned() {
+        this.assignedAt = Instant.now();
+    }
+
     /**
      * Marks the task as completed by updating its status to "Completed".
+     *
+     * @return True if this call completed the task, false if it was already
+     *         completed.
      */
-    public void markAsCompleted() {
+    public synchronized boolean markAsCompleted() {
+        boolean first = !"Completed".equals(status);
         this.status = "Completed";
+        if (completedAt == null) {
+            completedAt = Instant.now();
+        }
+        return first;
+    }
+
+    /**
+     * Adds a labour or part line to bill for the task.
+     *
+     * @param item The line item.
+     */
+    public synchronized void addLineItem(LineItem item) {
+        LineItem[] current = lineItems;
+        LineItem[] updated = Arrays.copyOf(current, current.length + 1);
+        updated[current.length] = item;
+        lineItems = updated;
+    }
+
+    /**
+     * Gets the labour and part lines billed for the task.
+     *
+     * @return The line items in the order they were added.
+     */
+    public List<LineItem> getLineItems() {
+        return List.of(lineItems);
+    }
+
+    /**
+     * Gets the price of all line items of the task, before tax.
+     *
+     * @return The total in cents.
+     */
+    public long getTotalCents() {
+        long total = 0;
+        for (LineItem item : lineItems) {
+            total += item.getAmountCents();
+        }
+        return total;
+    }
+
+    /**
+     * Gets the handle of the off-heap record the task is queued in.
+     *
+     * @return The record handle, or -1 if the task is not backed by a record.
+     */
+    long getStoreHandle() {
+        return storeHandle;
+    }
+
+    /**
+     * Links the task to the off-heap record it is queued in.
+     *
+     * @param storeHandle The record handle.
+     */
+    void setStoreHandle(long storeHandle) {
+        this.storeHandle = storeHandle;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof Task && ((Task) other).id == id;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(id);
     }
 
     /**
@@ -76,7 +299,7 @@ public class Task {
     @Override
     public String toString() {
         return "Task{" +
-                "description='" + description + '\'' +
+                "description='" + getDescription() + '\'' +
                 ", vehicleDetails='" + vehicleDetails + '\'' +
                 ", priority=" + priority +
                 ", status='" + status + '\'' +
@@ -0,0 +1,182 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serves the TaskFeed to shop-floor boards as server-sent events on
+ * {@code GET /events}. Each update is one event whose id is the update's
+ * sequence number, whose name is the kind of change and whose data is the
+ * update as JSON.
+ *
+ * Every connection subscribes to the feed and requests the next update only
+ * after the previous one was written, so a board on a slow network holds
+ * back its own subscription and receives each task's latest state once it
+ * catches up; other boards are not affected.
+ */
+public class TaskBoardServer implements AutoCloseable {
+
+    // Boards that may be connected at the same time
+    private static final int MAX_CLIENTS = 32;
+
+    // Idle time after which a comment line is sent, so proxies keep the connection open
+    private static final long KEEP_ALIVE_MILLIS = 15_000;
+
+    // Delay before a disconnected board reconnects, in milliseconds
+    private static final int RETRY_MILLIS = 2_000;
+
+    // Marks the end of the feed in a connection's queue
+    private static final Object END = new Object();
+
+    private final TaskFeed feed; // Source of the updates
+    private final HttpServer server; // Accepts the board connections
+    private final ExecutorService connections; // One thread per open connection
+    private final Semaphore clientSlots = new Semaphore(MAX_CLIENTS); // Free connection slots
+
+    /**
+     * Constructs a server. It accepts connections once started.
+     *
+     * @param feed The feed to serve.
+     * @param port The port to listen on; 0 picks a free port.
+     * @throws IOException If the port cannot be opened.
+     */
+    public TaskBoardServer(TaskFeed feed, int port) throws IOException {
+        this.feed = feed;
+        this.server = HttpServer.create(new InetSocketAddress(port), 0);
+        this.connections = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "task-board");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(connections);
+        server.createContext("/events", this::streamEvents);
+    }
+
+    /**
+     * Starts accepting board connections.
+     */
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Gets the port the server listens on.
+     *
+     * @return The port.
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Stops the server and drops every open connection.
+     */
+    @Override
+    public void close() {
+        server.stop(0);
+        connections.shutdownNow();
+    }
+
+    /**
+     * Streams feed updates to one board until it disconnects or the feed is
+     * closed.
+     *
+     * @param exchange The board's request.
+     * @throws IOException If the response cannot be started.
+     */
+    private void streamEvents(HttpExchange exchange) throws IOException {
+        if (!"GET".equals(exchange.getRequestMethod())) {
+            exchange.sendResponseHeaders(405, -1);
+            exchange.close();
+            return;
+        }
+        if (!clientSlots.tryAcquire()) {
+            exchange.sendResponseHeaders(503, -1);
+            exchange.close();
+            return;
+        }
+        BoardSubscriber board = new BoardSubscriber();
+        try {
+            exchange.getResponseHeaders().set("Content-Type", "text/event-stream; charset=utf-8");
+            exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+            exchange.sendResponseHeaders(200, 0);
+            feed.subscribe(board);
+            OutputStream body = exchange.getResponseBody();
+            Writer out = new OutputStreamWriter(body, StandardCharsets.UTF_8);
+            out.write("retry: " + RETRY_MILLIS + "\n\n");
+            out.flush();
+            while (true) {
+                Object item = board.items.poll(KEEP_ALIVE_MILLIS, TimeUnit.MILLISECONDS);
+                if (item == END) {
+                    break;
+                }
+                if (item == null) {
+                    out.write(": keep-alive\n\n");
+                } else {
+                    TaskUpdate update = (TaskUpdate) item;
+                    out.write("id: " + update.getSequence() + "\nevent: " + update.getKind() + "\ndata: "
+                            + update.toJson() + "\n\n");
+                }
+                out.flush();
+                if (item != null) {
+                    board.subscription.request(1);
+                }
+            }
+        } catch (IOException e) {
+            // The board disconnected
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt(); // The server is stopping
+        } finally {
+            board.cancel();
+            clientSlots.release();
+            exchange.close();
+        }
+    }
+
+    /**
+     * Hands updates from the feed to a connection's thread, one at a time.
+     */
+    private static final class BoardSubscriber implements Flow.Subscriber<TaskUpdate> {
+        private final BlockingQueue<Object> items = new LinkedBlockingQueue<>(); // Updates to write, then END
+        private volatile Flow.Subscription subscription; // Subscription to the feed
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(1);
+        }
+
+        @Override
+        public void onNext(TaskUpdate update) {
+            items.add(update);
+        }
+
+        @Override
+        public void onError(Throwable error) {
+            items.add(END);
+        }
+
+        @Override
+        public void onComplete() {
+            items.add(END);
+        }
+
+        private void cancel() {
+            if (subscription != null) {
+                subscription.cancel();
+            }
+        }
+    }
+}
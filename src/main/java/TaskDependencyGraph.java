@@ -0,0 +1,222 @@
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Holds back tasks until their prerequisites are done, e.g. diagnostics
+ * before repair or parts arrival before fitting. Dependencies form a
+ * directed acyclic graph; an edge that would close a cycle is rejected.
+ *
+ * Every open task keeps a count of unfinished prerequisites. A task is
+ * released into the TaskQueue once the count reaches zero, so the queue
+ * only ever holds work that can start. Register the graph with TaskEvents:
+ * each completion then decrements the counts of the completed task's
+ * dependents, which is O(out-degree). Completed tasks leave the graph.
+ *
+ * Prerequisites need not have been added through the graph; any task whose
+ * completion is reported through TaskEvents will do. Given a
+ * TaskRepository, the graph stores every dependency it adds, so
+ * Repositories.loadInto can hold blocked tasks back again after a restart.
+ * The graph is safe to use from several threads.
+ */
+public class TaskDependencyGraph implements TaskLifecycleListener {
+    private final TaskQueue taskQueue; // Queue ready tasks are released into
+    private final Map<Task, Node> nodes; // Open tasks with dependencies, by task
+    private TaskRepository taskRepository; // Stores dependencies as they are added, or null
+
+    /**
+     * Constructs an empty graph that releases ready tasks into the given
+     * queue.
+     *
+     * @param taskQueue The queue of tasks that can start.
+     */
+    public TaskDependencyGraph(TaskQueue taskQueue) {
+        this.taskQueue = taskQueue;
+        this.nodes = new HashMap<>();
+    }
+
+    /**
+     * Stores every dependency added from now on in the given repository.
+     *
+     * @param taskRepository The task repository.
+     */
+    public synchronized void setTaskRepository(TaskRepository taskRepository) {
+        this.taskRepository = taskRepository;
+    }
+
+    /**
+     * Adds a new task. It goes straight into the queue if all prerequisites
+     * are already completed, and waits in the graph otherwise.
+     *
+     * @param task          The new task.
+     * @param prerequisites The tasks that must be completed first.
+     * @throws IllegalArgumentException If the task is already in the graph or
+     *                                  depends on itself.
+     */
+    public synchronized void addTask(Task task, Collection<Task> prerequisites) {
+        if (nodes.containsKey(task)) {
+            throw new IllegalArgumentException("Task is already in the dependency graph.");
+        }
+        for (Task prerequisite : prerequisites) {
+            if (prerequisite.equals(task)) {
+                throw new IllegalArgumentException("A task cannot depend on itself.");
+            }
+        }
+        // A new task has no dependents yet, so none of its edges can close a cycle
+        Node node = new Node(task);
+        nodes.put(task, node);
+        for (Task prerequisite : prerequisites) {
+            link(prerequisite, node);
+        }
+        if (node.waitingOn == 0) {
+            release(node);
+        }
+    }
+
+    /**
+     * Makes a task that has not been handed out yet wait for another task.
+     * A task that is already in the queue is taken out again until the
+     * prerequisite is completed.
+     *
+     * @param task         The waiting or queued task.
+     * @param prerequisite The task that must be completed first.
+     * @throws IllegalArgumentException If the dependency would create a cycle.
+     * @throws IllegalStateException    If the task has already been handed out.
+     */
+    public synchronized void addDependency(Task task, Task prerequisite) {
+        Node node = nodes.get(task);
+        if (prerequisite.equals(task) || (node != null && reaches(node, prerequisite))) {
+            throw new IllegalArgumentException("Dependency would create a cycle.");
+        }
+        if (node == null || node.released) {
+            if (!taskQueue.removeTask(task)) {
+                throw new IllegalStateException("Task has already been handed out.");
+            }
+            if (node == null) {
+                node = new Node(task);
+                nodes.put(task, node);
+            }
+            node.released = false;
+        }
+        link(prerequisite, node);
+        if (node.waitingOn == 0) {
+            release(node);
+        }
+    }
+
+    @Override
+    public synchronized void taskCompleted(Task task, Mechanic mechanic) {
+        Node node = nodes.remove(task);
+        if (node == null) {
+            return;
+        }
+        for (Node dependent : node.dependents) {
+            if (--dependent.waitingOn == 0) {
+                release(dependent);
+            }
+        }
+    }
+
+    /**
+     * Checks whether a task is waiting for prerequisites.
+     *
+     * @param task The task.
+     * @return True if the task is held back by the graph.
+     */
+    public synchronized boolean isBlocked(Task task) {
+        Node node = nodes.get(task);
+        return node != null && !node.released;
+    }
+
+    /**
+     * Gets the number of unfinished prerequisites of a task.
+     *
+     * @param task The task.
+     * @return The number of prerequisites still open, 0 for unknown tasks.
+     */
+    public synchronized int openPrerequisites(Task task) {
+        Node node = nodes.get(task);
+        return node == null ? 0 : node.waitingOn;
+    }
+
+    /**
+     * Gets the tasks held back by the graph.
+     *
+     * @return The blocked tasks, in no particular order.
+     */
+    public synchronized List<Task> getBlockedTasks() {
+        List<Task> blocked = new ArrayList<>();
+        for (Node node : nodes.values()) {
+            if (!node.released) {
+                blocked.add(node.task);
+            }
+        }
+        return blocked;
+    }
+
+    // Adds the edge prerequisite -> dependent unless the prerequisite is done or the edge exists
+    private void link(Task prerequisite, Node dependent) {
+        if ("Completed".equals(prerequisite.getStatus())) {
+            return;
+        }
+        Node node = nodes.computeIfAbsent(prerequisite, task -> {
+            Node outside = new Node(task);
+            outside.released = true; // Not held back by the graph; it is queued or handed out already
+            return outside;
+        });
+        if (node.dependents.contains(dependent)) {
+            return;
+        }
+        node.dependents.add(dependent);
+        dependent.waitingOn++;
+        if (taskRepository != null) {
+            taskRepository.saveDependency(dependent.task, prerequisite);
+        }
+    }
+
+    // Whether target can be reached from start by following dependents
+    private boolean reaches(Node start, Task target) {
+        Set<Node> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        Deque<Node> pending = new ArrayDeque<>();
+        pending.push(start);
+        while (!pending.isEmpty()) {
+            Node node = pending.pop();
+            if (node.task.equals(target)) {
+                return true;
+            }
+            for (Node dependent : node.dependents) {
+                if (seen.add(dependent)) {
+                    pending.push(dependent);
+                }
+            }
+        }
+        return false;
+    }
+
+    private void release(Node node) {
+        node.released = true;
+        taskQueue.addTask(node.task);
+    }
+
+    /**
+     * An open task, its dependents and its count of unfinished
+     * prerequisites.
+     */
+    private static final class Node {
+        private final Task task;
+        private final List<Node> dependents = new ArrayList<>();
+        private int waitingOn;
+        private boolean released;
+
+        private Node(Task task) {
+            this.task = task;
+        }
+    }
+}
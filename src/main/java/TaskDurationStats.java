@@ -0,0 +1,106 @@
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Collects how long tasks take from assignment to completion, per service
+ * type and per mechanic. Each group is summarized in a DurationSketch, so
+ * memory stays constant however many tasks are completed, and every new
+ * completion updates the statistics incrementally.
+ *
+ * The service type of a task is its description, ignoring case and
+ * surrounding spaces. Tasks created from the service catalog are counted
+ * under their job's standard description, even when it was overridden.
+ * Register the statistics with TaskEvents to record every completed task.
+ */
+public class TaskDurationStats implements TaskLifecycleListener {
+    private final Map<String, DurationSketch> byServiceType; // Durations per service type
+    private final Map<Integer, DurationSketch> byMechanic; // Durations per mechanic ID
+    private final DurationSketch overall; // Durations of all tasks
+
+    /**
+     * Constructs empty statistics.
+     */
+    public TaskDurationStats() {
+        this.byServiceType = new ConcurrentHashMap<>();
+        this.byMechanic = new ConcurrentHashMap<>();
+        this.overall = new DurationSketch();
+    }
+
+    /**
+     * Records a completed task using its assignment and completion times.
+     * Tasks without both times are ignored.
+     *
+     * @param task     The completed task.
+     * @param mechanic The mechanic who completed it.
+     */
+    public void recordCompletion(Task task, Mechanic mechanic) {
+        if (task.getAssignedAt() == null || task.getCompletedAt() == null) {
+            return;
+        }
+        record(serviceTypeOf(task), mechanic.getId(), Duration.between(task.getAssignedAt(), task.getCompletedAt()));
+    }
+
+    @Override
+    public void taskCompleted(Task task, Mechanic mechanic) {
+        recordCompletion(task, mechanic);
+    }
+
+    /**
+     * Records one task duration.
+     *
+     * @param serviceType The service type of the task.
+     * @param mechanicId  The ID of the mechanic who did the work.
+     * @param duration    How long the task took.
+     */
+    public void record(String serviceType, int mechanicId, Duration duration) {
+        double seconds = duration.toMillis() / 1000.0;
+        byServiceType.computeIfAbsent(serviceType, type -> new DurationSketch()).record(seconds);
+        byMechanic.computeIfAbsent(mechanicId, id -> new DurationSketch()).record(seconds);
+        overall.record(seconds);
+    }
+
+    /**
+     * Gets the sketch of a service type.
+     *
+     * @param serviceType The service type.
+     * @return The sketch, or null if no task of that type was recorded.
+     */
+    public DurationSketch forServiceType(String serviceType) {
+        return byServiceType.get(serviceType);
+    }
+
+    /**
+     * Gets the sketch of a mechanic.
+     *
+     * @param mechanicId The mechanic ID.
+     * @return The sketch, or null if the mechanic completed no recorded task.
+     */
+    public DurationSketch forMechanic(int mechanicId) {
+        return byMechanic.get(mechanicId);
+    }
+
+    /**
+     * Gets the sketch of all recorded tasks.
+     *
+     * @return The overall sketch.
+     */
+    public DurationSketch overall() {
+        return overall;
+    }
+
+    /**
+     * Gets the service type a task is counted under.
+     *
+     * @param task The task.
+     * @return The precomputed key of the task's catalog job, or else the
+     *         normalized task description.
+     */
+    public static String serviceTypeOf(Task task) {
+        if (task.getServiceType() != null) {
+            return task.getServiceType().getStatsKey();
+        }
+        return task.getDescription() == null ? "" : task.getDescription().trim().toLowerCase(Locale.ROOT);
+    }
+}
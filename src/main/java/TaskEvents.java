@@ -0,0 +1,57 @@
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Passes task lifecycle events on to every registered listener.
+ * The modules report events here, so features such as throughput counters
+ * or duration statistics can subscribe without the modules knowing them.
+ */
+public class TaskEvents implements TaskLifecycleListener {
+    private final List<TaskLifecycleListener> listeners; // Registered listeners, in registration order
+
+    /**
+     * Constructs an event dispatcher without listeners.
+     */
+    public TaskEvents() {
+        this.listeners = new CopyOnWriteArrayList<>();
+    }
+
+    /**
+     * Registers a listener.
+     *
+     * @param listener The listener to add.
+     */
+    public void addListener(TaskLifecycleListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Unregisters a listener.
+     *
+     * @param listener The listener to remove.
+     */
+    public void removeListener(TaskLifecycleListener listener) {
+        listeners.remove(listener);
+    }
+
+    @Override
+    public void taskCreated(Task task) {
+        for (TaskLifecycleListener listener : listeners) {
+            listener.taskCreated(task);
+        }
+    }
+
+    @Override
+    public void taskAssigned(Task task, Mechanic mechanic) {
+        for (TaskLifecycleListener listener : listeners) {
+            listener.taskAssigned(task, mechanic);
+        }
+    }
+
+    @Override
+    public void taskCompleted(Task task, Mechanic mechanic) {
+        for (TaskLifecycleListener listener : listeners) {
+            listener.taskCompleted(task, mechanic);
+        }
+    }
+}
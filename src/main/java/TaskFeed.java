@@ -0,0 +1,278 @@
+import java.time.Clock;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Publishes task lifecycle changes to live subscribers such as shop-floor
+ * boards, so they do not have to poll the full task listings. Register the
+ * feed with TaskEvents; every created, assigned and completed task becomes
+ * a TaskUpdate.
+ *
+ * Subscribers get updates only as fast as they request them. Updates a
+ * subscriber has not taken yet are coalesced per task: a newer update of a
+ * task replaces its pending one, so a slow subscriber gets each task's
+ * latest state and its backlog never grows beyond one update per task. A
+ * new subscriber first receives the latest update of every open task.
+ * Updates are delivered on the feed's executor, one at a time and in
+ * sequence order per subscriber.
+ */
+public class TaskFeed implements TaskLifecycleListener, Flow.Publisher<TaskUpdate>, AutoCloseable {
+    private final Executor executor; // Runs deliveries to subscribers
+    private final Clock clock; // Source of update times
+    private final List<FeedSubscription> subscriptions = new CopyOnWriteArrayList<>(); // Active subscriptions
+    private final Map<Task, TaskUpdate> open = new LinkedHashMap<>(); // Latest update of each open task
+    private final LongAdder coalesced = new LongAdder(); // Pending updates replaced by newer ones
+    private long sequence; // Sequence number of the last update
+    private boolean closed; // True once close() was called
+
+    /**
+     * Constructs a feed delivering on the common fork-join pool.
+     */
+    public TaskFeed() {
+        this(ForkJoinPool.commonPool(), Clock.systemUTC());
+    }
+
+    /**
+     * Constructs a feed.
+     *
+     * @param executor Runs deliveries to subscribers.
+     * @param clock    Source of update times.
+     */
+    public TaskFeed(Executor executor, Clock clock) {
+        this.executor = executor;
+        this.clock = clock;
+    }
+
+    @Override
+    public void taskCreated(Task task) {
+        publish(TaskUpdate.Kind.QUEUED, task, null);
+    }
+
+    @Override
+    public void taskAssigned(Task task, Mechanic mechanic) {
+        publish(TaskUpdate.Kind.ASSIGNED, task, mechanic);
+    }
+
+    @Override
+    public void taskCompleted(Task task, Mechanic mechanic) {
+        publish(TaskUpdate.Kind.COMPLETED, task, mechanic);
+    }
+
+    /**
+     * Adds a subscriber. It first receives the latest update of every open
+     * task, oldest first, then every later change as requested. Subscribing
+     * to a closed feed completes the subscriber at once.
+     *
+     * @param subscriber The subscriber.
+     */
+    @Override
+    public void subscribe(Flow.Subscriber<? super TaskUpdate> subscriber) {
+        FeedSubscription subscription = new FeedSubscription(subscriber);
+        boolean wasClosed;
+        synchronized (this) {
+            wasClosed = closed;
+            if (!wasClosed) {
+                for (TaskUpdate update : open.values()) {
+                    subscription.enqueue(update);
+                }
+                subscriptions.add(subscription);
+            }
+        }
+        subscriber.onSubscribe(subscription);
+        if (wasClosed) {
+            subscription.cancelled = true;
+            subscriber.onComplete();
+        }
+    }
+
+    /**
+     * Completes every subscriber once it has taken its pending updates.
+     * Later task changes are no longer published.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        }
+        for (FeedSubscription subscription : subscriptions) {
+            subscription.complete();
+        }
+    }
+
+    /**
+     * Gets the number of active subscribers.
+     *
+     * @return The subscriber count.
+     */
+    public int subscriberCount() {
+        return subscriptions.size();
+    }
+
+    /**
+     * Gets how many pending updates were replaced by a newer update of the
+     * same task before their subscriber took them, over all subscribers.
+     *
+     * @return The number of coalesced updates.
+     */
+    public long coalescedCount() {
+        return coalesced.sum();
+    }
+
+    /**
+     * Publishes one task change to every subscriber.
+     *
+     * @param kind     What happened to the task.
+     * @param task     The task.
+     * @param mechanic The mechanic working on it, or null.
+     */
+    private void publish(TaskUpdate.Kind kind, Task task, Mechanic mechanic) {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            TaskUpdate update = new TaskUpdate(++sequence, kind, task, mechanic, clock.instant());
+            open.remove(task); // Keep open tasks in order of their latest change
+            if (kind != TaskUpdate.Kind.COMPLETED) {
+                open.put(task, update);
+            }
+            for (FeedSubscription subscription : subscriptions) {
+                subscription.enqueue(update);
+            }
+        }
+        // Deliver outside the feed lock, so subscribers never run while holding it
+        for (FeedSubscription subscription : subscriptions) {
+            subscription.schedule();
+        }
+    }
+
+    /**
+     * The link between the feed and one subscriber. Holds the subscriber's
+     * pending updates, at most one per task, and its outstanding demand.
+     */
+    private final class FeedSubscription implements Flow.Subscription {
+        private final Flow.Subscriber<? super TaskUpdate> subscriber; // Receives the updates
+        private final Map<Task, TaskUpdate> pending = new LinkedHashMap<>(); // Updates not yet delivered, by task
+        private final AtomicInteger scheduled = new AtomicInteger(); // Delivery requests not yet handled
+        private long demand; // Updates requested but not yet delivered
+        private boolean completing; // True once the feed was closed
+        private IllegalArgumentException invalidRequest; // Error to signal for a non-positive request, or null
+        private volatile boolean cancelled; // True once no more signals may be sent
+
+        private FeedSubscription(Flow.Subscriber<? super TaskUpdate> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            synchronized (this) {
+                if (n <= 0) {
+                    invalidRequest = new IllegalArgumentException("Requested " + n + " updates; must be positive.");
+                } else {
+                    demand = demand + n < 0 ? Long.MAX_VALUE : demand + n;
+                }
+            }
+            schedule();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            subscriptions.remove(this);
+            synchronized (this) {
+                pending.clear();
+            }
+        }
+
+        /**
+         * Adds an update, replacing a pending update of the same task.
+         * Newer updates go last, so pending updates stay in sequence order.
+         *
+         * @param update The update.
+         */
+        private synchronized void enqueue(TaskUpdate update) {
+            if (cancelled) {
+                return;
+            }
+            if (pending.remove(update.getTask()) != null) {
+                coalesced.increment();
+            }
+            pending.put(update.getTask(), update);
+        }
+
+        /**
+         * Completes the subscriber once its pending updates are taken.
+         */
+        private void complete() {
+            synchronized (this) {
+                completing = true;
+            }
+            schedule();
+        }
+
+        /**
+         * Makes sure a delivery run follows, unless one is already going on,
+         * which then loops once more.
+         */
+        private void schedule() {
+            if (!cancelled && scheduled.getAndIncrement() == 0) {
+                executor.execute(this::deliver);
+            }
+        }
+
+        /**
+         * Hands pending updates to the subscriber while it has demand. Only
+         * one run is active per subscription at a time.
+         */
+        private void deliver() {
+            int missed = 1;
+            do {
+                while (!cancelled) {
+                    TaskUpdate next = null;
+                    IllegalArgumentException error;
+                    boolean done;
+                    synchronized (this) {
+                        error = invalidRequest;
+                        if (error == null && demand > 0 && !pending.isEmpty()) {
+                            Iterator<TaskUpdate> oldest = pending.values().iterator();
+                            next = oldest.next();
+                            oldest.remove();
+                            demand--;
+                        }
+                        done = completing && pending.isEmpty();
+                    }
+                    if (error != null) {
+                        cancel();
+                        subscriber.onError(error);
+                        return;
+                    }
+                    if (next != null) {
+                        try {
+                            subscriber.onNext(next);
+                        } catch (RuntimeException e) {
+                            cancel(); // A failing subscriber gets nothing more
+                            return;
+                        }
+                    } else if (done) {
+                        cancel();
+                        subscriber.onComplete();
+                        return;
+                    } else {
+                        break;
+                    }
+                }
+                missed = scheduled.addAndGet(-missed);
+            } while (missed != 0);
+        }
+    }
+}
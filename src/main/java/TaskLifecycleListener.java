@@ -0,0 +1,33 @@
+/**
+ * Receives task lifecycle events: a task is created and queued, assigned to
+ * a mechanic, or completed. All methods do nothing by default, so listeners
+ * only override the events they care about.
+ */
+public interface TaskLifecycleListener {
+
+    /**
+     * Called after a task has been created and added to the queue.
+     *
+     * @param task The new task.
+     */
+    default void taskCreated(Task task) {
+    }
+
+    /**
+     * Called after a task has been taken from the queue and assigned.
+     *
+     * @param task     The assigned task.
+     * @param mechanic The mechanic the task was assigned to.
+     */
+    default void taskAssigned(Task task, Mechanic mechanic) {
+    }
+
+    /**
+     * Called after a task has been marked as completed.
+     *
+     * @param task     The completed task.
+     * @param mechanic The mechanic who completed it.
+     */
+    default void taskCompleted(Task task, Mechanic mechanic) {
+    }
+}
@@ -1,37 +1,88 @@
-import java.util.PriorityQueue;
+import java.util.Collection;
 import java.util.List;
-import java.util.ArrayList;
 
 public class TaskQueue {
-    private PriorityQueue<Task> tasks;
+    // Latest published version; readers never lock, writers replace it
+    private volatile TaskQueueSnapshot current;
 
     public TaskQueue() {
         // High-priority tasks are processed first
-        tasks = new PriorityQueue<>((a, b) -> b.getPriority() - a.getPriority());
+        current = new TaskQueueSnapshot(0, PersistentTaskHeap.EMPTY);
     }
 
     // Add a new task to the queue
-    public void addTask(Task task) {
-        tasks.add(task);
+    public synchronized void addTask(Task task) {
+        TaskQueueEvent event = new TaskQueueEvent("addTask");
+        publish(current.heap().insert(task));
+        event.finish(this, 1);
+    }
+
+    // Add several tasks at once; readers see them appear together in one new version
+    public synchronized void addTasks(Collection<Task> tasks) {
+        TaskQueueEvent event = new TaskQueueEvent("addTasks");
+        PersistentTaskHeap heap = current.heap();
+        for (Task task : tasks) {
+            heap = heap.insert(task);
+        }
+        publish(heap);
+        event.finish(this, tasks.size());
     }
 
     // Retrieve and remove the highest-priority task
-    public Task getNextTask() {
-        return tasks.poll();
+    public synchronized Task getNextTask() {
+        TaskQueueEvent event = new TaskQueueEvent("getNextTask");
+        PersistentTaskHeap heap = current.heap();
+        Task next = heap.peek();
+        if (next != null) {
+            publish(heap.pop());
+        }
+        event.finish(this, next == null ? 0 : 1);
+        return next;
+    }
+
+    // Retrieve and remove the next task for a mechanic; central dispatch hands out the highest-priority task
+    public Task nextTaskFor(Mechanic mechanic) {
+        return getNextTask();
     }
 
     // Check if the queue is empty
     public boolean isEmpty() {
-        return tasks.isEmpty();
+        return current.isEmpty();
+    }
+
+    // Get the number of pending tasks
+    public int size() {
+        return current.size();
     }
 
-    // Remove a specific task from the queue
-    public void removeTask(Task task) {
-        tasks.remove(task);
+    // Remove a specific task from the queue; returns false if it was not queued
+    public synchronized boolean removeTask(Task task) {
+        TaskQueueEvent event = new TaskQueueEvent("removeTask");
+        PersistentTaskHeap heap = current.heap();
+        PersistentTaskHeap updated = heap.remove(task);
+        if (updated != heap) {
+            publish(updated);
+        }
+        event.finish(this, updated == heap ? 0 : 1);
+        return updated != heap;
     }
 
-    // Retrieve all tasks as a list (for display purposes)
+    // Keep changes made to a queued task's vehicle or location; this queue holds the task itself, so it sees them
+    public void updateTask(Task task) {
+    }
+
+    // Retrieve all tasks as a list, highest priority first (for display purposes)
     public List<Task> getTasksAsList() {
-        return new ArrayList<>(tasks); // Convert the priority queue to a list
+        return current.asList();
+    }
+
+    // Get an immutable view of the queue in O(1) without blocking writers
+    public TaskQueueSnapshot snapshot() {
+        return current;
+    }
+
+    // Make a new heap version visible to readers; callers hold the lock
+    private void publish(PersistentTaskHeap heap) {
+        current = new TaskQueueSnapshot(current.getVersion() + 1, heap);
     }
 }
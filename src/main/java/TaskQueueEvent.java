@@ -0,0 +1,68 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event for one change of a task queue: adding, taking or
+ * removing tasks. Records the queue implementation, how many tasks the
+ * change moved and the queue size afterwards.
+ *
+ * Disabled by default; start the application with {@code --record=<file>}
+ * or enable {@value #NAME} in a recording's settings.
+ */
+@Name(TaskQueueEvent.NAME)
+@Label("Task Queue Mutation")
+@Category({ "Garage", "Task Queue" })
+@Description("Tasks added to or taken from a task queue")
+@Enabled(false)
+@StackTrace(false)
+public class TaskQueueEvent extends Event {
+
+    // Name the event is recorded under
+    public static final String NAME = "garage.TaskQueueMutation";
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Queue")
+    @Description("Task queue implementation")
+    Class<?> queue;
+
+    @Label("Tasks")
+    @Description("Tasks added or removed by the change")
+    int tasks;
+
+    @Label("Queue Size")
+    @Description("Tasks in the queue after the change")
+    int queueSize;
+
+    /**
+     * Constructs and begins an event.
+     *
+     * @param operation Name of the queue method.
+     */
+    public TaskQueueEvent(String operation) {
+        this.operation = operation;
+        begin();
+    }
+
+    /**
+     * Ends the event and commits it if it is enabled.
+     *
+     * @param taskQueue The queue that changed.
+     * @param tasks     Tasks added or removed.
+     */
+    public void finish(TaskQueue taskQueue, int tasks) {
+        end();
+        if (shouldCommit()) {
+            this.queue = taskQueue.getClass();
+            this.tasks = tasks;
+            this.queueSize = taskQueue.size();
+            commit();
+        }
+    }
+}
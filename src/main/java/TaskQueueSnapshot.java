@@ -0,0 +1,105 @@
+import java.util.List;
+import java.util.Spliterator;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * An immutable, consistent view of a TaskQueue at one point in time.
+ * Taking a snapshot costs O(1); later changes to the queue never show up in
+ * an existing snapshot. A snapshot that is no longer referenced is simply
+ * garbage collected together with any heap nodes only it was using.
+ */
+public final class TaskQueueSnapshot {
+    private final long version; // Queue version this snapshot was taken at
+    private final PersistentTaskHeap heap; // Tasks as they were at that version
+    private volatile List<Task> sortedTasks; // Lazily built priority-ordered list
+
+    /**
+     * Constructs a snapshot of the given heap version.
+     *
+     * @param version The queue version the heap belongs to.
+     * @param heap    The immutable heap holding the tasks.
+     */
+    TaskQueueSnapshot(long version, PersistentTaskHeap heap) {
+        this.version = version;
+        this.heap = heap;
+    }
+
+    /**
+     * Gets the queue version this snapshot was taken at. Each change to the
+     * queue increases the version by one.
+     *
+     * @return The snapshot version.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Gets the number of tasks in the snapshot.
+     *
+     * @return The number of tasks.
+     */
+    public int size() {
+        return heap.size();
+    }
+
+    /**
+     * Checks if the snapshot holds no tasks.
+     *
+     * @return True if the snapshot is empty, false otherwise.
+     */
+    public boolean isEmpty() {
+        return heap.isEmpty();
+    }
+
+    /**
+     * Gets the highest-priority task in the snapshot.
+     *
+     * @return The highest-priority task, or null if the snapshot is empty.
+     */
+    public Task peek() {
+        return heap.peek();
+    }
+
+    /**
+     * Lists the tasks from highest to lowest priority. The list is built on
+     * first use and then shared by every caller of this snapshot.
+     *
+     * @return An unmodifiable list of the tasks in priority order.
+     */
+    public List<Task> asList() {
+        List<Task> tasks = sortedTasks;
+        if (tasks == null) {
+            tasks = heap.toSortedList();
+            sortedTasks = tasks;
+        }
+        return tasks;
+    }
+
+    /**
+     * Gets a parallel-friendly stream over the tasks in no particular order.
+     * Unlike asList it does not sort, and it splits by subtree, so
+     * aggregations can fan out over the snapshot without copying it.
+     *
+     * @param parallel Whether the stream should be parallel.
+     * @return A stream of the snapshot's tasks.
+     */
+    public Stream<Task> stream(boolean parallel) {
+        return StreamSupport.stream(spliterator(), parallel);
+    }
+
+    /**
+     * Gets a spliterator over the tasks in no particular order.
+     *
+     * @return A spliterator over the snapshot's tasks.
+     */
+    public Spliterator<Task> spliterator() {
+        return heap.spliterator();
+    }
+
+    // Heap backing this snapshot, used by the queue to apply the next change
+    PersistentTaskHeap heap() {
+        return heap;
+    }
+}
@@ -0,0 +1,108 @@
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Stores tasks together with the mechanic they are assigned to. A
+ * repository tells tasks apart by their task ID.
+ *
+ * Registered with TaskEvents, a repository stores every task as it is
+ * created, assigned and completed. Given to a TaskDependencyGraph, it also
+ * stores which tasks wait for which, so that blocked tasks can be held back
+ * again after a restart; given to an InvoiceLedger, it stores which
+ * completed tasks have not been invoiced yet.
+ */
+public interface TaskRepository extends TaskLifecycleListener {
+
+    /**
+     * Stores a new task or the current state of a known one.
+     *
+     * @param task     The task.
+     * @param mechanic The mechanic the task is assigned to, or null if it is
+     *                 still queued.
+     */
+    void save(Task task, Mechanic mechanic);
+
+    /**
+     * Stores that a task waits for another task to be completed. Storing
+     * the same dependency again has no effect.
+     *
+     * @param task         The waiting task.
+     * @param prerequisite The task that must be completed first.
+     */
+    void saveDependency(Task task, Task prerequisite);
+
+    /**
+     * Gets the tasks that are neither assigned nor completed, including the
+     * ones waiting for prerequisites.
+     *
+     * @return The queued and blocked tasks, oldest first.
+     */
+    List<Task> findPending();
+
+    /**
+     * Gets the prerequisites open tasks are still waiting for.
+     *
+     * @param openTasks Open tasks read from this repository.
+     * @return The prerequisites of each task that has any, by task.
+     *         Only prerequisites among the given tasks are included, so
+     *         completed ones never are.
+     */
+    Map<Task, List<Task>> findOpenPrerequisites(Collection<Task> openTasks);
+
+    /**
+     * Gets the open tasks assigned to a mechanic.
+     *
+     * @param mechanicId The mechanic ID.
+     * @return The tasks assigned to the mechanic and not yet completed, oldest
+     *         first.
+     */
+    List<Task> findAssignedTo(int mechanicId);
+
+    /**
+     * Stores that a completed task waits to be invoiced.
+     *
+     * @param task     The completed task.
+     * @param mechanic The mechanic who completed it.
+     */
+    void saveUnbilled(Task task, Mechanic mechanic);
+
+    /**
+     * Stores that tasks have been invoiced. The change is written before
+     * this method returns, so a restart never bills them again.
+     *
+     * @param tasks The invoiced tasks.
+     */
+    void saveBilled(Collection<Task> tasks);
+
+    /**
+     * Gets the completed tasks still waiting to be invoiced, with their line
+     * items.
+     *
+     * @return The tasks per ID of the mechanic who completed them, oldest
+     *         first.
+     */
+    Map<Integer, List<Task>> findUnbilled();
+
+    /**
+     * Gets the number of stored tasks, completed ones included.
+     *
+     * @return The number of tasks.
+     */
+    int count();
+
+    @Override
+    default void taskCreated(Task task) {
+        save(task, null);
+    }
+
+    @Override
+    default void taskAssigned(Task task, Mechanic mechanic) {
+        save(task, mechanic);
+    }
+
+    @Override
+    default void taskCompleted(Task task, Mechanic mechanic) {
+        save(task, mechanic);
+    }
+}
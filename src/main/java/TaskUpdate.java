@@ -0,0 +1,192 @@
+import java.time.Instant;
+
+/**
+ * One change of a task as published by the TaskFeed: the task was queued,
+ * assigned or completed. Holds the task's state at the time of the change,
+ * so a board can show it without reading the task again.
+ */
+public final class TaskUpdate {
+
+    /**
+     * What happened to the task.
+     */
+    public enum Kind {
+        QUEUED, ASSIGNED, COMPLETED
+    }
+
+    private final long sequence; // Position of the change in the feed, from 1
+    private final Kind kind; // What happened to the task
+    private final Task task; // The task that changed
+    private final long taskId; // ID of the task, stable across its updates
+    private final String description; // Task description at the time of the change
+    private final String vehicleDetails; // Vehicle the task is for
+    private final int priority; // Task priority
+    private final int mechanicId; // Mechanic working on the task, -1 if none
+    private final String mechanicName; // Name of that mechanic, null if none
+    private final Instant time; // When the change happened
+
+    /**
+     * Constructs an update.
+     *
+     * @param sequence Position of the change in the feed.
+     * @param kind     What happened to the task.
+     * @param task     The task that changed.
+     * @param mechanic Mechanic working on the task, or null if none.
+     * @param time     When the change happened.
+     */
+    TaskUpdate(long sequence, Kind kind, Task task, Mechanic mechanic, Instant time) {
+        this.sequence = sequence;
+        this.kind = kind;
+        this.task = task;
+        this.taskId = task.getId();
+        this.description = task.getDescription();
+        this.vehicleDetails = task.getVehicleDetails();
+        this.priority = task.getPriority();
+        this.mechanicId = mechanic == null ? -1 : mechanic.getId();
+        this.mechanicName = mechanic == null ? null : mechanic.getName();
+        this.time = time;
+    }
+
+    /**
+     * Gets the position of the change in the feed.
+     *
+     * @return The sequence number, increasing from 1.
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Gets what happened to the task.
+     *
+     * @return The kind of change.
+     */
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * Gets the task that changed.
+     *
+     * @return The task.
+     */
+    public Task getTask() {
+        return task;
+    }
+
+    /**
+     * Gets the ID of the task, the same for all of its updates.
+     *
+     * @return The task ID.
+     */
+    public long getTaskId() {
+        return taskId;
+    }
+
+    /**
+     * Gets the task description at the time of the change.
+     *
+     * @return The description.
+     */
+    public String getDescription() {
+        return description;
+    }
+
+    /**
+     * Gets the vehicle the task is for.
+     *
+     * @return The vehicle details.
+     */
+    public String getVehicleDetails() {
+        return vehicleDetails;
+    }
+
+    /**
+     * Gets the task priority.
+     *
+     * @return The priority.
+     */
+    public int getPriority() {
+        return priority;
+    }
+
+    /**
+     * Gets the mechanic working on the task.
+     *
+     * @return The mechanic ID, or -1 if none.
+     */
+    public int getMechanicId() {
+        return mechanicId;
+    }
+
+    /**
+     * Gets the name of the mechanic working on the task.
+     *
+     * @return The name, or null if none.
+     */
+    public String getMechanicName() {
+        return mechanicName;
+    }
+
+    /**
+     * Gets when the change happened.
+     *
+     * @return The time of the change.
+     */
+    public Instant getTime() {
+        return time;
+    }
+
+    /**
+     * Formats the update as a JSON object, e.g. for a server-sent event.
+     *
+     * @return The JSON text, on one line.
+     */
+    public String toJson() {
+        StringBuilder json = new StringBuilder(160);
+        json.append("{\"sequence\":").append(sequence)
+                .append(",\"kind\":\"").append(kind).append('"')
+                .append(",\"taskId\":").append(taskId)
+                .append(",\"description\":");
+        appendString(json, description);
+        json.append(",\"vehicle\":");
+        appendString(json, vehicleDetails);
+        json.append(",\"priority\":").append(priority);
+        if (mechanicId >= 0) {
+            json.append(",\"mechanicId\":").append(mechanicId).append(",\"mechanicName\":");
+            appendString(json, mechanicName);
+        }
+        return json.append(",\"time\":\"").append(time).append("\"}").toString();
+    }
+
+    /**
+     * Returns a string representation of the update.
+     *
+     * @return The sequence, kind, task and mechanic.
+     */
+    @Override
+    public String toString() {
+        return "#" + sequence + " " + kind + " task " + taskId + " '" + description + "' (" + vehicleDetails + ")"
+                + (mechanicName == null ? "" : " by " + mechanicName);
+    }
+
+    // Appends a JSON string literal, escaping quotes, backslashes and control characters
+    private static void appendString(StringBuilder json, String text) {
+        if (text == null) {
+            json.append("null");
+            return;
+        }
+        json.append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"' || c == '\\') {
+                json.append('\\').append(c);
+            } else if (c < 0x20) {
+                json.append(String.format("\\u%04x", (int) c));
+            } else {
+                json.append(c);
+            }
+        }
+        json.append('"');
+    }
+}
@@ -0,0 +1,197 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.function.Consumer;
+
+/**
+ * Two-tier customer storage: every customer is kept in an on-disk
+ * CustomerLogFile, and a W-TinyLFU cache keeps the customers that are
+ * looked up often on the heap. Customers who visit once a year are read
+ * from disk when they do and are not allowed to push regulars out of the
+ * cache.
+ *
+ * Writes go through to the log immediately and only refresh customers who
+ * are already cached. Lookups by ID or vehicle number return the cached
+ * object when there is one, so changes made to a returned customer must be
+ * written back with put(). Disk errors are reported as UncheckedIOException.
+ */
+public class TieredCustomerStore implements Closeable {
+    private final CustomerLogFile log; // Every stored customer
+    private final WTinyLfuCache<Integer, Customer> cache; // Frequently used customers
+
+    /**
+     * Opens a store over the given log file, creating it if needed.
+     *
+     * @param file          The customer log file.
+     * @param cacheCapacity The maximum number of customers kept on the heap.
+     * @throws IOException If the log cannot be opened.
+     */
+    public TieredCustomerStore(Path file, int cacheCapacity) throws IOException {
+        this.log = new CustomerLogFile(file);
+        this.cache = new WTinyLfuCache<>(cacheCapacity);
+    }
+
+    /**
+     * Stores the current state of a customer. A customer who is not cached
+     * yet is not cached by this either: archiving many customers at once
+     * must not push out the ones that are looked up.
+     *
+     * @param customer The customer to store.
+     */
+    public void put(Customer customer) {
+        try {
+            log.write(customer);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not store customer " + customer.getId() + ".", e);
+        }
+        cache.replace(customer.getId(), customer);
+    }
+
+    /**
+     * Finds a customer by ID, from the cache if possible.
+     *
+     * @param id The customer ID.
+     * @return The customer, or null if none is stored under that ID.
+     */
+    public Customer findById(int id) {
+        return cache.get(id, this::load);
+    }
+
+    /**
+     * Finds the customer owning a vehicle.
+     *
+     * @param vehicleNumber The vehicle number, ignoring case and surrounding
+     *                      spaces.
+     * @return The customer, or null if no stored customer owns the vehicle.
+     */
+    public Customer findByVehicleNumber(String vehicleNumber) {
+        String wanted = vehicleNumber.trim();
+        for (int id : log.candidatesFor(vehicleNumber)) {
+            Customer customer = findById(id);
+            if (customer != null && customer.getVehicleNumber() != null
+                    && customer.getVehicleNumber().trim().equalsIgnoreCase(wanted)) {
+                return customer;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Checks whether a customer is stored.
+     *
+     * @param id The customer ID.
+     * @return True if the customer is stored.
+     */
+    public boolean contains(int id) {
+        return log.contains(id);
+    }
+
+    /**
+     * Gets the highest stored customer ID.
+     *
+     * @return The highest ID, or -1 if the store is empty.
+     */
+    public int maxId() {
+        return log.maxId();
+    }
+
+    /**
+     * Reads every stored customer from disk, bypassing the cache so that a
+     * full pass does not count as lookups.
+     *
+     * @param action The action to run for each customer.
+     */
+    public void forEach(Consumer<Customer> action) {
+        try {
+            log.forEach(action);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read stored customers.", e);
+        }
+    }
+
+    /**
+     * Gets the number of stored customers.
+     *
+     * @return The number of customers on disk.
+     */
+    public int size() {
+        return log.size();
+    }
+
+    /**
+     * Gets the number of customers held on the heap.
+     *
+     * @return The number of cached customers.
+     */
+    public int cachedCount() {
+        return cache.size();
+    }
+
+    /**
+     * Gets the share of lookups answered from the heap.
+     *
+     * @return The hit rate between 0 and 1.
+     */
+    public double getHitRate() {
+        return cache.getHitRate();
+    }
+
+    /**
+     * Gets the number of lookups answered from the heap.
+     *
+     * @return The hit count.
+     */
+    public long getHits() {
+        return cache.getHits();
+    }
+
+    /**
+     * Gets the number of lookups that went to disk.
+     *
+     * @return The miss count.
+     */
+    public long getMisses() {
+        return cache.getMisses();
+    }
+
+    /**
+     * Gets the distribution of the time taken by lookups that went to disk.
+     *
+     * @return The miss latency sketch, in seconds.
+     */
+    public DurationSketch getMissLatency() {
+        return cache.getMissLatency();
+    }
+
+    /**
+     * Gets the size of the log file including superseded records.
+     *
+     * @return The file size in bytes.
+     */
+    public long fileSize() {
+        return log.fileSize();
+    }
+
+    /**
+     * Rewrites the log without superseded records.
+     *
+     * @throws IOException If the log cannot be rewritten.
+     */
+    public void compact() throws IOException {
+        log.compact();
+    }
+
+    @Override
+    public void close() throws IOException {
+        log.close();
+    }
+
+    private Customer load(int id) {
+        try {
+            return log.read(id);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read customer " + id + ".", e);
+        }
+    }
+}
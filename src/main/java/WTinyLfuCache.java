@@ -0,0 +1,370 @@
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * A bounded cache with W-TinyLFU eviction. New entries enter a small LRU
+ * window (1% of the capacity). When the window overflows, its oldest entry
+ * competes with the next victim of the main area, and only the one that
+ * was used more often recently stays. The main area is a segmented LRU:
+ * entries start on probation and move to the protected segment (80% of the
+ * main area) when used again. Use counts come from a compact count-min
+ * sketch that halves all counts periodically, so old popularity fades.
+ *
+ * This keeps one-off lookups, such as a customer who visits once a year,
+ * from pushing out entries that are used all the time. Hits, misses and the
+ * time spent loading missed values are recorded. The cache is safe to use
+ * from several threads; values are loaded outside the lock.
+ *
+ * @param <K> The key type.
+ * @param <V> The value type.
+ */
+public class WTinyLfuCache<K, V> {
+
+    // Share of the capacity used for the admission window, in percent
+    private static final int WINDOW_PERCENT = 1;
+
+    // Share of the main area used for the protected segment, in percent
+    private static final int PROTECTED_PERCENT = 80;
+
+    private final int windowCapacity; // Maximum entries in the window
+    private final int mainCapacity; // Maximum entries in probation plus protected
+    private final int protectedCapacity; // Maximum entries in the protected segment
+    private final Map<K, Node<K, V>> entries; // Cached entries by key
+    private final Node<K, V> window; // Sentinel of the window list, most recent first
+    private final Node<K, V> probation; // Sentinel of the probation list
+    private final Node<K, V> protectedList; // Sentinel of the protected list
+    private final FrequencySketch sketch; // Recent use counts of all keys seen
+    private final DurationSketch missLatency; // Time spent loading missed values
+    private int windowSize; // Entries in the window
+    private int probationSize; // Entries on probation
+    private int protectedSize; // Entries in the protected segment
+    private long hits; // Lookups answered from the cache
+    private long misses; // Lookups that had to load the value
+    private long evictions; // Entries dropped to make room
+
+    /**
+     * Constructs an empty cache.
+     *
+     * @param capacity The maximum number of entries.
+     */
+    public WTinyLfuCache(int capacity) {
+        if (capacity < 2) {
+            throw new IllegalArgumentException("Capacity must be at least 2.");
+        }
+        this.windowCapacity = Math.max(1, capacity * WINDOW_PERCENT / 100);
+        this.mainCapacity = capacity - windowCapacity;
+        this.protectedCapacity = Math.max(1, mainCapacity * PROTECTED_PERCENT / 100);
+        this.entries = new HashMap<>();
+        this.window = Node.sentinel();
+        this.probation = Node.sentinel();
+        this.protectedList = Node.sentinel();
+        this.sketch = new FrequencySketch(capacity);
+        this.missLatency = new DurationSketch();
+    }
+
+    /**
+     * Gets a value, loading and caching it on a miss.
+     *
+     * @param key    The key.
+     * @param loader Loads the value of a missing key; may return null.
+     * @return The value, or null if the loader found none.
+     */
+    public V get(K key, Function<? super K, ? extends V> loader) {
+        synchronized (this) {
+            sketch.increment(key.hashCode());
+            Node<K, V> node = entries.get(key);
+            if (node != null) {
+                hits++;
+                onHit(node);
+                return node.value;
+            }
+            misses++;
+        }
+        long start = System.nanoTime();
+        V value = loader.apply(key);
+        missLatency.record((System.nanoTime() - start) / 1e9);
+        if (value != null) {
+            synchronized (this) {
+                Node<K, V> raced = entries.get(key);
+                if (raced != null) {
+                    return raced.value; // Loaded by another thread meanwhile
+                }
+                insert(key, value);
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Gets a value only if it is cached. Does not count as a hit or miss.
+     *
+     * @param key The key.
+     * @return The cached value, or null.
+     */
+    public synchronized V getIfPresent(K key) {
+        Node<K, V> node = entries.get(key);
+        return node == null ? null : node.value;
+    }
+
+    /**
+     * Stores a value, replacing any cached value of the key.
+     *
+     * @param key   The key.
+     * @param value The value.
+     */
+    public synchronized void put(K key, V value) {
+        Node<K, V> node = entries.get(key);
+        if (node != null) {
+            node.value = value;
+            onHit(node);
+        } else {
+            insert(key, value);
+        }
+    }
+
+    /**
+     * Replaces the value of a key only if it is cached. Does not count as a
+     * use of the key.
+     *
+     * @param key   The key.
+     * @param value The new value.
+     * @return True if the key was cached.
+     */
+    public synchronized boolean replace(K key, V value) {
+        Node<K, V> node = entries.get(key);
+        if (node == null) {
+            return false;
+        }
+        node.value = value;
+        return true;
+    }
+
+    /**
+     * Drops a key from the cache.
+     *
+     * @param key The key.
+     */
+    public synchronized void invalidate(K key) {
+        Node<K, V> node = entries.remove(key);
+        if (node != null) {
+            unlink(node);
+        }
+    }
+
+    /**
+     * Gets the number of cached entries.
+     *
+     * @return The number of entries.
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Gets the number of lookups answered from the cache.
+     *
+     * @return The hit count.
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * Gets the number of lookups that had to load the value.
+     *
+     * @return The miss count.
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Gets the share of lookups answered from the cache.
+     *
+     * @return The hit rate between 0 and 1, or 0 before the first lookup.
+     */
+    public synchronized double getHitRate() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    /**
+     * Gets the number of entries dropped to make room.
+     *
+     * @return The eviction count.
+     */
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Gets the distribution of the time spent loading missed values.
+     *
+     * @return The miss latency sketch, in seconds.
+     */
+    public DurationSketch getMissLatency() {
+        return missLatency;
+    }
+
+    private void insert(K key, V value) {
+        Node<K, V> node = new Node<>(key, value);
+        entries.put(key, node);
+        node.segment = window;
+        linkFirst(window, node);
+        windowSize++;
+        if (windowSize > windowCapacity) {
+            Node<K, V> candidate = window.prev;
+            unlink(candidate);
+            admit(candidate);
+        }
+    }
+
+    // Moves an entry leaving the window into the main area if it earns its place
+    private void admit(Node<K, V> candidate) {
+        if (probationSize + protectedSize < mainCapacity) {
+            candidate.segment = probation;
+            linkFirst(probation, candidate);
+            probationSize++;
+            return;
+        }
+        Node<K, V> victim = probationSize > 0 ? probation.prev : protectedList.prev;
+        if (sketch.frequency(candidate.key.hashCode()) > sketch.frequency(victim.key.hashCode())) {
+            unlink(victim);
+            entries.remove(victim.key);
+            candidate.segment = probation;
+            linkFirst(probation, candidate);
+            probationSize++;
+        } else {
+            entries.remove(candidate.key);
+        }
+        evictions++;
+    }
+
+    private void onHit(Node<K, V> node) {
+        if (node.segment == probation) {
+            unlink(node);
+            node.segment = protectedList;
+            linkFirst(protectedList, node);
+            protectedSize++;
+            if (protectedSize > protectedCapacity) {
+                Node<K, V> demoted = protectedList.prev;
+                unlink(demoted);
+                demoted.segment = probation;
+                linkFirst(probation, demoted);
+                probationSize++;
+            }
+        } else {
+            Node<K, V> segment = node.segment;
+            unlink(node);
+            node.segment = segment;
+            linkFirst(segment, node);
+            if (segment == window) {
+                windowSize++;
+            } else {
+                protectedSize++;
+            }
+        }
+    }
+
+    private void linkFirst(Node<K, V> sentinel, Node<K, V> node) {
+        node.next = sentinel.next;
+        node.prev = sentinel;
+        sentinel.next.prev = node;
+        sentinel.next = node;
+    }
+
+    // Removes a node from its list and the size of its segment
+    private void unlink(Node<K, V> node) {
+        node.prev.next = node.next;
+        node.next.prev = node.prev;
+        if (node.segment == window) {
+            windowSize--;
+        } else if (node.segment == probation) {
+            probationSize--;
+        } else {
+            protectedSize--;
+        }
+        node.segment = null;
+    }
+
+    /**
+     * A cached entry in one of the circular segment lists.
+     */
+    private static final class Node<K, V> {
+        private final K key;
+        private V value;
+        private Node<K, V> prev;
+        private Node<K, V> next;
+        private Node<K, V> segment; // Sentinel of the list holding this node
+
+        private Node(K key, V value) {
+            this.key = key;
+            this.value = value;
+        }
+
+        private static <K, V> Node<K, V> sentinel() {
+            Node<K, V> sentinel = new Node<>(null, null);
+            sentinel.prev = sentinel;
+            sentinel.next = sentinel;
+            return sentinel;
+        }
+    }
+
+    /**
+     * A count-min sketch of 4-bit counters in four rows. All counters are
+     * halved after ten increments per counter of a row, which ages out old
+     * popularity.
+     */
+    private static final class FrequencySketch {
+        private static final long[] SEEDS = { 0x9E3779B97F4A7C15L, 0xC2B2AE3D27D4EB4FL, 0x165667B19E3779F9L,
+                0xD6E8FEB86659FD93L };
+        private static final long HALF_MASK = 0x7777777777777777L;
+
+        private final long[] table; // Four rows of counters, sixteen per long
+        private final int rowMask; // Counters per row minus one
+        private final int sampleSize; // Increments between halvings
+        private int additions; // Increments since the last halving
+
+        private FrequencySketch(int capacity) {
+            int width = Integer.highestOneBit(Math.max(16, capacity - 1)) << 1;
+            this.table = new long[4 * width / 16];
+            this.rowMask = width - 1;
+            this.sampleSize = 10 * width;
+        }
+
+        private int frequency(int hash) {
+            int frequency = 15;
+            for (int row = 0; row < 4; row++) {
+                int counter = counterIndex(hash, row);
+                frequency = Math.min(frequency, (int) ((table[counter >>> 4] >>> ((counter & 15) << 2)) & 15));
+            }
+            return frequency;
+        }
+
+        private void increment(int hash) {
+            boolean added = false;
+            for (int row = 0; row < 4; row++) {
+                int counter = counterIndex(hash, row);
+                int shift = (counter & 15) << 2;
+                if (((table[counter >>> 4] >>> shift) & 15) < 15) {
+                    table[counter >>> 4] += 1L << shift;
+                    added = true;
+                }
+            }
+            if (added && ++additions >= sampleSize) {
+                for (int i = 0; i < table.length; i++) {
+                    table[i] = (table[i] >>> 1) & HALF_MASK;
+                }
+                additions /= 2;
+            }
+        }
+
+        // Position of the key's counter in a row, counting counters across the table
+        private int counterIndex(int hash, int row) {
+            long mixed = (hash + SEEDS[row]) * SEEDS[row];
+            mixed ^= mixed >>> 32;
+            return row * (rowMask + 1) + (int) (mixed & rowMask);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+import java.time.LocalDateTime;
+
+/**
+ * The predicted start and finish time of a queued task, together with the
+ * mechanic expected to pick it up.
+ */
+public class WaitEstimate {
+    private final Task task; // The queued task
+    private final Mechanic mechanic; // Mechanic expected to work on the task
+    private final LocalDateTime expectedStart; // Predicted start of work
+    private final LocalDateTime expectedFinish; // Predicted completion
+
+    /**
+     * Constructs a WaitEstimate.
+     *
+     * @param task           The queued task.
+     * @param mechanic       The mechanic expected to work on the task.
+     * @param expectedStart  The predicted start of work.
+     * @param expectedFinish The predicted completion.
+     */
+    public WaitEstimate(Task task, Mechanic mechanic, LocalDateTime expectedStart, LocalDateTime expectedFinish) {
+        this.task = task;
+        this.mechanic = mechanic;
+        this.expectedStart = expectedStart;
+        this.expectedFinish = expectedFinish;
+    }
+
+    /**
+     * Gets the queued task.
+     *
+     * @return The task.
+     */
+    public Task getTask() {
+        return task;
+    }
+
+    /**
+     * Gets the mechanic expected to work on the task.
+     *
+     * @return The mechanic.
+     */
+    public Mechanic getMechanic() {
+        return mechanic;
+    }
+
+    /**
+     * Gets the predicted start of work.
+     *
+     * @return The expected start time.
+     */
+    public LocalDateTime getExpectedStart() {
+        return expectedStart;
+    }
+
+    /**
+     * Gets the predicted completion.
+     *
+     * @return The expected finish time.
+     */
+    public LocalDateTime getExpectedFinish() {
+        return expectedFinish;
+    }
+}
@@ -0,0 +1,272 @@
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Spliterators;
+
+/**
+ * Predicts when queued tasks will start and finish.
+ *
+ * Each mechanic first works off their unfinished assigned tasks, one after
+ * the other; queued tasks then go, in priority order, to whichever mechanic
+ * frees up first. Register the estimator with TaskEvents: it keeps each
+ * mechanic's outstanding expected work as a running total, updated as tasks
+ * are assigned and completed, so an estimate never walks a mechanic's task
+ * history. A mechanic is only looked at in full the first time they are seen.
+ * Task lengths come from the median of the TaskDurationStats sketches: the
+ * task's service type if it has been seen, otherwise all tasks, otherwise
+ * one hour. A mechanic with enough history is assumed to work at their
+ * own pace relative to the shop-wide median.
+ */
+public class WaitTimeEstimator implements TaskLifecycleListener {
+
+    // Length assumed for a task when there is no history at all
+    private static final Duration DEFAULT_DURATION = Duration.ofHours(1);
+
+    // Completed tasks needed before a mechanic's own pace is used
+    private static final long MIN_MECHANIC_SAMPLES = 5;
+
+    // Order assumed for the tasks ahead of one: highest priority first, older tasks first among equals
+    private static final Comparator<Task> QUEUE_ORDER = Comparator.comparingInt(Task::getPriority).reversed()
+            .thenComparingLong(Task::getId);
+
+    private final TaskDurationStats stats; // Recorded task durations
+    private final Map<Integer, Workload> workloads; // Outstanding work of each mechanic seen so far, by ID
+    private final Clock clock; // Source of the current time
+    private ServiceCatalog serviceCatalog; // Matches free-text tasks to catalog jobs, or null
+
+    /**
+     * Constructs an estimator using the system clock.
+     *
+     * @param stats The recorded task durations.
+     */
+    public WaitTimeEstimator(TaskDurationStats stats) {
+        this(stats, Clock.systemDefaultZone());
+    }
+
+    /**
+     * Constructs an estimator using the given clock.
+     *
+     * @param stats The recorded task durations.
+     * @param clock The source of the current time.
+     */
+    public WaitTimeEstimator(TaskDurationStats stats, Clock clock) {
+        this.stats = stats;
+        this.clock = clock;
+        this.workloads = new HashMap<>();
+    }
+
+    /**
+     * Sets the catalog used to find the standard labour time of free-text
+     * tasks carrying a catalog description.
+     *
+     * @param serviceCatalog The service catalog.
+     */
+    public void setServiceCatalog(ServiceCatalog serviceCatalog) {
+        this.serviceCatalog = serviceCatalog;
+    }
+
+    /**
+     * Gets the expected length of a task for an average mechanic: the median
+     * of its service type if any were recorded, else the standard labour
+     * time of its catalog job, else the median of all tasks.
+     *
+     * @param task The task.
+     * @return The expected duration.
+     */
+    public Duration expectedDuration(Task task) {
+        DurationSketch sketch = stats.forServiceType(TaskDurationStats.serviceTypeOf(task));
+        if (sketch == null || sketch.getCount() == 0) {
+            ServiceType type = serviceCatalog != null ? serviceCatalog.typeOf(task) : task.getServiceType();
+            if (type != null) {
+                return type.getStandardDuration();
+            }
+            sketch = stats.overall();
+        }
+        if (sketch.getCount() == 0) {
+            return DEFAULT_DURATION;
+        }
+        return seconds(sketch.quantile(0.5));
+    }
+
+    /**
+     * Gets the expected length of a task for a specific mechanic.
+     *
+     * @param task     The task.
+     * @param mechanic The mechanic doing the work.
+     * @return The expected duration.
+     */
+    public Duration expectedDuration(Task task, Mechanic mechanic) {
+        Duration typical = expectedDuration(task);
+        DurationSketch own = stats.forMechanic(mechanic.getId());
+        DurationSketch overall = stats.overall();
+        if (own == null || own.getCount() < MIN_MECHANIC_SAMPLES || overall.quantile(0.5) <= 0) {
+            return typical;
+        }
+        double pace = own.quantile(0.5) / overall.quantile(0.5);
+        return seconds(typical.toMillis() / 1000.0 * pace);
+    }
+
+    @Override
+    public synchronized void taskAssigned(Task task, Mechanic mechanic) {
+        Workload workload = workloads.get(mechanic.getId());
+        if (workload == null) {
+            workloads.put(mechanic.getId(), workloadOf(mechanic)); // Already includes the new task
+        } else {
+            workload.add(task, expectedDuration(task, mechanic), startOf(task));
+        }
+    }
+
+    @Override
+    public synchronized void taskCompleted(Task task, Mechanic mechanic) {
+        Workload workload = workloads.get(mechanic.getId());
+        if (workload != null) {
+            workload.remove(task);
+        }
+    }
+
+    /**
+     * Predicts start and finish times for every task in the queue.
+     *
+     * @param taskQueue The queue of pending tasks.
+     * @param mechanics The mechanics who will work on them.
+     * @return The estimates in queue order, or an empty list if there are no
+     *         mechanics.
+     */
+    public List<WaitEstimate> estimate(TaskQueue taskQueue, List<Mechanic> mechanics) {
+        if (mechanics.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return schedule(taskQueue.getTasksAsList(), mechanics);
+    }
+
+    /**
+     * Predicts start and finish times for one queued task. Only the tasks
+     * ahead of it in the queue are scheduled, so the rest of the queue is
+     * never sorted or estimated.
+     *
+     * @param task      The queued task.
+     * @param taskQueue The queue of pending tasks.
+     * @param mechanics The mechanics who will work on them.
+     * @return The estimate, or null if the task is not queued or there are no
+     *         mechanics.
+     */
+    public WaitEstimate estimate(Task task, TaskQueue taskQueue, List<Mechanic> mechanics) {
+        if (mechanics.isEmpty()) {
+            return null;
+        }
+        List<Task> ahead = new ArrayList<>();
+        boolean queued = false;
+        Iterator<Task> tasks = Spliterators.iterator(taskQueue.snapshot().spliterator());
+        while (tasks.hasNext()) {
+            Task other = tasks.next();
+            if (other.equals(task)) {
+                queued = true;
+            } else if (QUEUE_ORDER.compare(other, task) < 0) {
+                ahead.add(other);
+            }
+        }
+        if (!queued) {
+            return null;
+        }
+        ahead.sort(QUEUE_ORDER);
+        ahead.add(task);
+        List<WaitEstimate> estimates = schedule(ahead, mechanics);
+        return estimates.get(estimates.size() - 1);
+    }
+
+    // Hands the tasks, in order, to whichever mechanic frees up first
+    private List<WaitEstimate> schedule(List<Task> tasks, List<Mechanic> mechanics) {
+        Instant now = clock.instant();
+        PriorityQueue<Availability> available = new PriorityQueue<>();
+        synchronized (this) {
+            for (Mechanic mechanic : mechanics) {
+                Workload workload = workloads.computeIfAbsent(mechanic.getId(), id -> workloadOf(mechanic));
+                available.add(new Availability(mechanic, workload.freeAt(now)));
+            }
+        }
+
+        List<WaitEstimate> estimates = new ArrayList<>(tasks.size());
+        for (Task task : tasks) {
+            Availability next = available.poll();
+            Instant start = next.free;
+            Instant finish = start.plus(expectedDuration(task, next.mechanic));
+            estimates.add(new WaitEstimate(task, next.mechanic, LocalDateTime.ofInstant(start, clock.getZone()),
+                    LocalDateTime.ofInstant(finish, clock.getZone())));
+            available.add(new Availability(next.mechanic, finish));
+        }
+        return estimates;
+    }
+
+    // Builds the workload of a mechanic not seen before from their unfinished assigned tasks
+    private Workload workloadOf(Mechanic mechanic) {
+        Workload workload = new Workload();
+        for (Task task : mechanic.getAssignedTasks()) {
+            if (!"Completed".equals(task.getStatus())) {
+                workload.add(task, expectedDuration(task, mechanic), startOf(task));
+            }
+        }
+        return workload;
+    }
+
+    private Instant startOf(Task task) {
+        return task.getAssignedAt() != null ? task.getAssignedAt() : clock.instant();
+    }
+
+    private static Duration seconds(double seconds) {
+        return Duration.ofMillis(Math.round(seconds * 1000));
+    }
+
+    /**
+     * A mechanic and the time they are next free.
+     */
+    private static final class Availability implements Comparable<Availability> {
+        private final Mechanic mechanic;
+        private final Instant free;
+
+        private Availability(Mechanic mechanic, Instant free) {
+            this.mechanic = mechanic;
+            this.free = free;
+        }
+
+        @Override
+        public int compareTo(Availability other) {
+            int byTime = free.compareTo(other.free);
+            return byTime != 0 ? byTime : Integer.compare(mechanic.getId(), other.mechanic.getId());
+        }
+    }
+
+    /**
+     * The unfinished tasks of one mechanic, worked one after the other, and
+     * the time the last of them is expected to be done.
+     */
+    private static final class Workload {
+        private final Map<Task, Duration> open = new HashMap<>();
+        private Instant busyUntil;
+
+        private void add(Task task, Duration expected, Instant started) {
+            if (open.putIfAbsent(task, expected) != null) {
+                return;
+            }
+            busyUntil = (busyUntil == null || busyUntil.isBefore(started) ? started : busyUntil).plus(expected);
+        }
+
+        private void remove(Task task) {
+            Duration expected = open.remove(task);
+            if (expected != null) {
+                busyUntil = open.isEmpty() ? null : busyUntil.minus(expected);
+            }
+        }
+
+        private Instant freeAt(Instant now) {
+            return busyUntil == null || busyUntil.isBefore(now) ? now : busyUntil;
+        }
+    }
+}
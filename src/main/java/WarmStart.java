@@ -0,0 +1,379 @@
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Restores a saved GarageStateFile in the background so the menus can be
+ * shown straight away. Sections are loaded in the order customers,
+ * manufacturers, mechanics, tasks, unbilled tasks and finally the customer
+ * segment index. Unbilled tasks go back into the InvoiceLedger, if one is
+ * given before the load starts.
+ *
+ * The loader thread never touches the module lists. Loaded records are
+ * staged and moved into the lists by the thread that asks for them, through
+ * the domain services if they are given so that their lookups find the
+ * restored records, so several sessions may ask at once. Operations that need a whole section wait for
+ * it with {@link #await(Section)}; a lookup of one customer waits only for
+ * that record, reading it straight from the file if the loader has not got
+ * to it yet.
+ */
+public class WarmStart {
+
+    /**
+     * The parts of the saved state, in the order they are restored.
+     */
+    public enum Section {
+        CUSTOMERS, MANUFACTURERS, MECHANICS, TASKS, UNBILLED, INDEXES
+    }
+
+    private final Path file; // Saved state being restored
+    private final List<Customer> customers; // Registered customers list to fill
+    private final List<Customer> unregisteredCustomers; // Unregistered customers list to fill
+    private final List<Manufacturer> manufacturers; // Manufacturers list to fill
+    private final List<Mechanic> mechanics; // Mechanics list to fill
+    private final TaskQueue taskQueue; // Queue the pending tasks go into
+    private final CustomerSegmentIndex segmentIndex; // Index built once everything else is loaded
+    private final int maxCustomerId; // Highest customer ID in the saved state
+    private final int version; // Format version of the saved state
+    private InvoiceLedger invoiceLedger; // Ledger the unbilled tasks go back into, or null
+    private CustomerService customerService; // Service the customers are listed through, or null
+    private MechanicService mechanicService; // Service the mechanics are added through, or null
+
+    private final Map<Section, CountDownLatch> loaded; // Released when a section is loaded
+    private final CountDownLatch directoryLoaded; // Released when the customer directory is read
+    private final Map<Integer, Customer> customersById; // Canonical object of every customer read so far
+    private final Queue<Customer> stagedCustomers; // Customers waiting to be moved into the lists
+    private final List<Manufacturer> stagedManufacturers; // Manufacturers waiting to be moved
+    private final List<Mechanic> stagedMechanics; // Mechanics waiting to be moved
+    private final boolean[] merged; // Sections already moved into the lists, by ordinal
+
+    private int[] directoryIds; // Customer IDs in ascending order
+    private long[] directoryOffsets; // File offset of each customer record
+    private final RandomAccessFile lookupFile; // File handle for single-record reads
+    private volatile IOException failure; // Set if the background load failed
+
+    /**
+     * Constructs a warm start for the given state file and reads its header.
+     *
+     * @param file                  The saved state to restore.
+     * @param customers             Registered customers list to fill.
+     * @param unregisteredCustomers Unregistered customers list to fill.
+     * @param manufacturers         Manufacturers list to fill.
+     * @param mechanics             Mechanics list to fill.
+     * @param taskQueue             Queue to put the pending tasks into.
+     * @param segmentIndex          Customer index to build at the end.
+     * @throws IOException If the file is missing or not a valid state file.
+     */
+    public WarmStart(Path file, List<Customer> customers, List<Customer> unregisteredCustomers,
+            List<Manufacturer> manufacturers, List<Mechanic> mechanics, TaskQueue taskQueue,
+            CustomerSegmentIndex segmentIndex) throws IOException {
+        this.file = file;
+        this.customers = customers;
+        this.unregisteredCustomers = unregisteredCustomers;
+        this.manufacturers = manufacturers;
+        this.mechanics = mechanics;
+        this.taskQueue = taskQueue;
+        this.segmentIndex = segmentIndex;
+        this.loaded = new EnumMap<>(Section.class);
+        for (Section section : Section.values()) {
+            loaded.put(section, new CountDownLatch(1));
+        }
+        this.directoryLoaded = new CountDownLatch(1);
+        this.customersById = new ConcurrentHashMap<>();
+        this.stagedCustomers = new ConcurrentLinkedQueue<>();
+        this.stagedManufacturers = new ArrayList<>();
+        this.stagedMechanics = new ArrayList<>();
+        this.merged = new boolean[Section.values().length];
+
+        this.lookupFile = new RandomAccessFile(file.toFile(), "r");
+        GarageStateFile.readDirectoryOffset(lookupFile);
+        lookupFile.seek(4);
+        this.version = lookupFile.readInt();
+        this.maxCustomerId = lookupFile.readInt();
+    }
+
+    /**
+     * Sets the ledger the saved unbilled tasks are given back to. Call it
+     * before start.
+     *
+     * @param invoiceLedger The invoice ledger.
+     */
+    public void setInvoiceLedger(InvoiceLedger invoiceLedger) {
+        this.invoiceLedger = invoiceLedger;
+    }
+
+    /**
+     * Sets the service restored customers are listed through, so that it can
+     * look them up. Call it before start.
+     *
+     * @param customerService The customer service.
+     */
+    public void setCustomerService(CustomerService customerService) {
+        this.customerService = customerService;
+    }
+
+    /**
+     * Sets the service restored mechanics are added through, so that it can
+     * look them up. Call it before start.
+     *
+     * @param mechanicService The mechanic service.
+     */
+    public void setMechanicService(MechanicService mechanicService) {
+        this.mechanicService = mechanicService;
+    }
+
+    /**
+     * Starts loading the saved state on a background thread.
+     */
+    public void start() {
+        Thread loader = new Thread(this::load, "warm-start-loader");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    /**
+     * Gets the highest customer ID in the saved state, so new customers can
+     * be numbered after it before the customers are loaded.
+     *
+     * @return The highest saved customer ID, or 0 if there are none.
+     */
+    public int getMaxCustomerId() {
+        return maxCustomerId;
+    }
+
+    /**
+     * Checks if every section has been loaded.
+     *
+     * @return True if the restore has finished, false otherwise.
+     */
+    public boolean isComplete() {
+        return loaded.get(Section.INDEXES).getCount() == 0;
+    }
+
+    /**
+     * Waits until a section is loaded and moves it into the module lists.
+     * Only the first caller for a section moves it.
+     *
+     * @param section The section that is needed.
+     */
+    public void await(Section section) {
+        try {
+            loaded.get(section).await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        synchronized (merged) {
+            if (merged[section.ordinal()]) {
+                return;
+            }
+            switch (section) {
+                case CUSTOMERS -> drainCustomers();
+                case MANUFACTURERS -> manufacturers.addAll(stagedManufacturers);
+                case MECHANICS -> {
+                    if (mechanicService != null) {
+                        mechanicService.addRestored(stagedMechanics);
+                    } else {
+                        synchronized (mechanics) {
+                            mechanics.addAll(stagedMechanics);
+                        }
+                    }
+                }
+                default -> {
+                    // Tasks, unbilled tasks and indexes are filled directly by the loader
+                }
+            }
+            merged[section.ordinal()] = true;
+        }
+    }
+
+    /**
+     * Moves the customers loaded so far into the customer lists without
+     * waiting for the rest.
+     */
+    public void drainCustomers() {
+        if (customerService != null) {
+            synchronized (stagedCustomers) { // Keeps concurrent drains in load order
+                List<Customer> drained = new ArrayList<>();
+                Customer customer;
+                while ((customer = stagedCustomers.poll()) != null) {
+                    drained.add(customer);
+                }
+                customerService.addRestored(drained);
+            }
+            return;
+        }
+        synchronized (unregisteredCustomers) {
+            synchronized (customers) {
+                Customer customer;
+                while ((customer = stagedCustomers.poll()) != null) {
+                    if (customer.isRegistered()) {
+                        customers.add(customer);
+                    } else {
+                        unregisteredCustomers.add(customer);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Looks up one saved customer, waiting only for that record. If the
+     * loader has not reached it yet, the record is read directly from the
+     * file.
+     *
+     * @param id The customer ID.
+     * @return The customer, or null if the saved state has no such customer.
+     */
+    public Customer findCustomer(int id) {
+        Customer customer = customersById.get(id);
+        if (customer != null || id > maxCustomerId) {
+            return customer;
+        }
+        try {
+            directoryLoaded.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+        int position = directoryIds == null ? -1 : Arrays.binarySearch(directoryIds, id);
+        if (position < 0) {
+            return null;
+        }
+        try {
+            Customer read;
+            synchronized (this) {
+                lookupFile.seek(directoryOffsets[position]);
+                read = GarageStateFile.readCustomer(lookupFile);
+            }
+            Customer existing = customersById.putIfAbsent(id, read);
+            return existing != null ? existing : read;
+        } catch (IOException e) {
+            System.out.println("Error while reading saved customer " + id + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Gets the error that stopped the background load, if any.
+     *
+     * @return The failure, or null if loading succeeded or is still running.
+     */
+    public IOException getFailure() {
+        return failure;
+    }
+
+    // Body of the loader thread
+    private void load() {
+        try {
+            loadDirectory();
+            try (DataInputStream in = new DataInputStream(
+                    new BufferedInputStream(new FileInputStream(file.toFile()), 1 << 16))) {
+                in.skipNBytes(12); // Magic, version and highest customer ID
+
+                int customerCount = in.readInt();
+                for (int i = 0; i < customerCount; i++) {
+                    Customer read = GarageStateFile.readCustomer(in);
+                    Customer existing = customersById.putIfAbsent(read.getId(), read);
+                    stagedCustomers.add(existing != null ? existing : read);
+                }
+                loaded.get(Section.CUSTOMERS).countDown();
+
+                int manufacturerCount = in.readInt();
+                for (int i = 0; i < manufacturerCount; i++) {
+                    stagedManufacturers.add(GarageStateFile.readManufacturer(in));
+                }
+                loaded.get(Section.MANUFACTURERS).countDown();
+
+                int mechanicCount = in.readInt();
+                for (int i = 0; i < mechanicCount; i++) {
+                    stagedMechanics.add(GarageStateFile.readMechanic(in, version));
+                }
+                loaded.get(Section.MECHANICS).countDown();
+
+                int taskCount = in.readInt();
+                for (int i = 0; i < taskCount; i++) {
+                    taskQueue.addTask(GarageStateFile.readTask(in, version));
+                }
+                loaded.get(Section.TASKS).countDown();
+
+                int unbilledCount = version >= 2 ? in.readInt() : 0;
+                for (int i = 0; i < unbilledCount; i++) {
+                    int id = in.readInt();
+                    String name = GarageStateFile.readString(in);
+                    List<Task> tasks = new ArrayList<>();
+                    for (int j = in.readInt(); j > 0; j--) {
+                        tasks.add(GarageStateFile.readTask(in, version));
+                    }
+                    if (invoiceLedger != null) {
+                        invoiceLedger.restore(stagedMechanic(id, name), tasks);
+                    }
+                }
+                loaded.get(Section.UNBILLED).countDown();
+            }
+
+            for (int id : directoryIds) {
+                segmentIndex.add(customersById.get(id));
+            }
+            synchronized (this) {
+                lookupFile.close(); // Every customer is in memory now
+            }
+        } catch (IOException e) {
+            failure = e;
+            System.out.println("Error while restoring saved state: " + e.getMessage());
+        } finally {
+            // Never leave callers waiting, even after a failure
+            directoryLoaded.countDown();
+            for (CountDownLatch latch : loaded.values()) {
+                latch.countDown();
+            }
+        }
+    }
+
+    // The restored mechanic with the given ID, or a stand-in for one no longer on the staff
+    private Mechanic stagedMechanic(int id, String name) {
+        for (Mechanic mechanic : stagedMechanics) {
+            if (mechanic.getId() == id) {
+                return mechanic;
+            }
+        }
+        return new Mechanic(name, id);
+    }
+
+    private void loadDirectory() throws IOException {
+        long directoryOffset;
+        long length;
+        byte[] bytes;
+        synchronized (this) {
+            directoryOffset = GarageStateFile.readDirectoryOffset(lookupFile);
+            length = lookupFile.length() - GarageStateFile.TRAILER_BYTES - directoryOffset;
+            bytes = new byte[(int) length];
+            lookupFile.seek(directoryOffset);
+            lookupFile.readFully(bytes);
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        int count = buffer.getInt();
+        int[] ids = new int[count];
+        long[] offsets = new long[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = buffer.getInt();
+            offsets[i] = buffer.getLong();
+        }
+        directoryIds = ids;
+        directoryOffsets = offsets;
+        directoryLoaded.countDown();
+    }
+}
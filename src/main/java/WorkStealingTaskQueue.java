@@ -0,0 +1,311 @@
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A TaskQueue that spreads pending tasks over one deque per mechanic instead
+ * of a single central heap, so mechanics pulling work at the same time
+ * rarely contend for the same lock.
+ *
+ * New tasks go to the shorter of two randomly chosen mechanic deques, or to
+ * a shared intake deque while no mechanic has asked for work yet. A mechanic
+ * takes work from the head of their own deque: highest priority first, and
+ * first in, first out within a priority. A mechanic whose deque is empty
+ * steals from the peer with the most urgent waiting work, the busiest such
+ * peer on ties, taking the newest task of that peer's highest priority from
+ * the tail so owner and thief work at opposite ends.
+ *
+ * Snapshots are not free in this mode: they collect every pending task into
+ * a new heap.
+ */
+public class WorkStealingTaskQueue extends TaskQueue {
+
+    // Steal attempts before giving up when victims empty out under the thief
+    private static final int STEAL_ATTEMPTS = 3;
+
+    private final Map<Integer, TaskDeque> byMechanic; // Deque of each mechanic ID
+    private final List<TaskDeque> deques; // Every deque, the intake deque first
+    private final TaskDeque intake; // Tasks added before any mechanic registered
+    private final AtomicInteger size; // Number of pending tasks
+    private final AtomicLong version; // Number of changes made to the queue
+
+    /**
+     * Constructs an empty work-stealing queue.
+     */
+    public WorkStealingTaskQueue() {
+        this.byMechanic = new ConcurrentHashMap<>();
+        this.deques = new CopyOnWriteArrayList<>();
+        this.intake = new TaskDeque();
+        this.deques.add(intake);
+        this.size = new AtomicInteger();
+        this.version = new AtomicLong();
+    }
+
+    // Give a mechanic their own deque; done automatically on first use
+    public void register(Mechanic mechanic) {
+        dequeOf(mechanic);
+    }
+
+    // Add a new task to the shorter of two random mechanic deques
+    @Override
+    public void addTask(Task task) {
+        TaskQueueEvent event = new TaskQueueEvent("addTask");
+        add(task, pickDeque());
+        event.finish(this, 1);
+    }
+
+    // Add several tasks, each spread over the deques on its own
+    @Override
+    public void addTasks(Collection<Task> tasks) {
+        TaskQueueEvent event = new TaskQueueEvent("addTasks");
+        for (Task task : tasks) {
+            add(task, pickDeque());
+        }
+        event.finish(this, tasks.size());
+    }
+
+    // Add a new task to a specific mechanic's deque
+    public void addTask(Task task, Mechanic mechanic) {
+        TaskQueueEvent event = new TaskQueueEvent("addTaskFor");
+        add(task, dequeOf(mechanic));
+        event.finish(this, 1);
+    }
+
+    // Take the mechanic's own next task, stealing from a peer if they have none
+    @Override
+    public Task nextTaskFor(Mechanic mechanic) {
+        TaskQueueEvent event = new TaskQueueEvent("nextTaskFor");
+        TaskDeque own = dequeOf(mechanic);
+        Task task = own.pollHead();
+        if (task == null) {
+            task = steal(own);
+        }
+        if (task != null) {
+            taken();
+        }
+        event.finish(this, task == null ? 0 : 1);
+        return task;
+    }
+
+    // Retrieve and remove the highest-priority task of any deque
+    @Override
+    public Task getNextTask() {
+        TaskQueueEvent event = new TaskQueueEvent("getNextTask");
+        Task task = takeBest();
+        event.finish(this, task == null ? 0 : 1);
+        return task;
+    }
+
+    // Take the head of the deque with the highest-priority head, retrying if another thread got there first
+    private Task takeBest() {
+        for (int attempt = 0; attempt < STEAL_ATTEMPTS; attempt++) {
+            TaskDeque best = null;
+            for (TaskDeque deque : deques) {
+                if (deque.size > 0 && (best == null || deque.topPriority > best.topPriority)) {
+                    best = deque;
+                }
+            }
+            if (best == null) {
+                return null;
+            }
+            Task task = best.pollHead();
+            if (task != null) {
+                taken();
+                return task;
+            }
+        }
+        return null;
+    }
+
+    // Check if the queue is empty
+    @Override
+    public boolean isEmpty() {
+        return size.get() == 0;
+    }
+
+    // Get the number of pending tasks
+    @Override
+    public int size() {
+        return size.get();
+    }
+
+    // Remove a specific task from whichever deque holds it; returns false if it was not queued
+    @Override
+    public boolean removeTask(Task task) {
+        TaskQueueEvent event = new TaskQueueEvent("removeTask");
+        for (TaskDeque deque : deques) {
+            if (deque.remove(task)) {
+                taken();
+                event.finish(this, 1);
+                return true;
+            }
+        }
+        event.finish(this, 0);
+        return false;
+    }
+
+    // Retrieve all tasks as a list, highest priority first (for display purposes)
+    @Override
+    public List<Task> getTasksAsList() {
+        return snapshot().asList();
+    }
+
+    // Collect all pending tasks into an immutable snapshot, O(n log n) in this mode
+    @Override
+    public TaskQueueSnapshot snapshot() {
+        PersistentTaskHeap tasks = PersistentTaskHeap.EMPTY;
+        long seen = version.get();
+        for (TaskDeque deque : deques) {
+            for (Task task : deque.tasks()) {
+                tasks = tasks.insert(task);
+            }
+        }
+        return new TaskQueueSnapshot(seen, tasks);
+    }
+
+    // Get the number of tasks waiting in a mechanic's own deque
+    public int queuedFor(Mechanic mechanic) {
+        TaskDeque deque = byMechanic.get(mechanic.getId());
+        return deque == null ? 0 : deque.size;
+    }
+
+    // Counted before it becomes visible, so the size never drops below zero
+    private void add(Task task, TaskDeque deque) {
+        size.incrementAndGet();
+        deque.add(task);
+        version.incrementAndGet();
+    }
+
+    private void taken() {
+        size.decrementAndGet();
+        version.incrementAndGet();
+    }
+
+    private TaskDeque dequeOf(Mechanic mechanic) {
+        return byMechanic.computeIfAbsent(mechanic.getId(), id -> {
+            TaskDeque deque = new TaskDeque();
+            deques.add(deque);
+            return deque;
+        });
+    }
+
+    // Power of two choices: nearly as even as the shortest deque, without a full scan
+    private TaskDeque pickDeque() {
+        int count = deques.size() - 1;
+        if (count == 0) {
+            return intake;
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        TaskDeque first = deques.get(1 + random.nextInt(count));
+        TaskDeque second = deques.get(1 + random.nextInt(count));
+        return second.size < first.size ? second : first;
+    }
+
+    private Task steal(TaskDeque thief) {
+        for (int attempt = 0; attempt < STEAL_ATTEMPTS; attempt++) {
+            TaskDeque victim = null;
+            for (TaskDeque deque : deques) {
+                if (deque == thief || deque.size == 0) {
+                    continue;
+                }
+                if (victim == null || deque.topPriority > victim.topPriority
+                        || (deque.topPriority == victim.topPriority && deque.size > victim.size)) {
+                    victim = deque;
+                }
+            }
+            if (victim == null) {
+                return null;
+            }
+            Task task = victim.pollTail();
+            if (task != null) {
+                return task;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * The pending tasks of one mechanic, bucketed by priority. Size and top
+     * priority are published through volatile fields so that thieves can
+     * choose a victim without locking every deque.
+     */
+    private static final class TaskDeque {
+        private final TreeMap<Integer, ArrayDeque<Task>> byPriority = new TreeMap<>(Collections.reverseOrder());
+        private volatile int size;
+        private volatile int topPriority = Integer.MIN_VALUE;
+
+        private synchronized void add(Task task) {
+            byPriority.computeIfAbsent(task.getPriority(), priority -> new ArrayDeque<>()).addLast(task);
+            changed(size + 1);
+        }
+
+        // Owner end: oldest task of the highest priority
+        private synchronized Task pollHead() {
+            if (size == 0) {
+                return null;
+            }
+            Map.Entry<Integer, ArrayDeque<Task>> top = byPriority.firstEntry();
+            Task task = top.getValue().pollFirst();
+            if (top.getValue().isEmpty()) {
+                byPriority.remove(top.getKey());
+            }
+            changed(size - 1);
+            return task;
+        }
+
+        // Thief end: newest task of the highest priority
+        private synchronized Task pollTail() {
+            if (size == 0) {
+                return null;
+            }
+            Map.Entry<Integer, ArrayDeque<Task>> top = byPriority.firstEntry();
+            Task task = top.getValue().pollLast();
+            if (top.getValue().isEmpty()) {
+                byPriority.remove(top.getKey());
+            }
+            changed(size - 1);
+            return task;
+        }
+
+        private synchronized boolean remove(Task task) {
+            ArrayDeque<Task> bucket = byPriority.get(task.getPriority());
+            if (bucket == null) {
+                return false;
+            }
+            for (Iterator<Task> iterator = bucket.iterator(); iterator.hasNext();) {
+                if (iterator.next().equals(task)) {
+                    iterator.remove();
+                    if (bucket.isEmpty()) {
+                        byPriority.remove(task.getPriority());
+                    }
+                    changed(size - 1);
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private synchronized List<Task> tasks() {
+            List<Task> tasks = new ArrayList<>(size);
+            for (ArrayDeque<Task> bucket : byPriority.values()) {
+                tasks.addAll(bucket);
+            }
+            return tasks;
+        }
+
+        private void changed(int newSize) {
+            size = newSize;
+            topPriority = byPriority.isEmpty() ? Integer.MIN_VALUE : byPriority.firstKey();
+        }
+    }
+}
@@ -0,0 +1,645 @@
+import java.io.PrintStream;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+/**
+ * Drives the shop's operations directly, without the menus, to show how the
+ * system behaves under a day's load. Customers and tasks arrive at random
+ * with configurable hourly rates. Mechanics take the next task as soon as
+ * they are free. Each task takes a random, log-normally distributed time and
+ * may first need a part from a supplier.
+ *
+ * The simulation runs on a simulated clock, so a day takes seconds, and it
+ * is repeatable for a given seed. The operations themselves are the real
+ * ones: CustomerService, MechanicService, the TaskQueue, TaskEvents, the
+ * CustomerSegmentIndex, and PartAvailability asking every supplier of the
+ * vehicle's manufacturer for a part, as the mechanic menu does. The time
+ * each call takes is measured on the wall clock. Suppliers are a
+ * StubSupplierClient unless another client is set, so a part check that
+ * misses the cache takes tens of milliseconds of real time; cached answers
+ * expire on the simulated clock. The shop's own work runs on one thread;
+ * contention between sessions is covered by DomainServicesStressTest
+ * instead.
+ *
+ * Run it on its own, e.g.
+ * {@code java WorkloadSimulator --hours=24 --tasks-per-hour=40 --mechanics=6}.
+ */
+public class WorkloadSimulator {
+
+    /**
+     * The operations whose cost is measured.
+     */
+    public enum Operation {
+        REGISTER_CUSTOMER("Register customer"),
+        CREATE_TASK("Create task"),
+        TAKE_TASK("Take next task"),
+        REQUEST_PART("Request part"),
+        COMPLETE_TASK("Complete task");
+
+        private final String label; // Name shown in the report
+
+        Operation(String label) {
+            this.label = label;
+        }
+
+        /**
+         * Gets the name shown in the report.
+         *
+         * @return The label.
+         */
+        public String getLabel() {
+            return label;
+        }
+    }
+
+    // Vehicle models of simulated customers; the first word is the manufacturer
+    private static final String[] MODELS = { "Toyota Corolla", "Honda Civic", "Ford Focus", "BMW 320i",
+            "Toyota Yaris" };
+
+    // Parts suppliers set up for each manufacturer
+    private static final int SUPPLIERS_PER_MANUFACTURER = 3;
+
+    // Parts simulated tasks may need
+    private static final String[] PARTS = { "Brake pads", "Oil filter", "Air filter", "Spark plugs",
+            "Wiper blades", "Timing belt" };
+
+    // Highest priority given to simulated tasks
+    private static final int MAX_PRIORITY = 5;
+
+    private final Random random; // Source of all randomness, seeded
+    private double customersPerHour = 3; // Arrival rate of new customers
+    private double tasksPerHour = 5; // Arrival rate of new tasks
+    private double registeredShare = 0.6; // Share of new customers who register
+    private int mechanicCount = 6; // Mechanics on shift
+    private double medianTaskMinutes = 45; // Median time a task takes
+    private double taskTimeSpread = 0.6; // Log-normal sigma of task times
+    private double partRequestShare = 0.2; // Share of tasks needing a part first
+    private double partWaitMinutes = 30; // Mean wait for a requested part
+    private Duration length = Duration.ofHours(24); // Simulated time
+    private Duration sampleInterval = Duration.ofMinutes(15); // Spacing of queue depth samples
+    private TaskQueue taskQueue = new TaskQueue(); // Queue under test
+    private SupplierClient supplierClient = new StubSupplierClient(); // Answers part checks
+
+    /**
+     * Constructs a simulator with the default workload: 3 new customers and
+     * 5 tasks an hour, 6 mechanics, tasks of 45 minutes median, one in five
+     * needing a part, for 24 hours. That keeps the mechanics about 80% busy.
+     *
+     * @param seed The random seed; equal seeds give equal simulations.
+     */
+    public WorkloadSimulator(long seed) {
+        this.random = new Random(seed);
+    }
+
+    /**
+     * Sets the arrival rate of new customers.
+     *
+     * @param customersPerHour Mean new customers per hour.
+     */
+    public void setCustomersPerHour(double customersPerHour) {
+        this.customersPerHour = customersPerHour;
+    }
+
+    /**
+     * Sets the arrival rate of new tasks, each for a random known customer.
+     *
+     * @param tasksPerHour Mean new tasks per hour.
+     */
+    public void setTasksPerHour(double tasksPerHour) {
+        this.tasksPerHour = tasksPerHour;
+    }
+
+    /**
+     * Sets the share of new customers who register rather than stay walk-ins.
+     *
+     * @param registeredShare The share between 0 and 1.
+     */
+    public void setRegisteredShare(double registeredShare) {
+        this.registeredShare = registeredShare;
+    }
+
+    /**
+     * Sets the number of mechanics on shift.
+     *
+     * @param mechanicCount The number of mechanics.
+     */
+    public void setMechanicCount(int mechanicCount) {
+        this.mechanicCount = mechanicCount;
+    }
+
+    /**
+     * Sets the log-normal distribution of the time a task takes.
+     *
+     * @param medianMinutes The median task time in minutes.
+     * @param spread        The standard deviation of the logarithm; 0 makes
+     *                      every task take the median time.
+     */
+    public void setTaskTime(double medianMinutes, double spread) {
+        this.medianTaskMinutes = medianMinutes;
+        this.taskTimeSpread = spread;
+    }
+
+    /**
+     * Sets how often a task needs a part and how long parts take to arrive.
+     *
+     * @param share       The share of tasks needing a part, between 0 and 1.
+     * @param meanMinutes The mean, exponentially distributed wait for a part.
+     */
+    public void setPartRequests(double share, double meanMinutes) {
+        this.partRequestShare = share;
+        this.partWaitMinutes = meanMinutes;
+    }
+
+    /**
+     * Sets the simulated time to run for.
+     *
+     * @param length The simulated time.
+     */
+    public void setLength(Duration length) {
+        this.length = length;
+    }
+
+    /**
+     * Sets the spacing of queue depth samples.
+     *
+     * @param sampleInterval The simulated time between samples.
+     */
+    public void setSampleInterval(Duration sampleInterval) {
+        this.sampleInterval = sampleInterval;
+    }
+
+    /**
+     * Sets the queue implementation to simulate.
+     *
+     * @param taskQueue An empty task queue.
+     */
+    public void setTaskQueue(TaskQueue taskQueue) {
+        this.taskQueue = taskQueue;
+    }
+
+    /**
+     * Sets the client part checks ask the suppliers through.
+     *
+     * @param supplierClient The supplier client.
+     */
+    public void setSupplierClient(SupplierClient supplierClient) {
+        this.supplierClient = supplierClient;
+    }
+
+    /**
+     * Runs the simulation. A simulator runs once.
+     *
+     * @return The measurements.
+     */
+    public Report run() {
+        Shop shop = new Shop();
+        shop.run();
+        return shop.report;
+    }
+
+    public static void main(String[] args) {
+        WorkloadSimulator simulator = new WorkloadSimulator(longArgument(args, "--seed=", 1));
+        simulator.setLength(Duration.ofHours(longArgument(args, "--hours=", 24)));
+        simulator.setCustomersPerHour(doubleArgument(args, "--customers-per-hour=", simulator.customersPerHour));
+        simulator.setTasksPerHour(doubleArgument(args, "--tasks-per-hour=", simulator.tasksPerHour));
+        simulator.setMechanicCount((int) longArgument(args, "--mechanics=", simulator.mechanicCount));
+        simulator.setTaskTime(doubleArgument(args, "--median-task-minutes=", simulator.medianTaskMinutes),
+                doubleArgument(args, "--task-time-spread=", simulator.taskTimeSpread));
+        simulator.setPartRequests(doubleArgument(args, "--part-share=", simulator.partRequestShare),
+                doubleArgument(args, "--part-wait-minutes=", simulator.partWaitMinutes));
+        if (Arrays.asList(args).contains("--dispatch=stealing")) {
+            simulator.setTaskQueue(new WorkStealingTaskQueue());
+        } else if (Arrays.asList(args).contains("--dispatch=buckets")) {
+            simulator.setTaskQueue(new BucketTaskQueue());
+        }
+        simulator.run().print(System.out);
+    }
+
+    private static long longArgument(String[] args, String prefix, long fallback) {
+        for (String arg : args) {
+            if (arg.startsWith(prefix)) {
+                return Long.parseLong(arg.substring(prefix.length()));
+            }
+        }
+        return fallback;
+    }
+
+    private static double doubleArgument(String[] args, String prefix, double fallback) {
+        for (String arg : args) {
+            if (arg.startsWith(prefix)) {
+                return Double.parseDouble(arg.substring(prefix.length()));
+            }
+        }
+        return fallback;
+    }
+
+    // Exponentially distributed time between arrivals, in minutes
+    private double nextGap(double perHour) {
+        return -Math.log(1 - random.nextDouble()) * 60 / perHour;
+    }
+
+    /**
+     * The measurements of one simulation.
+     */
+    public static class Report {
+        private final Map<Operation, DurationSketch> latencies; // Wall-clock cost of each operation
+        private final DurationSketch waits; // Simulated minutes from task creation to start, as seconds
+        private final DurationSketch turnarounds; // Simulated minutes from creation to completion, as seconds
+        private final List<Integer> queueDepths; // Queue depth at each sample
+        private Duration sampleInterval; // Simulated time between samples
+        private Duration length; // Simulated time covered
+        private long wallNanos; // Wall-clock time the simulation took
+        private int customersRegistered; // New customers, registered or not
+        private int tasksCreated; // Tasks added to the queue
+        private int tasksCompleted; // Tasks finished by mechanics
+        private int partRequests; // Parts requested from suppliers
+        private int partsUnavailable; // Part requests no supplier had in stock or answered in time
+
+        private Report() {
+            this.latencies = new EnumMap<>(Operation.class);
+            for (Operation operation : Operation.values()) {
+                latencies.put(operation, new DurationSketch());
+            }
+            this.waits = new DurationSketch();
+            this.turnarounds = new DurationSketch();
+            this.queueDepths = new ArrayList<>();
+        }
+
+        /**
+         * Gets the wall-clock cost of an operation.
+         *
+         * @param operation The operation.
+         * @return The latency sketch, in seconds.
+         */
+        public DurationSketch getLatency(Operation operation) {
+            return latencies.get(operation);
+        }
+
+        /**
+         * Gets the simulated time tasks waited in the queue. Minutes are
+         * recorded as seconds, so a quantile of 12 means 12 minutes.
+         *
+         * @return The wait sketch.
+         */
+        public DurationSketch getTaskWaits() {
+            return waits;
+        }
+
+        /**
+         * Gets the simulated time from task creation to completion, in
+         * minutes recorded as seconds.
+         *
+         * @return The turnaround sketch.
+         */
+        public DurationSketch getTurnarounds() {
+            return turnarounds;
+        }
+
+        /**
+         * Gets the queue depth sampled at every sample interval, starting at
+         * the beginning of the simulation.
+         *
+         * @return The queue depths.
+         */
+        public List<Integer> getQueueDepths() {
+            return queueDepths;
+        }
+
+        /**
+         * Gets the number of new customers.
+         *
+         * @return The number of customers registered or added as walk-ins.
+         */
+        public int getCustomersRegistered() {
+            return customersRegistered;
+        }
+
+        /**
+         * Gets the number of tasks created.
+         *
+         * @return The number of tasks.
+         */
+        public int getTasksCreated() {
+            return tasksCreated;
+        }
+
+        /**
+         * Gets the number of tasks completed.
+         *
+         * @return The number of tasks.
+         */
+        public int getTasksCompleted() {
+            return tasksCompleted;
+        }
+
+        /**
+         * Gets the number of parts requested.
+         *
+         * @return The number of part requests.
+         */
+        public int getPartRequests() {
+            return partRequests;
+        }
+
+        /**
+         * Gets the number of part requests no supplier could fill.
+         *
+         * @return The part requests without a supplier in stock that
+         *         answered in time.
+         */
+        public int getPartsUnavailable() {
+            return partsUnavailable;
+        }
+
+        /**
+         * Gets the completed tasks per simulated hour.
+         *
+         * @return The end-to-end throughput.
+         */
+        public double getCompletedPerHour() {
+            return tasksCompleted / (length.toMinutes() / 60.0);
+        }
+
+        /**
+         * Gets the operations run per second of wall-clock time.
+         *
+         * @return The simulation's operation rate.
+         */
+        public double getOperationsPerSecond() {
+            long operations = 0;
+            for (DurationSketch latency : latencies.values()) {
+                operations += latency.getCount();
+            }
+            return operations / (wallNanos / 1e9);
+        }
+
+        /**
+         * Prints the report as text.
+         *
+         * @param out Where to print.
+         */
+        public void print(PrintStream out) {
+            out.printf("Simulated %d h: %d customers, %d tasks created, %d completed (%.1f per hour), %d parts"
+                    + " requested (%d not available)%n", length.toHours(), customersRegistered, tasksCreated,
+                    tasksCompleted, getCompletedPerHour(), partRequests, partsUnavailable);
+            out.printf("Ran %.0f operations per second of wall-clock time%n", getOperationsPerSecond());
+            out.printf("Task wait (min): p50 %.1f, p90 %.1f, p99 %.1f; turnaround (min): p50 %.1f, p90 %.1f,"
+                    + " p99 %.1f%n", quantile(waits, 0.5), quantile(waits, 0.9), quantile(waits, 0.99),
+                    quantile(turnarounds, 0.5), quantile(turnarounds, 0.9), quantile(turnarounds, 0.99));
+            out.printf("%n%-18s %10s %10s %10s %10s%n", "Operation", "Count", "p50 us", "p99 us", "p99.9 us");
+            for (Operation operation : Operation.values()) {
+                DurationSketch latency = latencies.get(operation);
+                out.printf("%-18s %10d %10.1f %10.1f %10.1f%n", operation.getLabel(), latency.getCount(),
+                        quantile(latency, 0.5) * 1e6, quantile(latency, 0.99) * 1e6,
+                        quantile(latency, 0.999) * 1e6);
+            }
+            out.println("\nQueue depth (one line per hour, deepest sample of the hour):");
+            int perHour = (int) Math.max(1, Duration.ofHours(1).toMinutes() / sampleInterval.toMinutes());
+            for (int start = 0; start < queueDepths.size(); start += perHour) {
+                int deepest = 0;
+                for (int i = start; i < Math.min(start + perHour, queueDepths.size()); i++) {
+                    deepest = Math.max(deepest, queueDepths.get(i));
+                }
+                out.printf("%3d h %5d %s%n", start / perHour, deepest, "#".repeat(Math.min(deepest, 60)));
+            }
+        }
+
+        private static double quantile(DurationSketch sketch, double quantile) {
+            return sketch.getCount() == 0 ? 0 : sketch.quantile(quantile);
+        }
+    }
+
+    /**
+     * One simulation run: the shop's state, the pending events and the
+     * report being filled.
+     */
+    private final class Shop {
+        private final List<Customer> customers = new ArrayList<>();
+        private final List<Customer> unregisteredCustomers = new ArrayList<>();
+        private final List<Manufacturer> manufacturers = new ArrayList<>();
+        private final CustomerSegmentIndex segmentIndex = new CustomerSegmentIndex();
+        private final CustomerService customerService = new CustomerService(customers, unregisteredCustomers,
+                segmentIndex);
+        private final MechanicService mechanicService = new MechanicService(new ArrayList<>(), taskQueue);
+        private final TaskEvents taskEvents = new TaskEvents();
+        private final List<Mechanic> idle = new ArrayList<>(); // Mechanics waiting for work
+        private final Map<Task, Double> createdAt = new HashMap<>(); // Simulated minute of creation
+        private final PriorityQueue<Event> events = new PriorityQueue<>();
+        private final Report report = new Report();
+        private final LocalDate firstDay = LocalDate.of(2026, 1, 5);
+        private final Clock simulatedClock = new Clock() {
+            @Override
+            public ZoneId getZone() {
+                return ZoneOffset.UTC;
+            }
+
+            @Override
+            public Clock withZone(ZoneId zone) {
+                return this;
+            }
+
+            @Override
+            public Instant instant() {
+                return firstDay.atStartOfDay(ZoneOffset.UTC).toInstant().plusMillis((long) (now * 60_000));
+            }
+        };
+        private final PartAvailability partAvailability = new PartAvailability(supplierClient, simulatedClock);
+        private long sequence; // Tie-breaker keeping events of the same minute in scheduling order
+        private double now; // Simulated minute of the event being handled
+
+        private void run() {
+            for (String model : MODELS) {
+                String name = model.substring(0, model.indexOf(' '));
+                if (findManufacturer(name) == null) {
+                    Manufacturer manufacturer = new Manufacturer(name);
+                    for (int i = 1; i <= SUPPLIERS_PER_MANUFACTURER; i++) {
+                        manufacturer.addPartsSupplier(new PartsSupplier(name + " Supplier " + i));
+                    }
+                    manufacturers.add(manufacturer);
+                }
+            }
+            for (int i = 0; i < mechanicCount; i++) {
+                idle.add(mechanicService.addMechanic("Mechanic " + (i + 1)));
+            }
+            double end = length.toMinutes();
+            schedule(nextGap(customersPerHour), EventType.CUSTOMER_ARRIVAL, null, null);
+            schedule(nextGap(tasksPerHour), EventType.TASK_ARRIVAL, null, null);
+            for (double minute = 0; minute <= end; minute += sampleInterval.toMinutes()) {
+                schedule(minute, EventType.SAMPLE, null, null);
+            }
+
+            report.length = length;
+            report.sampleInterval = sampleInterval;
+            long wallStart = System.nanoTime();
+            while (!events.isEmpty() && events.peek().minute <= end) {
+                Event event = events.poll();
+                now = event.minute;
+                switch (event.type) {
+                    case CUSTOMER_ARRIVAL -> {
+                        newCustomer();
+                        schedule(event.minute + nextGap(customersPerHour), EventType.CUSTOMER_ARRIVAL, null, null);
+                    }
+                    case TASK_ARRIVAL -> {
+                        newTask(event.minute);
+                        schedule(event.minute + nextGap(tasksPerHour), EventType.TASK_ARRIVAL, null, null);
+                    }
+                    case COMPLETION -> complete(event.minute, event.task, event.mechanic);
+                    case SAMPLE -> report.queueDepths.add(taskQueue.size());
+                }
+                dispatch(event.minute);
+            }
+            report.wallNanos = System.nanoTime() - wallStart;
+            partAvailability.close();
+        }
+
+        private Customer newCustomer() {
+            String vehicleNumber = "SIM" + (report.customersRegistered + 1);
+            String model = MODELS[random.nextInt(MODELS.length)];
+            boolean registers = random.nextDouble() < registeredShare;
+            long start = System.nanoTime();
+            Customer customer = registers
+                    ? customerService.register("Customer", "555-0100", vehicleNumber, model)
+                    : customerService.addUnregistered("Walk-in", "555-0100", vehicleNumber, model);
+            measured(Operation.REGISTER_CUSTOMER, start);
+            report.customersRegistered++;
+            return customer;
+        }
+
+        private void newTask(double minute) {
+            Customer customer = pickCustomer();
+            if (customer == null) {
+                customer = newCustomer();
+            }
+            Task task = new Task("Service", customer.getVehicleNumber(), 1 + random.nextInt(MAX_PRIORITY));
+            long start = System.nanoTime();
+            taskQueue.addTask(task);
+            taskEvents.taskCreated(task);
+            measured(Operation.CREATE_TASK, start);
+            createdAt.put(task, minute);
+            report.tasksCreated++;
+        }
+
+        // Hands queued work to every idle mechanic
+        private void dispatch(double minute) {
+            while (!idle.isEmpty() && !taskQueue.isEmpty()) {
+                Mechanic mechanic = idle.remove(idle.size() - 1);
+                long start = System.nanoTime();
+                Task task = taskQueue.nextTaskFor(mechanic);
+                if (task != null) {
+                    mechanic.assignTask(task);
+                    taskEvents.taskAssigned(task, mechanic);
+                }
+                measured(Operation.TAKE_TASK, start);
+                if (task == null) {
+                    idle.add(mechanic);
+                    return;
+                }
+                report.waits.record(minute - createdAt.get(task));
+                double busy = medianTaskMinutes * Math.exp(taskTimeSpread * random.nextGaussian());
+                if (random.nextDouble() < partRequestShare) {
+                    requestPart(task);
+                    busy += -Math.log(1 - random.nextDouble()) * partWaitMinutes;
+                }
+                schedule(minute + busy, EventType.COMPLETION, task, mechanic);
+            }
+        }
+
+        // Checks the part with every supplier of the vehicle's manufacturer and picks the cheapest in stock
+        private void requestPart(Task task) {
+            Customer customer = customerService.findByVehicleNumber(task.getVehicleDetails());
+            String model = customer == null ? MODELS[0] : customer.getVehicleModel();
+            Manufacturer manufacturer = findManufacturer(model.substring(0, model.indexOf(' ')));
+            String part = PARTS[random.nextInt(PARTS.length)];
+            long start = System.nanoTime();
+            PartAvailability.Result result = partAvailability.check(manufacturer, part);
+            PartQuote chosen = result.cheapest();
+            measured(Operation.REQUEST_PART, start);
+            report.partRequests++;
+            if (chosen == null) {
+                report.partsUnavailable++;
+            }
+        }
+
+        private void complete(double minute, Task task, Mechanic mechanic) {
+            LocalDate today = firstDay.plusDays((long) (minute / (24 * 60)));
+            long start = System.nanoTime();
+            if (task.markAsCompleted()) {
+                taskEvents.taskCompleted(task, mechanic);
+            }
+            mechanic.completeTask(task);
+            segmentIndex.recordService(task.getVehicleDetails(), today);
+            measured(Operation.COMPLETE_TASK, start);
+            report.turnarounds.record(minute - createdAt.remove(task));
+            report.tasksCompleted++;
+            idle.add(mechanic);
+        }
+
+        private Customer pickCustomer() {
+            int known = customers.size() + unregisteredCustomers.size();
+            if (known == 0) {
+                return null;
+            }
+            int pick = random.nextInt(known);
+            return pick < customers.size() ? customers.get(pick)
+                    : unregisteredCustomers.get(pick - customers.size());
+        }
+
+        private Manufacturer findManufacturer(String name) {
+            for (Manufacturer manufacturer : manufacturers) {
+                if (manufacturer.getName().equalsIgnoreCase(name)) {
+                    return manufacturer;
+                }
+            }
+            return null;
+        }
+
+        private void measured(Operation operation, long startNanos) {
+            report.latencies.get(operation).record((System.nanoTime() - startNanos) / 1e9);
+        }
+
+        private void schedule(double minute, EventType type, Task task, Mechanic mechanic) {
+            events.add(new Event(minute, sequence++, type, task, mechanic));
+        }
+    }
+
+    private enum EventType {
+        CUSTOMER_ARRIVAL, TASK_ARRIVAL, COMPLETION, SAMPLE
+    }
+
+    /**
+     * Something that happens at a simulated minute.
+     */
+    private static final class Event implements Comparable<Event> {
+        private final double minute;
+        private final long sequence;
+        private final EventType type;
+        private final Task task;
+        private final Mechanic mechanic;
+
+        private Event(double minute, long sequence, EventType type, Task task, Mechanic mechanic) {
+            this.minute = minute;
+            this.sequence = sequence;
+            this.type = type;
+            this.task = task;
+            this.mechanic = mechanic;
+        }
+
+        @Override
+        public int compareTo(Event other) {
+            int byMinute = Double.compare(minute, other.minute);
+            return byMinute != 0 ? byMinute : Long.compare(sequence, other.sequence);
+        }
+    }
+}
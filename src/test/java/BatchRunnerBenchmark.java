@@ -0,0 +1,127 @@
+import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.Scanner;
+
+/**
+ * Replays a generated command file, a mix of registrations, task creation,
+ * taking and completion and part requests, with the BatchRunner, and
+ * compares it with reading the same file the way the menus do: a Scanner
+ * splitting lines with a regular expression and one auto-flushed println per
+ * result. Output goes to a sink that discards it, so only the cost of
+ * producing it is measured. Not part of the unit test suite; run it on its
+ * own, e.g. {@code java BatchRunnerBenchmark 1000000}.
+ */
+public class BatchRunnerBenchmark {
+
+    // Mechanics and suppliers set up before the generated mix
+    private static final int MECHANICS = 20;
+
+    public static void main(String[] args) throws IOException {
+        int commands = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        byte[] script = generate(commands, 42);
+        System.out.println(commands + " commands, " + script.length / 1024 + " KiB");
+        // Warm up the JIT before measuring
+        replay(generate(commands / 4, 7));
+        scan(generate(commands / 4, 7));
+        read(generate(commands / 4, 7));
+        long scanned = scan(script);
+        long read = read(script);
+        BatchRunner.Summary summary = replay(script);
+        System.out.printf("%-34s %12.0f commands/s%n", "Scanner + println, parse only", commands * 1e9 / scanned);
+        System.out.printf("%-34s %12.0f commands/s%n", "CommandReader, parse only", commands * 1e9 / read);
+        System.out.printf("%-34s %12.0f commands/s (%d ms, %d failed)%n", "BatchRunner, parse and run",
+                summary.getCommandsPerSecond(), summary.getMillis(), summary.getFailed());
+    }
+
+    private static BatchRunner.Summary replay(byte[] script) throws IOException {
+        TaskQueue taskQueue = new TaskQueue();
+        CustomerService customerService = new CustomerService(new ArrayList<>(), new ArrayList<>(),
+                new CustomerSegmentIndex());
+        BatchRunner runner = new BatchRunner(customerService, new MechanicService(new ArrayList<>(), taskQueue),
+                new ArrayList<>(), taskQueue);
+        runner.setPruneCompleted(true);
+        BufferedWriter out = new BufferedWriter(new OutputStreamWriter(OutputStream.nullOutputStream(),
+                StandardCharsets.UTF_8), 1 << 16);
+        return runner.run(new ByteArrayInputStream(script), out);
+    }
+
+    // Reads and splits every line as the interactive menus would, without running anything
+    private static long scan(byte[] script) {
+        PrintStream out = new PrintStream(OutputStream.nullOutputStream(), true);
+        long start = System.nanoTime();
+        Scanner scanner = new Scanner(new ByteArrayInputStream(script), StandardCharsets.UTF_8);
+        long fields = 0;
+        while (scanner.hasNextLine()) {
+            String[] parts = scanner.nextLine().split("\\|");
+            fields += parts.length;
+            out.println("Read " + parts[0]);
+        }
+        long elapsed = System.nanoTime() - start;
+        if (fields == 0) {
+            throw new IllegalStateException("Nothing read.");
+        }
+        return elapsed;
+    }
+
+    // Splits every line with the CommandReader, decoding each field, without running anything
+    private static long read(byte[] script) throws IOException {
+        long start = System.nanoTime();
+        long length = 0;
+        try (CommandReader reader = new CommandReader(new ByteArrayInputStream(script))) {
+            while (reader.next()) {
+                for (int i = 0; i < reader.fieldCount(); i++) {
+                    length += reader.field(i).length();
+                }
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        if (length == 0) {
+            throw new IllegalStateException("Nothing read.");
+        }
+        return elapsed;
+    }
+
+    // Builds a day-like mix; about as many tasks are taken and completed as created
+    private static byte[] generate(int commands, long seed) {
+        Random random = new Random(seed);
+        StringBuilder script = new StringBuilder(commands * 32);
+        for (int i = 1; i <= MECHANICS; i++) {
+            script.append("mechanic|Mechanic ").append(i).append('\n');
+        }
+        script.append("supplier|Toyota|Supplier1\nsupplier|Honda|Supplier2\n");
+        int customers = 0;
+        for (int i = MECHANICS + 2; i < commands; i++) {
+            int roll = random.nextInt(100);
+            if (roll < 10 || customers == 0) {
+                customers++;
+                script.append(roll % 3 == 0 ? "walkin|" : "register|").append("Customer ").append(customers)
+                        .append("|555-").append(customers).append("|PL").append(customers)
+                        .append("|Toyota Corolla\n");
+            } else if (roll < 13) {
+                script.append("upgrade|").append(1 + random.nextInt(customers)).append('\n');
+            } else if (roll < 43) {
+                int customer = 1 + random.nextInt(customers);
+                if (roll % 2 == 0) {
+                    script.append("task|").append(customer);
+                } else {
+                    script.append("task|PL").append(customer);
+                }
+                script.append('|').append(random.nextInt(10)).append("|Service ").append(i).append('\n');
+            } else if (roll < 69) {
+                script.append("take|").append(1 + random.nextInt(MECHANICS)).append('\n');
+            } else if (roll < 95) {
+                script.append("complete|").append(1 + random.nextInt(MECHANICS)).append('\n');
+            } else {
+                script.append("part|Toyota|Supplier1|Brake pads\n");
+            }
+        }
+        return script.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,167 @@
+import org.junit.jupiter.api.*;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit test class for the BatchRunner and the CommandReader it parses with.
+ */
+public class BatchRunnerTest {
+    private List<Customer> customers;
+    private List<Customer> unregisteredCustomers;
+    private List<Manufacturer> manufacturers;
+    private List<Mechanic> mechanics;
+    private TaskQueue taskQueue;
+    private BatchRunner runner;
+
+    /**
+     * Set up an empty shop before each test.
+     */
+    @BeforeEach
+    public void setUp() {
+        customers = new ArrayList<>();
+        unregisteredCustomers = new ArrayList<>();
+        manufacturers = new ArrayList<>();
+        mechanics = new ArrayList<>();
+        taskQueue = new TaskQueue();
+        CustomerService customerService = new CustomerService(customers, unregisteredCustomers,
+                new CustomerSegmentIndex());
+        runner = new BatchRunner(customerService, new MechanicService(mechanics, taskQueue), manufacturers,
+                taskQueue);
+    }
+
+    /**
+     * Test case for a day's operations changing the shop as the menus would
+     * and writing one result line per command.
+     */
+    @Test
+    public void testReplayRunsEveryCommand() throws IOException {
+        System.out.println("\n[TEST CASE: Replay Runs Every Command]");
+        String script = String.join("\n",
+                "# Morning",
+                "register|Alice|12345|ABC123|Toyota Corolla",
+                "walkin|Bob|67890|XYZ789|Honda Civic",
+                "",
+                "upgrade|2",
+                "mechanic|John",
+                "supplier|Toyota|Supplier1",
+                "task|1|5|Fix brakes",
+                "task| xyz789 |2|Oil change | filter",
+                "take|1",
+                "complete|1",
+                "part|Toyota|supplier1|Brake pads");
+        StringWriter out = new StringWriter();
+        BatchRunner.Summary summary = runner.run(input(script), out);
+
+        assertEquals(10, summary.getCommands(), "Command count mismatch.");
+        assertEquals(0, summary.getFailed(), "Failed command count mismatch.");
+        assertEquals(10, out.toString().split("\n").length, "Result line count mismatch.");
+        assertEquals(2, customers.size(), "Both customers should be registered.");
+        assertTrue(unregisteredCustomers.isEmpty(), "No customer should be unregistered.");
+        assertEquals(1, manufacturers.size(), "Manufacturer count mismatch.");
+        assertEquals("Completed", mechanics.get(0).getAssignedTasks().get(0).getStatus(),
+                "Completed task should stay with the mechanic, as from the menu.");
+        assertEquals(1, taskQueue.size(), "Pending task count mismatch.");
+        Task pending = taskQueue.getNextTask();
+        assertEquals("Oil change | filter", pending.getDescription(), "Description mismatch.");
+        assertEquals("XYZ789", pending.getVehicleDetails(), "Vehicle mismatch.");
+        assertTrue(out.toString().contains("Part request sent for 'Brake pads' to Supplier1."),
+                "Part request result mismatch.");
+    }
+
+    /**
+     * Test case for bad lines being reported with their line numbers without
+     * stopping the replay.
+     */
+    @Test
+    public void testBadLinesAreReportedInOrder() throws IOException {
+        System.out.println("\n[TEST CASE: Bad Lines Are Reported In Order]");
+        String script = "mechanic|John\r\nfly|away\r\ntake|x\r\ntask|99|1|Nothing\r\ntake|1\r\nupgrade\r\n"
+                + "mechanic|Jane";
+        StringWriter out = new StringWriter();
+        BatchRunner.Summary summary = runner.run(input(script), out);
+
+        String[] lines = out.toString().split("\n");
+        assertEquals(7, summary.getCommands(), "Command count mismatch.");
+        assertEquals(5, summary.getFailed(), "Failed command count mismatch.");
+        assertEquals("Line 2: Unknown command 'fly'.", lines[1], "Unknown command result mismatch.");
+        assertTrue(lines[2].startsWith("Line 3: "), "Bad number result mismatch.");
+        assertEquals("Line 4: Customer 99 not found.", lines[3], "Missing customer result mismatch.");
+        assertEquals("Line 5: No pending tasks.", lines[4], "Empty queue result mismatch.");
+        assertEquals("Line 6: 'upgrade' needs 1 field(s).", lines[5], "Missing field result mismatch.");
+        assertEquals("Added mechanic 2 (Jane).", lines[6], "Last result mismatch.");
+    }
+
+    /**
+     * Test case for completed tasks being dropped from the mechanic's list
+     * only when pruning is turned on, and never completed twice.
+     */
+    @Test
+    public void testPruneCompletedIsOptional() throws IOException {
+        System.out.println("\n[TEST CASE: Prune Completed Is Optional]");
+        String script = "register|Alice|12345|ABC123|Toyota Corolla\nmechanic|John\ntask|1|5|Fix brakes\n"
+                + "task|1|3|Oil change\ntake|1\ntake|1\ncomplete|1\n";
+        runner.run(input(script + "complete|1\ncomplete|1"), new StringWriter());
+        assertEquals(2, mechanics.get(0).getAssignedTasks().size(), "Completed tasks should be kept.");
+
+        setUp();
+        runner.setPruneCompleted(true);
+        BatchRunner.Summary summary = runner.run(input(script + "complete|1"), new StringWriter());
+        assertEquals(0, summary.getFailed(), "Failed command count mismatch.");
+        assertTrue(mechanics.get(0).getAssignedTasks().isEmpty(), "Completed tasks should be dropped.");
+    }
+
+    /**
+     * Test case for a failure of the reader thread other than an I/O error
+     * ending the replay with that failure instead of leaving it waiting.
+     */
+    @Test
+    public void testReaderFailureDoesNotHang() {
+        System.out.println("\n[TEST CASE: Reader Failure Does Not Hang]");
+        InputStream failing = new SequenceInputStream(input("mechanic|John\n"), new InputStream() {
+            @Override
+            public int read() {
+                throw new IllegalStateException("Stream broke.");
+            }
+        });
+        StringWriter out = new StringWriter();
+
+        IOException thrown = assertTimeoutPreemptively(Duration.ofSeconds(10),
+                () -> assertThrows(IOException.class, () -> runner.run(failing, out)),
+                "Replay should not wait forever.");
+        assertInstanceOf(IllegalStateException.class, thrown.getCause(), "Cause mismatch.");
+    }
+
+    /**
+     * Test case for lines longer than the reader's buffer and a last line
+     * without a line terminator.
+     */
+    @Test
+    public void testReaderHandlesLongAndUnterminatedLines() throws IOException {
+        System.out.println("\n[TEST CASE: Reader Handles Long And Unterminated Lines]");
+        String longName = "x".repeat(200_000);
+        String script = "mechanic|" + longName + "\n" + "supplier|Škoda|Dostawca -7|ignored";
+        try (CommandReader reader = new CommandReader(input(script))) {
+            assertTrue(reader.next(), "First line missing.");
+            assertEquals(longName, reader.field(1), "Long field mismatch.");
+            assertTrue(reader.next(), "Last line missing.");
+            assertEquals(2, reader.lineNumber(), "Line number mismatch.");
+            assertEquals(4, reader.fieldCount(), "Field count mismatch.");
+            assertEquals("Škoda", reader.field(1), "UTF-8 field mismatch.");
+            assertTrue(reader.fieldEquals(0, "supplier"), "Keyword mismatch.");
+            assertFalse(reader.isIntField(2), "Text is not a number.");
+            assertFalse(reader.next(), "No more lines expected.");
+        }
+    }
+
+    private static ByteArrayInputStream input(String script) {
+        return new ByteArrayInputStream(script.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,115 @@
+import org.junit.jupiter.api.*;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit test class for BayCalendar and BayScheduler, covering conflict
+ * detection and free-slot searches.
+ */
+public class BayCalendarTest {
+    private static final LocalDateTime MONDAY = LocalDateTime.of(2024, 6, 3, 8, 0);
+
+    private BayCalendar calendar;
+
+    /**
+     * Set up an empty calendar for bay 1 before each test.
+     */
+    @BeforeEach
+    public void setUp() {
+        calendar = new BayCalendar(1);
+    }
+
+    /**
+     * Test case for rejecting a booking that overlaps an existing one.
+     */
+    @Test
+    public void testRejectsDoubleBooking() {
+        System.out.println("\n[TEST CASE: Rejects Double Booking]");
+        assertTrue(calendar.book(slot(0, 120)), "First booking should succeed.");
+        assertFalse(calendar.book(slot(60, 120)), "Overlapping booking should be rejected.");
+        assertTrue(calendar.book(slot(120, 30)), "Adjacent booking should succeed.");
+        assertEquals(2, calendar.size(), "Booking count mismatch.");
+    }
+
+    /**
+     * Test case for finding the next free slot for a 2h job.
+     */
+    @Test
+    public void testNextAvailableSlot() {
+        System.out.println("\n[TEST CASE: Next Available Slot]");
+        calendar.book(slot(0, 60));
+        calendar.book(slot(90, 60));
+        calendar.book(slot(180, 60));
+        calendar.book(slot(360, 60));
+
+        assertEquals(MONDAY.plusMinutes(60), calendar.nextAvailable(MONDAY, Duration.ofMinutes(30)),
+                "30 minute slot mismatch.");
+        assertEquals(MONDAY.plusMinutes(240), calendar.nextAvailable(MONDAY, Duration.ofHours(2)),
+                "2h slot mismatch.");
+        assertEquals(MONDAY.plusMinutes(420), calendar.nextAvailable(MONDAY.plusMinutes(300), Duration.ofHours(2)),
+                "2h slot after 13:00 mismatch.");
+    }
+
+    /**
+     * Test case comparing slot searches against a brute-force scan of random
+     * bookings.
+     */
+    @Test
+    public void testNextAvailableMatchesBruteForce() {
+        System.out.println("\n[TEST CASE: Next Available Matches Brute Force]");
+        Random random = new Random(42);
+        List<Booking> bookings = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            Booking booking = slot(random.nextInt(20_000), 1 + random.nextInt(90));
+            if (calendar.book(booking)) {
+                bookings.add(booking);
+            }
+        }
+        for (int i = 0; i < 100; i++) {
+            calendar.cancel(bookings.remove(random.nextInt(bookings.size())));
+        }
+
+        for (int i = 0; i < 300; i++) {
+            LocalDateTime from = MONDAY.plusMinutes(random.nextInt(21_000));
+            Duration length = Duration.ofMinutes(1 + random.nextInt(120));
+            LocalDateTime expected = from;
+            boolean moved = true;
+            while (moved) {
+                moved = false;
+                for (Booking booking : bookings) {
+                    if (booking.getStart().isBefore(expected.plus(length)) && expected.isBefore(booking.getEnd())) {
+                        expected = booking.getEnd();
+                        moved = true;
+                    }
+                }
+            }
+            assertEquals(expected, calendar.nextAvailable(from, length), "Slot mismatch.");
+        }
+    }
+
+    /**
+     * Test case for the scheduler picking the bay that frees up first.
+     */
+    @Test
+    public void testSchedulerBooksEarliestBay() {
+        System.out.println("\n[TEST CASE: Scheduler Books Earliest Bay]");
+        BayScheduler scheduler = new BayScheduler(2);
+        scheduler.book(1, MONDAY, Duration.ofHours(3), null);
+        scheduler.book(2, MONDAY, Duration.ofHours(1), null);
+
+        Task task = new Task("Fix brakes", "ABC123", 5);
+        Booking booking = scheduler.bookNextAvailable(MONDAY, Duration.ofHours(2), task);
+
+        assertEquals(2, booking.getBayNumber(), "Bay number mismatch.");
+        assertEquals(MONDAY.plusHours(1), booking.getStart(), "Start time mismatch.");
+        assertSame(task, booking.getTask(), "Booked task mismatch.");
+    }
+
+    private static Booking slot(int startMinute, int minutes) {
+        LocalDateTime start = MONDAY.plusMinutes(startMinute);
+        return new Booking(1, start, start.plusMinutes(minutes), null);
+    }
+}
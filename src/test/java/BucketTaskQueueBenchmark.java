@@ -0,0 +1,83 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Compares the central heap queue with the bucket queue: filling the queue
+ * and draining it, and a steady state where every added task is matched by
+ * a taken one. Also counts how often a task is taken before an older task
+ * of the same priority, which the bucket queue never does. Not part of the
+ * unit test suite; run it on its own, e.g.
+ * {@code java BucketTaskQueueBenchmark 1000000}.
+ */
+public class BucketTaskQueueBenchmark {
+
+    // Distinct priorities given to tasks, 0 to PRIORITIES - 1
+    private static final int PRIORITIES = 10;
+
+    // Tasks kept queued during the steady-state phase
+    private static final int STEADY_BACKLOG = 10_000;
+
+    public static void main(String[] args) {
+        int taskCount = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        Random random = new Random(42);
+        List<Task> tasks = new ArrayList<>(taskCount);
+        for (int i = 0; i < taskCount; i++) {
+            tasks.add(new Task("Task " + i, "PL" + i, random.nextInt(PRIORITIES)));
+        }
+        System.out.println(taskCount + " tasks, " + PRIORITIES + " priorities");
+        // Warm up the JIT before measuring
+        run(null, new TaskQueue(), tasks.subList(0, taskCount / 4));
+        run(null, new BucketTaskQueue(0, PRIORITIES - 1), tasks.subList(0, taskCount / 4));
+        run("Heap", new TaskQueue(), tasks);
+        run("Buckets", new BucketTaskQueue(0, PRIORITIES - 1), tasks);
+    }
+
+    private static void run(String name, TaskQueue queue, List<Task> tasks) {
+        Map<Task, Integer> arrival = new HashMap<>(tasks.size() * 2);
+        for (int i = 0; i < tasks.size(); i++) {
+            arrival.put(tasks.get(i), i);
+        }
+
+        long started = System.nanoTime();
+        for (Task task : tasks) {
+            queue.addTask(task);
+        }
+        long filled = System.nanoTime();
+        long outOfOrder = 0;
+        int[] lastTaken = new int[PRIORITIES];
+        Arrays.fill(lastTaken, -1);
+        List<Task> taken = new ArrayList<>(tasks.size());
+        for (Task task = queue.getNextTask(); task != null; task = queue.getNextTask()) {
+            taken.add(task);
+        }
+        long drained = System.nanoTime();
+        for (Task task : taken) {
+            int order = arrival.get(task);
+            if (order < lastTaken[task.getPriority()]) {
+                outOfOrder++;
+            }
+            lastTaken[task.getPriority()] = Math.max(lastTaken[task.getPriority()], order);
+        }
+
+        for (int i = 0; i < STEADY_BACKLOG; i++) {
+            queue.addTask(tasks.get(i));
+        }
+        long steadyStarted = System.nanoTime();
+        for (int i = STEADY_BACKLOG; i < tasks.size(); i++) {
+            queue.addTask(tasks.get(i));
+            queue.getNextTask();
+        }
+        long steadyDone = System.nanoTime();
+
+        if (name != null) {
+            System.out.printf("%-8s fill %6d ms  drain %6d ms  steady %6d ms (%5.0f ns/op)  out of order %d%n", name,
+                    (filled - started) / 1_000_000, (drained - filled) / 1_000_000,
+                    (steadyDone - steadyStarted) / 1_000_000,
+                    (steadyDone - steadyStarted) / (2.0 * (tasks.size() - STEADY_BACKLOG)), outOfOrder);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+import org.junit.jupiter.api.*;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit test class for the bucket task queue.
+ */
+public class BucketTaskQueueTest {
+    private BucketTaskQueue taskQueue;
+
+    /**
+     * Set up an empty queue for priorities 1 to 5.
+     */
+    @BeforeEach
+    public void setUp() {
+        taskQueue = new BucketTaskQueue(1, 5);
+    }
+
+    /**
+     * Test case for tasks coming out by priority, strictly oldest first
+     * within a priority.
+     */
+    @Test
+    public void testTakesByPriorityThenArrival() {
+        System.out.println("\n[TEST CASE: Takes By Priority Then Arrival]");
+        List<Task> expected = new ArrayList<>();
+        List<Task> added = new ArrayList<>();
+        for (int priority = 5; priority >= 1; priority--) {
+            for (int i = 0; i < 50; i++) {
+                expected.add(new Task("Task " + priority + "." + i, "V" + i, priority));
+            }
+        }
+        // Interleave priorities so arrival order differs from the expected output order
+        for (int i = 0; i < 50; i++) {
+            for (int priority = 1; priority <= 5; priority++) {
+                added.add(expected.get((5 - priority) * 50 + i));
+            }
+        }
+        for (int i = 0; i < 100; i++) {
+            taskQueue.addTask(added.get(i));
+        }
+        taskQueue.addTasks(added.subList(100, added.size()));
+        assertEquals(250, taskQueue.size(), "Queue size mismatch.");
+        assertEquals(expected, taskQueue.getTasksAsList(), "Listed order mismatch.");
+        assertEquals(250, taskQueue.snapshot().size(), "Snapshot size mismatch.");
+
+        List<Task> taken = new ArrayList<>();
+        for (Task task = taskQueue.getNextTask(); task != null; task = taskQueue.getNextTask()) {
+            taken.add(task);
+        }
+        assertEquals(expected, taken, "Taken order mismatch.");
+        assertTrue(taskQueue.isEmpty(), "Queue should be empty.");
+    }
+
+    /**
+     * Test case for priorities outside the range joining the nearest end
+     * bucket, and for removing a queued task.
+     */
+    @Test
+    public void testOutOfRangePrioritiesAndRemoval() {
+        System.out.println("\n[TEST CASE: Out Of Range Priorities And Removal]");
+        Task top = new Task("Brakes", "AB1", 5);
+        Task urgent = new Task("Tow-in", "AB2", 99);
+        Task wash = new Task("Wash", "AB3", -3);
+        Task oil = new Task("Oil change", "AB4", 1);
+        taskQueue.addTask(top);
+        taskQueue.addTask(urgent);
+        taskQueue.addTask(wash);
+        taskQueue.addTask(oil);
+        assertEquals(List.of(top, urgent, wash, oil), taskQueue.getTasksAsList(), "Clamped order mismatch.");
+        assertEquals(99, urgent.getPriority(), "Task priority should be kept.");
+
+        assertTrue(taskQueue.removeTask(top), "Queued task should be removed.");
+        assertFalse(taskQueue.removeTask(top), "Removed task should not be removed again.");
+        assertEquals(urgent, taskQueue.getNextTask(), "Next task mismatch after removal.");
+        assertEquals(wash, taskQueue.getNextTask(), "Lowest bucket order mismatch.");
+        assertEquals(oil, taskQueue.getNextTask(), "Last task mismatch.");
+        assertNull(taskQueue.getNextTask(), "Empty queue should return null.");
+        assertThrows(IllegalArgumentException.class, () -> new BucketTaskQueue(5, 1),
+                "Empty range should be rejected.");
+    }
+}
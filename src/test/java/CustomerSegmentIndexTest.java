@@ -0,0 +1,100 @@
+import org.junit.jupiter.api.*;
+import java.time.LocalDate;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit test class for CustomerSegmentIndex and the compressed bitmaps it is
+ * built on.
+ */
+public class CustomerSegmentIndexTest {
+    private CustomerSegmentIndex index;
+
+    /**
+     * Set up an index with a few registered and unregistered customers.
+     */
+    @BeforeEach
+    public void setUp() {
+        index = new CustomerSegmentIndex();
+        index.add(new Customer(1, "Alice", "12345", "ABC123", "Toyota Corolla", true));
+        index.add(new Customer(2, "Bob", "67890", "XYZ789", "Honda Civic", true));
+        index.add(new Customer(3, "Charlie", "11111", "LMN456", "Toyota Corolla", false));
+        index.add(new Customer(4, "Dana", "22222", "QRS111", "Toyota Yaris", true));
+    }
+
+    /**
+     * Test case for combining registration, manufacturer and model filters.
+     */
+    @Test
+    public void testSegmentByRegistrationAndModel() {
+        System.out.println("\n[TEST CASE: Segment By Registration And Model]");
+        List<Customer> corollaOwners = index.segment().registered(true).model("corolla").customers();
+        assertEquals(1, corollaOwners.size(), "Segment size mismatch.");
+        assertEquals("Alice", corollaOwners.get(0).getName(), "Segment member mismatch.");
+
+        List<Customer> toyotaOwners = index.segment().manufacturer("Toyota").customers();
+        assertEquals(3, toyotaOwners.size(), "Manufacturer segment size mismatch.");
+    }
+
+    /**
+     * Test case for excluding recently serviced customers.
+     */
+    @Test
+    public void testNotServicedWithinMonths() {
+        System.out.println("\n[TEST CASE: Not Serviced Within Months]");
+        LocalDate today = LocalDate.of(2024, 6, 15);
+        index.recordService("ABC123", today.minusMonths(2));
+        index.recordService("QRS111", today.minusMonths(6).minusDays(1));
+        index.recordService("XYZ789", today.minusMonths(6).plusDays(1));
+
+        List<Customer> due = index.segment().registered(true).notServicedWithinMonths(6, today).customers();
+
+        assertEquals(1, due.size(), "Segment size mismatch.");
+        assertEquals("Dana", due.get(0).getName(), "Segment member mismatch.");
+    }
+
+    /**
+     * Test case for upgrading a customer moving them into the registered bitmap.
+     */
+    @Test
+    public void testUpdateRegistration() {
+        System.out.println("\n[TEST CASE: Update Registration]");
+        Customer charlie = index.customers(index.registered(false)).get(0);
+        charlie.setRegistered(true);
+        index.updateRegistration(charlie);
+
+        assertEquals(4, index.registered(true).cardinality(), "Registered count mismatch.");
+        assertTrue(index.registered(false).isEmpty(), "No unregistered customers expected.");
+    }
+
+    /**
+     * Test case for bitmap operations on both sparse and dense chunks.
+     */
+    @Test
+    public void testBitmapOperations() {
+        System.out.println("\n[TEST CASE: Bitmap Operations]");
+        CompressedBitmap evens = new CompressedBitmap();
+        CompressedBitmap multiplesOfThree = new CompressedBitmap();
+        for (int i = 0; i < 200_000; i++) {
+            if (i % 2 == 0) {
+                evens.add(i);
+            }
+            if (i % 3 == 0) {
+                multiplesOfThree.add(i);
+            }
+        }
+
+        assertEquals(100_000, evens.cardinality(), "Even count mismatch.");
+        assertEquals(33_334, evens.and(multiplesOfThree).cardinality(), "AND count mismatch.");
+        assertEquals(133_333, evens.or(multiplesOfThree).cardinality(), "OR count mismatch.");
+        assertEquals(66_666, evens.andNot(multiplesOfThree).cardinality(), "AND NOT count mismatch.");
+        assertTrue(evens.and(multiplesOfThree).contains(199_998), "Value missing from AND.");
+        assertFalse(evens.andNot(multiplesOfThree).contains(6), "Value should be excluded.");
+
+        for (int i = 0; i < 200_000; i += 2) {
+            evens.remove(i);
+        }
+        assertTrue(evens.isEmpty(), "Bitmap should be empty.");
+    }
+}
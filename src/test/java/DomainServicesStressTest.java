@@ -0,0 +1,230 @@
+import org.junit.jupiter.api.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Concurrency stress tests for the domain services, in the style of jcstress:
+ * each round sets up fresh state, releases several actor threads at the same
+ * moment, and then checks that the outcome is one the operations allow.
+ * Rounds are repeated many times so that rare interleavings show up.
+ */
+public class DomainServicesStressTest {
+    private static final int ACTORS = 4;
+    private static final int ROUNDS = 2_000;
+
+    private ExecutorService pool;
+
+    /**
+     * Set up a pool with one thread per actor.
+     */
+    @BeforeEach
+    public void setUp() {
+        pool = Executors.newFixedThreadPool(ACTORS);
+    }
+
+    /**
+     * Shut down the actor threads.
+     */
+    @AfterEach
+    public void tearDown() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * Test case for unique customer IDs while sessions register at once.
+     */
+    @Test
+    public void testConcurrentRegistrationsGetUniqueIds() throws Exception {
+        System.out.println("\n[TEST CASE: Concurrent Registrations Get Unique IDs]");
+        List<Customer> customers = new ArrayList<>();
+        List<Customer> unregisteredCustomers = new ArrayList<>();
+        CustomerSegmentIndex index = new CustomerSegmentIndex();
+        CustomerService service = new CustomerService(customers, unregisteredCustomers, index);
+        int perActor = 5_000;
+
+        race(() -> {
+            for (int i = 0; i < perActor; i++) {
+                if (i % 2 == 0) {
+                    service.register("Name", "Contact", "V" + i, "Toyota Corolla");
+                } else {
+                    service.addUnregistered("Name", "Contact", "V" + i, "Honda Civic");
+                }
+            }
+        });
+
+        Set<Integer> ids = new HashSet<>();
+        customers.forEach(customer -> ids.add(customer.getId()));
+        unregisteredCustomers.forEach(customer -> ids.add(customer.getId()));
+        assertEquals(ACTORS * perActor, customers.size() + unregisteredCustomers.size(), "Customer count mismatch.");
+        assertEquals(ACTORS * perActor, ids.size(), "Duplicate customer IDs handed out.");
+        assertEquals(ACTORS * perActor, index.all().cardinality(), "Indexed customer count mismatch.");
+        for (Customer customer : customers) {
+            assertSame(customer, service.findById(customer.getId()), "Customer by ID mismatch.");
+        }
+        assertEquals("V0", service.findByVehicleNumber(" v0").getVehicleNumber(), "Customer by vehicle mismatch.");
+    }
+
+    /**
+     * Test case for exactly one of several simultaneous upgrades succeeding.
+     */
+    @Test
+    public void testUpgradeRaceHasOneWinner() throws Exception {
+        System.out.println("\n[TEST CASE: Upgrade Race Has One Winner]");
+        for (int round = 0; round < ROUNDS; round++) {
+            List<Customer> customers = new ArrayList<>();
+            List<Customer> unregisteredCustomers = new ArrayList<>();
+            CustomerService service = new CustomerService(customers, unregisteredCustomers,
+                    new CustomerSegmentIndex());
+            Customer customer = service.addUnregistered("Walk-in", "Contact", "V1", "Ford Focus");
+            AtomicInteger winners = new AtomicInteger();
+
+            race(() -> {
+                if (service.upgrade(customer)) {
+                    winners.incrementAndGet();
+                }
+            });
+
+            assertEquals(1, winners.get(), "Upgrade winner count mismatch in round " + round + ".");
+            assertEquals(List.of(customer), customers, "Registered list mismatch in round " + round + ".");
+            assertTrue(unregisteredCustomers.isEmpty(), "Unregistered list should be empty in round " + round + ".");
+        }
+    }
+
+    /**
+     * Test case for readers never seeing an upgrading customer in both lists
+     * or in neither.
+     */
+    @Test
+    public void testUpgradeIsAtomicForReaders() throws Exception {
+        System.out.println("\n[TEST CASE: Upgrade Is Atomic For Readers]");
+        for (int round = 0; round < ROUNDS / 4; round++) {
+            CustomerService service = new CustomerService(new ArrayList<>(), new ArrayList<>(),
+                    new CustomerSegmentIndex());
+            List<Customer> walkIns = new ArrayList<>();
+            for (int i = 0; i < 50; i++) {
+                walkIns.add(service.addUnregistered("Walk-in " + i, "Contact", "V" + i, "Ford Focus"));
+            }
+            AtomicInteger torn = new AtomicInteger();
+            AtomicInteger actor = new AtomicInteger();
+
+            race(() -> {
+                if (actor.getAndIncrement() == 0) {
+                    walkIns.forEach(service::upgrade);
+                } else {
+                    for (Customer walkIn : walkIns) {
+                        if (service.findById(walkIn.getId()) != walkIn) {
+                            torn.incrementAndGet();
+                        }
+                    }
+                }
+            });
+
+            assertEquals(0, torn.get(), "Reader missed a customer during upgrade in round " + round + ".");
+            assertEquals(50, service.registeredCustomers().size(), "Registered count mismatch in round " + round + ".");
+        }
+    }
+
+    /**
+     * Test case for a task being assigned to exactly one mechanic when
+     * several sessions assign it at once.
+     */
+    @Test
+    public void testAssignRaceHasOneWinner() throws Exception {
+        System.out.println("\n[TEST CASE: Assign Race Has One Winner]");
+        for (int round = 0; round < ROUNDS; round++) {
+            List<Mechanic> mechanics = new ArrayList<>();
+            TaskQueue taskQueue = new TaskQueue();
+            MechanicService service = new MechanicService(mechanics, taskQueue);
+            for (int i = 0; i < ACTORS; i++) {
+                service.addMechanic("Mechanic " + i);
+            }
+            Task task = new Task("Oil change", "V1", 1);
+            taskQueue.addTask(task);
+            AtomicInteger actor = new AtomicInteger();
+            AtomicInteger winners = new AtomicInteger();
+
+            race(() -> {
+                Mechanic mechanic = mechanics.get(actor.getAndIncrement());
+                if (service.assign(task, mechanic)) {
+                    winners.incrementAndGet();
+                }
+            });
+
+            int holders = 0;
+            for (Mechanic mechanic : mechanics) {
+                holders += mechanic.getAssignedTasks().size();
+            }
+            assertEquals(1, winners.get(), "Assign winner count mismatch in round " + round + ".");
+            assertEquals(1, holders, "Task held by wrong number of mechanics in round " + round + ".");
+            assertTrue(taskQueue.isEmpty(), "Queue should be empty in round " + round + ".");
+        }
+    }
+
+    /**
+     * Test case for unique mechanic IDs, including IDs of mechanics that
+     * were already in the list.
+     */
+    @Test
+    public void testConcurrentMechanicsGetUniqueIds() throws Exception {
+        System.out.println("\n[TEST CASE: Concurrent Mechanics Get Unique IDs]");
+        List<Mechanic> mechanics = new ArrayList<>();
+        mechanics.add(new Mechanic("Existing", 7));
+        MechanicService service = new MechanicService(mechanics, new TaskQueue());
+        int perActor = 1_000;
+
+        race(() -> {
+            for (int i = 0; i < perActor; i++) {
+                service.addMechanic("Mechanic");
+            }
+        });
+
+        Set<Integer> ids = new HashSet<>();
+        mechanics.forEach(mechanic -> ids.add(mechanic.getId()));
+        assertEquals(ACTORS * perActor + 1, mechanics.size(), "Mechanic count mismatch.");
+        assertEquals(ACTORS * perActor + 1, ids.size(), "Duplicate mechanic IDs handed out.");
+    }
+
+    /**
+     * Test case for a task being completed exactly once when several sessions
+     * complete it at once.
+     */
+    @Test
+    public void testCompletionRaceHasOneWinner() throws Exception {
+        System.out.println("\n[TEST CASE: Completion Race Has One Winner]");
+        for (int round = 0; round < ROUNDS; round++) {
+            Task task = new Task("Brakes", "V1", 1);
+            AtomicInteger winners = new AtomicInteger();
+
+            race(() -> {
+                if (task.markAsCompleted()) {
+                    winners.incrementAndGet();
+                }
+            });
+
+            assertEquals(1, winners.get(), "Completion winner count mismatch in round " + round + ".");
+        }
+    }
+
+    // Runs the actor on every pool thread, all released at the same moment
+    private void race(Runnable actor) throws Exception {
+        CountDownLatch ready = new CountDownLatch(ACTORS);
+        CountDownLatch go = new CountDownLatch(1);
+        List<Future<?>> results = new ArrayList<>();
+        for (int i = 0; i < ACTORS; i++) {
+            results.add(pool.submit(() -> {
+                ready.countDown();
+                go.await();
+                actor.run();
+                return null;
+            }));
+        }
+        ready.await();
+        go.countDown();
+        for (Future<?> result : results) {
+            result.get(30, TimeUnit.SECONDS);
+        }
+    }
+}
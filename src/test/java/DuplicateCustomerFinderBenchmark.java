@@ -0,0 +1,113 @@
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Runs duplicate detection over a large customer base in which a share of
+ * the customers were entered a second time with a typo in the name,
+ * contact or vehicle number. Reports the run time, how many of the planted
+ * duplicates were found, how many other pairs were reported, and what
+ * comparing every pair of signatures would have cost, extrapolated from a
+ * sample. Not part of the unit test suite; run it on its own, e.g.
+ * {@code java -Xmx2g DuplicateCustomerFinderBenchmark 1000000}.
+ */
+public class DuplicateCustomerFinderBenchmark {
+
+    // Share of customers entered a second time
+    private static final double DUPLICATE_SHARE = 0.02;
+
+    // Signature pairs compared to estimate the cost of comparing every pair
+    private static final int SAMPLE_PAIRS = 5_000_000;
+
+    private static final String[] FIRST_NAMES = { "Anna", "Piotr", "Maria", "Jan", "Katarzyna", "Tomasz", "Ewa",
+            "Michal", "Agnieszka", "Pawel", "Magdalena", "Krzysztof", "Joanna", "Marek", "Alice", "Bob", "Carol",
+            "David", "Emma", "Frank", "Grace", "Henry", "Irene", "Jack", "Laura", "Oliver", "Sophie", "Liam" };
+
+    private static final String[] LAST_NAMES = { "Nowak", "Kowalski", "Wisniewski", "Wojcik", "Kowalczyk",
+            "Kaminski", "Lewandowski", "Zielinski", "Szymanski", "Wozniak", "Smith", "Johnson", "Brown", "Taylor",
+            "Wilson", "Evans", "Thomas", "Roberts", "Walker", "Wright", "Green", "Hall", "Wood", "Clarke" };
+
+    // Endings turning the last names into a few hundred distinct ones
+    private static final String[] SUFFIXES = { "", "ska", "ek", "iak", "czyk", "owski", "son", "ley", "er", "ton",
+            "-Smith", "-Brown", "-Nowak", "berg", "stein", "wood", "field", "more", "ford", "ham" };
+
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 500_000;
+        Random random = new Random(42);
+        List<Customer> customers = new ArrayList<>(count);
+        Set<Long> planted = new HashSet<>();
+        int id = 1;
+        while (customers.size() < count) {
+            String name = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)] + " "
+                    + LAST_NAMES[random.nextInt(LAST_NAMES.length)] + SUFFIXES[random.nextInt(SUFFIXES.length)];
+            String contact = random.nextBoolean() ? String.format("+48 %09d", random.nextInt(1_000_000_000))
+                    : name.toLowerCase().replace(' ', '.') + random.nextInt(10_000) + "@example.com";
+            String plate = String.format("%c%c%05d", 'A' + random.nextInt(26), 'A' + random.nextInt(26),
+                    random.nextInt(100_000));
+            Customer original = new Customer(id++, name, contact, plate, "Toyota Corolla", random.nextBoolean());
+            customers.add(original);
+            if (random.nextDouble() < DUPLICATE_SHARE && customers.size() < count) {
+                // Re-entered with one typo in one field
+                int field = random.nextInt(3);
+                Customer again = new Customer(id++, field == 0 ? typo(name, random) : name,
+                        field == 1 ? typo(contact, random) : contact, field == 2 ? typo(plate, random) : plate,
+                        "Toyota Corolla", false);
+                customers.add(again);
+                planted.add(((long) original.getId() << 32) | again.getId());
+            }
+        }
+        System.out.println(count + " customers, " + planted.size() + " planted duplicates, "
+                + Runtime.getRuntime().availableProcessors() + " cores");
+
+        CustomerService customerService = new CustomerService(new ArrayList<>(), new ArrayList<>(),
+                new CustomerSegmentIndex());
+        TaskQueue taskQueue = new TaskQueue();
+        DuplicateCustomerFinder finder = new DuplicateCustomerFinder(customerService,
+                new MechanicService(new ArrayList<>(), taskQueue), taskQueue);
+        finder.find(customers.subList(0, count / 10)); // Warm up the JIT before measuring
+
+        long started = System.nanoTime();
+        List<DuplicateCustomerFinder.Candidate> candidates = finder.find(customers);
+        long millis = (System.nanoTime() - started) / 1_000_000;
+        int found = 0;
+        for (DuplicateCustomerFinder.Candidate candidate : candidates) {
+            int low = Math.min(candidate.getKeep().getId(), candidate.getDuplicate().getId());
+            int high = Math.max(candidate.getKeep().getId(), candidate.getDuplicate().getId());
+            if (planted.contains(((long) low << 32) | high)) {
+                found++;
+            }
+        }
+        System.out.printf("LSH          %8d ms  found %d of %d planted (%.1f%%), %d other pair(s)%n", millis, found,
+                planted.size(), 100.0 * found / Math.max(1, planted.size()), candidates.size() - found);
+
+        int[][] signatures = new int[Math.min(count, 10_000)][];
+        for (int i = 0; i < signatures.length; i++) {
+            signatures[i] = DuplicateCustomerFinder.signature(customers.get(i));
+        }
+        double checksum = 0;
+        long sampleStarted = System.nanoTime();
+        for (int i = 0; i < SAMPLE_PAIRS; i++) {
+            checksum += DuplicateCustomerFinder.similarity(signatures[random.nextInt(signatures.length)],
+                    signatures[random.nextInt(signatures.length)]);
+        }
+        double nanosPerPair = (System.nanoTime() - sampleStarted) / (double) SAMPLE_PAIRS;
+        double allPairs = (double) count * (count - 1) / 2;
+        System.out.printf("All pairs    %8.0f s   (estimated from %.1f ns per pair, %.2e pairs; checksum %.0f)%n",
+                allPairs * nanosPerPair / 1e9, nanosPerPair, allPairs, checksum);
+    }
+
+    // Replaces, drops or doubles one character
+    private static String typo(String text, Random random) {
+        int at = 1 + random.nextInt(text.length() - 2);
+        switch (random.nextInt(3)) {
+            case 0:
+                return text.substring(0, at) + (char) ('a' + random.nextInt(26)) + text.substring(at + 1);
+            case 1:
+                return text.substring(0, at) + text.substring(at + 1);
+            default:
+                return text.substring(0, at) + text.charAt(at) + text.substring(at);
+        }
+    }
+}
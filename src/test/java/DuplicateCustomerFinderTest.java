@@ -0,0 +1,116 @@
+import org.junit.jupiter.api.*;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit test class for the DuplicateCustomerFinder and customer merging.
+ */
+public class DuplicateCustomerFinderTest {
+    private CustomerService customerService;
+    private MechanicService mechanicService;
+    private TaskQueue taskQueue;
+    private InMemoryRepositories repositories;
+    private DuplicateCustomerFinder finder;
+
+    /**
+     * Set up empty services backed by in-memory repositories.
+     */
+    @BeforeEach
+    public void setUp() {
+        customerService = new CustomerService(new ArrayList<>(), new ArrayList<>(), new CustomerSegmentIndex());
+        repositories = new InMemoryRepositories();
+        customerService.setRepository(repositories.customers());
+        taskQueue = new TaskQueue();
+        mechanicService = new MechanicService(new ArrayList<>(), taskQueue);
+        finder = new DuplicateCustomerFinder(customerService, mechanicService, taskQueue);
+    }
+
+    /**
+     * Test case for re-entered customers with small typos being found, while
+     * different customers sharing a model or a first name are not.
+     */
+    @Test
+    public void testFindsCustomersEnteredTwice() {
+        System.out.println("\n[TEST CASE: Finds Customers Entered Twice]");
+        Customer alice = customerService.register("Alice Johnson", "alice.johnson@example.com", "KR-4821A",
+                "Toyota Corolla");
+        Customer aliceAgain = customerService.addUnregistered("Alice Jonson", "alice.johnson@example.com",
+                "KR 4821A", "Toyota Corolla");
+        Customer bob = customerService.addUnregistered("Bob Smith", "555-0101", "WA12345", "Ford Focus");
+        Customer bobAgain = customerService.addUnregistered("Bob Smith", "555 0101", "WA12354", "Ford Focus");
+        customerService.register("Alice Cooper", "cooper@example.org", "GD998877", "Toyota Corolla");
+        Random random = new Random(42);
+        for (int i = 0; i < 200; i++) {
+            customerService.register(randomWord(random, 6) + " " + randomWord(random, 8),
+                    randomWord(random, 10) + "@example.com", "PL" + randomWord(random, 5), "Skoda Octavia");
+        }
+
+        List<DuplicateCustomerFinder.Candidate> candidates = finder.find();
+        assertEquals(2, candidates.size(), "Candidate count mismatch.");
+        Map<Customer, Customer> found = new HashMap<>();
+        for (DuplicateCustomerFinder.Candidate candidate : candidates) {
+            found.put(candidate.getDuplicate(), candidate.getKeep());
+            assertTrue(candidate.getSimilarity() >= DuplicateCustomerFinder.FIELD_MATCH,
+                    "Candidate similarity mismatch.");
+        }
+        assertEquals(alice, found.get(aliceAgain), "Registered customer should be kept.");
+        assertEquals(bob, found.get(bobAgain), "Older customer should be kept.");
+    }
+
+    /**
+     * Test case for a merge removing the duplicate everywhere, registering
+     * the kept customer and pointing the duplicate's queued, blocked,
+     * assigned and unbilled tasks at its vehicle.
+     */
+    @Test
+    public void testMergeRepointsTasks() {
+        System.out.println("\n[TEST CASE: Merge Repoints Tasks]");
+        Customer walkIn = customerService.addUnregistered("Carol White", "carol@example.com", "GD 12345",
+                "Honda Civic");
+        Customer registered = customerService.register("Carol Whyte", "carol@example.com", "GD12346",
+                "Honda Civic");
+        Task queued = new Task("Oil change", "gd12346", 2);
+        taskQueue.addTask(queued);
+        Task other = new Task("Wipers", "GD12345", 1);
+        taskQueue.addTask(other);
+        Mechanic john = mechanicService.addMechanic("John");
+        Task assigned = new Task("Brakes", "GD-12346", 5);
+        john.assignTask(assigned);
+        TaskDependencyGraph dependencyGraph = new TaskDependencyGraph(taskQueue);
+        Task blocked = new Task("Alignment", "GD12346", 3);
+        dependencyGraph.addTask(blocked, List.of(queued));
+        finder.setDependencyGraph(dependencyGraph);
+        InvoiceLedger invoiceLedger = new InvoiceLedger();
+        Task unbilled = new Task("Tyres", "GD12346", 1);
+        unbilled.markAsCompleted();
+        invoiceLedger.taskCompleted(unbilled, john);
+        finder.setInvoiceLedger(invoiceLedger);
+
+        int repointed = finder.merge(walkIn, registered);
+        assertEquals(4, repointed, "Re-pointed task count mismatch.");
+        assertEquals("GD 12345", blocked.getVehicleDetails(), "Blocked task vehicle mismatch.");
+        assertEquals("GD 12345", unbilled.getVehicleDetails(), "Unbilled task vehicle mismatch.");
+        assertEquals("GD 12345", queued.getVehicleDetails(), "Queued task vehicle mismatch.");
+        assertEquals("GD 12345", assigned.getVehicleDetails(), "Assigned task vehicle mismatch.");
+        assertEquals("GD12345", other.getVehicleDetails(), "Unrelated task should be untouched.");
+        assertTrue(walkIn.isRegistered(), "Kept customer should become registered.");
+        assertEquals(List.of(walkIn), customerService.registeredCustomers(), "Registered list mismatch.");
+        assertTrue(customerService.unregisteredCustomers().isEmpty(), "Unregistered list should be empty.");
+        assertNull(repositories.customers().findById(registered.getId()), "Duplicate should be deleted.");
+        assertNull(customerService.findById(registered.getId()), "Duplicate should not be found by ID.");
+        assertNull(customerService.findByVehicleNumber("GD12346"), "Duplicate should not be found by vehicle.");
+        assertSame(walkIn, customerService.findByVehicleNumber("gd 12345"), "Kept customer should be found.");
+        assertEquals(1, customerService.getSegmentIndex().all().cardinality(), "Indexed customer count mismatch.");
+        assertEquals(-1, finder.merge(walkIn, registered), "Merging again should fail.");
+    }
+
+    // A random lower-case word, so filler customers do not resemble each other
+    private static String randomWord(Random random, int length) {
+        StringBuilder word = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            word.append((char) ('a' + random.nextInt(26)));
+        }
+        return word.toString();
+    }
+}
@@ -0,0 +1,66 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import jdk.jfr.Recording;
+
+/**
+ * Measures what the task queue events cost: the same add-and-take loop runs
+ * with no recording, with a recording that leaves the garage events at
+ * their disabled default, and with a recording that enables them. Not part
+ * of the unit test suite; run it on its own, e.g.
+ * {@code java FlightRecorderOverheadBenchmark 2000000}.
+ */
+public class FlightRecorderOverheadBenchmark {
+
+    // Tasks kept queued while adding and taking
+    private static final int BACKLOG = 1_000;
+
+    // Rounds per setting; the best one is reported
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) {
+        int operations = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        Random random = new Random(42);
+        List<Task> tasks = new ArrayList<>(operations);
+        for (int i = 0; i < operations; i++) {
+            tasks.add(new Task("Task " + i, "PL" + i, random.nextInt(10)));
+        }
+        System.out.println(operations + " add/take pairs per round, best of " + ROUNDS);
+        for (TaskQueue queue : List.of(new TaskQueue(), new BucketTaskQueue())) {
+            String name = queue.getClass().getName();
+            run(queue, tasks); // Warm up the JIT before measuring
+            System.out.printf("%-16s no recording     %6.1f ns/op%n", name, best(queue, tasks));
+            try (Recording recording = new Recording()) {
+                recording.start();
+                System.out.printf("%-16s events disabled  %6.1f ns/op%n", name, best(queue, tasks));
+                recording.enable(TaskQueueEvent.NAME).withoutThreshold();
+                System.out.printf("%-16s events enabled   %6.1f ns/op%n", name, best(queue, tasks));
+            }
+        }
+    }
+
+    private static double best(TaskQueue queue, List<Task> tasks) {
+        double best = Double.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            best = Math.min(best, run(queue, tasks));
+        }
+        return best;
+    }
+
+    // Runs one round and returns the time per queue operation in nanoseconds
+    private static double run(TaskQueue queue, List<Task> tasks) {
+        for (int i = 0; i < BACKLOG; i++) {
+            queue.addTask(tasks.get(i));
+        }
+        long started = System.nanoTime();
+        for (int i = BACKLOG; i < tasks.size(); i++) {
+            queue.addTask(tasks.get(i));
+            queue.getNextTask();
+        }
+        long elapsed = System.nanoTime() - started;
+        while (queue.getNextTask() != null) {
+            // Empty the queue for the next round
+        }
+        return elapsed / (2.0 * (tasks.size() - BACKLOG));
+    }
+}
@@ -0,0 +1,104 @@
+import org.junit.jupiter.api.*;
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import jdk.jfr.Recording;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit test class for the Flight Recorder events and the recording analyzer.
+ */
+public class FlightRecordingAnalyzerTest {
+    private Path recordingFile;
+
+    /**
+     * Set up a temporary file for the recording.
+     */
+    @BeforeEach
+    public void setUp() throws IOException {
+        recordingFile = Files.createTempFile("garage", ".jfr");
+    }
+
+    /**
+     * Delete the recording.
+     */
+    @AfterEach
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(recordingFile);
+    }
+
+    /**
+     * Test case for menu operations and queue changes being recorded and
+     * summarized per operation.
+     */
+    @Test
+    public void testSummarizesOperations() throws IOException {
+        System.out.println("\n[TEST CASE: Summarizes Operations]");
+        TaskQueue taskQueue = new TaskQueue();
+        BucketTaskQueue bucketQueue = new BucketTaskQueue();
+        Scanner scanner = new Scanner(new InputWaitTracker(new ByteArrayInputStream(
+                "1\nAlice\n12345\nABC123\nToyota Corolla\n2\n20\n".getBytes())));
+        ManagerModule managerModule = new ManagerModule(scanner, new ArrayList<>(), new ArrayList<>(),
+                new ArrayList<>(), taskQueue, new ArrayList<>());
+
+        try (Recording recording = new Recording()) {
+            recording.enable(OperationEvent.NAME).withoutThreshold();
+            recording.enable(TaskQueueEvent.NAME).withoutThreshold();
+            recording.start();
+            for (int i = 0; i < 10; i++) {
+                taskQueue.addTask(new Task("Task " + i, "V" + i, i));
+            }
+            taskQueue.addTasks(List.of(new Task("Wash", "V10", 1), new Task("Wax", "V11", 1)));
+            taskQueue.getNextTask();
+            bucketQueue.addTask(new Task("Tyres", "V12", 3));
+            bucketQueue.removeTask(new Task("Not queued", "V13", 3));
+            managerModule.managerMenu();
+            recording.stop();
+            recording.dump(recordingFile);
+        }
+
+        Map<String, FlightRecordingAnalyzer.Row> rows = new HashMap<>();
+        for (FlightRecordingAnalyzer.Row row : FlightRecordingAnalyzer.analyze(recordingFile)) {
+            rows.put(row.getOperation(), row);
+        }
+        assertEquals(10, rows.get("TaskQueue addTask (TaskQueue)").getCount(), "addTask count mismatch.");
+        assertEquals(12, rows.get("TaskQueue addTasks (TaskQueue)").getMaxQueued(), "Queue size mismatch.");
+        assertEquals(1, rows.get("TaskQueue getNextTask (TaskQueue)").getCount(), "getNextTask count mismatch.");
+        assertEquals(1, rows.get("TaskQueue removeTask (BucketTaskQueue)").getCount(), "removeTask count mismatch.");
+        FlightRecordingAnalyzer.Row register = rows.get("Manager registerCustomer");
+        assertNotNull(register, "Menu operation should be recorded.");
+        assertEquals(1, register.getCount(), "registerCustomer count mismatch.");
+        assertEquals(11, register.getMaxQueued(), "Queued tasks mismatch.");
+        assertTrue(register.workQuantileMillis(0.5) <= register.quantileMillis(0.5) * 1.02,
+                "Work should not exceed the operation time.");
+        assertTrue(rows.containsKey("Manager viewAllRegisteredCustomers"), "Listing should be recorded.");
+        assertTrue(Double.isNaN(rows.get("TaskQueue addTask (TaskQueue)").workQuantileMillis(0.5)),
+                "Queue events have no input wait.");
+
+        ByteArrayOutputStream table = new ByteArrayOutputStream();
+        FlightRecordingAnalyzer.print(FlightRecordingAnalyzer.analyze(recordingFile), new PrintStream(table));
+        assertTrue(table.toString().contains("Manager registerCustomer"), "Table should list the operation.");
+    }
+
+    /**
+     * Test case for the events being off unless a recording enables them.
+     */
+    @Test
+    public void testEventsDisabledByDefault() throws IOException {
+        System.out.println("\n[TEST CASE: Events Disabled By Default]");
+        TaskQueue taskQueue = new TaskQueue();
+        try (Recording recording = new Recording()) {
+            recording.start();
+            assertFalse(new TaskQueueEvent("addTask").isEnabled(), "Queue event should be disabled.");
+            assertFalse(new OperationEvent("Manager", "createTask").finish(), "Operation event should be disabled.");
+            taskQueue.addTask(new Task("Oil change", "ABC123", 1));
+            recording.stop();
+            recording.dump(recordingFile);
+        }
+        assertTrue(FlightRecordingAnalyzer.analyze(recordingFile).isEmpty(), "No events should be recorded.");
+        ByteArrayOutputStream table = new ByteArrayOutputStream();
+        FlightRecordingAnalyzer.print(List.of(), new PrintStream(table));
+        assertTrue(table.toString().startsWith("No garage events"), "Empty table message mismatch.");
+    }
+}
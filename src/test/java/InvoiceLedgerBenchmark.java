@@ -0,0 +1,77 @@
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Bills a day of completed tasks, each with labour and two parts, spread
+ * over a crew of mechanics, once on a single-threaded pool and once on the
+ * common fork/join pool. Invoice files go to a temporary directory that is
+ * removed afterwards. Not part of the unit test suite; run it on its own,
+ * e.g. {@code java InvoiceLedgerBenchmark 100000}.
+ */
+public class InvoiceLedgerBenchmark {
+
+    // Mechanics the completed tasks are spread over
+    private static final int MECHANICS = 20;
+
+    public static void main(String[] args) throws IOException {
+        int taskCount = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        List<Customer> customers = new ArrayList<>();
+        for (int id = 1; id <= taskCount / 2; id++) {
+            customers.add(new Customer(id, "Customer " + id, "555-" + id, "PL" + id, "Toyota Corolla", true));
+        }
+        System.out.println(taskCount + " tasks, " + MECHANICS + " mechanics, "
+                + Runtime.getRuntime().availableProcessors() + " cores");
+        ForkJoinPool single = new ForkJoinPool(1);
+        // Warm up the JIT before measuring
+        run(null, single, taskCount / 4, customers);
+        run(null, ForkJoinPool.commonPool(), taskCount / 4, customers);
+        run("One thread", single, taskCount, customers);
+        run("Fork/join", ForkJoinPool.commonPool(), taskCount, customers);
+        single.shutdown();
+    }
+
+    private static void run(String name, ForkJoinPool pool, int taskCount, List<Customer> customers)
+            throws IOException {
+        Random random = new Random(42);
+        InvoiceLedger ledger = new InvoiceLedger(InvoiceLedger.DEFAULT_LABOUR_RATE_CENTS,
+                InvoiceLedger.DEFAULT_TAX_BASIS_POINTS, pool, Clock.systemDefaultZone());
+        List<Mechanic> mechanics = new ArrayList<>();
+        for (int id = 1; id <= MECHANICS; id++) {
+            mechanics.add(new Mechanic("Mechanic " + id, id));
+        }
+        for (int i = 0; i < taskCount; i++) {
+            Task task = new Task("Service " + i, "PL" + (1 + random.nextInt(customers.size())), 1);
+            task.addLineItem(LineItem.labour(task.getDescription(), 15 + random.nextInt(120), 60_00));
+            task.addLineItem(LineItem.part("Oil filter", 1, 12_49));
+            task.addLineItem(LineItem.part("Engine oil", 4 + random.nextInt(2), 9_99));
+            ledger.taskCompleted(task, mechanics.get(random.nextInt(MECHANICS)));
+        }
+        Path directory = Files.createTempDirectory("invoice-benchmark");
+        try {
+            InvoiceLedger.Summary summary = ledger.runEndOfDay(directory, customers);
+            if (name != null) {
+                long bytes = 0;
+                for (Path file : summary.getFiles()) {
+                    bytes += Files.size(file);
+                }
+                System.out.printf("%-12s %8d ms %12.0f invoices/s %8d KiB, total %s%n", name, summary.getMillis(),
+                        summary.getInvoices() * 1000.0 / Math.max(1, summary.getMillis()), bytes / 1024,
+                        Money.format(summary.getTotalCents()));
+            }
+        } finally {
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+                for (Path file : files) {
+                    Files.delete(file);
+                }
+            }
+            Files.delete(directory);
+        }
+    }
+}
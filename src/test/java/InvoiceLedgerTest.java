@@ -0,0 +1,166 @@
+import org.junit.jupiter.api.*;
+import java.io.IOException;
+import java.nio.file.*;
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit test class for the InvoiceLedger, its line items and money amounts.
+ */
+public class InvoiceLedgerTest {
+    private Path directory;
+    private InvoiceLedger ledger;
+    private Mechanic john;
+    private Mechanic jane;
+
+    /**
+     * Create an invoice directory and a ledger with a fixed clock before
+     * each test.
+     */
+    @BeforeEach
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("invoices");
+        Clock clock = Clock.fixed(Instant.parse("2026-10-19T17:30:00Z"), ZoneOffset.UTC);
+        ledger = new InvoiceLedger(InvoiceLedger.DEFAULT_LABOUR_RATE_CENTS, 2_300, ForkJoinPool.commonPool(), clock);
+        john = new Mechanic("John", 1);
+        jane = new Mechanic("Jane", 2);
+    }
+
+    /**
+     * Delete the invoice files after each test.
+     */
+    @AfterEach
+    public void tearDown() throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                Files.deleteIfExists(file);
+            }
+        }
+        Files.deleteIfExists(directory);
+    }
+
+    /**
+     * Test case for line items, tax and totals being billed to the cent, with
+     * one file per mechanic and invoice numbers in mechanic order.
+     */
+    @Test
+    public void testEndOfDayRunBillsEveryTask() throws IOException {
+        System.out.println("\n[TEST CASE: End Of Day Run Bills Every Task]");
+        Task brakes = new Task("Fix brakes", "ABC123", 5);
+        brakes.addLineItem(LineItem.labour("Fix brakes", 50, 60_00)); // 50.00
+        brakes.addLineItem(LineItem.part("Brake pads", 2, 24_99)); // 49.98
+        Task oil = new Task("Oil change", "XYZ789", 2);
+        oil.addLineItem(LineItem.labour("Oil change", 7, 60_00)); // 7.00
+        oil.addLineItem(LineItem.part("Oil filter", 1, 3)); // 0.03
+        ledger.taskCompleted(oil, jane);
+        ledger.taskCompleted(brakes, john);
+        assertEquals(2, ledger.pendingCount(), "Pending task count mismatch.");
+
+        InvoiceLedger.Summary summary = ledger.runEndOfDay(directory,
+                List.of(new Customer(1, "Alice", "12345", "abc123", "Toyota Corolla", true)));
+
+        // Brakes: 99.98 + 23.00 tax (22.9954 rounded); oil: 7.03 + 1.62 tax (1.6169 rounded)
+        assertEquals(2, summary.getInvoices(), "Invoice count mismatch.");
+        assertEquals(99_98 + 23_00 + 7_03 + 1_62, summary.getTotalCents(), "Total mismatch.");
+        assertEquals(2, summary.getFiles().size(), "File count mismatch.");
+        String johns = Files.readString(summary.getFiles().get(0));
+        assertTrue(johns.startsWith("INVOICE 20261019-173000-1\n"), "First invoice number mismatch.");
+        assertTrue(johns.contains("Customer: Alice (ID 1)\n"), "Customer line mismatch.");
+        assertTrue(johns.contains("  Part: Brake pads, 2 x 24.99 = 49.98\n"), "Part line mismatch.");
+        assertTrue(johns.contains("Total: 122.98\n"), "Invoice total mismatch.");
+        String janes = Files.readString(summary.getFiles().get(1));
+        assertTrue(janes.startsWith("INVOICE 20261019-173000-2\n"), "Second invoice number mismatch.");
+        assertTrue(janes.contains("Tax at 23.00%: 1.62\n"), "Tax line mismatch.");
+        assertEquals(0, ledger.pendingCount(), "Billed tasks should not stay pending.");
+        assertEquals(0, ledger.runEndOfDay(directory, List.of()).getInvoices(), "Tasks should be billed once.");
+    }
+
+    /**
+     * Test case for tasks of a file that cannot be written staying pending
+     * for the next run.
+     */
+    @Test
+    public void testFailedFileKeepsTasksPending() throws IOException {
+        System.out.println("\n[TEST CASE: Failed File Keeps Tasks Pending]");
+        ledger.taskCompleted(new Task("Fix brakes", "ABC123", 5), john);
+        ledger.taskCompleted(new Task("Oil change", "XYZ789", 2), jane);
+        ledger.taskCompleted(new Task("Tyres", "XYZ789", 1), jane);
+        Path blocked = Files.createDirectory(directory.resolve("invoices-20261019-173000-mechanic-2.txt"));
+
+        assertThrows(IOException.class, () -> ledger.runEndOfDay(directory, List.of()));
+        assertEquals(2, ledger.pendingCount(), "Jane's tasks should stay pending.");
+        Files.delete(blocked);
+        assertEquals(2, ledger.runEndOfDay(directory, List.of()).getInvoices(), "Retry invoice count mismatch.");
+    }
+
+    /**
+     * Test case for invoice numbers carrying on in a new ledger writing to
+     * the same directory, and for an existing invoice file not being
+     * overwritten.
+     */
+    @Test
+    public void testInvoiceNumbersContinueAcrossRuns() throws IOException {
+        System.out.println("\n[TEST CASE: Invoice Numbers Continue Across Runs]");
+        ledger.taskCompleted(new Task("Fix brakes", "ABC123", 5), john);
+        ledger.taskCompleted(new Task("Oil change", "XYZ789", 2), jane);
+        Path janes = ledger.runEndOfDay(directory, List.of()).getFiles().get(1);
+        InvoiceLedger restarted = new InvoiceLedger(InvoiceLedger.DEFAULT_LABOUR_RATE_CENTS, 2_300,
+                ForkJoinPool.commonPool(), Clock.fixed(Instant.parse("2026-10-19T17:30:00Z"), ZoneOffset.UTC));
+
+        restarted.taskCompleted(new Task("Tyres", "XYZ789", 1), jane);
+        assertThrows(IOException.class, () -> restarted.runEndOfDay(directory, List.of()));
+        assertTrue(Files.readString(janes).startsWith("INVOICE 20261019-173000-2\n"),
+                "An existing invoice file should not be overwritten.");
+        assertEquals(1, restarted.pendingCount(), "Unwritten task should stay pending.");
+        try (DirectoryStream<Path> temporary = Files.newDirectoryStream(directory, "*.tmp")) {
+            assertFalse(temporary.iterator().hasNext(), "A failed file should leave nothing behind.");
+        }
+        InvoiceLedger later = new InvoiceLedger(InvoiceLedger.DEFAULT_LABOUR_RATE_CENTS, 2_300,
+                ForkJoinPool.commonPool(), Clock.fixed(Instant.parse("2026-10-19T18:00:00Z"), ZoneOffset.UTC));
+        later.taskCompleted(new Task("Tyres", "XYZ789", 1), jane);
+        String invoice = Files.readString(later.runEndOfDay(directory, List.of()).getFiles().get(0));
+        assertTrue(invoice.startsWith("INVOICE 20261019-180000-4\n"), "Invoice number should carry on.");
+    }
+
+    /**
+     * Test case for the ledger storing which tasks wait to be billed, and
+     * for restored tasks being billed like completed ones.
+     */
+    @Test
+    public void testUnbilledTasksAreStoredAndRestored() throws IOException {
+        System.out.println("\n[TEST CASE: Unbilled Tasks Are Stored And Restored]");
+        TaskRepository taskRepository = new InMemoryRepositories().tasks();
+        ledger.setTaskRepository(taskRepository);
+        Task brakes = new Task("Fix brakes", "ABC123", 5);
+        brakes.addLineItem(LineItem.part("Brake pads", 2, 24_99));
+        ledger.taskCompleted(brakes, john);
+        assertEquals(List.of(brakes), taskRepository.findUnbilled().get(1), "Stored unbilled tasks mismatch.");
+
+        InvoiceLedger restarted = new InvoiceLedger(InvoiceLedger.DEFAULT_LABOUR_RATE_CENTS, 2_300,
+                ForkJoinPool.commonPool(), Clock.fixed(Instant.parse("2026-10-19T18:00:00Z"), ZoneOffset.UTC));
+        restarted.restore(john, taskRepository.findUnbilled().get(1));
+        assertEquals(1, restarted.pendingCount(), "Restored task count mismatch.");
+
+        assertEquals(49_98 + 11_50, ledger.runEndOfDay(directory, List.of()).getTotalCents(), "Total mismatch.");
+        assertTrue(taskRepository.findUnbilled().isEmpty(), "Billed task should no longer be stored as unbilled.");
+    }
+
+    /**
+     * Test case for parsing and formatting amounts held as cents.
+     */
+    @Test
+    public void testMoneyAmounts() {
+        System.out.println("\n[TEST CASE: Money Amounts]");
+        assertEquals(2_499, Money.parseCents("24.99"), "Two decimals mismatch.");
+        assertEquals(2_450, Money.parseCents(" 24.5 "), "One decimal mismatch.");
+        assertEquals(2_400, Money.parseCents("24"), "Whole amount mismatch.");
+        assertThrows(NumberFormatException.class, () -> Money.parseCents("24.999"), "Three decimals accepted.");
+        assertThrows(NumberFormatException.class, () -> Money.parseCents("-5"), "Negative amount accepted.");
+        assertEquals("0.05", Money.format(5), "Small amount format mismatch.");
+        assertEquals("-12.30", Money.format(-1_230), "Negative amount format mismatch.");
+        assertEquals(1_50, LineItem.labour("Check", 1, 90_00).getAmountCents(), "Labour minute price mismatch.");
+    }
+}
@@ -120,6 +120,30 @@ public class ManagerModuleTest {
         assertEquals("Fix Engine", taskQueue.getTasksAsList().get(0).getDescription(), "Task description mismatch.");
     }
 
+    /**
+     * Test case for creating a task together with a booked service bay slot.
+     * Simulates user inputs and verifies that the slot is booked for the task.
+     */
+    @Test
+    public void testCreateTaskWithBayBooking() {
+        System.out.println("\n[TEST CASE: Create Task With Bay Booking]");
+        customers.add(new Customer(1, "Alice", "12345", "ABC123", "Toyota Corolla", true));
+        BayScheduler bayScheduler = new BayScheduler(1);
+
+        String simulatedInput = "1\nFix Engine\n5\nyes\n120\n2024-06-03 08:00\n";
+        scanner = new Scanner(new java.io.ByteArrayInputStream(simulatedInput.getBytes()));
+        managerModule = new ManagerModule(scanner, customers, unregisteredCustomers, manufacturers, taskQueue,
+                mechanics);
+        managerModule.setBayScheduler(bayScheduler);
+
+        managerModule.createTask();
+
+        assertEquals(1, taskQueue.getTasksAsList().size(), "Task queue size mismatch.");
+        List<Booking> bookings = bayScheduler.getBay(1).getBookings();
+        assertEquals(1, bookings.size(), "Booking count mismatch.");
+        assertSame(taskQueue.getTasksAsList().get(0), bookings.get(0).getTask(), "Booked task mismatch.");
+    }
+
     /**
      * Test case for assigning a task to a mechanic.
      * Simulates user inputs and verifies that the task is assigned correctly.
@@ -0,0 +1,87 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Measures nearest-mechanic queries and van moves on a fleet spread over a
+ * region about 110 by 140 km, against scanning every van for each query.
+ * Not part of the unit test suite; run it on its own, e.g.
+ * {@code java MobileFleetBenchmark 100000}.
+ */
+public class MobileFleetBenchmark {
+
+    // Mechanics returned per query
+    private static final int K = 3;
+
+    // Queries and moves per round
+    private static final int OPERATIONS = 20_000;
+
+    // Rounds per measurement; the best one is reported
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) {
+        int vanCount = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        Random random = new Random(42);
+        MobileFleet fleet = new MobileFleet();
+        List<Mechanic> mechanics = new ArrayList<>(vanCount);
+        GeoPoint[] locations = new GeoPoint[vanCount];
+        for (int i = 0; i < vanCount; i++) {
+            Mechanic mechanic = new Mechanic("Mechanic " + i, i + 1);
+            mechanics.add(mechanic);
+            locations[i] = randomPoint(random);
+            fleet.updateLocation(mechanic, locations[i]);
+        }
+        GeoPoint[] jobs = new GeoPoint[OPERATIONS];
+        GeoPoint[] moves = new GeoPoint[OPERATIONS];
+        for (int i = 0; i < OPERATIONS; i++) {
+            jobs[i] = randomPoint(random);
+            moves[i] = randomPoint(random);
+        }
+
+        System.out.println(vanCount + " vans, k = " + K + ", best of " + ROUNDS);
+        double query = Double.MAX_VALUE;
+        double move = Double.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            long started = System.nanoTime();
+            for (GeoPoint job : jobs) {
+                fleet.nearest(job, K, List.of());
+            }
+            query = Math.min(query, (System.nanoTime() - started) / 1_000.0 / OPERATIONS);
+            started = System.nanoTime();
+            for (int i = 0; i < OPERATIONS; i++) {
+                fleet.updateLocation(mechanics.get(i % vanCount), moves[(i + round) % OPERATIONS]);
+            }
+            move = Math.min(move, (System.nanoTime() - started) / 1_000.0 / OPERATIONS);
+        }
+        int scans = Math.max(1, OPERATIONS * 1_000 / vanCount / 10);
+        double scan = Double.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            long started = System.nanoTime();
+            for (int i = 0; i < scans; i++) {
+                scanNearest(jobs[i], locations);
+            }
+            scan = Math.min(scan, (System.nanoTime() - started) / 1_000.0 / scans);
+        }
+        System.out.printf("grid query     %10.2f us%n", query);
+        System.out.printf("van move       %10.2f us%n", move);
+        System.out.printf("full scan      %10.2f us%n", scan);
+    }
+
+    // The nearest van by looking at every one, as dispatch would without the grid
+    private static int scanNearest(GeoPoint job, GeoPoint[] locations) {
+        int nearest = -1;
+        double best = Double.MAX_VALUE;
+        for (int i = 0; i < locations.length; i++) {
+            double distance = job.distanceKm(locations[i]);
+            if (distance < best) {
+                best = distance;
+                nearest = i;
+            }
+        }
+        return nearest;
+    }
+
+    private static GeoPoint randomPoint(Random random) {
+        return new GeoPoint(52 + random.nextDouble(), 20 + random.nextDouble() * 2);
+    }
+}
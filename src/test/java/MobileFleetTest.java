@@ -0,0 +1,142 @@
+import org.junit.jupiter.api.*;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit test class for the mobile fleet's nearest-mechanic queries.
+ */
+public class MobileFleetTest {
+    private static final List<String> SKILLS = List.of("Tyres", "Electrical", "Brakes");
+
+    private MobileFleet fleet;
+
+    /**
+     * Set up an empty fleet.
+     */
+    @BeforeEach
+    public void setUp() {
+        fleet = new MobileFleet();
+    }
+
+    /**
+     * Test case for queries matching a scan of every van while vans keep
+     * moving, going off shift and changing skills.
+     */
+    @Test
+    public void testNearestMatchesFullScan() {
+        System.out.println("\n[TEST CASE: Nearest Matches Full Scan]");
+        Random random = new Random(42);
+        List<Mechanic> mechanics = new ArrayList<>();
+        Map<Mechanic, GeoPoint> locations = new HashMap<>();
+        Map<Mechanic, Set<String>> skills = new HashMap<>();
+        Set<Mechanic> offShift = new HashSet<>();
+        for (int i = 0; i < 2_000; i++) {
+            Mechanic mechanic = new Mechanic("Mechanic " + i, i + 1);
+            mechanics.add(mechanic);
+            Set<String> own = new HashSet<>();
+            for (String skill : SKILLS) {
+                if (random.nextBoolean()) {
+                    own.add(skill.toLowerCase());
+                }
+            }
+            skills.put(mechanic, own);
+            fleet.setSkills(mechanic, own);
+            GeoPoint location = randomPoint(random);
+            locations.put(mechanic, location);
+            fleet.updateLocation(mechanic, location);
+        }
+        for (int round = 0; round < 200; round++) {
+            for (int move = 0; move < 50; move++) {
+                Mechanic mechanic = mechanics.get(random.nextInt(mechanics.size()));
+                GeoPoint from = locations.get(mechanic);
+                GeoPoint to = new GeoPoint(from.getLatitude() + (random.nextDouble() - 0.5) * 0.1,
+                        from.getLongitude() + (random.nextDouble() - 0.5) * 0.1);
+                locations.put(mechanic, to);
+                fleet.updateLocation(mechanic, to);
+            }
+            Mechanic toggled = mechanics.get(random.nextInt(mechanics.size()));
+            if (!offShift.remove(toggled)) {
+                offShift.add(toggled);
+            }
+            fleet.setAvailable(toggled, !offShift.contains(toggled));
+
+            GeoPoint job = randomPoint(random);
+            List<String> required = random.nextBoolean() ? List.of() : List.of(SKILLS.get(random.nextInt(3)));
+            int k = 1 + random.nextInt(5);
+            List<Mechanic> expected = new ArrayList<>();
+            for (Mechanic mechanic : mechanics) {
+                if (!offShift.contains(mechanic) && skills.get(mechanic).containsAll(lowerCase(required))) {
+                    expected.add(mechanic);
+                }
+            }
+            expected.sort(Comparator.comparingDouble(mechanic -> job.distanceKm(locations.get(mechanic))));
+            List<MobileFleet.Candidate> found = fleet.nearest(job, k, required);
+            assertEquals(Math.min(k, expected.size()), found.size(), "Candidate count mismatch.");
+            for (int i = 0; i < found.size(); i++) {
+                assertEquals(job.distanceKm(locations.get(expected.get(i))), found.get(i).getDistanceKm(), 1e-9,
+                        "Distance of candidate " + i + " mismatch in round " + round + ".");
+            }
+        }
+    }
+
+    /**
+     * Test case for mobile jobs taking a mechanic out of dispatch until they
+     * complete it at the job site, and for a fleet spread far apart.
+     */
+    @Test
+    public void testJobsUpdateAvailabilityAndLocation() {
+        System.out.println("\n[TEST CASE: Jobs Update Availability And Location]");
+        Mechanic warsaw = new Mechanic("Anna", 1);
+        Mechanic krakow = new Mechanic("Piotr", 2);
+        Mechanic lisbon = new Mechanic("Joao", 3);
+        fleet.updateLocation(warsaw, new GeoPoint(52.2297, 21.0122));
+        fleet.updateLocation(krakow, new GeoPoint(50.0647, 19.9450));
+        fleet.updateLocation(lisbon, new GeoPoint(38.7223, -9.1393));
+        fleet.setSkills(krakow, List.of(" TYRES "));
+        GeoPoint lodz = new GeoPoint(51.7592, 19.4560);
+
+        List<MobileFleet.Candidate> nearest = fleet.nearest(lodz, 3, List.of());
+        assertEquals(List.of(warsaw, krakow, lisbon), mechanicsOf(nearest), "Nearest order mismatch.");
+        assertEquals(119, nearest.get(0).getDistanceKm(), 2, "Lodz to Warsaw distance mismatch.");
+
+        Task flatTyre = new Task(new ServiceType("TYRE", "Tyre change", 45, List.of("Tyres"), List.of()),
+                "WA12345", 5);
+        flatTyre.setLocation(lodz);
+        assertEquals(List.of(krakow), mechanicsOf(fleet.nearestFor(flatTyre, 3)), "Qualified mechanic mismatch.");
+        fleet.taskAssigned(flatTyre, krakow);
+        assertTrue(fleet.nearestFor(flatTyre, 3).isEmpty(), "Busy mechanic should not be suggested.");
+        fleet.taskCompleted(flatTyre, krakow);
+        assertEquals(lodz, fleet.locationOf(krakow), "Van should be at the job site.");
+        assertEquals(List.of(krakow, warsaw), mechanicsOf(fleet.nearest(lodz, 2, List.of())),
+                "Nearest order after the job mismatch.");
+
+        Task inShop = new Task("Oil change", "WA12345", 1);
+        fleet.taskAssigned(inShop, warsaw);
+        fleet.setAvailable(krakow, false);
+        assertEquals(List.of(warsaw, lisbon), mechanicsOf(fleet.nearest(lodz, 5, List.of())),
+                "In-shop work should not affect dispatch.");
+        assertTrue(fleet.nearestFor(inShop, 3).isEmpty(), "In-shop task should get no suggestions.");
+        assertEquals(3, fleet.size(), "Van count mismatch.");
+    }
+
+    private static GeoPoint randomPoint(Random random) {
+        return new GeoPoint(52 + random.nextDouble(), 20.5 + random.nextDouble() * 1.5);
+    }
+
+    private static List<String> lowerCase(List<String> skills) {
+        List<String> lower = new ArrayList<>();
+        for (String skill : skills) {
+            lower.add(skill.toLowerCase());
+        }
+        return lower;
+    }
+
+    private static List<Mechanic> mechanicsOf(List<MobileFleet.Candidate> candidates) {
+        List<Mechanic> mechanics = new ArrayList<>();
+        for (MobileFleet.Candidate candidate : candidates) {
+            mechanics.add(candidate.getMechanic());
+        }
+        return mechanics;
+    }
+}
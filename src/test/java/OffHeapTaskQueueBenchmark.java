@@ -0,0 +1,71 @@
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+
+/**
+ * Compares the heap footprint and full-GC pause of a large backlog held in
+ * the default TaskQueue against the same backlog in an OffHeapTaskQueue.
+ * Not part of the unit test suite; run it on its own with a fixed heap, e.g.
+ * {@code java -Xms4g -Xmx4g OffHeapTaskQueueBenchmark 2000000}.
+ */
+public class OffHeapTaskQueueBenchmark {
+
+    // Typical job descriptions of a tyre-change campaign
+    private static final String[] DESCRIPTIONS = { "Tyre change", "Wheel balancing", "Tyre storage",
+            "Oil change", "Brake check" };
+
+    public static void main(String[] args) {
+        int tasks = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        System.out.println("Backlog of " + tasks + " tasks");
+        run("TaskQueue (on-heap)", new TaskQueue(), tasks);
+        run("OffHeapTaskQueue", new OffHeapTaskQueue(new OffHeapTaskStore()), tasks);
+    }
+
+    private static void run(String name, TaskQueue queue, int tasks) {
+        long baseline = usedHeapAfterGc();
+        Random random = new Random(1);
+        long start = System.nanoTime();
+        for (int i = 0; i < tasks; i++) {
+            String plate = "PL" + (i % 50_000);
+            queue.addTask(new Task(DESCRIPTIONS[i % DESCRIPTIONS.length], plate, random.nextInt(10)));
+        }
+        long fillMillis = (System.nanoTime() - start) / 1_000_000;
+
+        long footprint = usedHeapAfterGc() - baseline;
+        long pause = fullGcPauseMillis();
+
+        start = System.nanoTime();
+        while (!queue.isEmpty()) {
+            queue.getNextTask();
+        }
+        long drainMillis = (System.nanoTime() - start) / 1_000_000;
+
+        System.out.printf("%-20s heap %6d MB | full GC pause %5d ms | fill %6d ms | drain %6d ms%n", name,
+                footprint / (1024 * 1024), pause, fillMillis, drainMillis);
+    }
+
+    // Runs a few full collections and returns the longest one
+    private static long fullGcPauseMillis() {
+        long longest = 0;
+        for (int i = 0; i < 3; i++) {
+            long before = totalGcMillis();
+            System.gc();
+            longest = Math.max(longest, totalGcMillis() - before);
+        }
+        return longest;
+    }
+
+    private static long totalGcMillis() {
+        long total = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(0, collector.getCollectionTime());
+        }
+        return total;
+    }
+
+    private static long usedHeapAfterGc() {
+        System.gc();
+        System.gc();
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+}
@@ -0,0 +1,148 @@
+import org.junit.jupiter.api.*;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit test class for OffHeapTaskQueue and the OffHeapTaskStore behind it.
+ */
+public class OffHeapTaskQueueTest {
+    private OffHeapTaskStore store;
+    private OffHeapTaskQueue taskQueue;
+
+    /**
+     * Set up an empty off-heap queue before each test.
+     */
+    @BeforeEach
+    public void setUp() {
+        store = new OffHeapTaskStore();
+        taskQueue = new OffHeapTaskQueue(store);
+    }
+
+    /**
+     * Test case for tasks coming back out in priority order with their data.
+     */
+    @Test
+    public void testTasksComeOutByPriority() {
+        System.out.println("\n[TEST CASE: Off-Heap Tasks Come Out By Priority]");
+        Random random = new Random(7);
+        for (int i = 0; i < 10_000; i++) {
+            taskQueue.addTask(new Task("Oil change", "CAR" + (i % 100), random.nextInt(10)));
+        }
+
+        int previous = Integer.MAX_VALUE;
+        for (int i = 0; i < 10_000; i++) {
+            Task task = taskQueue.getNextTask();
+            assertTrue(task.getPriority() <= previous, "Tasks out of order.");
+            assertEquals("Oil change", task.getDescription(), "Description mismatch.");
+            assertEquals("Pending", task.getStatus(), "Status mismatch.");
+            previous = task.getPriority();
+        }
+        assertTrue(taskQueue.isEmpty(), "Queue should be empty.");
+        assertEquals(0, store.size(), "All records should be freed.");
+    }
+
+    /**
+     * Test case for removing a task read from the listing, as assignTasks does.
+     */
+    @Test
+    public void testRemoveListedTask() {
+        System.out.println("\n[TEST CASE: Remove Listed Off-Heap Task]");
+        taskQueue.addTask(new Task("Wash", "ABC123", 1));
+        taskQueue.addTask(new Task("Fix brakes", "XYZ789", 9));
+        taskQueue.addTask(new Task("Oil change", "LMN456", 5));
+
+        Task listed = taskQueue.getTasksAsList().get(1);
+        assertEquals("Oil change", listed.getDescription(), "Listed task mismatch.");
+        taskQueue.removeTask(listed);
+        taskQueue.removeTask(listed);
+
+        assertEquals(2, taskQueue.size(), "Queue size mismatch.");
+        assertEquals("Fix brakes", taskQueue.getNextTask().getDescription(), "First task mismatch.");
+        assertEquals("Wash", taskQueue.getNextTask().getDescription(), "Second task mismatch.");
+    }
+
+    /**
+     * Test case for a stale task not removing the task that reused its record.
+     */
+    @Test
+    public void testStaleHandleIsIgnored() {
+        System.out.println("\n[TEST CASE: Stale Off-Heap Handle Is Ignored]");
+        taskQueue.addTask(new Task("Wash", "ABC123", 1));
+        Task stale = taskQueue.getTasksAsList().get(0);
+        taskQueue.getNextTask();
+        taskQueue.addTask(new Task("Tyres", "QRS111", 3));
+
+        taskQueue.removeTask(stale);
+
+        assertEquals(1, taskQueue.size(), "Reused record should survive.");
+        assertEquals("Tyres", taskQueue.getTasksAsList().get(0).getDescription(), "Remaining task mismatch.");
+    }
+
+    /**
+     * Test case for the tasks rebuilt from their records being equal to the
+     * queued ones, so that the dependency graph sees a prerequisite being
+     * completed and a listed copy can be removed again.
+     */
+    @Test
+    public void testQueuedTasksKeepTheirIdentity() {
+        System.out.println("\n[TEST CASE: Off-Heap Tasks Keep Their Identity]");
+        TaskDependencyGraph dependencyGraph = new TaskDependencyGraph(taskQueue);
+        Task diagnose = new Task("Diagnose", "ABC123", 5);
+        Task repair = new Task("Repair", "ABC123", 9);
+        dependencyGraph.addTask(diagnose, List.of());
+        dependencyGraph.addTask(repair, List.of(diagnose));
+
+        Task listed = taskQueue.getTasksAsList().get(0);
+        assertNotSame(diagnose, listed, "Listed task should be rebuilt from its record.");
+        assertEquals(diagnose, listed, "Listed task should equal the queued one.");
+        assertEquals(diagnose.getId(), listed.getId(), "Task ID mismatch.");
+        Task next = taskQueue.getNextTask();
+        assertEquals(diagnose, next, "Next task should equal the queued one.");
+        next.markAsCompleted();
+        dependencyGraph.taskCompleted(next, new Mechanic("Anna", 1));
+        Task released = taskQueue.getTasksAsList().get(0);
+        assertEquals(repair, released, "Completing the prerequisite should release its dependent.");
+        assertTrue(taskQueue.removeTask(released), "A listed copy should remove the queued task.");
+        assertEquals(0, taskQueue.size(), "Queue should be empty.");
+    }
+
+    /**
+     * Test case for a change to a queued task reaching its record.
+     */
+    @Test
+    public void testUpdateTaskRewritesRecord() {
+        System.out.println("\n[TEST CASE: Update Task Rewrites Record]");
+        Task task = new Task("Brakes", "ABC123", 5);
+        taskQueue.addTask(task);
+        task.setVehicleDetails("XYZ789");
+        assertEquals("ABC123", taskQueue.getTasksAsList().get(0).getVehicleDetails(), "Record should be a copy.");
+
+        taskQueue.updateTask(task);
+
+        assertEquals("XYZ789", taskQueue.getNextTask().getVehicleDetails(), "Updated vehicle mismatch.");
+    }
+
+    /**
+     * Test case for records keeping the catalog job and job location, and
+     * refusing tasks they have no room for.
+     */
+    @Test
+    public void testRecordKeepsCatalogJobAndLocation() {
+        System.out.println("\n[TEST CASE: Off-Heap Record Keeps Catalog Job And Location]");
+        ServiceType oilChange = ServiceCatalog.standard().types().get(0);
+        Task task = new Task(oilChange, "ABC123", 4);
+        task.setLocation(new GeoPoint(51.5, -0.12));
+        Task loaded = store.load(store.store(task));
+
+        assertSame(oilChange, loaded.getServiceType(), "Service type mismatch.");
+        assertEquals(oilChange.getDescription(), loaded.getDescription(), "Description mismatch.");
+        assertEquals(new GeoPoint(51.5, -0.12), loaded.getLocation(), "Location mismatch.");
+        assertNull(store.load(store.store(new Task("Wash", "XYZ789", 1))).getLocation(), "Shop job mismatch.");
+
+        Task assigned = new Task("Brakes", "LMN456", 7);
+        assigned.markAsAssigned();
+        assertThrows(IllegalArgumentException.class, () -> store.store(assigned),
+                "Assigned task should be refused.");
+    }
+}
@@ -0,0 +1,74 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Measures how long a mechanic waits for part availability across five
+ * stub suppliers that answer in about 40 ms and take 20 times as long once
+ * in 50 calls: asking them one after another, asking them all at once
+ * without hedging, asking them all at once with hedging, and answering from
+ * the cache. Not part of the unit test suite; run it on its own, e.g.
+ * {@code java PartAvailabilityBenchmark 200}.
+ */
+public class PartAvailabilityBenchmark {
+
+    // Suppliers of the manufacturer
+    private static final int SUPPLIERS = 5;
+
+    public static void main(String[] args) {
+        int checks = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        StubSupplierClient client = new StubSupplierClient();
+        List<PartsSupplier> suppliers = new ArrayList<>();
+        for (int i = 0; i < SUPPLIERS; i++) {
+            suppliers.add(new PartsSupplier("Supplier " + i));
+        }
+        System.out.println(checks + " checks of " + SUPPLIERS + " suppliers, each for a different part");
+
+        DurationSketch sequential = new DurationSketch();
+        for (int i = 0; i < Math.max(1, checks / 5); i++) {
+            long started = System.nanoTime();
+            for (PartsSupplier supplier : suppliers) {
+                try {
+                    client.checkAvailability(supplier, "Sequential part " + i);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+            sequential.record((System.nanoTime() - started) / 1e9);
+        }
+        print("one after another", sequential, 0, 0);
+
+        try (PartAvailability unhedged = new PartAvailability(client)) {
+            unhedged.setHedging(false);
+            run("all at once", unhedged, suppliers, checks, "Unhedged part ");
+        }
+        try (PartAvailability hedged = new PartAvailability(client)) {
+            run("all at once, hedged", hedged, suppliers, checks, "Hedged part ");
+            DurationSketch cached = new DurationSketch();
+            for (int i = 0; i < checks; i++) {
+                long started = System.nanoTime();
+                hedged.check(suppliers, "Hedged part " + i, hedged.getBudget());
+                cached.record((System.nanoTime() - started) / 1e9);
+            }
+            print("from the cache", cached, 0, 0);
+        }
+    }
+
+    private static void run(String name, PartAvailability availability, List<PartsSupplier> suppliers, int checks,
+            String part) {
+        DurationSketch latency = new DurationSketch();
+        int unanswered = 0;
+        for (int i = 0; i < checks; i++) {
+            long started = System.nanoTime();
+            PartAvailability.Result result = availability.check(suppliers, part + i, availability.getBudget());
+            latency.record((System.nanoTime() - started) / 1e9);
+            unanswered += result.getUnanswered().size();
+        }
+        print(name, latency, unanswered, availability.getSupplierCalls() - checks * SUPPLIERS);
+    }
+
+    private static void print(String name, DurationSketch latency, int unanswered, long extraCalls) {
+        System.out.printf("%-22s p50 %8.3f ms  p99 %8.3f ms  max %8.3f ms  unanswered %3d  extra calls %4d%n",
+                name, latency.quantile(0.5) * 1e3, latency.quantile(0.99) * 1e3, latency.quantile(1) * 1e3,
+                unanswered, extraCalls);
+    }
+}
@@ -0,0 +1,127 @@
+import org.junit.jupiter.api.*;
+import java.io.IOException;
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit test class for checking part availability across suppliers.
+ */
+public class PartAvailabilityTest {
+    private PartAvailability availability;
+
+    /**
+     * Stop the supplier call threads.
+     */
+    @AfterEach
+    public void tearDown() {
+        if (availability != null) {
+            availability.close();
+        }
+    }
+
+    /**
+     * Test case for slow calls being hedged, failed calls repeated and
+     * suppliers that miss the budget being reported as unanswered.
+     */
+    @Test
+    public void testHedgesAndAnswersWithinBudget() {
+        System.out.println("\n[TEST CASE: Hedges And Answers Within Budget]");
+        PartsSupplier fast = new PartsSupplier("Fast");
+        PartsSupplier hedged = new PartsSupplier("Hedged");
+        PartsSupplier down = new PartsSupplier("Down");
+        PartsSupplier slow = new PartsSupplier("Slow");
+        AtomicInteger hedgedCalls = new AtomicInteger();
+        availability = new PartAvailability((supplier, part) -> {
+            switch (supplier.getName()) {
+                case "Fast":
+                    return new PartQuote(supplier, part, 2, 9_900, 48);
+                case "Hedged":
+                    if (hedgedCalls.incrementAndGet() == 1) {
+                        Thread.sleep(5_000); // Stuck until the hedged call wins
+                    }
+                    return new PartQuote(supplier, part, 5, 12_500, 4);
+                case "Down":
+                    throw new IOException("Service unavailable");
+                default:
+                    Thread.sleep(5_000);
+                    return new PartQuote(supplier, part, 1, 100, 1);
+            }
+        });
+        availability.setHedgeDelay(Duration.ofMillis(30));
+        availability.setCallTimeout(Duration.ofMillis(300));
+
+        PartAvailability.Result result = availability.check(List.of(fast, hedged, down, slow), "Brake pads",
+                Duration.ofMillis(600));
+        assertEquals(2, result.getQuotes().size(), "Answer count mismatch.");
+        assertEquals(List.of(down, slow), result.getUnanswered(), "Unanswered suppliers mismatch.");
+        assertTrue(result.getElapsedMillis() < 2_000, "Check should not wait for the stuck calls.");
+        assertEquals(2, hedgedCalls.get(), "Calls to the hedged supplier mismatch.");
+        assertEquals(3, availability.getHedgedCalls(), "Hedged and repeated call count mismatch.");
+        assertEquals(fast, result.cheapest().getSupplier(), "Cheapest supplier mismatch.");
+        assertEquals(hedged, result.fastest().getSupplier(), "Fastest supplier mismatch.");
+        assertNull(result.quoteFrom(slow), "Slow supplier should have no quote.");
+    }
+
+    /**
+     * Test case for answers being reused until they expire and for checks
+     * running at the same time sharing their supplier calls.
+     */
+    @Test
+    public void testCachesAndSharesCalls() throws Exception {
+        System.out.println("\n[TEST CASE: Caches And Shares Calls]");
+        AtomicLong millis = new AtomicLong();
+        Clock clock = new Clock() {
+            @Override
+            public ZoneId getZone() {
+                return ZoneOffset.UTC;
+            }
+
+            @Override
+            public Clock withZone(ZoneId zone) {
+                return this;
+            }
+
+            @Override
+            public Instant instant() {
+                return Instant.ofEpochMilli(millis.get());
+            }
+        };
+        AtomicInteger calls = new AtomicInteger();
+        availability = new PartAvailability((supplier, part) -> {
+            calls.incrementAndGet();
+            Thread.sleep(100);
+            return new PartQuote(supplier, part, 0, 0, 0);
+        }, clock);
+        availability.setHedging(false);
+        availability.setCacheTtl(Duration.ofSeconds(30));
+        Manufacturer manufacturer = new Manufacturer("Toyota");
+        manufacturer.addPartsSupplier(new PartsSupplier("Supplier1"));
+        manufacturer.addPartsSupplier(new PartsSupplier("Supplier2"));
+        manufacturer.addPartsSupplier(new PartsSupplier("Supplier3"));
+
+        ExecutorService mechanics = Executors.newFixedThreadPool(4);
+        List<Future<PartAvailability.Result>> checks = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            checks.add(mechanics.submit(() -> availability.check(manufacturer, "Oil filter")));
+        }
+        for (Future<PartAvailability.Result> check : checks) {
+            assertEquals(3, check.get().getQuotes().size(), "Answer count mismatch.");
+        }
+        mechanics.shutdown();
+        assertEquals(3, calls.get(), "Concurrent checks should share calls.");
+
+        PartAvailability.Result cached = availability.check(manufacturer, " OIL FILTER ");
+        assertEquals(3, cached.getCacheHits(), "Cache hit count mismatch.");
+        assertEquals(3, calls.get(), "Cached answers should not call suppliers.");
+        assertNull(cached.cheapest(), "Out of stock parts should have no cheapest supplier.");
+
+        millis.addAndGet(30_001);
+        PartAvailability.Result expired = availability.check(manufacturer, "Oil filter");
+        assertEquals(0, expired.getCacheHits(), "Expired answers should not be reused.");
+        assertEquals(6, calls.get(), "Call count after expiry mismatch.");
+    }
+}
@@ -0,0 +1,103 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Matches a recall list against a customer base with the RecallCampaign hash
+ * join, on one thread and on the common fork/join pool, and compares it with
+ * checking every recall against every customer. The nested loop runs on a
+ * sample of the customers and is scaled up, since the full product would
+ * take far too long. Also times creating the recall tasks in bulk. Not part
+ * of the unit test suite; run it on its own, e.g.
+ * {@code java RecallCampaignBenchmark 1000000 10000}.
+ */
+public class RecallCampaignBenchmark {
+
+    // Manufacturers and their models in the generated customer base
+    private static final String[][] MAKES = {
+            { "Toyota", "Corolla", "Yaris", "RAV4", "Camry", "Prius" },
+            { "Honda", "Civic", "Jazz", "Accord", "CR-V" },
+            { "Ford", "Focus", "Fiesta", "Kuga", "Mondeo" },
+            { "Volkswagen", "Golf", "Polo", "Passat", "Tiguan" },
+            { "Skoda", "Octavia", "Fabia", "Superb" },
+    };
+
+    // One in this many recalls covers a whole model; the rest are limited to vehicle number ranges
+    private static final int WHOLE_MODEL_EVERY = 1_000;
+
+    // Customers checked by the nested loop
+    private static final int NESTED_LOOP_SAMPLE = 2_000;
+
+    public static void main(String[] args) {
+        int customerCount = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int recallCount = args.length > 1 ? Integer.parseInt(args[1]) : 10_000;
+        Random random = new Random(42);
+        List<Customer> customers = new ArrayList<>(customerCount);
+        for (int id = 1; id <= customerCount; id++) {
+            String[] make = MAKES[random.nextInt(MAKES.length)];
+            customers.add(new Customer(id, "Customer " + id, "555-" + id, "PL" + random.nextInt(10_000_000),
+                    make[0] + " " + make[1 + random.nextInt(make.length - 1)], true));
+        }
+        List<RecallEntry> recalls = new ArrayList<>(recallCount);
+        for (int i = 0; i < recallCount; i++) {
+            String[] make = MAKES[random.nextInt(MAKES.length)];
+            int first = random.nextInt(10_000_000);
+            String last = "PL" + (first + random.nextInt(500));
+            if (i % WHOLE_MODEL_EVERY == 0) {
+                recalls.add(new RecallEntry(make[0], make[1 + random.nextInt(make.length - 1)], null, null,
+                        "Recall " + i, 3));
+            } else if (random.nextBoolean()) {
+                recalls.add(new RecallEntry(make[0], make[1 + random.nextInt(make.length - 1)], "PL" + first, last,
+                        "Recall " + i, 3));
+            } else {
+                recalls.add(new RecallEntry(make[0], null, "PL" + first, last, "Recall " + i, 3));
+            }
+        }
+        System.out.println(customerCount + " customers x " + recallCount + " recalls on "
+                + Runtime.getRuntime().availableProcessors() + " cores");
+
+        ForkJoinPool single = new ForkJoinPool(1);
+        RecallCampaign sequential = new RecallCampaign(recalls, single);
+        RecallCampaign parallel = new RecallCampaign(recalls);
+        // Warm up the JIT before measuring
+        for (int i = 0; i < 3; i++) {
+            sequential.match(customers.subList(0, customerCount / 10));
+            parallel.match(customers.subList(0, customerCount / 10));
+        }
+
+        long start = System.nanoTime();
+        long nestedMatches = 0;
+        for (Customer customer : customers.subList(0, Math.min(NESTED_LOOP_SAMPLE, customerCount))) {
+            for (RecallEntry recall : recalls) {
+                if (recall.matches(customer)) {
+                    nestedMatches++;
+                }
+            }
+        }
+        double nested = seconds(start) * customerCount / Math.min(NESTED_LOOP_SAMPLE, customerCount);
+        start = System.nanoTime();
+        int sequentialMatches = sequential.match(customers).size();
+        double oneThread = seconds(start);
+        start = System.nanoTime();
+        List<RecallCampaign.Match> matches = parallel.match(customers);
+        double forkJoin = seconds(start);
+        start = System.nanoTime();
+        parallel.createTasks(matches, new TaskQueue(), new TaskEvents());
+        double tasks = seconds(start);
+        single.shutdown();
+        if (sequentialMatches != matches.size()) {
+            throw new IllegalStateException("Sequential and parallel joins disagree.");
+        }
+
+        System.out.printf("%-32s %10.2f s (%d matches in the sample)%n", "Nested loop, extrapolated", nested,
+                nestedMatches);
+        System.out.printf("%-32s %10.3f s%n", "Hash join, one thread", oneThread);
+        System.out.printf("%-32s %10.3f s (%d matches)%n", "Hash join, fork/join", forkJoin, matches.size());
+        System.out.printf("%-32s %10.3f s%n", "Creating recall tasks", tasks);
+    }
+
+    private static double seconds(long from) {
+        return (System.nanoTime() - from) / 1e9;
+    }
+}
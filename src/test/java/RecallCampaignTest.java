@@ -0,0 +1,187 @@
+import org.junit.jupiter.api.*;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit test class for the RecallCampaign and its recall entries.
+ */
+public class RecallCampaignTest {
+
+    /**
+     * Test case for recalls matching by model, by manufacturer and by vehicle
+     * number range, and for the matches becoming queued recall tasks.
+     */
+    @Test
+    public void testRecallsMatchModelsAndRanges() {
+        System.out.println("\n[TEST CASE: Recalls Match Models And Ranges]");
+        Customer alice = new Customer(1, "Alice", "1", "PL150", "Toyota Corolla", true);
+        Customer bob = new Customer(2, "Bob", "2", "PL2", "toyota corolla ", true);
+        Customer carol = new Customer(3, "Carol", "3", "PL999", "Toyota Yaris", false);
+        Customer dave = new Customer(4, "Dave", "4", "xy-150", "Honda Civic", true);
+        Customer erin = new Customer(5, "Erin", "5", "PL500", null, true);
+        RecallEntry airbag = new RecallEntry("Toyota", "Corolla", null, null, "Airbag", 5);
+        RecallEntry brakes = new RecallEntry("Toyota", "", "PL100", "PL1500", "Brake line", 3);
+        RecallEntry pump = new RecallEntry("Honda", "Honda Civic", "XY100", "XY200", "Fuel pump", 4);
+        RecallEntry software = new RecallEntry("Honda", null, null, null, "Software update", 1);
+        RecallCampaign campaign = new RecallCampaign(List.of(airbag, brakes, pump, software));
+
+        List<RecallCampaign.Match> matches = campaign.match(List.of(alice, bob, carol, dave, erin));
+
+        assertEquals(Set.of("Alice:Airbag", "Alice:Brake line", "Bob:Airbag", "Carol:Brake line", "Dave:Fuel pump",
+                "Dave:Software update"), keys(matches), "Matched recalls mismatch.");
+        TaskQueue taskQueue = new TaskQueue();
+        List<Task> created = new ArrayList<>();
+        TaskEvents taskEvents = new TaskEvents();
+        taskEvents.addListener(new TaskLifecycleListener() {
+            @Override
+            public void taskCreated(Task task) {
+                created.add(task);
+            }
+        });
+        campaign.createTasks(matches, taskQueue, taskEvents);
+        assertEquals(6, taskQueue.size(), "Queued recall task count mismatch.");
+        assertEquals(6, created.size(), "Reported task count mismatch.");
+        assertEquals("Recall: Airbag", taskQueue.getNextTask().getDescription(), "Most urgent recall mismatch.");
+    }
+
+    /**
+     * Test case for a vehicle number range only matching plates with its own
+     * prefix, and rejecting ranges whose ends have different prefixes.
+     */
+    @Test
+    public void testRangesMatchOnlyTheirPrefix() {
+        System.out.println("\n[TEST CASE: Ranges Match Only Their Prefix]");
+        RecallEntry brakes = new RecallEntry("Toyota", null, "PL100", "PL1500", "Brake line", 3);
+        List<Customer> customers = new ArrayList<>();
+        String[] plates = { "PL999", "pl-0150", "ZZ999", "AB1234", "PL2", "PLX500", "PL", "P1000" };
+        for (int i = 0; i < plates.length; i++) {
+            customers.add(new Customer(i + 1, plates[i], "", plates[i], "Toyota Yaris", true));
+        }
+
+        List<RecallCampaign.Match> matches = new RecallCampaign(List.of(brakes)).match(customers);
+
+        assertEquals(Set.of("PL999:Brake line", "pl-0150:Brake line"), keys(matches), "Matched plates mismatch.");
+        assertFalse(brakes.inRange("ZZ999"), "A plate with another prefix should not be in range.");
+        assertFalse(brakes.inRange("AB1234"), "A plate with another prefix should not be in range.");
+        assertThrows(IllegalArgumentException.class,
+                () -> new RecallEntry("Toyota", null, "PL100", "ZZ200", "Brake line", 3));
+        assertThrows(IllegalArgumentException.class,
+                () -> new RecallEntry("Toyota", null, "PL200", "PL100", "Brake line", 3));
+    }
+
+    /**
+     * Test case for manufacturers of several words matching every model they
+     * make, and only those.
+     */
+    @Test
+    public void testMultiWordManufacturerMatches() {
+        System.out.println("\n[TEST CASE: Multi-Word Manufacturer Matches]");
+        Customer alice = new Customer(1, "Alice", "1", "PL150", "Land Rover Defender", true);
+        Customer bob = new Customer(2, "Bob", "2", "PL160", "land rover", true);
+        Customer carol = new Customer(3, "Carol", "3", "PL170", "Land Cruiser", true);
+        Customer dave = new Customer(4, "Dave", "4", "PL180", "Landrover Defender", true);
+        Customer erin = new Customer(5, "Erin", "5", "PL190", "Alfa Romeo Giulia", true);
+        RecallEntry wiring = new RecallEntry("Land Rover", null, null, null, "Wiring", 4);
+        RecallEntry axle = new RecallEntry("Land Rover", null, "PL100", "PL155", "Axle", 3);
+        RecallEntry brakes = new RecallEntry("Alfa Romeo", "Giulia", null, null, "Brakes", 5);
+        RecallCampaign campaign = new RecallCampaign(List.of(wiring, axle, brakes));
+
+        List<RecallCampaign.Match> matches = campaign.match(List.of(alice, bob, carol, dave, erin));
+
+        assertEquals(Set.of("Alice:Wiring", "Alice:Axle", "Bob:Wiring", "Erin:Brakes"), keys(matches),
+                "Matched recalls mismatch.");
+        assertTrue(wiring.matches(alice), "Entry should match a model of the manufacturer.");
+        assertFalse(wiring.matches(carol), "Entry should not match another manufacturer sharing a word.");
+        assertFalse(wiring.matches(dave), "Entry should only match whole words.");
+    }
+
+    /**
+     * Test case for the parallel hash join finding exactly what checking
+     * every recall against every customer finds.
+     */
+    @Test
+    public void testParallelJoinMatchesNestedLoop() {
+        System.out.println("\n[TEST CASE: Parallel Join Matches Nested Loop]");
+        Random random = new Random(3);
+        String[] models = { "Toyota Corolla", "Toyota Yaris", "Honda Civic", "Honda Jazz", "Ford Focus" };
+        List<Customer> customers = new ArrayList<>();
+        for (int id = 1; id <= 50_000; id++) {
+            String plate = (random.nextBoolean() ? "PL" : "ZZ") + random.nextInt(100_000);
+            customers.add(new Customer(id, "Customer " + id, "", plate, models[random.nextInt(models.length)], true));
+        }
+        List<RecallEntry> recalls = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            String[] model = models[random.nextInt(models.length)].split(" ");
+            int first = random.nextInt(100_000);
+            boolean ranged = random.nextInt(4) != 0;
+            String prefix = random.nextBoolean() ? "PL" : "ZZ";
+            recalls.add(new RecallEntry(model[0], random.nextBoolean() ? model[1] : null,
+                    ranged ? prefix + first : null, ranged ? prefix + (first + random.nextInt(2_000)) : null,
+                    "Recall " + i, 1));
+        }
+
+        Set<String> expected = new HashSet<>();
+        for (Customer customer : customers) {
+            for (RecallEntry recall : recalls) {
+                if (recall.matches(customer)) {
+                    expected.add(customer.getId() + ":" + recall.getDescription());
+                }
+            }
+        }
+        List<RecallCampaign.Match> parallel = new RecallCampaign(recalls).match(customers);
+        ForkJoinPool single = new ForkJoinPool(1);
+        List<RecallCampaign.Match> sequential = new RecallCampaign(recalls, single).match(customers);
+        single.shutdown();
+
+        assertEquals(expected.size(), parallel.size(), "Match count mismatch.");
+        assertEquals(expected, ids(parallel), "Parallel matches mismatch.");
+        assertEquals(expected, ids(sequential), "Single-threaded matches mismatch.");
+    }
+
+    /**
+     * Test case for reading a recall list and rejecting an invalid line with
+     * its line number.
+     */
+    @Test
+    public void testReadRecallList() throws IOException {
+        System.out.println("\n[TEST CASE: Read Recall List]");
+        Path file = Files.createTempFile("recalls", ".txt");
+        try {
+            Files.writeString(file, "# Manufacturer|Model|First|Last|Priority|Description\n"
+                    + "Toyota|Corolla|||5|Replace airbag | inflator\n"
+                    + "Toyota||PL100|PL200|3|Brake line\n");
+            List<RecallEntry> recalls = RecallCampaign.readRecallList(file);
+            assertEquals(2, recalls.size(), "Recall count mismatch.");
+            assertEquals("Replace airbag | inflator", recalls.get(0).getDescription(), "Description mismatch.");
+            assertNull(recalls.get(1).getModel(), "Model should be empty.");
+            assertTrue(recalls.get(1).inRange("pl 150"), "Vehicle number should be in range.");
+
+            Files.writeString(file, "Toyota|Corolla|||5|Airbag\nToyota||PL100||3|Brake line\n");
+            IOException error = assertThrows(IOException.class, () -> RecallCampaign.readRecallList(file));
+            assertTrue(error.getMessage().startsWith("Line 2"), "Error line number mismatch.");
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static Set<String> keys(List<RecallCampaign.Match> matches) {
+        Set<String> keys = new HashSet<>();
+        for (RecallCampaign.Match match : matches) {
+            keys.add(match.getCustomer().getName() + ":" + match.getEntry().getDescription());
+        }
+        return keys;
+    }
+
+    private static Set<String> ids(List<RecallCampaign.Match> matches) {
+        Set<String> ids = new HashSet<>();
+        for (RecallCampaign.Match match : matches) {
+            ids.add(match.getCustomer().getId() + ":" + match.getEntry().getDescription());
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,83 @@
+import java.util.Random;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures scheduling, rescheduling and firing a year of service reminders,
+ * one tick per minute, in the reminder wheel, against scheduling and
+ * cancelling the same number of tasks in a ScheduledThreadPoolExecutor. Not
+ * part of the unit test suite; run it on its own, e.g.
+ * {@code java ReminderWheelBenchmark 1000000}.
+ */
+public class ReminderWheelBenchmark {
+
+    // Minutes in the year the reminders are spread over
+    private static final int YEAR_MINUTES = 365 * 24 * 60;
+
+    // Rounds per measurement; the best one is reported
+    private static final int ROUNDS = 3;
+
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        Random random = new Random(42);
+        long[] due = new long[count];
+        long[] moved = new long[count];
+        for (int i = 0; i < count; i++) {
+            due[i] = 1 + random.nextInt(YEAR_MINUTES);
+            moved[i] = 1 + random.nextInt(YEAR_MINUTES);
+        }
+        System.out.println(count + " reminders over one year, best of " + ROUNDS);
+
+        double schedule = Double.MAX_VALUE;
+        double reschedule = Double.MAX_VALUE;
+        double fire = Double.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            ReminderWheel wheel = new ReminderWheel(0);
+            long started = System.nanoTime();
+            for (int i = 0; i < count; i++) {
+                wheel.schedule(i, ReminderWheel.Kind.SERVICE, due[i]);
+            }
+            schedule = Math.min(schedule, (System.nanoTime() - started) / (double) count);
+            started = System.nanoTime();
+            for (int i = 0; i < count; i++) {
+                wheel.schedule(i, ReminderWheel.Kind.SERVICE, moved[i]); // Replaces the pending reminder
+            }
+            reschedule = Math.min(reschedule, (System.nanoTime() - started) / (double) count);
+            started = System.nanoTime();
+            int fired = 0;
+            for (long minute = 1; minute <= YEAR_MINUTES; minute += 60) {
+                fired += wheel.advance(minute).size(); // Hourly deliveries
+            }
+            fired += wheel.advance(YEAR_MINUTES).size();
+            fire = Math.min(fire, (System.nanoTime() - started) / (double) fired);
+        }
+
+        double executorSchedule = Double.MAX_VALUE;
+        double executorReschedule = Double.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1);
+            executor.setRemoveOnCancelPolicy(true);
+            ScheduledFuture<?>[] futures = new ScheduledFuture<?>[count];
+            long started = System.nanoTime();
+            for (int i = 0; i < count; i++) {
+                int customerId = i;
+                futures[i] = executor.schedule(() -> customerId, due[i], TimeUnit.MINUTES);
+            }
+            executorSchedule = Math.min(executorSchedule, (System.nanoTime() - started) / (double) count);
+            started = System.nanoTime();
+            for (int i = 0; i < count; i++) {
+                int customerId = i;
+                futures[i].cancel(false);
+                futures[i] = executor.schedule(() -> customerId, moved[i], TimeUnit.MINUTES);
+            }
+            executorReschedule = Math.min(executorReschedule, (System.nanoTime() - started) / (double) count);
+            executor.shutdownNow();
+        }
+
+        System.out.printf("wheel     schedule %7.1f ns  reschedule %7.1f ns  fire %7.1f ns per reminder%n",
+                schedule, reschedule, fire);
+        System.out.printf("executor  schedule %7.1f ns  reschedule %7.1f ns%n", executorSchedule,
+                executorReschedule);
+    }
+}
@@ -0,0 +1,75 @@
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Builds the daily report over a large shop on pools of 1, 2, 4, ... threads
+ * up to the number of cores, to show how report time scales with cores. Half
+ * of the assigned tasks go to one mechanic, so an engine splitting per
+ * mechanic would not scale. The time to sort the queue, as listing it in
+ * priority order would, is shown for comparison. Not part of the unit test
+ * suite; run it on its own, e.g. {@code java ReportEngineBenchmark 500000}.
+ */
+public class ReportEngineBenchmark {
+
+    // Mechanics the assigned tasks are spread over
+    private static final int MECHANICS = 40;
+
+    // Reports built per pool size; the best time is shown
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) {
+        int taskCount = args.length > 0 ? Integer.parseInt(args[0]) : 500_000;
+        Random random = new Random(42);
+        CustomerService customerService = new CustomerService(new ArrayList<>(), new ArrayList<>(),
+                new CustomerSegmentIndex());
+        String[] models = { "Toyota Corolla", "Ford Focus", "Honda Civic", "BMW 320", "Skoda Octavia", "Kia Ceed" };
+        int customers = taskCount / 2;
+        for (int i = 1; i <= customers; i++) {
+            customerService.register("Customer " + i, "555-" + i, "PL" + i, models[random.nextInt(models.length)]);
+        }
+        TaskQueue taskQueue = new TaskQueue();
+        MechanicService mechanicService = new MechanicService(new ArrayList<>(), taskQueue);
+        for (int i = 1; i <= MECHANICS; i++) {
+            mechanicService.addMechanic("Mechanic " + i);
+        }
+        ArrayList<Task> queued = new ArrayList<>();
+        for (int i = 0; i < taskCount; i++) {
+            Task task = new Task("Service " + i, "PL" + (1 + random.nextInt(customers)), random.nextInt(10));
+            if (i % 4 == 0) {
+                int mechanic = random.nextBoolean() ? 0 : random.nextInt(MECHANICS);
+                mechanicService.mechanics().get(mechanic).assignTask(task);
+            } else {
+                queued.add(task);
+            }
+        }
+        taskQueue.addTasks(queued);
+        System.out.println(customers + " customers, " + taskCount + " tasks, " + MECHANICS + " mechanics, "
+                + Runtime.getRuntime().availableProcessors() + " cores");
+
+        long started = System.nanoTime();
+        int sorted = taskQueue.snapshot().asList().size();
+        System.out.printf("%-12s %8d ms (%d tasks)%n", "Sort queue", (System.nanoTime() - started) / 1_000_000,
+                sorted);
+        long oneThread = 0;
+        for (int threads = 1; threads <= Runtime.getRuntime().availableProcessors(); threads *= 2) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            ReportEngine engine = new ReportEngine(customerService, mechanicService, taskQueue, pool,
+                    Clock.systemDefaultZone());
+            engine.dailyReport().join(); // Warm up the JIT before measuring
+            long best = Long.MAX_VALUE;
+            for (int round = 0; round < ROUNDS; round++) {
+                long start = System.nanoTime();
+                engine.dailyReport().join();
+                best = Math.min(best, System.nanoTime() - start);
+            }
+            if (threads == 1) {
+                oneThread = best;
+            }
+            System.out.printf("%-12s %8d ms %8.2fx%n", threads + " thread(s)", best / 1_000_000,
+                    (double) oneThread / best);
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,131 @@
+import org.junit.jupiter.api.*;
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit test class for the ReportEngine and the task queue spliterator it
+ * runs on.
+ */
+public class ReportEngineTest {
+    private ForkJoinPool pool;
+
+    /**
+     * Create a small pool so the reports really run in parallel.
+     */
+    @BeforeEach
+    public void setUp() {
+        pool = new ForkJoinPool(4);
+    }
+
+    /**
+     * Shut the pool down after each test.
+     */
+    @AfterEach
+    public void tearDown() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * Test case for the queue spliterator visiting every task exactly once,
+     * however far it is split.
+     */
+    @Test
+    public void testQueueSpliteratorVisitsEveryTaskOnce() {
+        System.out.println("\n[TEST CASE: Queue Spliterator Visits Every Task Once]");
+        TaskQueue taskQueue = new TaskQueue();
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) {
+            Task task = new Task("Task " + i, "V" + i, i % 7);
+            tasks.add(task);
+            taskQueue.addTask(task);
+        }
+        TaskQueueSnapshot snapshot = taskQueue.snapshot();
+        assertEquals(5_000, snapshot.spliterator().estimateSize(), "Unsplit size mismatch.");
+
+        List<Spliterator<Task>> parts = new ArrayList<>(List.of(snapshot.spliterator()));
+        for (int round = 0; round < 6; round++) {
+            List<Spliterator<Task>> split = new ArrayList<>();
+            for (Spliterator<Task> part : parts) {
+                Spliterator<Task> prefix = part.trySplit();
+                if (prefix != null) {
+                    split.add(prefix);
+                }
+                split.add(part);
+            }
+            parts = split;
+        }
+        assertTrue(parts.size() > 16, "Split count mismatch.");
+        Set<Task> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        int visited = 0;
+        for (Spliterator<Task> part : parts) {
+            List<Task> visitedTasks = new ArrayList<>();
+            part.forEachRemaining(visitedTasks::add);
+            visited += visitedTasks.size();
+            seen.addAll(visitedTasks);
+        }
+        assertEquals(5_000, visited, "Visited task count mismatch.");
+        assertTrue(seen.containsAll(tasks), "Visited task set mismatch.");
+        assertEquals(5_000, pool.submit(() -> snapshot.stream(true).count()).join(), "Parallel count mismatch.");
+    }
+
+    /**
+     * Test case for the daily report counting completions, open work,
+     * backlog, repeat customers and manufacturers.
+     */
+    @Test
+    public void testDailyReportAggregatesTheShop() {
+        System.out.println("\n[TEST CASE: Daily Report Aggregates The Shop]");
+        CustomerService customerService = new CustomerService(new ArrayList<>(), new ArrayList<>(),
+                new CustomerSegmentIndex());
+        Customer alice = customerService.register("Alice", "alice@example.com", "ABC-123", "Toyota Corolla");
+        Customer bob = customerService.addUnregistered("Bob", "bob@example.com", "XYZ789", "Toyota Yaris");
+        customerService.register("Carol", "carol@example.com", "KLM456", "ford Focus");
+        TaskQueue taskQueue = new TaskQueue();
+        MechanicService mechanicService = new MechanicService(new ArrayList<>(), taskQueue);
+        Mechanic john = mechanicService.addMechanic("John");
+        Mechanic jane = mechanicService.addMechanic("Jane");
+        Clock clock = Clock.fixed(Instant.parse("2026-10-19T17:30:00Z"), ZoneOffset.UTC);
+        ReportEngine engine = new ReportEngine(customerService, mechanicService, taskQueue, pool, clock);
+
+        taskQueue.addTask(new Task("Oil change", "ABC123", 2));
+        taskQueue.addTask(new Task("Tyres", "abc 123", 5));
+        taskQueue.addTask(new Task("Wipers", "KLM456", 2));
+        taskQueue.addTask(new Task("Unknown car", "NOPE1", 1));
+        Task brakes = new Task("Brakes", "ABC-123", 8);
+        john.assignTask(brakes);
+        Task lights = new Task("Lights", "XYZ789", 3);
+        jane.assignTask(lights);
+        Task battery = new Task("Battery", "XYZ789", 4);
+        jane.assignTask(battery);
+        battery.markAsCompleted();
+        engine.taskCompleted(battery, jane);
+
+        DailyReport report = engine.dailyReport().join();
+        report.print(System.out);
+        assertEquals(LocalDate.of(2026, 10, 19), report.getDate(), "Report date mismatch.");
+        assertEquals(2, report.getMechanics().size(), "Mechanic row count mismatch.");
+        DailyReport.MechanicRow johnRow = report.getMechanics().get(0);
+        DailyReport.MechanicRow janeRow = report.getMechanics().get(1);
+        assertEquals(john, johnRow.getMechanic(), "Mechanic order mismatch.");
+        assertEquals(0, johnRow.getCompleted(), "John's completed count mismatch.");
+        assertEquals(1, johnRow.getOpen(), "John's open count mismatch.");
+        assertEquals(1, janeRow.getCompleted(), "Jane's completed count mismatch.");
+        assertEquals(1, janeRow.getOpen(), "Jane's open count mismatch.");
+        assertEquals(List.of(5, 2, 1), new ArrayList<>(report.getBacklogByPriority().keySet()),
+                "Backlog priority order mismatch.");
+        assertEquals(2L, report.getBacklogByPriority().get(2), "Backlog count mismatch.");
+
+        List<DailyReport.CustomerRow> repeat = report.getRepeatCustomers();
+        assertEquals(2, repeat.size(), "Repeat customer count mismatch.");
+        assertEquals(alice, repeat.get(0).getCustomer(), "Top repeat customer mismatch.");
+        assertEquals(3, repeat.get(0).getTasks(), "Top repeat customer task count mismatch.");
+        assertEquals(bob, repeat.get(1).getCustomer(), "Second repeat customer mismatch.");
+        assertEquals(Map.of("Toyota", 5L, "Ford", 1L), report.getTopManufacturers(), "Manufacturer counts mismatch.");
+        assertEquals(List.of("Toyota", "Ford"), report.getTopManufacturers().keySet().stream()
+                .collect(Collectors.toList()), "Manufacturer order mismatch.");
+    }
+}
@@ -0,0 +1,242 @@
+import org.junit.jupiter.api.*;
+import java.nio.file.*;
+import java.time.LocalDate;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit test class for the repository backends: the in-memory repositories
+ * and the embedded H2 database.
+ */
+public class RepositoriesTest {
+    private Path databaseDirectory;
+
+    /**
+     * Create a temporary directory for database files before each test.
+     */
+    @BeforeEach
+    public void setUp() throws Exception {
+        databaseDirectory = Files.createTempDirectory("garage-db");
+    }
+
+    /**
+     * Delete the database files after each test.
+     */
+    @AfterEach
+    public void tearDown() throws Exception {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(databaseDirectory)) {
+            for (Path file : files) {
+                Files.deleteIfExists(file);
+            }
+        }
+        Files.deleteIfExists(databaseDirectory);
+    }
+
+    /**
+     * Test case for both backends giving back the shop they were given.
+     */
+    @Test
+    public void testBackendsRoundTripTheShop() throws Exception {
+        System.out.println("\n[TEST CASE: Backends Round Trip The Shop]");
+        try (Repositories inMemory = new InMemoryRepositories()) {
+            assertRoundTrip(inMemory);
+        }
+        try (Repositories database = new H2Repositories("jdbc:h2:mem:roundtrip", 2, 4)) {
+            assertRoundTrip(database);
+        }
+    }
+
+    /**
+     * Test case for buffered saves reaching the database file and surviving a
+     * reopen, with repeated saves of a customer written once.
+     */
+    @Test
+    public void testDatabaseKeepsStateAcrossReopen() throws Exception {
+        System.out.println("\n[TEST CASE: Database Keeps State Across Reopen]");
+        String url = "jdbc:h2:" + databaseDirectory.resolve("shop").toAbsolutePath();
+        Mechanic john = new Mechanic("John", 1);
+        Task brakes = new Task("Fix brakes", "ABC123", 5);
+        Task oil = new Task("Oil change", "XYZ789", 2);
+        try (H2Repositories repositories = new H2Repositories(url, 2, 100)) {
+            Customer alice = new Customer(1, "Alice", "12345", "ABC123", "Toyota Corolla", false);
+            repositories.customers().save(alice);
+            alice.setRegistered(true);
+            alice.setLastServiceDate(LocalDate.of(2026, 3, 14));
+            repositories.customers().save(alice);
+            repositories.mechanics().save(john);
+            repositories.tasks().taskCreated(brakes);
+            repositories.tasks().taskCreated(oil);
+            brakes.markAsCompleted();
+            repositories.tasks().taskCompleted(brakes, john);
+            repositories.tasks().taskAssigned(oil, john);
+        }
+
+        try (H2Repositories repositories = new H2Repositories(url)) {
+            Customer alice = repositories.customers().findById(1);
+            assertTrue(alice.isRegistered(), "Registration flag mismatch.");
+            assertEquals(LocalDate.of(2026, 3, 14), alice.getLastServiceDate(), "Last service date mismatch.");
+            assertEquals(1, repositories.customers().count(), "Customer count mismatch.");
+            assertEquals(2, repositories.tasks().count(), "Task count mismatch.");
+            assertTrue(repositories.tasks().findPending().isEmpty(), "No task should be pending.");
+            List<Task> johnsTasks = repositories.tasks().findAssignedTo(1);
+            assertEquals(1, johnsTasks.size(), "Open task count mismatch.");
+            assertEquals("Oil change", johnsTasks.get(0).getDescription(), "Open task mismatch.");
+
+            // A task read back keeps its row, so saving it again updates rather than adds
+            johnsTasks.get(0).markAsCompleted();
+            repositories.tasks().taskCompleted(johnsTasks.get(0), john);
+            assertEquals(2, repositories.tasks().count(), "Task count after update mismatch.");
+            assertTrue(repositories.tasks().findAssignedTo(1).isEmpty(), "Completed task should not be open.");
+        }
+    }
+
+    /**
+     * Test case for tasks waiting for prerequisites staying blocked after a
+     * reopen, and for tasks keeping their catalog job.
+     */
+    @Test
+    public void testBlockedTasksStayBlockedAcrossReopen() throws Exception {
+        System.out.println("\n[TEST CASE: Blocked Tasks Stay Blocked Across Reopen]");
+        String url = "jdbc:h2:" + databaseDirectory.resolve("dependencies").toAbsolutePath();
+        ServiceCatalog catalog = ServiceCatalog.standard();
+        ServiceType job = catalog.types().get(0);
+        try (H2Repositories repositories = new H2Repositories(url, 2, 100)) {
+            TaskQueue taskQueue = new TaskQueue();
+            TaskDependencyGraph dependencyGraph = new TaskDependencyGraph(taskQueue);
+            dependencyGraph.setTaskRepository(repositories.tasks());
+            Task diagnose = new Task("Diagnose", "ABC123", 5);
+            Task repair = new Task(job, "ABC123", 9);
+            Task roadTest = new Task("Road test", "ABC123", 3);
+            dependencyGraph.addTask(diagnose, List.of());
+            repositories.tasks().taskCreated(diagnose);
+            dependencyGraph.addTask(repair, List.of(diagnose));
+            repositories.tasks().taskCreated(repair);
+            dependencyGraph.addTask(roadTest, List.of(repair));
+            repositories.tasks().taskCreated(roadTest);
+            Mechanic john = new Mechanic("John", 1);
+            john.assignTask(taskQueue.getNextTask());
+            repositories.tasks().taskAssigned(diagnose, john);
+            repositories.mechanics().save(john);
+        }
+
+        try (H2Repositories repositories = new H2Repositories(url)) {
+            repositories.setServiceCatalog(catalog);
+            List<Mechanic> mechanics = new ArrayList<>();
+            TaskQueue taskQueue = new TaskQueue();
+            TaskDependencyGraph dependencyGraph = new TaskDependencyGraph(taskQueue);
+            repositories.loadInto(new ArrayList<>(), new ArrayList<>(), new ArrayList<>(), mechanics, taskQueue,
+                    dependencyGraph);
+            assertTrue(taskQueue.isEmpty(), "Blocked tasks should not be queued.");
+            assertEquals(2, dependencyGraph.getBlockedTasks().size(), "Blocked task count mismatch.");
+
+            Task diagnose = mechanics.get(0).getAssignedTasks().get(0);
+            diagnose.markAsCompleted();
+            dependencyGraph.taskCompleted(diagnose, mechanics.get(0));
+            Task repair = taskQueue.getNextTask();
+            assertSame(job, repair.getServiceType(), "Catalog job mismatch.");
+            assertEquals(1, dependencyGraph.getBlockedTasks().size(), "Road test should still wait.");
+        }
+    }
+
+    /**
+     * Test case for completed tasks not yet invoiced, and their line items,
+     * surviving a reopen until they are billed.
+     */
+    @Test
+    public void testUnbilledTasksSurviveReopen() throws Exception {
+        System.out.println("\n[TEST CASE: Unbilled Tasks Survive Reopen]");
+        String url = "jdbc:h2:" + databaseDirectory.resolve("billing").toAbsolutePath();
+        try (H2Repositories repositories = new H2Repositories(url, 2, 100)) {
+            InvoiceLedger ledger = new InvoiceLedger();
+            ledger.setTaskRepository(repositories.tasks());
+            Mechanic john = new Mechanic("John", 1);
+            repositories.mechanics().save(john);
+            for (String description : List.of("Fix brakes", "Oil change")) {
+                Task task = new Task(description, "ABC123", 5);
+                repositories.tasks().taskCreated(task);
+                john.assignTask(task);
+                task.addLineItem(LineItem.labour(description, 30, 60_00));
+                task.addLineItem(LineItem.part("Filter", 2, 4_99));
+                task.markAsCompleted();
+                repositories.tasks().taskCompleted(task, john);
+                ledger.taskCompleted(task, john);
+            }
+        }
+
+        try (H2Repositories repositories = new H2Repositories(url)) {
+            List<Task> unbilled = repositories.tasks().findUnbilled().get(1);
+            assertEquals(2, unbilled.size(), "Unbilled task count mismatch.");
+            Task brakes = unbilled.get(0);
+            assertEquals("Completed", brakes.getStatus(), "Status mismatch.");
+            assertEquals(2, brakes.getLineItems().size(), "Line item count mismatch.");
+            assertEquals(30_00, brakes.getLineItems().get(0).getAmountCents(), "Labour amount mismatch.");
+            assertEquals(LineItem.Kind.PART, brakes.getLineItems().get(1).getKind(), "Line item kind mismatch.");
+            assertEquals(9_98, brakes.getLineItems().get(1).getAmountCents(), "Part amount mismatch.");
+            repositories.tasks().saveBilled(List.of(brakes));
+        }
+
+        try (H2Repositories repositories = new H2Repositories(url)) {
+            List<Task> unbilled = repositories.tasks().findUnbilled().get(1);
+            assertEquals(1, unbilled.size(), "Billed task should not come back.");
+            assertEquals("Oil change", unbilled.get(0).getDescription(), "Remaining task mismatch.");
+        }
+    }
+
+    /**
+     * Test case for batched saves reusing prepared statements instead of
+     * parsing them again.
+     */
+    @Test
+    public void testPreparedStatementsAreReused() throws Exception {
+        System.out.println("\n[TEST CASE: Prepared Statements Are Reused]");
+        try (H2Repositories repositories = new H2Repositories("jdbc:h2:mem:statements", 1, 10)) {
+            for (int id = 1; id <= 1000; id++) {
+                repositories.customers().save(new Customer(id, "Customer " + id, "555", "PL" + id, "Ford Focus",
+                        true));
+            }
+            assertEquals(1000, repositories.customers().count(), "Customer count mismatch.");
+            ConnectionPool pool = repositories.getPool();
+            assertTrue(pool.getReusedCount() >= 99, "Customer batches should reuse their statement.");
+            assertTrue(pool.getPreparedCount() <= 3, "Statements should be parsed once.");
+        }
+    }
+
+    // Stores a small shop and checks that loading it gives the same shop back
+    private void assertRoundTrip(Repositories repositories) {
+        Customer alice = new Customer(1, "Alice", "12345", "ABC123", "Toyota Corolla", true);
+        Customer bob = new Customer(2, "Bob", "67890", "XYZ789", "Honda Civic", false);
+        Manufacturer toyota = new Manufacturer("Toyota");
+        toyota.addPartsSupplier(new PartsSupplier("Supplier1"));
+        toyota.addPartsSupplier(new PartsSupplier("Supplier2"));
+        Mechanic john = new Mechanic("John", 1);
+        Task brakes = new Task("Fix brakes", "ABC123", 5);
+        Task oil = new Task("Oil change", "XYZ789", 2);
+        repositories.tasks().taskCreated(brakes);
+        repositories.tasks().taskCreated(oil);
+        john.assignTask(brakes);
+        repositories.tasks().taskAssigned(brakes, john);
+        repositories.saveAll(List.of(alice), List.of(bob), List.of(toyota), List.of(john));
+
+        List<Customer> customers = new ArrayList<>();
+        List<Customer> unregisteredCustomers = new ArrayList<>();
+        List<Manufacturer> manufacturers = new ArrayList<>();
+        List<Mechanic> mechanics = new ArrayList<>();
+        TaskQueue taskQueue = new TaskQueue();
+        repositories.loadInto(customers, unregisteredCustomers, manufacturers, mechanics, taskQueue);
+
+        assertEquals("Alice", customers.get(0).getName(), "Registered customer mismatch.");
+        assertEquals("Bob", unregisteredCustomers.get(0).getName(), "Unregistered customer mismatch.");
+        assertEquals(2, manufacturers.get(0).getPartsSuppliers().size(), "Supplier count mismatch.");
+        assertEquals("John", mechanics.get(0).getName(), "Mechanic mismatch.");
+        assertEquals(1, mechanics.get(0).getAssignedTasks().size(), "Assigned task count mismatch.");
+        assertEquals("Fix brakes", mechanics.get(0).getAssignedTasks().get(0).getDescription(),
+                "Assigned task mismatch.");
+        assertEquals(1, taskQueue.size(), "Pending task count mismatch.");
+        assertEquals("Oil change", taskQueue.getNextTask().getDescription(), "Pending task mismatch.");
+
+        repositories.customers().delete(bob.getId());
+        assertNull(repositories.customers().findById(bob.getId()), "Deleted customer should be gone.");
+        assertEquals(1, repositories.customers().count(), "Customer count after delete mismatch.");
+    }
+}
@@ -0,0 +1,62 @@
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compares the in-memory repositories with the embedded H2 database, with
+ * every save written on its own and with saves written in batches. Each run
+ * registers customers one save at a time, as manager sessions do, updates
+ * them all with saveAll(), as happens on exit, and reads them back. Not part
+ * of the unit test suite; run it on its own with H2 on the class path, e.g.
+ * {@code java RepositoryBenchmark 100000}.
+ */
+public class RepositoryBenchmark {
+
+    public static void main(String[] args) throws SQLException {
+        int customers = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        System.out.println(customers + " customers");
+        // Warm up the JIT on every backend before measuring
+        run(null, new InMemoryRepositories(), customers / 4);
+        run(null, new H2Repositories("jdbc:h2:mem:warmup", 2, H2Repositories.DEFAULT_BATCH_SIZE), customers / 4);
+        System.out.printf("%-18s %14s %14s %14s%n", "Backend", "Saves/s", "Updates/s", "Reads/s");
+        run("In memory", new InMemoryRepositories(), customers);
+        run("H2, unbatched", new H2Repositories("jdbc:h2:mem:unbatched", 2, 1), customers);
+        run("H2, batch " + H2Repositories.DEFAULT_BATCH_SIZE,
+                new H2Repositories("jdbc:h2:mem:batched", 2, H2Repositories.DEFAULT_BATCH_SIZE), customers);
+    }
+
+    private static void run(String name, Repositories repositories, int count) {
+        try (repositories) {
+            List<Customer> all = new ArrayList<>(count);
+            long start = System.nanoTime();
+            for (int id = 1; id <= count; id++) {
+                Customer customer = new Customer(id, "Customer " + id, "555-" + id, "PL" + id, "Toyota Corolla",
+                        id % 3 != 0);
+                repositories.customers().save(customer);
+                all.add(customer);
+            }
+            repositories.flush();
+            long saved = System.nanoTime();
+            for (Customer customer : all) {
+                customer.setLastServiceDate(LocalDate.of(2026, 1, 1 + customer.getId() % 28));
+            }
+            repositories.customers().saveAll(all);
+            repositories.flush();
+            long updated = System.nanoTime();
+            int read = repositories.customers().findAll().size();
+            long done = System.nanoTime();
+            if (read != count) {
+                throw new IllegalStateException("Read " + read + " customers, expected " + count + ".");
+            }
+            if (name != null) {
+                System.out.printf("%-18s %14.0f %14.0f %14.0f%n", name, count / seconds(start, saved),
+                        count / seconds(saved, updated), count / seconds(updated, done));
+            }
+        }
+    }
+
+    private static double seconds(long from, long to) {
+        return (to - from) / 1e9;
+    }
+}
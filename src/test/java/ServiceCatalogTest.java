@@ -0,0 +1,110 @@
+import org.junit.jupiter.api.*;
+import java.io.IOException;
+import java.nio.file.*;
+import java.time.*;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit test class for the service catalog and tasks created from it.
+ */
+public class ServiceCatalogTest {
+    private ServiceCatalog catalog;
+
+    /**
+     * Set up the built-in catalog.
+     */
+    @BeforeEach
+    public void setUp() {
+        catalog = ServiceCatalog.standard();
+    }
+
+    /**
+     * Test case for tasks of one job sharing its definition, with a free-text
+     * description only kept as an override.
+     */
+    @Test
+    public void testTasksShareTheirJob() {
+        System.out.println("\n[TEST CASE: Tasks Share Their Job]");
+        ServiceType oil = catalog.lookup(" oil ");
+        assertNotNull(oil, "Job code lookup should ignore case.");
+        Task first = new Task(oil, "ABC123", 2);
+        Task second = new Task(oil, "Oil change", "XYZ789", 1);
+        Task synthetic = new Task(oil, "Oil change, synthetic 5W-30", "LMN456", 3);
+
+        assertSame(oil, first.getServiceType(), "Service type mismatch.");
+        assertSame(oil.getDescription(), first.getDescription(), "Standard description should be shared.");
+        assertSame(oil.getDescription(), second.getDescription(), "Repeated standard description should be shared.");
+        assertEquals("Oil change, synthetic 5W-30", synthetic.getDescription(), "Override description mismatch.");
+        assertEquals("oil change", TaskDurationStats.serviceTypeOf(synthetic), "Override statistics key mismatch.");
+        assertEquals(TaskDurationStats.serviceTypeOf(new Task("  OIL CHANGE", "ABC123", 1)),
+                TaskDurationStats.serviceTypeOf(first), "Free-text statistics key mismatch.");
+        assertSame(oil, catalog.typeOf(new Task("Oil Change ", "ABC123", 1)), "Free-text job mismatch.");
+        assertNull(catalog.typeOf(new Task("Paint scratch", "ABC123", 1)), "Unknown job should not match.");
+        assertNull(catalog.lookup("PAINT"), "Unknown code should not be found.");
+    }
+
+    /**
+     * Test case for estimates using the standard labour time until the job
+     * has a history of its own.
+     */
+    @Test
+    public void testEstimatesUseStandardTime() {
+        System.out.println("\n[TEST CASE: Estimates Use Standard Time]");
+        TaskDurationStats stats = new TaskDurationStats();
+        WaitTimeEstimator estimator = new WaitTimeEstimator(stats,
+                Clock.fixed(Instant.parse("2024-06-03T08:00:00Z"), ZoneOffset.UTC));
+        estimator.setServiceCatalog(catalog);
+        for (int i = 0; i < 10; i++) {
+            stats.record("fix wipers", 1, Duration.ofMinutes(10));
+        }
+        ServiceType timing = catalog.lookup("TIMING");
+
+        assertEquals(Duration.ofMinutes(240), estimator.expectedDuration(new Task(timing, "ABC123", 1)),
+                "Standard duration mismatch.");
+        assertEquals(Duration.ofMinutes(240),
+                estimator.expectedDuration(new Task("Timing belt replacement", "ABC123", 1)),
+                "Free-text standard duration mismatch.");
+        assertEquals(10, estimator.expectedDuration(new Task("Paint scratch", "ABC123", 1)).toMinutes(), 1,
+                "Unknown job should use the overall median.");
+
+        for (int i = 0; i < 10; i++) {
+            stats.record(timing.getStatsKey(), 1, Duration.ofMinutes(180));
+        }
+        assertEquals(180, estimator.expectedDuration(new Task(timing, "Timing belt and water pump", "ABC123", 1))
+                .toMinutes(), 180 * 0.02, "Recorded history should win over the standard time.");
+    }
+
+    /**
+     * Test case for reading a catalog file and rejecting an invalid line with
+     * its line number.
+     */
+    @Test
+    public void testReadCatalog() throws IOException {
+        System.out.println("\n[TEST CASE: Read Catalog]");
+        Path file = Files.createTempFile("catalog", ".txt");
+        try {
+            Files.writeString(file, "# Code|Description|Minutes|Skills|Parts\n"
+                    + "oil|Oil change|25|General|Engine oil; Oil filter\n"
+                    + "WASH|Car wash|15\n"
+                    + "OIL|Oil and filter change|35||Engine oil;;Oil filter\n");
+            ServiceCatalog read = ServiceCatalog.readCatalog(file);
+            assertEquals(2, read.size(), "Job count mismatch.");
+            ServiceType oil = read.lookup("OIL");
+            assertEquals("Oil and filter change", oil.getDescription(), "Later line should replace the code.");
+            assertEquals(35, oil.getStandardMinutes(), "Standard minutes mismatch.");
+            assertEquals(List.of(), oil.getRequiredSkills(), "Empty skills mismatch.");
+            assertEquals(List.of("Engine oil", "Oil filter"), oil.getTypicalParts(), "Typical parts mismatch.");
+            assertNull(read.forDescription("Oil change"), "Replaced description should be forgotten.");
+            assertEquals(List.of("OIL", "WASH"), List.of(read.types().get(0).getCode(), read.types().get(1).getCode()),
+                    "Job order mismatch.");
+
+            Files.writeString(file, "OIL|Oil change|30\nWASH|Car wash|0\n");
+            IOException error = assertThrows(IOException.class, () -> ServiceCatalog.readCatalog(file));
+            assertTrue(error.getMessage().startsWith("Line 2"), "Error line number mismatch.");
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
@@ -0,0 +1,218 @@
+import org.junit.jupiter.api.*;
+import java.io.IOException;
+import java.nio.file.*;
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit test class for the reminder timing wheel and service reminders.
+ */
+public class ServiceRemindersTest {
+    private AtomicLong millis;
+    private Clock clock;
+    private CustomerService customerService;
+    private Path remindersFile;
+
+    /**
+     * Set up a settable clock, a customer service and a temporary file.
+     */
+    @BeforeEach
+    public void setUp() throws IOException {
+        millis = new AtomicLong(Instant.parse("2026-01-05T08:00:00Z").toEpochMilli());
+        clock = new Clock() {
+            @Override
+            public ZoneId getZone() {
+                return ZoneOffset.UTC;
+            }
+
+            @Override
+            public Clock withZone(ZoneId zone) {
+                return this;
+            }
+
+            @Override
+            public Instant instant() {
+                return Instant.ofEpochMilli(millis.get());
+            }
+        };
+        customerService = new CustomerService(new ArrayList<>(), new ArrayList<>(), new CustomerSegmentIndex());
+        remindersFile = Files.createTempFile("reminders", ".bin");
+    }
+
+    /**
+     * Delete the reminders file.
+     */
+    @AfterEach
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(remindersFile);
+    }
+
+    /**
+     * Test case for every reminder falling due exactly at its tick while
+     * reminders are scheduled, replaced and cancelled between advances.
+     */
+    @Test
+    public void testWheelFiresEachReminderOnTime() {
+        System.out.println("\n[TEST CASE: Wheel Fires Each Reminder On Time]");
+        Random random = new Random(42);
+        long start = 1_000_003;
+        ReminderWheel wheel = new ReminderWheel(start);
+        Map<Long, Long> expected = new HashMap<>(); // Due tick by customer and kind
+        long now = start;
+        for (int round = 0; round < 2_000; round++) {
+            for (int i = 0; i < 20; i++) {
+                int customerId = 1 + random.nextInt(5_000);
+                ReminderWheel.Kind kind = ReminderWheel.Kind.values()[random.nextInt(2)];
+                long key = customerId * 2L + kind.ordinal();
+                int choice = random.nextInt(10);
+                if (choice == 0) {
+                    assertEquals(expected.remove(key) != null, wheel.cancel(customerId, kind),
+                            "Cancel result mismatch.");
+                    continue;
+                }
+                long due;
+                if (choice == 1) {
+                    due = now - random.nextInt(100); // Overdue
+                } else if (choice == 2) {
+                    due = now + (1L << 24) + random.nextInt(1 << 20); // Beyond the last wheel
+                } else {
+                    due = now + 1 + (long) Math.pow(2, random.nextDouble() * 22);
+                }
+                wheel.schedule(customerId, kind, due);
+                expected.put(key, due);
+            }
+            now += random.nextInt(4) == 0 ? random.nextInt(1 << 16) : random.nextInt(200);
+            for (ReminderWheel.Reminder reminder : wheel.advance(now)) {
+                long key = reminder.getCustomerId() * 2L + reminder.getKind().ordinal();
+                Long due = expected.remove(key);
+                assertNotNull(due, "Fired reminder should be pending.");
+                assertEquals(due.longValue(), reminder.getDueTick(), "Fired reminder mismatch.");
+                assertTrue(due <= now, "Reminder fired before it was due.");
+            }
+            for (long due : expected.values()) {
+                assertTrue(due > now, "Reminder due at " + due + " did not fire by " + now + ".");
+            }
+            assertEquals(expected.size(), wheel.size(), "Pending count mismatch.");
+        }
+        now += 1L << 25;
+        assertEquals(expected.size(), wheel.advance(now).size(), "Far reminders should all fire.");
+        assertEquals(0, wheel.size(), "Wheel should be empty.");
+    }
+
+    /**
+     * Test case for completed tasks and MOT dates scheduling reminders that
+     * go out when they fall due.
+     */
+    @Test
+    public void testRemindersFollowServicesAndMot() {
+        System.out.println("\n[TEST CASE: Reminders Follow Services And MOT]");
+        Customer alice = customerService.register("Alice", "555-0100", "ABC123", "Toyota Corolla");
+        Customer bob = customerService.register("Bob", "555-0101", "XYZ789", "Ford Focus");
+        ServiceReminders reminders = new ServiceReminders(customerService, clock);
+
+        reminders.taskCompleted(new Task("Oil change", "abc123 ", 3), new Mechanic("Anna", 1));
+        assertEquals(LocalDateTime.parse("2026-07-05T09:00"), reminders.pending(alice, ReminderWheel.Kind.SERVICE),
+                "Service reminder time mismatch.");
+        reminders.taskCompleted(new Task("Oil change", "UNKNOWN", 3), new Mechanic("Anna", 1));
+        assertEquals(LocalDateTime.parse("2026-03-18T09:00"),
+                reminders.scheduleMot(bob, LocalDate.parse("2026-04-01")), "MOT reminder time mismatch.");
+        assertThrows(IllegalArgumentException.class, () -> reminders.scheduleMot(bob, LocalDate.parse("2026-01-04")),
+                "A MOT date in the past should be rejected.");
+        bob.setLastServiceDate(LocalDate.parse("2025-08-01"));
+        assertEquals(1, reminders.scheduleFromHistory(customerService.allCustomers()),
+                "History reminder count mismatch.");
+        assertEquals(3, reminders.size(), "Pending count mismatch.");
+
+        assertEquals(0, reminders.deliverDue(), "Service reminder went out early.");
+        millis.set(Instant.parse("2026-02-01T09:00:00Z").toEpochMilli());
+        assertEquals(1, reminders.deliverDue(), "Service reminder count mismatch.");
+        millis.set(Instant.parse("2026-03-18T08:59:00Z").toEpochMilli());
+        assertEquals(0, reminders.deliverDue(), "MOT reminder went out early.");
+        millis.addAndGet(60_000);
+        assertEquals(1, reminders.deliverDue(), "MOT reminder count mismatch.");
+        assertNull(reminders.pending(bob, ReminderWheel.Kind.MOT), "Sent reminder should not be pending.");
+
+        reminders.taskCompleted(new Task("Brakes", "ABC123", 3), new Mechanic("Anna", 1));
+        assertEquals(LocalDateTime.parse("2026-09-18T09:00"), reminders.pending(alice, ReminderWheel.Kind.SERVICE),
+                "Later service should replace the reminder.");
+        assertTrue(reminders.cancel(alice, ReminderWheel.Kind.SERVICE), "Cancel result mismatch.");
+        millis.set(Instant.parse("2027-01-01T00:00:00Z").toEpochMilli());
+        assertEquals(0, reminders.deliverDue(), "Cancelled reminder should not go out.");
+    }
+
+    /**
+     * Test case for starting twice without saved reminders not sending the
+     * reminders from the service history twice.
+     */
+    @Test
+    public void testRestartDoesNotResendHistoryReminders() {
+        System.out.println("\n[TEST CASE: Restart Does Not Resend History Reminders]");
+        Customer alice = customerService.register("Alice", "555-0100", "ABC123", "Toyota Corolla");
+        alice.setLastServiceDate(LocalDate.parse("2025-06-01")); // Reminder was due 2025-12-01
+        Customer bob = customerService.register("Bob", "555-0101", "XYZ789", "Ford Focus");
+        bob.setLastServiceDate(LocalDate.parse("2025-09-01")); // Reminder due 2026-03-01
+
+        int sent = 0;
+        ServiceReminders reminders = null;
+        for (int start = 1; start <= 2; start++) {
+            reminders = new ServiceReminders(customerService, clock);
+            assertEquals(1, reminders.scheduleFromHistory(customerService.allCustomers()),
+                    "History reminder count mismatch on start " + start + ".");
+            assertNull(reminders.pending(alice, ReminderWheel.Kind.SERVICE), "Overdue reminder should be skipped.");
+            sent += reminders.deliverDue();
+            millis.addAndGet(3_600_000);
+        }
+        assertEquals(0, sent, "Starting should not send reminders from the history.");
+        millis.set(Instant.parse("2026-03-01T09:00:00Z").toEpochMilli());
+        assertEquals(1, reminders.deliverDue(), "Upcoming history reminder should go out when due.");
+    }
+
+    /**
+     * Test case for reminders surviving a restart in a compact file, with
+     * the ones that fell due meanwhile going out on the first delivery.
+     */
+    @Test
+    public void testSavedRemindersSurviveRestart() throws IOException {
+        System.out.println("\n[TEST CASE: Saved Reminders Survive Restart]");
+        ServiceReminders reminders = new ServiceReminders(customerService, clock);
+        Random random = new Random(7);
+        List<Customer> customers = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            Customer customer = customerService.register("Customer " + i, "555-" + i, "PL" + i, "Skoda");
+            customers.add(customer);
+            reminders.scheduleService(customer, LocalDate.parse("2025-12-01").plusDays(random.nextInt(180)));
+            if (i % 4 == 0) {
+                reminders.scheduleMot(customer, LocalDate.parse("2026-02-01").plusDays(random.nextInt(365)));
+            }
+        }
+        reminders.save(remindersFile);
+        assertTrue(Files.size(remindersFile) < 12_500 * 6, "Saved reminders should take under 6 bytes each.");
+
+        millis.set(Instant.parse("2026-06-15T12:00:00Z").toEpochMilli());
+        ServiceReminders restarted = new ServiceReminders(customerService, clock);
+        assertEquals(12_500, restarted.load(remindersFile), "Loaded reminder count mismatch.");
+        for (Customer customer : customers) {
+            for (ReminderWheel.Kind kind : ReminderWheel.Kind.values()) {
+                assertEquals(reminders.pending(customer, kind), restarted.pending(customer, kind),
+                        "Reminder of customer " + customer.getId() + " mismatch.");
+            }
+        }
+        int overdue = 0;
+        for (Customer customer : customers) {
+            for (ReminderWheel.Kind kind : ReminderWheel.Kind.values()) {
+                LocalDateTime due = reminders.pending(customer, kind);
+                if (due != null && !due.isAfter(LocalDateTime.parse("2026-06-15T12:00"))) {
+                    overdue++;
+                }
+            }
+        }
+        assertEquals(overdue, restarted.deliverDue(), "Reminders due while stopped should go out.");
+        assertEquals(12_500 - overdue, restarted.size(), "Pending count after delivery mismatch.");
+
+        Files.write(remindersFile, new byte[] { 1, 2, 3, 4, 5, 6, 7, 8 });
+        assertThrows(IOException.class, () -> restarted.load(remindersFile), "Invalid file should be rejected.");
+    }
+}
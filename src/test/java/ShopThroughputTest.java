@@ -0,0 +1,125 @@
+import org.junit.jupiter.api.*;
+import java.time.*;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit test class for the sliding-window counters and the shop throughput
+ * built on them.
+ */
+public class ShopThroughputTest {
+    private MutableClock clock;
+    private ShopThroughput throughput;
+    private TaskEvents events;
+    private Mechanic alice;
+    private Mechanic bob;
+
+    /**
+     * Set up throughput counters fed through task events, driven by a clock
+     * the tests move forward.
+     */
+    @BeforeEach
+    public void setUp() {
+        clock = new MutableClock(Instant.parse("2024-06-03T08:00:00Z"));
+        throughput = new ShopThroughput(clock);
+        events = new TaskEvents();
+        events.addListener(throughput);
+        alice = new Mechanic("Alice", 1);
+        bob = new Mechanic("Bob", 2);
+    }
+
+    /**
+     * Test case for events leaving the window as the buckets are reused.
+     */
+    @Test
+    public void testCounterForgetsOldBuckets() {
+        System.out.println("\n[TEST CASE: Counter Forgets Old Buckets]");
+        SlidingWindowCounter counter = new SlidingWindowCounter(1000, 10);
+        for (long t = 0; t < 30_000; t += 500) {
+            counter.add(t, 1);
+        }
+
+        assertEquals(20, counter.count(29_999, 10_000), "Ten-second window mismatch.");
+        assertEquals(6, counter.count(29_999, 3_000), "Three-second window mismatch.");
+        assertEquals(0, counter.count(100_000, 10_000), "Expired window mismatch.");
+    }
+
+    /**
+     * Test case for per-mechanic completions over the last hour and day.
+     */
+    @Test
+    public void testCompletionsPerMechanic() {
+        System.out.println("\n[TEST CASE: Completions Per Mechanic]");
+        for (int i = 0; i < 5; i++) {
+            events.taskCompleted(new Task("Oil change", "AB123", 1), alice);
+            clock.advance(Duration.ofHours(2));
+        }
+        events.taskCompleted(new Task("Brakes", "CD456", 1), bob);
+        clock.advance(Duration.ofMinutes(30));
+        events.taskCompleted(new Task("Tyres", "EF789", 1), alice);
+
+        assertEquals(1, throughput.completedInLast(alice.getId(), ShopThroughput.LAST_HOUR),
+                "Alice hourly count mismatch.");
+        assertEquals(6, throughput.completedInLast(alice.getId(), ShopThroughput.LAST_DAY),
+                "Alice daily count mismatch.");
+        assertEquals(Map.of(1, 6L, 2, 1L), throughput.completedPerMechanic(ShopThroughput.LAST_DAY),
+                "Per-mechanic counts mismatch.");
+        assertEquals(0, throughput.completedInLast(99, ShopThroughput.LAST_DAY), "Unknown mechanic count mismatch.");
+
+        clock.advance(Duration.ofDays(2));
+        assertEquals(0, throughput.completedInLast(ShopThroughput.LAST_DAY), "Expired count mismatch.");
+    }
+
+    /**
+     * Test case for comparing queue inflow with outflow.
+     */
+    @Test
+    public void testNetInflow() {
+        System.out.println("\n[TEST CASE: Net Inflow]");
+        for (int i = 0; i < 8; i++) {
+            Task task = new Task("Service " + i, "AB" + i, 1);
+            events.taskCreated(task);
+            if (i % 2 == 0) {
+                events.taskAssigned(task, alice);
+            }
+            clock.advance(Duration.ofMinutes(5));
+        }
+
+        assertEquals(8, throughput.createdInLast(ShopThroughput.LAST_HOUR), "Created count mismatch.");
+        assertEquals(4, throughput.assignedInLast(ShopThroughput.LAST_HOUR), "Assigned count mismatch.");
+        assertEquals(4, throughput.netInflow(ShopThroughput.LAST_HOUR), "Net inflow mismatch.");
+        assertThrows(IllegalArgumentException.class, () -> throughput.netInflow(Duration.ofDays(2)),
+                "Windows longer than a day should be rejected.");
+    }
+
+    /**
+     * A clock the tests move forward by hand.
+     */
+    private static final class MutableClock extends Clock {
+        private Instant now;
+
+        private MutableClock(Instant start) {
+            this.now = start;
+        }
+
+        private void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,123 @@
+import org.junit.jupiter.api.*;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit test class for task dependencies and the release of ready tasks.
+ */
+public class TaskDependencyGraphTest {
+    private TaskQueue taskQueue;
+    private TaskDependencyGraph graph;
+    private TaskEvents events;
+    private Mechanic mechanic;
+
+    /**
+     * Set up a queue, a graph feeding it and the completion events driving
+     * the graph.
+     */
+    @BeforeEach
+    public void setUp() {
+        taskQueue = new TaskQueue();
+        graph = new TaskDependencyGraph(taskQueue);
+        events = new TaskEvents();
+        events.addListener(graph);
+        mechanic = new Mechanic("Alice", 1);
+    }
+
+    /**
+     * Test case for a repair waiting until diagnostics are completed.
+     */
+    @Test
+    public void testTaskReleasedWhenPrerequisiteCompletes() {
+        System.out.println("\n[TEST CASE: Task Released When Prerequisite Completes]");
+        Task diagnostics = new Task("Diagnostics", "AB123", 1);
+        Task repair = new Task("Gearbox repair", "AB123", 5);
+        graph.addTask(diagnostics, List.of());
+        graph.addTask(repair, List.of(diagnostics));
+
+        assertEquals(List.of(diagnostics), taskQueue.getTasksAsList(), "Only diagnostics should be queued.");
+        assertTrue(graph.isBlocked(repair), "Repair should be blocked.");
+
+        complete(taskQueue.getNextTask());
+        assertFalse(graph.isBlocked(repair), "Repair should be released.");
+        assertEquals(List.of(repair), taskQueue.getTasksAsList(), "Repair should be queued.");
+    }
+
+    /**
+     * Test case for a task with two prerequisites waiting for both.
+     */
+    @Test
+    public void testDiamondWaitsForAllPrerequisites() {
+        System.out.println("\n[TEST CASE: Diamond Waits For All Prerequisites]");
+        Task diagnostics = new Task("Diagnostics", "AB123", 1);
+        Task parts = new Task("Parts arrival", "AB123", 1);
+        Task fitting = new Task("Fit parts", "AB123", 1);
+        Task testDrive = new Task("Test drive", "AB123", 1);
+        graph.addTask(diagnostics, List.of());
+        graph.addTask(parts, List.of(diagnostics));
+        graph.addTask(fitting, List.of(diagnostics, parts));
+        graph.addTask(testDrive, List.of(fitting));
+
+        complete(diagnostics);
+        assertEquals(1, graph.openPrerequisites(fitting), "Fitting should still wait for parts.");
+        complete(parts);
+        assertFalse(graph.isBlocked(fitting), "Fitting should be released.");
+        assertTrue(graph.isBlocked(testDrive), "Test drive should still be blocked.");
+        complete(fitting);
+        assertTrue(graph.getBlockedTasks().isEmpty(), "No task should be blocked.");
+    }
+
+    /**
+     * Test case for rejecting a dependency that would close a cycle.
+     */
+    @Test
+    public void testCycleIsRejected() {
+        System.out.println("\n[TEST CASE: Cycle Is Rejected]");
+        Task first = new Task("First", "AB123", 1);
+        Task second = new Task("Second", "AB123", 1);
+        Task third = new Task("Third", "AB123", 1);
+        graph.addTask(first, List.of());
+        graph.addTask(second, List.of(first));
+        graph.addTask(third, List.of(second));
+
+        assertThrows(IllegalArgumentException.class, () -> graph.addDependency(first, third),
+                "Cycle should be rejected.");
+        Task self = new Task("Self", "AB123", 1);
+        assertThrows(IllegalArgumentException.class, () -> graph.addTask(self, List.of(self)),
+                "Self-dependency should be rejected.");
+        assertEquals(List.of(first), taskQueue.getTasksAsList(), "Queue should be unchanged.");
+    }
+
+    /**
+     * Test case for pulling a queued task back when a dependency is added,
+     * and for prerequisites that are already done.
+     */
+    @Test
+    public void testAddDependencyToQueuedTask() {
+        System.out.println("\n[TEST CASE: Add Dependency To Queued Task]");
+        Task parts = new Task("Parts arrival", "AB123", 1);
+        Task fitting = new Task("Fit parts", "AB123", 1);
+        taskQueue.addTask(parts);
+        taskQueue.addTask(fitting);
+
+        graph.addDependency(fitting, parts);
+        assertEquals(List.of(parts), taskQueue.getTasksAsList(), "Fitting should leave the queue.");
+
+        Task done = new Task("Done already", "AB123", 1);
+        done.markAsCompleted();
+        graph.addTask(new Task("Wash", "AB123", 1), List.of(done));
+        assertEquals(2, taskQueue.size(), "Task with completed prerequisites should be queued.");
+
+        complete(parts);
+        assertEquals(2, taskQueue.size(), "Fitting should be queued again.");
+        assertTrue(taskQueue.getTasksAsList().contains(fitting), "Fitting should be in the queue.");
+    }
+
+    private void complete(Task task) {
+        taskQueue.removeTask(task);
+        if (task.markAsCompleted()) {
+            events.taskCompleted(task, mechanic);
+        }
+    }
+}
@@ -0,0 +1,141 @@
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Publishes a burst of task changes to one fast and one slow subscriber,
+ * once through the coalescing TaskFeed and once through a plain
+ * SubmissionPublisher with a bounded buffer. Reports how long publishing
+ * took, since a full buffer makes the publisher wait for the slowest
+ * subscriber, and how many updates each subscriber had to process. Not part
+ * of the unit test suite; run it on its own, e.g.
+ * {@code java TaskFeedBenchmark 1000000}.
+ */
+public class TaskFeedBenchmark {
+
+    // Distinct tasks the changes are spread over
+    private static final int TASKS = 200;
+
+    // Busy work per update in the slow subscriber, in nanoseconds
+    private static final long SLOW_NANOS = 20_000;
+
+    // Buffer of the SubmissionPublisher per subscriber
+    private static final int BUFFER = 256;
+
+    public static void main(String[] args) throws InterruptedException {
+        int updates = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        List<Task> tasks = new ArrayList<>(TASKS);
+        for (int i = 0; i < TASKS; i++) {
+            tasks.add(new Task("Task " + i, "PL" + i, i % 10));
+        }
+        Mechanic mechanic = new Mechanic("John", 1);
+        System.out.println(updates + " updates over " + TASKS + " tasks, slow subscriber "
+                + SLOW_NANOS / 1000 + " us per update");
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        TaskFeed feed = new TaskFeed(executor, Clock.systemUTC());
+        Counter fast = new Counter(0);
+        Counter slow = new Counter(SLOW_NANOS);
+        feed.subscribe(fast);
+        feed.subscribe(slow);
+        long started = System.nanoTime();
+        for (int i = 0; i < updates; i++) {
+            feed.taskAssigned(tasks.get(i % TASKS), mechanic);
+        }
+        long published = System.nanoTime();
+        feed.close();
+        fast.done.await(60, TimeUnit.SECONDS);
+        slow.done.await(60, TimeUnit.SECONDS);
+        System.out.printf("TaskFeed            publish %6d ms  drained %6d ms  fast got %d  slow got %d%n",
+                (published - started) / 1_000_000, (System.nanoTime() - started) / 1_000_000, fast.count.get(),
+                slow.count.get());
+
+        int bounded = Math.min(updates, 20_000); // The blocking publisher is limited by the slow subscriber
+        SubmissionPublisher<TaskUpdate> publisher = new SubmissionPublisher<>(executor, BUFFER);
+        Counter plainFast = new Counter(0);
+        Counter plainSlow = new Counter(SLOW_NANOS);
+        publisher.subscribe(plainFast);
+        publisher.subscribe(plainSlow);
+        TaskFeed source = new TaskFeed(Runnable::run, Clock.systemUTC());
+        List<TaskUpdate> prepared = new ArrayList<>(bounded);
+        source.subscribe(new Flow.Subscriber<TaskUpdate>() {
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                subscription.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(TaskUpdate update) {
+                prepared.add(update);
+            }
+
+            @Override
+            public void onError(Throwable error) {
+            }
+
+            @Override
+            public void onComplete() {
+            }
+        });
+        for (int i = 0; i < bounded; i++) {
+            source.taskAssigned(tasks.get(i % TASKS), mechanic);
+        }
+        started = System.nanoTime();
+        for (TaskUpdate update : prepared) {
+            publisher.submit(update);
+        }
+        published = System.nanoTime();
+        publisher.close();
+        plainFast.done.await(60, TimeUnit.SECONDS);
+        plainSlow.done.await(60, TimeUnit.SECONDS);
+        System.out.printf("SubmissionPublisher publish %6d ms  drained %6d ms  fast got %d  slow got %d"
+                + "  (only %d updates)%n", (published - started) / 1_000_000,
+                (System.nanoTime() - started) / 1_000_000, plainFast.count.get(), plainSlow.count.get(), bounded);
+        executor.shutdown();
+    }
+
+    // Counts updates, spending a fixed time on each, and asks for one more after each
+    private static final class Counter implements Flow.Subscriber<TaskUpdate> {
+        private final long nanosPerUpdate;
+        private final AtomicLong count = new AtomicLong();
+        private final CountDownLatch done = new CountDownLatch(1);
+        private Flow.Subscription subscription;
+
+        private Counter(long nanosPerUpdate) {
+            this.nanosPerUpdate = nanosPerUpdate;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(1);
+        }
+
+        @Override
+        public void onNext(TaskUpdate update) {
+            long until = System.nanoTime() + nanosPerUpdate;
+            while (System.nanoTime() < until) {
+                Thread.onSpinWait();
+            }
+            count.incrementAndGet();
+            subscription.request(1);
+        }
+
+        @Override
+        public void onError(Throwable error) {
+            done.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            done.countDown();
+        }
+    }
+}
@@ -0,0 +1,163 @@
+import org.junit.jupiter.api.*;
+import java.io.*;
+import java.net.*;
+import java.nio.charset.StandardCharsets;
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.Flow;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit test class for the live task feed and its server-sent events.
+ */
+public class TaskFeedTest {
+    private TaskFeed feed;
+    private Mechanic john;
+
+    /**
+     * Set up a feed delivering on the calling thread.
+     */
+    @BeforeEach
+    public void setUp() {
+        feed = new TaskFeed(Runnable::run, Clock.fixed(Instant.parse("2024-06-03T08:00:00Z"), ZoneOffset.UTC));
+        john = new Mechanic("John", 1);
+    }
+
+    /**
+     * Test case for a subscriber that does not request updates getting only
+     * the latest state of each task once it does, and for new subscribers
+     * starting from the open tasks.
+     */
+    @Test
+    public void testSlowSubscriberGetsLatestState() {
+        System.out.println("\n[TEST CASE: Slow Subscriber Gets Latest State]");
+        Recorder slow = new Recorder();
+        feed.subscribe(slow);
+        Task oil = new Task("Oil change", "ABC123", 2);
+        Task brakes = new Task("Fix brakes", "XYZ789", 5);
+        feed.taskCreated(oil);
+        feed.taskAssigned(oil, john);
+        feed.taskCreated(brakes);
+        feed.taskCompleted(oil, john);
+        assertTrue(slow.updates.isEmpty(), "Nothing should be delivered without demand.");
+
+        slow.subscription.request(10);
+        assertEquals(2, slow.updates.size(), "Coalesced update count mismatch.");
+        assertEquals(brakes, slow.updates.get(0).getTask(), "First update task mismatch.");
+        assertEquals(TaskUpdate.Kind.QUEUED, slow.updates.get(0).getKind(), "First update kind mismatch.");
+        assertEquals(TaskUpdate.Kind.COMPLETED, slow.updates.get(1).getKind(), "Latest oil update kind mismatch.");
+        assertEquals(4, slow.updates.get(1).getSequence(), "Latest oil update sequence mismatch.");
+        assertEquals("John", slow.updates.get(1).getMechanicName(), "Mechanic name mismatch.");
+        assertEquals(2, feed.coalescedCount(), "Coalesced count mismatch.");
+
+        feed.taskAssigned(brakes, john);
+        assertEquals(3, slow.updates.size(), "Live update should be delivered with demand left.");
+        assertEquals(slow.updates.get(0).getTaskId(), slow.updates.get(2).getTaskId(), "Task ID should be stable.");
+
+        Recorder late = new Recorder();
+        feed.subscribe(late);
+        late.subscription.request(Long.MAX_VALUE);
+        assertEquals(1, late.updates.size(), "New subscriber should get the open tasks only.");
+        assertEquals(TaskUpdate.Kind.ASSIGNED, late.updates.get(0).getKind(), "Open task state mismatch.");
+        assertEquals("{\"sequence\":5,\"kind\":\"ASSIGNED\",\"taskId\":" + brakes.getId()
+                + ",\"description\":\"Fix brakes\",\"vehicle\":\"XYZ789\",\"priority\":5,\"mechanicId\":1,"
+                + "\"mechanicName\":\"John\",\"time\":\"2024-06-03T08:00:00Z\"}", late.updates.get(0).toJson(),
+                "JSON mismatch.");
+    }
+
+    /**
+     * Test case for invalid requests, cancellation and closing the feed.
+     */
+    @Test
+    public void testCancelCloseAndInvalidRequest() {
+        System.out.println("\n[TEST CASE: Cancel, Close And Invalid Request]");
+        Recorder invalid = new Recorder();
+        Recorder cancelled = new Recorder();
+        Recorder slow = new Recorder();
+        feed.subscribe(invalid);
+        feed.subscribe(cancelled);
+        feed.subscribe(slow);
+        assertEquals(3, feed.subscriberCount(), "Subscriber count mismatch.");
+
+        invalid.subscription.request(0);
+        assertTrue(invalid.error instanceof IllegalArgumentException, "Non-positive request should fail.");
+        cancelled.subscription.cancel();
+        assertEquals(1, feed.subscriberCount(), "Subscriber count after cancel mismatch.");
+
+        feed.taskCreated(new Task("Wash", "ABC123", 1));
+        feed.close();
+        feed.taskCreated(new Task("Late", "ABC123", 1));
+        assertFalse(slow.completed, "Pending updates should be taken before completion.");
+        slow.subscription.request(5);
+        assertEquals(1, slow.updates.size(), "Updates after close should not be published.");
+        assertTrue(slow.completed, "Subscriber should be completed after close.");
+        assertTrue(cancelled.updates.isEmpty() && !cancelled.completed, "Cancelled subscriber should get nothing.");
+
+        Recorder afterClose = new Recorder();
+        feed.subscribe(afterClose);
+        assertTrue(afterClose.completed, "Subscribing to a closed feed should complete at once.");
+    }
+
+    /**
+     * Test case for boards receiving updates as server-sent events.
+     */
+    @Test
+    public void testServesServerSentEvents() throws IOException {
+        System.out.println("\n[TEST CASE: Serves Server-Sent Events]");
+        TaskFeed liveFeed = new TaskFeed();
+        Task oil = new Task("Oil change", "ABC123", 2);
+        liveFeed.taskCreated(oil);
+        try (TaskBoardServer server = new TaskBoardServer(liveFeed, 0)) {
+            server.start();
+            HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:" + server.getPort()
+                    + "/events").openConnection();
+            connection.setReadTimeout(5_000);
+            assertEquals(200, connection.getResponseCode(), "Response code mismatch.");
+            assertTrue(connection.getContentType().startsWith("text/event-stream"), "Content type mismatch.");
+            try (BufferedReader in = new BufferedReader(new InputStreamReader(connection.getInputStream(),
+                    StandardCharsets.UTF_8))) {
+                assertEquals("retry: 2000", in.readLine(), "Retry line mismatch.");
+                assertEquals("", in.readLine(), "Blank line after retry mismatch.");
+                assertEquals("id: 1", in.readLine(), "Open task event id mismatch.");
+                assertEquals("event: QUEUED", in.readLine(), "Open task event name mismatch.");
+                assertTrue(in.readLine().contains("\"description\":\"Oil change\""), "Open task data mismatch.");
+                assertEquals("", in.readLine(), "Blank line after event mismatch.");
+
+                liveFeed.taskAssigned(oil, john);
+                assertEquals("id: 2", in.readLine(), "Live event id mismatch.");
+                assertEquals("event: ASSIGNED", in.readLine(), "Live event name mismatch.");
+                assertTrue(in.readLine().contains("\"mechanicName\":\"John\""), "Live event data mismatch.");
+            }
+            connection.disconnect();
+        }
+    }
+
+    // Records what the feed sends; requests nothing by itself
+    private static final class Recorder implements Flow.Subscriber<TaskUpdate> {
+        private final List<TaskUpdate> updates = new ArrayList<>();
+        private Flow.Subscription subscription;
+        private Throwable error;
+        private boolean completed;
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onNext(TaskUpdate update) {
+            updates.add(update);
+        }
+
+        @Override
+        public void onError(Throwable error) {
+            this.error = error;
+        }
+
+        @Override
+        public void onComplete() {
+            completed = true;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+import org.junit.jupiter.api.*;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit test class for TaskQueue, covering priority ordering and the
+ * versioned snapshots handed out to readers.
+ */
+public class TaskQueueTest {
+    private TaskQueue taskQueue;
+
+    /**
+     * Set up an empty task queue before each test.
+     */
+    @BeforeEach
+    public void setUp() {
+        taskQueue = new TaskQueue();
+    }
+
+    /**
+     * Test case for retrieving tasks in priority order.
+     */
+    @Test
+    public void testTasksComeOutByPriority() {
+        System.out.println("\n[TEST CASE: Tasks Come Out By Priority]");
+        taskQueue.addTask(new Task("Wash", "ABC123", 1));
+        taskQueue.addTask(new Task("Fix brakes", "XYZ789", 9));
+        taskQueue.addTask(new Task("Oil change", "LMN456", 5));
+
+        assertEquals("Fix brakes", taskQueue.getNextTask().getDescription(), "First task mismatch.");
+        assertEquals("Oil change", taskQueue.getNextTask().getDescription(), "Second task mismatch.");
+        assertEquals("Wash", taskQueue.getNextTask().getDescription(), "Third task mismatch.");
+        assertNull(taskQueue.getNextTask(), "Queue should be empty.");
+    }
+
+    /**
+     * Test case for a snapshot staying unchanged while the queue is modified.
+     */
+    @Test
+    public void testSnapshotIsUnaffectedByLaterChanges() {
+        System.out.println("\n[TEST CASE: Snapshot Is Unaffected By Later Changes]");
+        Task brakes = new Task("Fix brakes", "XYZ789", 9);
+        taskQueue.addTask(brakes);
+        taskQueue.addTask(new Task("Wash", "ABC123", 1));
+
+        TaskQueueSnapshot snapshot = taskQueue.snapshot();
+        taskQueue.removeTask(brakes);
+        taskQueue.addTask(new Task("Oil change", "LMN456", 5));
+        taskQueue.addTask(new Task("Tyres", "QRS111", 3));
+
+        assertEquals(2, snapshot.size(), "Snapshot size mismatch.");
+        assertEquals("Fix brakes", snapshot.asList().get(0).getDescription(), "Snapshot head mismatch.");
+        assertEquals(3, taskQueue.getTasksAsList().size(), "Queue size mismatch.");
+        assertTrue(taskQueue.snapshot().getVersion() > snapshot.getVersion(), "Version should advance.");
+    }
+
+    /**
+     * Test case for the task list being sorted from highest to lowest priority.
+     */
+    @Test
+    public void testTasksAsListIsSortedByPriority() {
+        System.out.println("\n[TEST CASE: Tasks As List Is Sorted By Priority]");
+        int[] priorities = { 4, 8, 1, 6, 3, 9, 2, 7, 5 };
+        for (int priority : priorities) {
+            taskQueue.addTask(new Task("Task " + priority, "ABC123", priority));
+        }
+
+        List<Task> tasks = taskQueue.getTasksAsList();
+        assertEquals(priorities.length, tasks.size(), "Task count mismatch.");
+        for (int i = 1; i < tasks.size(); i++) {
+            assertTrue(tasks.get(i - 1).getPriority() >= tasks.get(i).getPriority(), "Tasks out of order.");
+        }
+    }
+
+    /**
+     * Test case for removing tasks from a heap built from ascending
+     * priorities, whose left spine is as long as the queue.
+     */
+    @Test
+    public void testRemoveFromLongLeftSpine() {
+        System.out.println("\n[TEST CASE: Remove From Long Left Spine]");
+        List<Task> tasks = new ArrayList<>();
+        for (int priority = 0; priority < 50_000; priority++) {
+            Task task = new Task("Task " + priority, "ABC123", priority);
+            tasks.add(task);
+            taskQueue.addTask(task);
+        }
+
+        assertTrue(taskQueue.removeTask(tasks.get(0)), "Deepest task should be removed.");
+        assertTrue(taskQueue.removeTask(tasks.get(25_000)), "Middle task should be removed.");
+        assertFalse(taskQueue.removeTask(tasks.get(0)), "Removed task should be gone.");
+        assertEquals(49_998, taskQueue.size(), "Queue size mismatch.");
+        assertEquals(49_999, taskQueue.getNextTask().getPriority(), "Highest priority mismatch.");
+        assertEquals(49_997, taskQueue.getTasksAsList().size(), "Listed task count mismatch.");
+    }
+
+    /**
+     * Test case for removing a task that is not in the queue.
+     */
+    @Test
+    public void testRemoveMissingTaskKeepsVersion() {
+        System.out.println("\n[TEST CASE: Remove Missing Task Keeps Version]");
+        taskQueue.addTask(new Task("Wash", "ABC123", 1));
+        long version = taskQueue.snapshot().getVersion();
+
+        taskQueue.removeTask(new Task("Wash", "ABC123", 1));
+
+        assertEquals(version, taskQueue.snapshot().getVersion(), "Version should not change.");
+        assertEquals(1, taskQueue.getTasksAsList().size(), "Queue size mismatch.");
+    }
+}
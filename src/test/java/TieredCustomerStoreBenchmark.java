@@ -0,0 +1,65 @@
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * Measures a TieredCustomerStore under a skewed lookup mix: a small share of
+ * regulars accounts for most lookups, and the rest of the customers come in
+ * about once a year. Reports the cache hit rate, the latency of lookups that
+ * go to disk and the heap used, for a few cache sizes. Not part of the unit
+ * test suite; run it on its own, e.g.
+ * {@code java TieredCustomerStoreBenchmark 500000}.
+ */
+public class TieredCustomerStoreBenchmark {
+
+    // Cache sizes to compare, as a share of all customers in percent
+    private static final int[] CACHE_PERCENTS = { 1, 5, 10 };
+
+    // Share of customers who are regulars, in percent
+    private static final int REGULAR_PERCENT = 5;
+
+    // Share of lookups made by regulars, in percent
+    private static final int REGULAR_LOOKUP_PERCENT = 80;
+
+    public static void main(String[] args) throws Exception {
+        int customers = args.length > 0 ? Integer.parseInt(args[0]) : 500_000;
+        int lookups = customers * 4;
+        Path file = Files.createTempFile("customer-store-benchmark", ".log");
+        try {
+            try (TieredCustomerStore store = new TieredCustomerStore(file, 2)) {
+                for (int id = 1; id <= customers; id++) {
+                    store.put(new Customer(id, "Customer " + id, "555-" + id, "PL" + id, "Toyota Corolla",
+                            id % 3 != 0));
+                }
+                System.out.println(customers + " customers, " + store.fileSize() / 1024 + " KiB on disk");
+            }
+            System.out.printf("%8s %9s %10s %10s %10s%n", "Cache", "Hit rate", "p50 us", "p99 us", "Heap MiB");
+            for (int percent : CACHE_PERCENTS) {
+                run(file, customers, customers * percent / 100, lookups);
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static void run(Path file, int customers, int cacheSize, int lookups) throws Exception {
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        long heapBefore = runtime.totalMemory() - runtime.freeMemory();
+        try (TieredCustomerStore store = new TieredCustomerStore(file, cacheSize)) {
+            Random random = new Random(1);
+            int regulars = customers * REGULAR_PERCENT / 100;
+            for (int i = 0; i < lookups; i++) {
+                int id = random.nextInt(100) < REGULAR_LOOKUP_PERCENT
+                        ? 1 + random.nextInt(regulars)
+                        : 1 + regulars + random.nextInt(customers - regulars);
+                store.findById(id);
+            }
+            System.gc();
+            long heap = runtime.totalMemory() - runtime.freeMemory() - heapBefore;
+            DurationSketch missLatency = store.getMissLatency();
+            System.out.printf("%8d %8.1f%% %10.1f %10.1f %10.1f%n", cacheSize, store.getHitRate() * 100,
+                    missLatency.quantile(0.5) * 1e6, missLatency.quantile(0.99) * 1e6, heap / 1048576.0);
+        }
+    }
+}
@@ -0,0 +1,156 @@
+import org.junit.jupiter.api.*;
+import java.nio.file.*;
+import java.time.LocalDate;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit test class for the W-TinyLFU cache, the customer log file and
+ * archiving customers through CustomerService into a TieredCustomerStore.
+ */
+public class TieredCustomerStoreTest {
+    private Path storeFile;
+
+    /**
+     * Pick a fresh temporary file for the store before each test.
+     */
+    @BeforeEach
+    public void setUp() throws Exception {
+        storeFile = Files.createTempFile("customer-store", ".log");
+    }
+
+    /**
+     * Delete the temporary store files after each test.
+     */
+    @AfterEach
+    public void tearDown() throws Exception {
+        Files.deleteIfExists(storeFile);
+        Files.deleteIfExists(storeFile.resolveSibling(storeFile.getFileName() + ".tmp"));
+    }
+
+    /**
+     * Test case for frequently used keys surviving a scan of one-off keys.
+     */
+    @Test
+    public void testCacheKeepsHotKeysDuringScan() {
+        System.out.println("\n[TEST CASE: Cache Keeps Hot Keys During Scan]");
+        WTinyLfuCache<Integer, String> cache = new WTinyLfuCache<>(100);
+        for (int round = 0; round < 20; round++) {
+            for (int key = 0; key < 50; key++) {
+                cache.get(key, String::valueOf);
+            }
+        }
+        for (int key = 1000; key < 11_000; key++) {
+            cache.get(key, String::valueOf); // One-off key
+            cache.get(key % 50, String::valueOf); // Regulars keep coming back
+        }
+
+        int hotCached = 0;
+        for (int key = 0; key < 50; key++) {
+            if (cache.getIfPresent(key) != null) {
+                hotCached++;
+            }
+        }
+        assertEquals(50, hotCached, "Hot keys cached after scan mismatch.");
+        assertTrue(cache.size() <= 100, "Cache should not exceed its capacity.");
+        assertEquals(10_050, cache.getMisses(), "Miss count mismatch.");
+        assertEquals(10_050, cache.getMissLatency().getCount(), "Recorded miss latency count mismatch.");
+        assertEquals(10_950, cache.getHits(), "Hit count mismatch.");
+    }
+
+    /**
+     * Test case for reopening a log, keeping the latest record of each
+     * customer and dropping a half-written record at the end.
+     */
+    @Test
+    public void testLogReopensAndDropsTornRecord() throws Exception {
+        System.out.println("\n[TEST CASE: Log Reopens And Drops Torn Record]");
+        try (CustomerLogFile log = new CustomerLogFile(storeFile)) {
+            log.write(new Customer(1, "Alice", "12345", "ABC123", "Toyota Corolla", true));
+            log.write(new Customer(2, "Bob", "67890", "XYZ789", "Honda Civic", false));
+            log.write(new Customer(1, "Alice Smith", "12345", "ABC123", "Toyota Corolla", true));
+        }
+        long intactSize = Files.size(storeFile);
+        Files.write(storeFile, new byte[] {0, 0, 0, 40, 1, 2}, StandardOpenOption.APPEND);
+
+        try (CustomerLogFile log = new CustomerLogFile(storeFile)) {
+            assertEquals(2, log.size(), "Stored customer count mismatch.");
+            assertEquals(2, log.maxId(), "Highest customer ID mismatch.");
+            assertEquals("Alice Smith", log.read(1).getName(), "Latest record should win.");
+            assertFalse(log.read(2).isRegistered(), "Registration flag mismatch.");
+            assertNull(log.read(3), "Unknown customer should not be found.");
+            assertEquals(intactSize, Files.size(storeFile), "Torn record should be truncated.");
+        }
+    }
+
+    /**
+     * Test case for compaction dropping superseded records but no customers.
+     */
+    @Test
+    public void testCompactionKeepsLatestRecords() throws Exception {
+        System.out.println("\n[TEST CASE: Compaction Keeps Latest Records]");
+        try (CustomerLogFile log = new CustomerLogFile(storeFile)) {
+            for (int version = 0; version < 10; version++) {
+                for (int id = 1; id <= 100; id++) {
+                    log.write(new Customer(id, "Customer " + id + " v" + version, "555", "PL" + id, "Ford Focus",
+                            true));
+                }
+            }
+            long before = log.fileSize();
+            log.compact();
+
+            assertEquals(log.liveBytes(), log.fileSize(), "Compacted size mismatch.");
+            assertTrue(log.fileSize() < before / 5, "Compaction should drop superseded records.");
+            assertEquals("Customer 42 v9", log.read(42).getName(), "Customer after compaction mismatch.");
+            log.write(new Customer(101, "Customer 101", "555", "PL101", "Ford Focus", true));
+        }
+        try (CustomerLogFile log = new CustomerLogFile(storeFile)) {
+            assertEquals(101, log.size(), "Stored customer count after reopen mismatch.");
+            assertEquals("Customer 7 v9", log.read(7).getName(), "Customer after reopen mismatch.");
+        }
+    }
+
+    /**
+     * Test case for archiving inactive customers and still finding them by
+     * ID, by vehicle number and in segments.
+     */
+    @Test
+    public void testArchivedCustomersAreStillFound() throws Exception {
+        System.out.println("\n[TEST CASE: Archived Customers Are Still Found]");
+        List<Customer> customers = new ArrayList<>();
+        CustomerSegmentIndex index = new CustomerSegmentIndex();
+        CustomerService service = new CustomerService(customers, new ArrayList<>(), index);
+        try (TieredCustomerStore store = new TieredCustomerStore(storeFile, 10)) {
+            service.setStore(store);
+            service.register("Alice", "12345", "ABC123", "Toyota Corolla");
+            index.recordService("ABC123", LocalDate.now().minusWeeks(2));
+            Customer yearly = service.register("Bob", "67890", "XYZ789", "Honda Civic");
+            index.recordService("XYZ789", LocalDate.now().minusYears(1));
+            service.register("Charlie", "11111", "LMN456", "Honda Jazz"); // Never serviced, stays
+
+            assertEquals(1, service.archiveNotServicedSince(LocalDate.now().minusMonths(6)), "Archived count mismatch.");
+            assertEquals(2, customers.size(), "Listed customer count mismatch.");
+            assertEquals("Bob", service.findById(yearly.getId()).getName(), "Archived customer by ID mismatch.");
+            assertEquals(yearly.getId(), service.findByVehicleNumber(" xyz789 ").getId(),
+                    "Archived customer by vehicle number mismatch.");
+            assertEquals(1, index.customers(index.withModel("Civic").and(index.notServicedSince(
+                    LocalDate.now().minusMonths(6)))).size(), "Archived customer in segment mismatch.");
+
+            Customer returning = index.recordService("XYZ789", LocalDate.now());
+            assertEquals(yearly.getId(), returning.getId(), "Returning customer mismatch.");
+            assertEquals(LocalDate.now(), store.findById(yearly.getId()).getLastServiceDate(),
+                    "Service date written back to the store mismatch.");
+        }
+
+        // A later run sees the archived customer and does not reuse their ID
+        CustomerSegmentIndex reopenedIndex = new CustomerSegmentIndex();
+        CustomerService reopened = new CustomerService(new ArrayList<>(), new ArrayList<>(), reopenedIndex);
+        try (TieredCustomerStore store = new TieredCustomerStore(storeFile, 10)) {
+            reopened.setStore(store);
+            assertEquals(1, reopenedIndex.all().cardinality(), "Indexed archived customers mismatch.");
+            assertTrue(reopened.register("Dana", "22222", "QRS111", "Toyota Yaris").getId() > 2,
+                    "New customer should not reuse an archived ID.");
+        }
+    }
+}
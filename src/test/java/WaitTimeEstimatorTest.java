@@ -0,0 +1,124 @@
+import org.junit.jupiter.api.*;
+import java.time.*;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit test class for the duration sketches and the wait-time estimates
+ * built on them.
+ */
+public class WaitTimeEstimatorTest {
+    private static final Instant NOW = Instant.parse("2024-06-03T08:00:00Z");
+
+    private TaskDurationStats stats;
+    private WaitTimeEstimator estimator;
+
+    /**
+     * Set up empty statistics and an estimator with a fixed clock.
+     */
+    @BeforeEach
+    public void setUp() {
+        stats = new TaskDurationStats();
+        estimator = new WaitTimeEstimator(stats, Clock.fixed(NOW, ZoneOffset.UTC));
+    }
+
+    /**
+     * Test case for sketch quantiles staying within their relative error.
+     */
+    @Test
+    public void testSketchQuantilesAreAccurate() {
+        System.out.println("\n[TEST CASE: Sketch Quantiles Are Accurate]");
+        DurationSketch sketch = new DurationSketch();
+        for (int i = 1; i <= 100_000; i++) {
+            sketch.record(i);
+        }
+
+        assertEquals(100_000, sketch.getCount(), "Count mismatch.");
+        assertEquals(50_000, sketch.quantile(0.5), 50_000 * 0.02, "Median out of bounds.");
+        assertEquals(99_000, sketch.quantile(0.99), 99_000 * 0.02, "p99 out of bounds.");
+    }
+
+    /**
+     * Test case for queued tasks being spread over mechanics in priority order.
+     */
+    @Test
+    public void testEstimatesFollowQueueOrder() {
+        System.out.println("\n[TEST CASE: Estimates Follow Queue Order]");
+        for (int i = 0; i < 10; i++) {
+            stats.record("oil change", 1 + i % 2, Duration.ofMinutes(30));
+            stats.record("fix brakes", 1 + i % 2, Duration.ofMinutes(120));
+        }
+        List<Mechanic> mechanics = List.of(new Mechanic("John", 1), new Mechanic("Jane", 2));
+        TaskQueue taskQueue = new TaskQueue();
+        taskQueue.addTask(new Task("Fix brakes", "ABC123", 9));
+        taskQueue.addTask(new Task("Oil change", "XYZ789", 5));
+        taskQueue.addTask(new Task("Oil change", "LMN456", 1));
+
+        List<WaitEstimate> estimates = estimator.estimate(taskQueue, mechanics);
+
+        assertEquals(3, estimates.size(), "Estimate count mismatch.");
+        LocalDateTime start = LocalDateTime.ofInstant(NOW, ZoneOffset.UTC);
+        assertEquals(start, estimates.get(0).getExpectedStart(), "First task should start now.");
+        assertEquals(start, estimates.get(1).getExpectedStart(), "Second task should use the other mechanic.");
+        assertTrue(estimates.get(2).getExpectedStart().isAfter(start), "Third task should wait.");
+        long minutes = Duration.between(estimates.get(1).getExpectedStart(),
+                estimates.get(1).getExpectedFinish()).toMinutes();
+        assertTrue(minutes > 0 && minutes < 120, "Oil change length should follow its history.");
+    }
+
+    /**
+     * Test case for a single estimate matching the estimate of the whole
+     * queue, and for assigned and completed tasks moving a mechanic's free
+     * time without a look at their history.
+     */
+    @Test
+    public void testSingleEstimateFollowsAssignments() {
+        System.out.println("\n[TEST CASE: Single Estimate Follows Assignments]");
+        for (int i = 0; i < 10; i++) {
+            stats.record("oil change", 1, Duration.ofMinutes(30));
+        }
+        Mechanic john = new Mechanic("John", 1);
+        List<Mechanic> mechanics = List.of(john);
+        TaskQueue taskQueue = new TaskQueue();
+        taskQueue.addTask(new Task("Oil change", "ABC123", 9));
+        Task last = new Task("Oil change", "XYZ789", 1);
+        taskQueue.addTask(last);
+        taskQueue.addTask(new Task("Oil change", "LMN456", 5));
+
+        WaitEstimate single = estimator.estimate(last, taskQueue, mechanics);
+        assertEquals(estimator.estimate(taskQueue, mechanics).get(2).getExpectedStart(), single.getExpectedStart(),
+                "Single estimate should match the whole queue.");
+        assertNull(estimator.estimate(new Task("Wash", "ABC123", 1), taskQueue, mechanics), "Unqueued task.");
+
+        Task assigned = taskQueue.getNextTask();
+        estimator.taskAssigned(assigned, john);
+        estimator.taskAssigned(taskQueue.getNextTask(), john);
+        LocalDateTime start = LocalDateTime.ofInstant(NOW, ZoneOffset.UTC);
+        Duration oilChange = estimator.expectedDuration(last, john);
+        assertEquals(start.plus(oilChange.multipliedBy(2)),
+                estimator.estimate(last, taskQueue, mechanics).getExpectedStart(),
+                "Assigned work should delay the queue.");
+        assigned.markAsCompleted();
+        estimator.taskCompleted(assigned, john);
+        assertEquals(start.plus(oilChange), estimator.estimate(last, taskQueue, mechanics).getExpectedStart(),
+                "Completed work should no longer delay the queue.");
+    }
+
+    /**
+     * Test case for completing a task recording its duration.
+     */
+    @Test
+    public void testCompletionIsRecorded() {
+        System.out.println("\n[TEST CASE: Completion Is Recorded]");
+        Mechanic mechanic = new Mechanic("John", 1);
+        Task task = new Task("Oil change", "ABC123", 5);
+        mechanic.assignTask(task);
+        task.markAsCompleted();
+
+        stats.recordCompletion(task, mechanic);
+
+        assertEquals(1, stats.forServiceType("oil change").getCount(), "Service type count mismatch.");
+        assertEquals(1, stats.forMechanic(1).getCount(), "Mechanic count mismatch.");
+    }
+}
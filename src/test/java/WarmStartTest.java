@@ -0,0 +1,179 @@
+import org.junit.jupiter.api.*;
+import java.nio.file.*;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit test class for saving state with GarageStateFile and restoring it in
+ * the background with WarmStart.
+ */
+public class WarmStartTest {
+    private Path stateFile;
+    private List<Customer> customers;
+    private List<Customer> unregisteredCustomers;
+    private List<Manufacturer> manufacturers;
+    private List<Mechanic> mechanics;
+    private TaskQueue taskQueue;
+
+    /**
+     * Write a small saved state to a temporary file before each test.
+     */
+    @BeforeEach
+    public void setUp() throws Exception {
+        stateFile = Files.createTempFile("garage-state", ".dat");
+        List<Customer> savedCustomers = new ArrayList<>();
+        List<Customer> savedUnregistered = new ArrayList<>();
+        for (int id = 1; id <= 1000; id++) {
+            Customer customer = new Customer(id, "Customer " + id, "555-" + id, "PL" + id, "Toyota Corolla",
+                    id % 3 != 0);
+            (customer.isRegistered() ? savedCustomers : savedUnregistered).add(customer);
+        }
+        Manufacturer toyota = new Manufacturer("Toyota");
+        toyota.addPartsSupplier(new PartsSupplier("Supplier1"));
+        Mechanic john = new Mechanic("John", 1);
+        john.assignTask(new Task("Fix brakes", "PL1", 5));
+        TaskQueue savedQueue = new TaskQueue();
+        savedQueue.addTask(new Task("Oil change", "PL2", 3));
+        Task tyres = new Task("Tyres", "PL3", 2);
+        tyres.addLineItem(LineItem.labour("Tyres", 45, 60_00));
+        tyres.addLineItem(LineItem.part("Tyre", 4, 80_00));
+        tyres.markAsCompleted();
+        john.assignTask(tyres);
+        GarageStateFile.write(stateFile, savedCustomers, savedUnregistered, List.of(toyota), List.of(john),
+                savedQueue, Map.of(john, List.of(tyres)));
+
+        customers = new ArrayList<>();
+        unregisteredCustomers = new ArrayList<>();
+        manufacturers = new ArrayList<>();
+        mechanics = new ArrayList<>();
+        taskQueue = new TaskQueue();
+    }
+
+    /**
+     * Delete the temporary state file after each test.
+     */
+    @AfterEach
+    public void tearDown() throws Exception {
+        Files.deleteIfExists(stateFile);
+    }
+
+    /**
+     * Test case for restoring every section of the saved state.
+     */
+    @Test
+    public void testRestoresAllSections() throws Exception {
+        System.out.println("\n[TEST CASE: Restores All Sections]");
+        CustomerSegmentIndex segmentIndex = new CustomerSegmentIndex();
+        WarmStart warmStart = new WarmStart(stateFile, customers, unregisteredCustomers, manufacturers, mechanics,
+                taskQueue, segmentIndex);
+        assertEquals(1000, warmStart.getMaxCustomerId(), "Highest customer ID mismatch.");
+
+        warmStart.start();
+        for (WarmStart.Section section : WarmStart.Section.values()) {
+            warmStart.await(section);
+        }
+
+        assertNull(warmStart.getFailure(), "Restore should succeed.");
+        assertEquals(667, customers.size(), "Registered customer count mismatch.");
+        assertEquals(333, unregisteredCustomers.size(), "Unregistered customer count mismatch.");
+        assertEquals("Supplier1", manufacturers.get(0).getPartsSuppliers().get(0).getName(), "Supplier mismatch.");
+        assertEquals("Fix brakes", mechanics.get(0).getAssignedTasks().get(0).getDescription(),
+                "Assigned task mismatch.");
+        assertEquals("Oil change", taskQueue.getTasksAsList().get(0).getDescription(), "Pending task mismatch.");
+        assertEquals(1000, segmentIndex.all().cardinality(), "Indexed customer count mismatch.");
+    }
+
+    /**
+     * Test case for completed tasks not yet invoiced going back into the
+     * ledger with their line items and their restored mechanic.
+     */
+    @Test
+    public void testRestoresUnbilledTasks() throws Exception {
+        System.out.println("\n[TEST CASE: Restores Unbilled Tasks]");
+        InvoiceLedger ledger = new InvoiceLedger();
+        WarmStart warmStart = new WarmStart(stateFile, customers, unregisteredCustomers, manufacturers, mechanics,
+                taskQueue, new CustomerSegmentIndex());
+        warmStart.setInvoiceLedger(ledger);
+
+        warmStart.start();
+        warmStart.await(WarmStart.Section.MECHANICS);
+        warmStart.await(WarmStart.Section.UNBILLED);
+
+        Map<Mechanic, List<Task>> unbilled = ledger.pendingTasks();
+        assertEquals(Set.of(mechanics.get(0)), unbilled.keySet(), "Unbilled tasks should belong to the restored John.");
+        Task tyres = unbilled.get(mechanics.get(0)).get(0);
+        assertEquals("Tyres", tyres.getDescription(), "Unbilled task mismatch.");
+        assertEquals("Completed", tyres.getStatus(), "Status mismatch.");
+        assertEquals(45_00 + 320_00, tyres.getLineItems().get(0).getAmountCents()
+                + tyres.getLineItems().get(1).getAmountCents(), "Line item amounts mismatch.");
+        assertEquals(2, mechanics.get(0).getAssignedTasks().get(1).getLineItems().size(),
+                "Assigned task should keep its line items.");
+    }
+
+    /**
+     * Test case for restored customers and mechanics being found through the
+     * services they were restored through.
+     */
+    @Test
+    public void testServicesFindRestoredRecords() throws Exception {
+        System.out.println("\n[TEST CASE: Services Find Restored Records]");
+        CustomerService customerService = new CustomerService(customers, unregisteredCustomers,
+                new CustomerSegmentIndex());
+        MechanicService mechanicService = new MechanicService(mechanics, taskQueue);
+        WarmStart warmStart = new WarmStart(stateFile, customers, unregisteredCustomers, manufacturers, mechanics,
+                taskQueue, new CustomerSegmentIndex());
+        warmStart.setCustomerService(customerService);
+        warmStart.setMechanicService(mechanicService);
+
+        warmStart.start();
+        warmStart.await(WarmStart.Section.CUSTOMERS);
+        warmStart.await(WarmStart.Section.MECHANICS);
+
+        assertEquals(1000, customers.size() + unregisteredCustomers.size(), "Listed customer count mismatch.");
+        assertEquals("Customer 999", customerService.findById(999).getName(), "Customer by ID mismatch.");
+        assertEquals(500, customerService.findByVehicleNumber(" pl500 ").getId(), "Customer by vehicle mismatch.");
+        assertEquals("John", mechanicService.findById(1).getName(), "Mechanic by ID mismatch.");
+        assertEquals(1001, customerService.register("Dave", "555-0000", "NEW1", "Ford Focus").getId(),
+                "New customer ID mismatch.");
+        assertEquals(2, mechanicService.addMechanic("Jane").getId(), "New mechanic ID mismatch.");
+    }
+
+    /**
+     * Test case for a single customer lookup returning the same object the
+     * lists receive later.
+     */
+    @Test
+    public void testFindCustomerReturnsCanonicalRecord() throws Exception {
+        System.out.println("\n[TEST CASE: Find Customer Returns Canonical Record]");
+        WarmStart warmStart = new WarmStart(stateFile, customers, unregisteredCustomers, manufacturers, mechanics,
+                taskQueue, new CustomerSegmentIndex());
+        warmStart.start();
+
+        Customer found = warmStart.findCustomer(999);
+        assertNotNull(found, "Customer should be found.");
+        assertEquals("PL999", found.getVehicleNumber(), "Vehicle number mismatch.");
+        assertNull(warmStart.findCustomer(5000), "Unknown customer should not be found.");
+
+        warmStart.await(WarmStart.Section.CUSTOMERS);
+        assertTrue(unregisteredCustomers.contains(found), "Looked-up customer should be the listed one.");
+    }
+
+    /**
+     * Test case for new customers being numbered after the saved ones.
+     */
+    @Test
+    public void testManagerNumbersNewCustomersAfterSavedOnes() throws Exception {
+        System.out.println("\n[TEST CASE: Manager Numbers New Customers After Saved Ones]");
+        String simulatedInput = "Alice\n12345\nABC123\nToyota Corolla\n";
+        Scanner scanner = new Scanner(new java.io.ByteArrayInputStream(simulatedInput.getBytes()));
+        ManagerModule managerModule = new ManagerModule(scanner, customers, unregisteredCustomers, manufacturers,
+                taskQueue, mechanics);
+        managerModule.setWarmStart(new WarmStart(stateFile, customers, unregisteredCustomers, manufacturers,
+                mechanics, taskQueue, new CustomerSegmentIndex()));
+
+        managerModule.registerCustomer();
+
+        assertEquals(1001, customers.get(0).getId(), "New customer ID mismatch.");
+    }
+}
@@ -0,0 +1,117 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.Supplier;
+
+/**
+ * Compares central dispatch from one TaskQueue with the WorkStealingTaskQueue
+ * at 8, 64 and 256 mechanics. Every mechanic is a thread that keeps taking
+ * tasks, does a little simulated work, and sometimes files a follow-up task,
+ * until the backlog is gone. Reports throughput and the latency of taking a
+ * task. Not part of the unit test suite; run it on its own, e.g.
+ * {@code java WorkStealingBenchmark 400000}. Results only mean something on
+ * a machine with several cores; with fewer cores than mechanics the
+ * threads mostly take turns instead of contending, so such rows are marked.
+ */
+public class WorkStealingBenchmark {
+
+    // Mechanic counts to compare
+    private static final int[] CREW_SIZES = { 8, 64, 256 };
+
+    // Simulated work per task, in busy-loop iterations
+    private static final int WORK = 200;
+
+    // One in this many tasks files a follow-up task
+    private static final int FOLLOW_UP_EVERY = 4;
+
+    public static void main(String[] args) throws InterruptedException {
+        int tasks = args.length > 0 ? Integer.parseInt(args[0]) : 400_000;
+        int cores = Runtime.getRuntime().availableProcessors();
+        System.out.println("Backlog of " + tasks + " tasks on " + cores + " cores");
+        if (cores < 2) {
+            System.out.println("Single core: the figures below measure time slicing, not contention, and are"
+                    + " no substitute for a multi-core run.");
+        }
+        // Warm up the JIT on both modes before measuring
+        run(null, TaskQueue::new, 8, tasks / 4);
+        run(null, WorkStealingTaskQueue::new, 8, tasks / 4);
+        System.out.printf("%-14s %9s %14s %10s %10s %11s%n", "Mode", "Mechanics", "Tasks/s", "p50 us", "p99 us",
+                "p99.9 us");
+        for (int crew : CREW_SIZES) {
+            run("Central", TaskQueue::new, crew, tasks);
+            run("Work stealing", WorkStealingTaskQueue::new, crew, tasks);
+        }
+    }
+
+    private static void run(String name, Supplier<TaskQueue> factory, int crewSize, int tasks)
+            throws InterruptedException {
+        TaskQueue queue = factory.get();
+        List<Mechanic> crew = new ArrayList<>();
+        for (int i = 0; i < crewSize; i++) {
+            crew.add(new Mechanic("Mechanic " + i, i + 1));
+            if (queue instanceof WorkStealingTaskQueue) {
+                ((WorkStealingTaskQueue) queue).register(crew.get(i));
+            }
+        }
+        Random random = new Random(1);
+        for (int i = 0; i < tasks; i++) {
+            queue.addTask(new Task("Service", "PL" + i, random.nextInt(10)));
+        }
+
+        DurationSketch latency = new DurationSketch();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        long[] handled = new long[crewSize];
+        for (int i = 0; i < crewSize; i++) {
+            int slot = i;
+            Mechanic mechanic = crew.get(i);
+            Thread thread = new Thread(() -> {
+                DurationSketch own = new DurationSketch();
+                long sink = 0;
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                while (true) {
+                    long before = System.nanoTime();
+                    Task task = queue.nextTaskFor(mechanic);
+                    own.record((System.nanoTime() - before) / 1e9);
+                    if (task == null) {
+                        break;
+                    }
+                    for (int w = 0; w < WORK; w++) {
+                        sink += w ^ task.getPriority();
+                    }
+                    if (++handled[slot] % FOLLOW_UP_EVERY == 0 && handled[slot] < tasks / crewSize) {
+                        queue.addTask(new Task("Follow-up", task.getVehicleDetails(), task.getPriority()));
+                    }
+                }
+                if (sink == 42) {
+                    System.out.print(""); // Keep the simulated work from being optimized away
+                }
+                latency.merge(own);
+            });
+            threads.add(thread);
+            thread.start();
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        double seconds = (System.nanoTime() - begin) / 1e9;
+        long total = 0;
+        for (long count : handled) {
+            total += count;
+        }
+        if (name == null) {
+            return;
+        }
+        System.out.printf("%-14s %9d %14.0f %10.2f %10.2f %11.2f%s%n", name, crewSize, total / seconds,
+                latency.quantile(0.5) * 1e6, latency.quantile(0.99) * 1e6, latency.quantile(0.999) * 1e6,
+                crewSize > Runtime.getRuntime().availableProcessors() ? "  (more mechanics than cores)" : "");
+    }
+}
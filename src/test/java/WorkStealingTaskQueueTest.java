@@ -0,0 +1,139 @@
+import org.junit.jupiter.api.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit test class for the work-stealing task queue.
+ */
+public class WorkStealingTaskQueueTest {
+    private WorkStealingTaskQueue taskQueue;
+    private Mechanic alice;
+    private Mechanic bob;
+    private Mechanic carol;
+
+    /**
+     * Set up an empty queue and three registered mechanics.
+     */
+    @BeforeEach
+    public void setUp() {
+        taskQueue = new WorkStealingTaskQueue();
+        alice = new Mechanic("Alice", 1);
+        bob = new Mechanic("Bob", 2);
+        carol = new Mechanic("Carol", 3);
+        taskQueue.register(alice);
+        taskQueue.register(bob);
+        taskQueue.register(carol);
+    }
+
+    /**
+     * Test case for a mechanic taking their own tasks by priority, oldest
+     * first within a priority.
+     */
+    @Test
+    public void testOwnerTakesByPriorityThenAge() {
+        System.out.println("\n[TEST CASE: Owner Takes By Priority Then Age]");
+        Task wash = new Task("Wash", "AB1", 1);
+        Task brakes = new Task("Brakes", "AB2", 5);
+        Task oil = new Task("Oil change", "AB3", 5);
+        taskQueue.addTask(wash, alice);
+        taskQueue.addTask(brakes, alice);
+        taskQueue.addTask(oil, alice);
+
+        assertSame(brakes, taskQueue.nextTaskFor(alice), "First task mismatch.");
+        assertSame(oil, taskQueue.nextTaskFor(alice), "Second task mismatch.");
+        assertSame(wash, taskQueue.nextTaskFor(alice), "Third task mismatch.");
+        assertNull(taskQueue.nextTaskFor(alice), "Queue should be empty.");
+        assertTrue(taskQueue.isEmpty(), "Queue should report empty.");
+    }
+
+    /**
+     * Test case for an idle mechanic stealing the most urgent waiting work
+     * from the tail of a peer's deque.
+     */
+    @Test
+    public void testIdleMechanicStealsUrgentWork() {
+        System.out.println("\n[TEST CASE: Idle Mechanic Steals Urgent Work]");
+        Task tyresOld = new Task("Tyres", "AB1", 3);
+        Task tyresNew = new Task("Tyres", "AB2", 3);
+        Task wash = new Task("Wash", "AB3", 1);
+        taskQueue.addTask(tyresOld, alice);
+        taskQueue.addTask(tyresNew, alice);
+        for (int i = 0; i < 5; i++) {
+            taskQueue.addTask(new Task("Wash", "CD" + i, 1), bob);
+        }
+        taskQueue.addTask(wash, bob);
+
+        assertSame(tyresNew, taskQueue.nextTaskFor(carol), "Stolen task mismatch.");
+        assertSame(tyresOld, taskQueue.nextTaskFor(alice), "Owner should keep the oldest task.");
+        assertEquals(6, taskQueue.queuedFor(bob), "Bob's deque size mismatch.");
+        assertEquals(6, taskQueue.size(), "Queue size mismatch.");
+    }
+
+    /**
+     * Test case for the queue-wide view over all deques.
+     */
+    @Test
+    public void testSnapshotAndRemoveSpanAllDeques() {
+        System.out.println("\n[TEST CASE: Snapshot And Remove Span All Deques]");
+        Task low = new Task("Wash", "AB1", 1);
+        Task high = new Task("Brakes", "AB2", 9);
+        Task middle = new Task("Oil change", "AB3", 4);
+        taskQueue.addTask(low, alice);
+        taskQueue.addTask(high, bob);
+        taskQueue.addTask(middle);
+
+        assertEquals(List.of(high, middle, low), taskQueue.getTasksAsList(), "Task list mismatch.");
+        assertTrue(taskQueue.removeTask(middle), "Queued task should be removed.");
+        assertFalse(taskQueue.removeTask(middle), "Removed task should not be removed twice.");
+        assertSame(high, taskQueue.getNextTask(), "Highest-priority task mismatch.");
+        assertEquals(1, taskQueue.size(), "Queue size mismatch.");
+    }
+
+    /**
+     * Test case for every task being handed out exactly once when many
+     * mechanics take and steal work at the same time.
+     */
+    @Test
+    public void testConcurrentDrainHandsOutEachTaskOnce() throws Exception {
+        System.out.println("\n[TEST CASE: Concurrent Drain Hands Out Each Task Once]");
+        int mechanics = 8;
+        int tasks = 50_000;
+        WorkStealingTaskQueue queue = new WorkStealingTaskQueue();
+        List<Mechanic> crew = new ArrayList<>();
+        for (int i = 0; i < mechanics; i++) {
+            crew.add(new Mechanic("Mechanic " + i, i));
+            queue.register(crew.get(i));
+        }
+        for (int i = 0; i < tasks; i++) {
+            // Uneven load: everything starts on the first two deques
+            queue.addTask(new Task("Task " + i, "V" + i, i % 7), crew.get(i % 2));
+        }
+
+        Set<Task> taken = ConcurrentHashMap.newKeySet();
+        ExecutorService pool = Executors.newFixedThreadPool(mechanics);
+        try {
+            List<Future<Integer>> counts = new ArrayList<>();
+            for (Mechanic mechanic : crew) {
+                counts.add(pool.submit(() -> {
+                    int count = 0;
+                    Task task;
+                    while ((task = queue.nextTaskFor(mechanic)) != null) {
+                        assertTrue(taken.add(task), "Task handed out twice.");
+                        count++;
+                    }
+                    return count;
+                }));
+            }
+            int total = 0;
+            for (Future<Integer> count : counts) {
+                total += count.get(30, TimeUnit.SECONDS);
+            }
+            assertEquals(tasks, total, "Handed-out task count mismatch.");
+        } finally {
+            pool.shutdownNow();
+        }
+        assertTrue(queue.isEmpty(), "Queue should be empty.");
+    }
+}
@@ -0,0 +1,73 @@
+import org.junit.jupiter.api.*;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit test class for the WorkloadSimulator.
+ */
+public class WorkloadSimulatorTest {
+
+    /**
+     * Test case for a simulation accounting for every task and measuring
+     * every operation it ran.
+     */
+    @Test
+    public void testReportAccountsForEveryTask() {
+        System.out.println("\n[TEST CASE: Report Accounts For Every Task]");
+        WorkloadSimulator simulator = new WorkloadSimulator(7);
+        simulator.setLength(Duration.ofHours(8));
+        simulator.setMechanicCount(3);
+        simulator.setPartRequests(0.5, 30);
+        AtomicInteger partChecks = new AtomicInteger();
+        StubSupplierClient suppliers = new StubSupplierClient(2, 0);
+        simulator.setSupplierClient((supplier, part) -> {
+            partChecks.incrementAndGet();
+            return suppliers.checkAvailability(supplier, part);
+        });
+        WorkloadSimulator.Report report = simulator.run();
+
+        long taken = report.getLatency(WorkloadSimulator.Operation.TAKE_TASK).getCount();
+        List<Integer> depths = report.getQueueDepths();
+        assertEquals(8 * 4 + 1, depths.size(), "Queue depth sample count mismatch.");
+        assertEquals(report.getTasksCreated() - taken, (long) depths.get(depths.size() - 1),
+                "Tasks neither taken nor queued.");
+        assertTrue(taken - report.getTasksCompleted() <= 3, "More tasks in progress than mechanics.");
+        assertEquals(report.getTasksCreated(), report.getLatency(WorkloadSimulator.Operation.CREATE_TASK).getCount(),
+                "Create task measurement count mismatch.");
+        assertEquals(report.getTasksCompleted(), report.getTurnarounds().getCount(), "Turnaround count mismatch.");
+        assertEquals(report.getPartRequests(), report.getLatency(WorkloadSimulator.Operation.REQUEST_PART).getCount(),
+                "Part request measurement count mismatch.");
+        assertTrue(partChecks.get() >= report.getPartRequests(), "Part requests should ask the suppliers.");
+        assertTrue(report.getPartsUnavailable() < report.getPartRequests(), "Some parts should be available.");
+        assertTrue(report.getTasksCompleted() > 0, "Some tasks should be completed.");
+    }
+
+    /**
+     * Test case for equal seeds giving equal simulations and an overloaded
+     * shop building up a queue.
+     */
+    @Test
+    public void testSeededRunsRepeatAndOverloadBuildsQueue() {
+        System.out.println("\n[TEST CASE: Seeded Runs Repeat And Overload Builds Queue]");
+        WorkloadSimulator.Report first = overloaded(42).run();
+        WorkloadSimulator.Report second = overloaded(42).run();
+
+        assertEquals(first.getTasksCreated(), second.getTasksCreated(), "Created task count mismatch.");
+        assertEquals(first.getTasksCompleted(), second.getTasksCompleted(), "Completed task count mismatch.");
+        assertEquals(first.getQueueDepths(), second.getQueueDepths(), "Queue depth samples mismatch.");
+        List<Integer> depths = first.getQueueDepths();
+        assertTrue(depths.get(depths.size() - 1) > 50, "Queue should build up when tasks outpace mechanics.");
+    }
+
+    // Twenty tasks an hour for two mechanics who manage about two
+    private static WorkloadSimulator overloaded(long seed) {
+        WorkloadSimulator simulator = new WorkloadSimulator(seed);
+        simulator.setLength(Duration.ofHours(12));
+        simulator.setTasksPerHour(20);
+        simulator.setMechanicCount(2);
+        return simulator;
+    }
+}